@@ -11,8 +11,13 @@
 package org.eclipse.jdt.core.groovy.tests.builder;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Hashtable;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.StringTokenizer;
 
 import junit.framework.Test;
@@ -27,7 +32,14 @@ import org.codehaus.groovy.ast.PropertyNode;
 import org.codehaus.groovy.ast.expr.ConstructorCallExpression;
 import org.codehaus.groovy.ast.expr.Expression;
 import org.codehaus.groovy.ast.stmt.ReturnStatement;
+import org.codehaus.groovy.control.CompilationUnit;
+import org.codehaus.groovy.control.Phases;
+import org.codehaus.groovy.control.SourceUnit;
+import org.codehaus.groovy.tools.GroovyClass;
 import org.codehaus.groovy.vmplugin.VMPluginFactory;
+import org.codehaus.jdt.groovy.internal.compiler.ast.GroovyCompilationUnitDeclaration;
+import org.codehaus.jdt.groovy.internal.compiler.ast.GroovyParser;
+import org.codehaus.jdt.groovy.internal.compiler.ast.IGroovyDebugRequestor;
 import org.codehaus.jdt.groovy.internal.compiler.ast.JDTClassNode;
 import org.codehaus.jdt.groovy.internal.compiler.ast.JDTResolver;
 import org.codehaus.jdt.groovy.model.GroovyCompilationUnit;
@@ -2583,6 +2595,234 @@ public class BasicGroovyBuildTests extends GroovierBuilderTests {
 		}
 	}
 
+	/**
+	 * Writes down the groovy units that each groovy compilation of a build parses, that is one list for each group that is
+	 * compiled (and for each time it is compiled again)
+	 */
+	private static class GroupRecorder implements IGroovyDebugRequestor {
+		private final Map<CompilationUnit, List<String>> groups = new LinkedHashMap<CompilationUnit, List<String>>();
+
+		public synchronized void acceptCompilationUnitDeclaration(GroovyCompilationUnitDeclaration gcuDeclaration) {
+			List<String> group = groups.get(gcuDeclaration.getCompilationUnit());
+			if (group == null) {
+				group = new ArrayList<String>();
+				groups.put(gcuDeclaration.getCompilationUnit(), group);
+			}
+			String fileName = new String(gcuDeclaration.getFileName());
+			group.add(fileName.substring(fileName.indexOf("/src/") + 5, fileName.lastIndexOf('.')));
+		}
+
+		/**
+		 * @return the groups in the order they were compiled, each with its units in alphabetical order
+		 */
+		synchronized List<List<String>> getGroups() {
+			List<List<String>> sorted = new ArrayList<List<String>>();
+			for (List<String> group : groups.values()) {
+				List<String> units = new ArrayList<String>(group);
+				Collections.sort(units);
+				sorted.add(units);
+			}
+			return sorted;
+		}
+	}
+
+	private GroupRecorder fullBuildRecordingGroups(IPath projectPath) {
+		GroupRecorder recorder = new GroupRecorder();
+		GroovyParser.debugRequestor = recorder;
+		try {
+			fullBuild(projectPath);
+		} finally {
+			GroovyParser.debugRequestor = null;
+		}
+		return recorder;
+	}
+
+	public void testLargeProjectsFaultInGroovyUnitsOfLaterGroups() throws Exception {
+		IPath projectPath = env.addProject("Project"); //$NON-NLS-1$
+		env.addExternalJars(projectPath, Util.getJavaClassLibs());
+		env.addGroovyJars(projectPath);
+		fullBuild(projectPath);
+
+		env.removePackageFragmentRoot(projectPath, ""); //$NON-NLS-1$
+
+		IPath root = env.addPackageFragmentRoot(projectPath, "src"); //$NON-NLS-1$
+		env.setOutputFolder(projectPath, "bin"); //$NON-NLS-1$
+
+		int max = AbstractImageBuilder.MAX_AT_ONCE;
+		try {
+			AbstractImageBuilder.MAX_AT_ONCE = 2;
+
+			// each type refers to types that are only compiled in later groups, in the different ways groovy can refer to them
+			env.addGroovyClass(root, "p1", "A", "package p1;\n"
+					+ "class A {\n"
+					+ "  static void main(String[] argv) { print new B().m() + C.VALUE + D.make().name + E.class.simpleName }\n"
+					+ "}\n");
+			env.addGroovyClass(root, "p1", "B", "package p1;\n"
+					+ "class B extends F {\n"
+					+ "  String m() { 'b' }\n"
+					+ "}\n");
+			env.addGroovyClass(root, "p1", "C", "package p1;\n"
+					+ "class C {\n"
+					+ "  static String VALUE = p2.G.VALUE\n"
+					+ "}\n");
+			env.addGroovyClass(root, "p1", "D", "package p1;\n"
+					+ "class D {\n"
+					+ "  String name = 'd'\n"
+					+ "  static D make() { List<H> list = []; new D() }\n"
+					+ "}\n");
+			env.addClass(root, "p1", "E", "package p1;\n"
+					+ "public class E extends F {\n"
+					+ "}\n");
+			env.addGroovyClass(root, "p1", "F", "package p1;\n"
+					+ "class F {\n"
+					+ "}\n");
+			env.addGroovyClass(root, "p2", "G", "package p2;\n"
+					+ "class G {\n"
+					+ "  static String VALUE = 'c'\n"
+					+ "}\n");
+			env.addGroovyClass(root, "p1", "H", "package p1;\n"
+					+ "class H {\n"
+					+ "}\n");
+
+			GroupRecorder recorder = fullBuildRecordingGroups(projectPath);
+			expectingNoProblems();
+			expectingCompiledClassesV("p1.A", "p1.B", "p1.C", "p1.D", "p1.E", "p1.F", "p2.G", "p1.H");
+			executeClass(projectPath, "p1.A", "bcdE", "");
+			// the faulting in is transitive, so the first group takes on every groovy unit it refers to, directly or not
+			assertEquals("[[p1/A, p1/B, p1/C, p1/D, p1/F, p1/H, p2/G]]", recorder.getGroups().toString());
+		} finally {
+			AbstractImageBuilder.MAX_AT_ONCE = max;
+		}
+	}
+
+	public void testLargeProjectsKeepIndependentGroupsApart() throws Exception {
+		IPath projectPath = env.addProject("Project"); //$NON-NLS-1$
+		env.addExternalJars(projectPath, Util.getJavaClassLibs());
+		env.addGroovyJars(projectPath);
+		fullBuild(projectPath);
+
+		env.removePackageFragmentRoot(projectPath, ""); //$NON-NLS-1$
+
+		IPath root = env.addPackageFragmentRoot(projectPath, "src"); //$NON-NLS-1$
+		env.setOutputFolder(projectPath, "bin"); //$NON-NLS-1$
+
+		int max = AbstractImageBuilder.MAX_AT_ONCE;
+		try {
+			AbstractImageBuilder.MAX_AT_ONCE = 2;
+
+			env.addGroovyClass(root, "p1", "A", "package p1;\n"
+					+ "class A {\n"
+					+ "  static void main(String[] argv) { print new B().name }\n"
+					+ "}\n");
+			env.addGroovyClass(root, "p1", "B", "package p1;\n"
+					+ "class B {\n"
+					+ "  String name = 'b'\n"
+					+ "}\n");
+			env.addGroovyClass(root, "p2", "C", "package p2;\n"
+					+ "class C {\n"
+					+ "  static void main(String[] argv) { print new D().name }\n"
+					+ "}\n");
+			env.addGroovyClass(root, "p2", "D", "package p2;\n"
+					+ "class D {\n"
+					+ "  String name = 'd'\n"
+					+ "}\n");
+
+			GroupRecorder recorder = fullBuildRecordingGroups(projectPath);
+			expectingNoProblems();
+			executeClass(projectPath, "p1.A", "b", "");
+			executeClass(projectPath, "p2.C", "d", "");
+			// the second group is not referred to by the first one, so it stays a group of its own
+			assertEquals("[[p1/A, p1/B], [p2/C, p2/D]]", recorder.getGroups().toString());
+		} finally {
+			AbstractImageBuilder.MAX_AT_ONCE = max;
+		}
+	}
+
+	public void testLargeProjectsJavaReferenceToGroovyUnitOfLaterGroup() throws Exception {
+		IPath projectPath = env.addProject("Project"); //$NON-NLS-1$
+		env.addExternalJars(projectPath, Util.getJavaClassLibs());
+		env.addGroovyJars(projectPath);
+		fullBuild(projectPath);
+
+		env.removePackageFragmentRoot(projectPath, ""); //$NON-NLS-1$
+
+		IPath root = env.addPackageFragmentRoot(projectPath, "src"); //$NON-NLS-1$
+		env.setOutputFolder(projectPath, "bin"); //$NON-NLS-1$
+
+		int max = AbstractImageBuilder.MAX_AT_ONCE;
+		try {
+			AbstractImageBuilder.MAX_AT_ONCE = 2;
+
+			// the method body of B is only looked at after the groovy compilation of the first group got past parsing
+			env.addGroovyClass(root, "p1", "A", "package p1;\n"
+					+ "class A {\n"
+					+ "  static void main(String[] argv) { print new B().m() }\n"
+					+ "}\n");
+			env.addClass(root, "p1", "B", "package p1;\n"
+					+ "public class B {\n"
+					+ "  public String m() { return new p2.Z().toString(); }\n"
+					+ "}\n");
+			env.addGroovyClass(root, "p2", "Y", "package p2;\n"
+					+ "class Y {\n"
+					+ "}\n");
+			env.addGroovyClass(root, "p2", "Z", "package p2;\n"
+					+ "class Z extends Y {\n"
+					+ "  String toString() { 'z' }\n"
+					+ "}\n");
+
+			GroupRecorder recorder = fullBuildRecordingGroups(projectPath);
+			expectingNoProblems();
+			expectingCompiledClassesV("p1.A", "p1.B", "p2.Y", "p2.Z");
+			executeClass(projectPath, "p1.A", "z", "");
+			// B is compiled again together with Z, which takes on Y
+			assertEquals("[[p1/A], [p2/Y, p2/Z]]", recorder.getGroups().toString());
+		} finally {
+			AbstractImageBuilder.MAX_AT_ONCE = max;
+		}
+	}
+
+	public void testLargeProjectsReferenceNotSeenBeforeResolution() throws Exception {
+		IPath projectPath = env.addProject("Project"); //$NON-NLS-1$
+		env.addExternalJars(projectPath, Util.getJavaClassLibs());
+		env.addGroovyJars(projectPath);
+		fullBuild(projectPath);
+
+		env.removePackageFragmentRoot(projectPath, ""); //$NON-NLS-1$
+
+		IPath root = env.addPackageFragmentRoot(projectPath, "src"); //$NON-NLS-1$
+		env.setOutputFolder(projectPath, "bin"); //$NON-NLS-1$
+
+		int max = AbstractImageBuilder.MAX_AT_ONCE;
+		try {
+			AbstractImageBuilder.MAX_AT_ONCE = 2;
+
+			// the type arguments of a method call are not looked up before groovy resolves them
+			env.addGroovyClass(root, "p1", "A", "package p1;\n"
+					+ "class A {\n"
+					+ "  static void main(String[] argv) { print java.util.Collections.<K>emptyList().size() + new B().name }\n"
+					+ "}\n");
+			env.addGroovyClass(root, "p1", "B", "package p1;\n"
+					+ "class B {\n"
+					+ "  String name = 'b'\n"
+					+ "}\n");
+			env.addGroovyClass(root, "p1", "C", "package p1;\n"
+					+ "class C {\n"
+					+ "}\n");
+			env.addGroovyClass(root, "p1", "K", "package p1;\n"
+					+ "class K {\n"
+					+ "}\n");
+
+			GroupRecorder recorder = fullBuildRecordingGroups(projectPath);
+			expectingNoProblems();
+			expectingCompiledClassesV("p1.A", "p1.B", "p1.C", "p1.K");
+			executeClass(projectPath, "p1.A", "0b", "");
+			// the first group is compiled again with K, and C is left for the next group
+			assertEquals("[[p1/A, p1/B], [p1/A, p1/B, p1/K], [p1/C]]", recorder.getGroups().toString());
+		} finally {
+			AbstractImageBuilder.MAX_AT_ONCE = max;
+		}
+	}
+
 	public void testIncrementalCompilationTheBasics() throws Exception {
 		IPath projectPath = env.addProject("Project"); //$NON-NLS-1$
 		env.addExternalJars(projectPath, Util.getJavaClassLibs());
@@ -4211,4 +4451,122 @@ public class BasicGroovyBuildTests extends GroovierBuilderTests {
 	// "Hello world\r\n", "");
 	// }
 
+	/**
+	 * Each source unit only records the classes generated from it, including
+	 * the classes of closures and of types declared in another package.
+	 */
+	public void testGeneratedClassesBySourceUnit() throws Exception {
+		CompilationUnit unit = new CompilationUnit();
+		SourceUnit one = unit.addSource("One.groovy", "package p\n"
+				+ "class One {\n"
+				+ "  def run() { [1, 2].each { println it } }\n"
+				+ "  static class Inner { }\n"
+				+ "}\n"
+				+ "class Extra { }\n");
+		SourceUnit two = unit.addSource("Two.groovy", "package q\n"
+				+ "class Two { }\n");
+		SourceUnit three = unit.addSource("Three.groovy", "package r\n"
+				+ "interface Three { }\n");
+		unit.compile(Phases.CLASS_GENERATION);
+
+		assertEquals(Arrays.asList("p.Extra", "p.One", "p.One$Inner", "p.One$_run_closure1"), classNames(unit.getClasses(one)));
+		assertEquals(Arrays.asList("q.Two"), classNames(unit.getClasses(two)));
+		assertEquals(Arrays.asList("r.Three"), classNames(unit.getClasses(three)));
+		SourceUnit notCompiled = new SourceUnit("Four.groovy", "class Four { }", unit.getConfiguration(), null, null);
+		assertTrue(unit.getClasses(notCompiled).isEmpty());
+
+		List<GroovyClass> all = new ArrayList<GroovyClass>();
+		for (SourceUnit source : Arrays.asList(one, two, three)) {
+			for (GroovyClass clazz : unit.getClasses(source)) {
+				assertSame(source, clazz.getSourceUnit());
+				all.add(clazz);
+			}
+		}
+		assertEquals(classNames(unit.getClasses()), classNames(all));
+	}
+
+	/**
+	 * The types needed for stack map frames are looked up in the scope of the unit
+	 * being generated; the class files must be the same as when those types are
+	 * loaded through the transform loader.
+	 */
+	public void testStackMapFramesWithoutTransformLoader() throws Exception {
+		if (GroovyUtils.GROOVY_LEVEL < 21) {
+			// 2.0 only computes frames for invokedynamic
+			return;
+		}
+		IPath libPath = env.addProject("Lib");
+		env.addExternalJars(libPath, Util.getJavaClassLibs());
+		fullBuild(libPath);
+		env.removePackageFragmentRoot(libPath, "");
+		IPath libRoot = env.addPackageFragmentRoot(libPath, "src");
+		env.setOutputFolder(libPath, "bin");
+		env.addClass(libRoot, "p", "Base", "package p;\npublic class Base {}\n");
+		env.addClass(libRoot, "p", "One", "package p;\npublic class One extends Base {}\n");
+		env.addClass(libRoot, "p", "Two", "package p;\npublic class Two extends Base {}\n");
+
+		IPath projectPath = env.addProject("Project");
+		env.addExternalJars(projectPath, Util.getJavaClassLibs());
+		env.addGroovyJars(projectPath);
+		fullBuild(projectPath);
+		env.removePackageFragmentRoot(projectPath, "");
+		IPath root = env.addPackageFragmentRoot(projectPath, "src");
+		env.setOutputFolder(projectPath, "bin");
+		env.addRequiredProject(projectPath, libPath);
+		env.addGroovyClass(root, "q", "Chooser", "package q\n"
+				+ "import groovy.transform.CompileStatic\n"
+				+ "@CompileStatic\n"
+				+ "class Chooser {\n"
+				+ "  p.Base choose(boolean b) {\n"
+				+ "    def x = b ? new p.One() : new p.Two()\n"
+				+ "    List l = b ? new ArrayList() : new LinkedList()\n"
+				+ "    return x\n"
+				+ "  }\n"
+				+ "}\n");
+		IFile classFile = env.getWorkspace().getRoot().getFile(env.getOutputLocation(projectPath).append("q/Chooser.class"));
+
+		String oldTarget = System.getProperty("groovy.target.bytecode");
+		System.setProperty("groovy.target.bytecode", "1.7");
+		try {
+			JDTResolver.recordInstances = true;
+			JDTResolver.instances = null;
+			fullBuild(libPath);
+			fullBuild(projectPath);
+			expectingNoProblems();
+			byte[] fromScope = org.eclipse.jdt.internal.core.util.Util.getResourceContentsAsByteArray(classFile);
+			int found = 0;
+			for (JDTResolver resolver : JDTResolver.instances) {
+				found += resolver.getFrameTypesFound();
+				assertEquals("No frame type should be left to the transform loader", 0, resolver.getFrameTypesNotFound());
+			}
+			assertTrue("Expected frame types to be looked up", found > 0);
+
+			JDTResolver.findFramesThroughScope = false;
+			fullBuild(projectPath);
+			expectingNoProblems();
+			byte[] fromLoader = org.eclipse.jdt.internal.core.util.Util.getResourceContentsAsByteArray(classFile);
+			assertTrue("Class files differ", Arrays.equals(fromLoader, fromScope));
+		} finally {
+			JDTResolver.findFramesThroughScope = true;
+			JDTResolver.recordInstances = false;
+			JDTResolver.instances = null;
+			if (oldTarget == null) {
+				System.clearProperty("groovy.target.bytecode");
+			} else {
+				System.setProperty("groovy.target.bytecode", oldTarget);
+			}
+		}
+	}
+
+	/**
+	 * @return the sorted names of the given classes
+	 */
+	private static List<String> classNames(List<GroovyClass> classes) {
+		List<String> names = new ArrayList<String>();
+		for (GroovyClass clazz : classes) {
+			names.add(clazz.getName());
+		}
+		Collections.sort(names);
+		return names;
+	}
 }
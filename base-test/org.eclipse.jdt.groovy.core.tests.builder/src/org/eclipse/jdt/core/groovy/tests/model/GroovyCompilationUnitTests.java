@@ -11,12 +11,19 @@
 
 package org.eclipse.jdt.core.groovy.tests.model;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 import junit.framework.Test;
 
 import org.codehaus.groovy.ast.ModuleNode;
+import org.codehaus.jdt.groovy.internal.compiler.ast.GroovyCompilationUnitDeclaration;
+import org.codehaus.jdt.groovy.internal.compiler.ast.GroovyParser;
+import org.codehaus.jdt.groovy.internal.compiler.ast.IGroovyDebugRequestor;
 import org.codehaus.jdt.groovy.model.GroovyCompilationUnit;
 import org.codehaus.jdt.groovy.model.ModuleNodeMapper;
 import org.eclipse.core.resources.IFile;
@@ -30,6 +37,7 @@ import org.eclipse.jdt.core.IJavaElement;
 import org.eclipse.jdt.core.IMemberValuePair;
 import org.eclipse.jdt.core.IMethod;
 import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.ITypeHierarchy;
 import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jdt.core.JavaModelException;
 import org.eclipse.jdt.core.dom.AST;
@@ -709,6 +717,105 @@ public class GroovyCompilationUnitTests extends AbstractGroovyTypeRootTests {
         }
 	}
     
+    // the hierarchy built from the element infos of open units must be the one built by parsing them
+    public void testTypeHierarchyFromElementInfos() throws Exception {
+        IPath root = createAnnotationGroovyProject();
+        env.addGroovyClass(root, "p", "Base",
+                "package p\n" +
+                "abstract class Base implements Comparable { }\n");
+        env.addGroovyClass(root, "p", "Sub",
+                "package p\n" +
+                "import java.util.concurrent.Callable\n" +
+                "@Anno2\n" +
+                "class Sub extends Base implements Callable {\n" +
+                "  int compareTo(o) { 0 }\n" +
+                "  def call() { }\n" +
+                "  static class Inner extends Sub { }\n" +
+                "}\n");
+        env.addGroovyClass(root, "q", "Other",
+                "package q\n" +
+                "import p.*\n" +
+                "class Other extends Sub implements Serializable { }\n");
+        env.addGroovyClass(root, "q", "Script",
+                "package q\n" +
+                "println 'hello'\n" +
+                "class InScript extends p.Base { int compareTo(o) { 1 } }\n");
+        incrementalBuild();
+        env.waitForAutoBuild();
+        expectingNoProblems();
+
+        String[] paths = { "Project/src/p/Base.groovy", "Project/src/p/Sub.groovy", "Project/src/q/Other.groovy",
+                "Project/src/q/Script.groovy" };
+        ICompilationUnit[] units = new ICompilationUnit[paths.length];
+        for (int i = 0; i < paths.length; i++) {
+            units[i] = JavaCore.createCompilationUnitFrom(getFile(paths[i]));
+            units[i].close();
+        }
+        IType base = units[0].getType("Base");
+        IType script = units[3].getType("Script");
+        ParseRecorder recorder = new ParseRecorder();
+        GroovyParser.debugRequestor = recorder;
+        String parsed, scriptParsed, fromElementInfos, scriptFromElementInfos;
+        try {
+            parsed = describe(base.newTypeHierarchy(null));
+            scriptParsed = describe(script.newSupertypeHierarchy(null));
+            // closed units are parsed, there are no element infos to convert
+            assertTrue(recorder.parsed.toString(), recorder.parsed.containsAll(Arrays.asList(paths)));
+
+            for (ICompilationUnit unit : units) {
+                unit.open(null);
+            }
+            recorder.parsed.clear();
+            fromElementInfos = describe(base.newTypeHierarchy(null));
+            scriptFromElementInfos = describe(script.newSupertypeHierarchy(null));
+            assertEquals("Open units should not be parsed", "[]", recorder.parsed.toString());
+        } finally {
+            GroovyParser.debugRequestor = null;
+        }
+
+        assertEquals(parsed, fromElementInfos);
+        assertTrue(fromElementInfos, fromElementInfos.contains("p.Sub extends p.Base implements [java.util.concurrent.Callable"));
+        assertTrue(fromElementInfos, fromElementInfos.contains("p.Sub$Inner extends p.Sub"));
+        assertTrue(fromElementInfos, fromElementInfos.contains("q.Other extends p.Sub implements [java.io.Serializable"));
+        assertTrue(fromElementInfos, fromElementInfos.contains("q.InScript extends p.Base"));
+
+        assertEquals(scriptParsed, scriptFromElementInfos);
+        assertTrue(scriptFromElementInfos, scriptFromElementInfos.contains("q.Script extends groovy.lang.Script"));
+    }
+
+    /**
+     * Writes down the units that get a groovy parse
+     */
+    private static class ParseRecorder implements IGroovyDebugRequestor {
+        final List<String> parsed = new ArrayList<String>();
+
+        public void acceptCompilationUnitDeclaration(GroovyCompilationUnitDeclaration gcuDeclaration) {
+            String fileName = new String(gcuDeclaration.getFileName());
+            synchronized (parsed) {
+                parsed.add(fileName.startsWith("/") ? fileName.substring(1) : fileName);
+            }
+        }
+    }
+
+    private String describe(ITypeHierarchy hierarchy) {
+        Map<String, String> types = new TreeMap<String, String>();
+        for (IType type : hierarchy.getAllTypes()) {
+            IType superclass = hierarchy.getSuperclass(type);
+            List<String> superInterfaces = new ArrayList<String>();
+            for (IType superInterface : hierarchy.getSuperInterfaces(type)) {
+                superInterfaces.add(superInterface.getFullyQualifiedName());
+            }
+            types.put(type.getFullyQualifiedName(), type.getFullyQualifiedName()
+                    + (superclass == null ? "" : " extends " + superclass.getFullyQualifiedName())
+                    + " implements " + superInterfaces);
+        }
+        StringBuilder sb = new StringBuilder();
+        for (String description : types.values()) {
+            sb.append(description).append('\n');
+        }
+        return sb.toString();
+    }
+    
     
 	private void assertSingleMemberAnnotation(IAnnotatable type, String expectedName)
 			throws JavaModelException {
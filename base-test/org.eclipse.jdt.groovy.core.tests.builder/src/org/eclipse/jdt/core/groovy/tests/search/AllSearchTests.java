@@ -44,6 +44,9 @@ public class AllSearchTests {
         suite.addTestSuite(Groovy21InferencingTests.class);
         suite.addTestSuite(GenericsMappingTest.class);
         suite.addTestSuite(BinarySearchTests.class);
+        suite.addTestSuite(IndexingParserTests.class);
+        suite.addTestSuite(SupplementalIndexCacheTests.class);
+        suite.addTestSuite(SourceElementCacheTests.class);
         return suite;
     }
 }
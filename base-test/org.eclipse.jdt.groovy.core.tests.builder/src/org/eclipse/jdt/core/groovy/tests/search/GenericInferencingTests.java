@@ -15,21 +15,37 @@
  */
 package org.eclipse.jdt.core.groovy.tests.search;
 
+import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 
 import junit.framework.Test;
 
+import org.codehaus.groovy.ast.ASTNode;
+import org.codehaus.groovy.ast.ClassNode;
+import org.codehaus.groovy.ast.Parameter;
+import org.codehaus.groovy.ast.expr.ConstantExpression;
+import org.codehaus.groovy.ast.expr.MethodCallExpression;
+import org.codehaus.jdt.groovy.model.GroovyCompilationUnit;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaElement;
 import org.eclipse.jdt.core.IProblemRequestor;
 import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jdt.core.WorkingCopyOwner;
 import org.eclipse.jdt.core.compiler.IProblem;
 import org.eclipse.jdt.core.groovy.tests.compiler.ReconcilerUtils;
 import org.eclipse.jdt.core.tests.util.GroovyUtils;
+import org.eclipse.jdt.groovy.search.GenericsMapper;
+import org.eclipse.jdt.groovy.search.ITypeRequestor;
+import org.eclipse.jdt.groovy.search.ITypeRequestor.VisitStatus;
+import org.eclipse.jdt.groovy.search.ParameterizedTypeCache;
+import org.eclipse.jdt.groovy.search.TypeLookupResult;
+import org.eclipse.jdt.groovy.search.VariableScope;
 
 /**
  * 
@@ -117,7 +133,139 @@ public class GenericInferencingTests extends AbstractInferencingTest {
         int end = start + toFind.length();
         assertType(contents, start, end, "java.lang.Integer");
     }
-    
+
+    // mappers and resolved types are shared within a file, so receivers that differ only in their type arguments must not mix
+    public void testListsInSameFile1() throws Exception {
+        String contents = "List<String> a\nList<Integer> b\nList<String> c\na.get(0)\nb.get(0)\nc.get(0)";
+        int start = contents.indexOf("a.get") + 2;
+        assertType(contents, start, start + "get".length(), "java.lang.String");
+        start = contents.indexOf("b.get") + 2;
+        assertType(contents, start, start + "get".length(), "java.lang.Integer");
+        start = contents.indexOf("c.get") + 2;
+        assertType(contents, start, start + "get".length(), "java.lang.String");
+    }
+
+    public void testListsInSameFile2() throws Exception {
+        String contents = "Map<String, List<Integer>> a\nMap<String, List<String>> b\na.get('').get(0)\nb.get('').get(0)";
+        int start = contents.indexOf("a.get('').get") + "a.get('').".length();
+        assertType(contents, start, start + "get".length(), "java.lang.Integer");
+        start = contents.indexOf("b.get('').get") + "b.get('').".length();
+        assertType(contents, start, start + "get".length(), "java.lang.String");
+    }
+
+    // resolved types with the same parameterization are one canonical node, also for receivers that are different nodes
+    public void testResolvedTypesAreInterned() throws Exception {
+        ClassNode iteratorOfE = VariableScope.LIST_CLASS_NODE.getMethod("iterator", new Parameter[0]).getReturnType();
+        ClassNode listOfString = listOf(VariableScope.STRING_CLASS_NODE);
+        ClassNode otherListOfString = listOf(VariableScope.STRING_CLASS_NODE);
+
+        ClassNode canonical;
+        ParameterizedTypeCache.begin();
+        try {
+            ParameterizedTypeCache cache = ParameterizedTypeCache.current();
+            GenericsMapper mapper = GenericsMapper.gatherGenerics(listOfString, VariableScope.LIST_CLASS_NODE);
+            canonical = cache.resolveTypeParameterization(mapper, iteratorOfE);
+            assertEquals("java.lang.String", canonical.getGenericsTypes()[0].getType().getName());
+            assertSame(mapper, GenericsMapper.gatherGenerics(listOfString, VariableScope.LIST_CLASS_NODE));
+            assertSame(canonical, cache.resolveTypeParameterization(mapper, iteratorOfE));
+
+            GenericsMapper otherMapper = GenericsMapper.gatherGenerics(otherListOfString, VariableScope.LIST_CLASS_NODE);
+            assertNotSame(mapper, otherMapper);
+            assertSame(canonical, cache.resolveTypeParameterization(otherMapper, iteratorOfE));
+            assertEquals("E", iteratorOfE.getGenericsTypes()[0].getName());
+
+            // a receiver that has been changed gets a new mapper, and a different type
+            listOfString.getGenericsTypes()[0].setType(VariableScope.INTEGER_CLASS_NODE);
+            listOfString.getGenericsTypes()[0].setName(VariableScope.INTEGER_CLASS_NODE.getName());
+            GenericsMapper changed = GenericsMapper.gatherGenerics(listOfString, VariableScope.LIST_CLASS_NODE);
+            assertNotSame(mapper, changed);
+            assertEquals("java.lang.Integer", cache.resolveTypeParameterization(changed, iteratorOfE).getGenericsTypes()[0]
+                    .getType().getName());
+        } finally {
+            ParameterizedTypeCache.end();
+        }
+        assertNull(ParameterizedTypeCache.current());
+
+        // the intern table outlives the pass
+        ClassNode iteratorOfString = VariableScope.clone(canonical);
+        assertSame(canonical, ParameterizedTypeCache.intern(iteratorOfString));
+
+        // a canonical node that has been changed anyway is replaced
+        canonical.getGenericsTypes()[0].setType(VariableScope.INTEGER_CLASS_NODE);
+        canonical.getGenericsTypes()[0].setName(VariableScope.INTEGER_CLASS_NODE.getName());
+        ClassNode anotherIteratorOfString = VariableScope.clone(iteratorOfString);
+        assertSame(anotherIteratorOfString, ParameterizedTypeCache.intern(anotherIteratorOfString));
+    }
+
+    // all the lookups of the same parameterization in a unit share one node
+    public void testInferencingSharesParameterizedTypes() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 50; i++) {
+            sb.append("List<String> list" + i + " = []\n");
+            sb.append("def it" + i + " = list" + i + ".iterator()\n");
+            sb.append("def sub" + i + " = list" + i + ".subList(0, 1)\n");
+        }
+        GroovyCompilationUnit unit = createUnit("Shared", sb.toString());
+
+        final List<ClassNode> iterators = new ArrayList<ClassNode>();
+        final List<ClassNode> lists = new ArrayList<ClassNode>();
+        ITypeRequestor requestor = new ITypeRequestor() {
+            public VisitStatus acceptASTNode(ASTNode node, TypeLookupResult result, IJavaElement enclosingElement) {
+                // the method call and its name
+                if (node instanceof MethodCallExpression || node instanceof ConstantExpression
+                        && node.getText().matches("iterator|subList")) {
+                    String name = printTypeName(result.type);
+                    if (name.equals("java.util.Iterator<java.lang.String>")) {
+                        iterators.add(result.type);
+                    } else if (name.equals("java.util.List<java.lang.String>")) {
+                        lists.add(result.type);
+                    }
+                }
+                return VisitStatus.CONTINUE;
+            }
+        };
+        long allocated = allocatedBytes();
+        factory.createVisitor(unit).visitCompilationUnit(requestor);
+        allocated = allocatedBytes() - allocated;
+
+        assertTrue(iterators.size() >= 50);
+        assertTrue(lists.size() >= 50);
+        assertEquals(1, countInstances(iterators));
+        assertEquals(1, countInstances(lists));
+        if (allocated > 0) {
+            System.out.println("Inferencing " + unit.getElementName() + " allocated " + allocated + " bytes");
+        }
+    }
+
+    private static ClassNode listOf(ClassNode elementType) {
+        ClassNode list = VariableScope.clonedList();
+        list.getGenericsTypes()[0].setType(elementType);
+        list.getGenericsTypes()[0].setName(elementType.getName());
+        return list;
+    }
+
+    private static int countInstances(List<ClassNode> types) {
+        Map<ClassNode, Boolean> instances = new IdentityHashMap<ClassNode, Boolean>();
+        for (ClassNode type : types) {
+            instances.put(type, Boolean.TRUE);
+        }
+        return instances.size();
+    }
+
+    /**
+     * @return the bytes allocated by the current thread so far, or 0 if the VM cannot tell
+     */
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+            if (sunBean.isThreadAllocatedMemorySupported() && sunBean.isThreadAllocatedMemoryEnabled()) {
+                return sunBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return 0;
+    }
+
     // GRECLIPSE-1040
     public void testList8() throws Exception {
         String contents = "def x = new LinkedList()\nx";
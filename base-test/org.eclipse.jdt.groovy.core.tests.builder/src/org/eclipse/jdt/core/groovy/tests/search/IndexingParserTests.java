@@ -0,0 +1,125 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eclipse.jdt.core.groovy.tests.search;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.codehaus.groovy.ast.ClassNode;
+import org.codehaus.jdt.groovy.integration.internal.MultiplexingIndexingParser;
+import org.codehaus.jdt.groovy.internal.compiler.ast.GroovyCompilationUnitDeclaration;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.groovy.core.util.ReflectionUtils;
+import org.eclipse.jdt.internal.compiler.SourceElementRequestorAdapter;
+import org.eclipse.jdt.internal.compiler.batch.CompilationUnit;
+import org.eclipse.jdt.internal.compiler.impl.CompilerOptions;
+import org.eclipse.jdt.internal.compiler.problem.DefaultProblemFactory;
+
+/**
+ * Tests that the indexing parser reuses one groovy parser for the documents it is given and reports the same
+ * declarations as a new parser would
+ */
+public class IndexingParserTests extends TestCase {
+
+    private static final String CONTENTS_A = "package p\nclass A {\n  def x\n  def m() { }\n}\n";
+    private static final String CONTENTS_B = "package p\nclass B extends A {\n  String y\n}\ninterface C { }\n";
+
+    /**
+     * Writes down the types, fields and methods it is told about, with their source ranges
+     */
+    private static class DeclarationRecorder extends SourceElementRequestorAdapter {
+        final List<String> declarations = new ArrayList<String>();
+
+        @Override
+        public void enterType(TypeInfo typeInfo) {
+            declarations.add("type " + new String(typeInfo.name) + " " + typeInfo.declarationStart + " "
+                    + typeInfo.nameSourceStart + ":" + typeInfo.nameSourceEnd);
+        }
+
+        @Override
+        public void exitType(int declarationEnd) {
+            declarations.add("end " + declarationEnd);
+        }
+
+        @Override
+        public void enterField(FieldInfo fieldInfo) {
+            declarations.add("field " + new String(fieldInfo.name) + " " + fieldInfo.nameSourceStart + ":"
+                    + fieldInfo.nameSourceEnd);
+        }
+
+        @Override
+        public void enterMethod(MethodInfo methodInfo) {
+            declarations.add("method " + new String(methodInfo.name) + " " + methodInfo.nameSourceStart + ":"
+                    + methodInfo.nameSourceEnd);
+        }
+    }
+
+    public IndexingParserTests(String name) {
+        super(name);
+    }
+
+    private static MultiplexingIndexingParser createParser(DeclarationRecorder recorder) {
+        return new MultiplexingIndexingParser(recorder, new DefaultProblemFactory(), new CompilerOptions(JavaCore.getOptions()),
+                true, false, false);
+    }
+
+    private static GroovyCompilationUnitDeclaration parse(MultiplexingIndexingParser parser, String fileName, String contents) {
+        return (GroovyCompilationUnitDeclaration) parser.parseCompilationUnit(new CompilationUnit(contents.toCharArray(),
+                fileName, null), true, null);
+    }
+
+    private static List<String> declarationsFromNewParser(String fileName, String contents) {
+        DeclarationRecorder recorder = new DeclarationRecorder();
+        parse(createParser(recorder), fileName, contents);
+        return recorder.declarations;
+    }
+
+    public void testGroovyParserReusedAcrossDocuments() throws Exception {
+        DeclarationRecorder recorder = new DeclarationRecorder();
+        MultiplexingIndexingParser parser = createParser(recorder);
+
+        parse(parser, "/Project/src/p/A.groovy", CONTENTS_A);
+        Object groovyParser = ReflectionUtils.getPrivateField(MultiplexingIndexingParser.class, "groovyParser", parser);
+        assertNotNull(groovyParser);
+        assertEquals(declarationsFromNewParser("/Project/src/p/A.groovy", CONTENTS_A), recorder.declarations);
+
+        recorder.declarations.clear();
+        GroovyCompilationUnitDeclaration cud = parse(parser, "/Project/src/p/B.groovy", CONTENTS_B);
+        assertSame(groovyParser, ReflectionUtils.getPrivateField(MultiplexingIndexingParser.class, "groovyParser", parser));
+        assertEquals(declarationsFromNewParser("/Project/src/p/B.groovy", CONTENTS_B), recorder.declarations);
+
+        // nothing of the first document is left in the second one
+        List<String> classNames = new ArrayList<String>();
+        for (ClassNode classNode : cud.getModuleNode().getClasses()) {
+            classNames.add(classNode.getName());
+        }
+        assertEquals("[p.B, p.C]", classNames.toString());
+    }
+
+    public void testDocumentParsedAgainAfterChange() throws Exception {
+        DeclarationRecorder recorder = new DeclarationRecorder();
+        MultiplexingIndexingParser parser = createParser(recorder);
+
+        parse(parser, "/Project/src/p/A.groovy", CONTENTS_A);
+        recorder.declarations.clear();
+        String changed = CONTENTS_A.replace("def m() { }", "def m() { }\n  def n() { }");
+        parse(parser, "/Project/src/p/A.groovy", changed);
+        assertEquals(declarationsFromNewParser("/Project/src/p/A.groovy", changed), recorder.declarations);
+        assertTrue(recorder.declarations.toString(), recorder.declarations.toString().contains("method n "));
+    }
+}
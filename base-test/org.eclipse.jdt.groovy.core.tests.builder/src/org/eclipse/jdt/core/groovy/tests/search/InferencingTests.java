@@ -22,8 +22,15 @@ import junit.framework.Test;
 
 import org.codehaus.groovy.ast.ASTNode;
 import org.codehaus.jdt.groovy.model.GroovyCompilationUnit;
+import org.codehaus.jdt.groovy.model.ModuleNodeMapper.ModuleNodeInfo;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaElement;
 import org.eclipse.jdt.core.tests.util.GroovyUtils;
+import org.eclipse.jdt.groovy.search.ITypeRequestor;
+import org.eclipse.jdt.groovy.search.ITypeRequestor.VisitStatus;
+import org.eclipse.jdt.groovy.search.MemberTables;
 import org.eclipse.jdt.groovy.search.TypeInferencingVisitorWithRequestor;
+import org.eclipse.jdt.groovy.search.TypeLookupResult;
 
 /**
  * Lots of tests to see that expressions have the proper type associated with them
@@ -1878,6 +1885,64 @@ public class InferencingTests extends AbstractInferencingTest {
 		assertType(contents, start, end, "A");
 	}
 
+	// the members of a type are indexed once per module, so overloads must still be told apart on every call
+	public void testOverloadsOnSameType() {
+		String contents =
+				"class A {\n" +
+				"    String m() { null }\n" +
+				"    Integer m(String s) { null }\n" +
+				"    Long m(Number n) { null }\n" +
+				"    Date m(String s, String t) { null }\n" +
+				"}\n" +
+				"class B extends A { }\n" +
+				"def b = new B()\n" +
+				"b.m()\n" +
+				"b.m('')\n" +
+				"b.m(1)\n" +
+				"b.m('', '')\n";
+		String[] calls = { "b.m()", "b.m('')", "b.m(1)", "b.m('', '')" };
+		String[] types = { "java.lang.String", "java.lang.Integer", "java.lang.Long", "java.util.Date" };
+		for (int i = 0; i < calls.length; i++) {
+			int start = contents.indexOf(calls[i]) + "b.".length();
+			assertType(contents, start, start + "m".length(), types[i]);
+		}
+	}
+
+	// the member tables are kept with the module, and a reconcile that replaces the module starts over
+	public void testMemberTablesDroppedWithModule() throws Exception {
+		GroovyCompilationUnit unit = createUnit("Tables", "class A { def m() { } }\nnew A().m()\n");
+		unit.becomeWorkingCopy(null);
+		try {
+			ModuleNodeInfo first = unit.getModuleInfo(false);
+			visit(unit);
+			MemberTables tables = first.getDerived(MemberTables.class);
+			assertNotNull(tables);
+			visit(unit);
+			assertSame(first, unit.getModuleInfo(false));
+			assertSame(tables, first.getDerived(MemberTables.class));
+
+			unit.getBuffer().append("new A().m()\n");
+			unit.reconcile(ICompilationUnit.NO_AST, false, null, null);
+			ModuleNodeInfo second = unit.getModuleInfo(false);
+			assertNotSame(first, second);
+			assertNotSame(first.module, second.module);
+			assertNull(second.getDerived(MemberTables.class));
+			visit(unit);
+			assertNotNull(second.getDerived(MemberTables.class));
+			assertNotSame(tables, second.getDerived(MemberTables.class));
+		} finally {
+			unit.discardWorkingCopy();
+		}
+	}
+
+	private void visit(GroovyCompilationUnit unit) {
+		factory.createVisitor(unit).visitCompilationUnit(new ITypeRequestor() {
+			public VisitStatus acceptASTNode(ASTNode node, TypeLookupResult result, IJavaElement enclosingElement) {
+				return VisitStatus.CONTINUE;
+			}
+		});
+	}
+
     protected void assertNoUnknowns(String contents) {
         GroovyCompilationUnit unit = createUnit("Search", contents);
         
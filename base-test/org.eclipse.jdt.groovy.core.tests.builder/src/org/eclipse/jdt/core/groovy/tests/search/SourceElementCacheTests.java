@@ -0,0 +1,167 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eclipse.jdt.core.groovy.tests.search;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.Test;
+
+import org.codehaus.jdt.groovy.integration.SourceElementCache;
+import org.codehaus.jdt.groovy.internal.compiler.ast.GroovyCompilationUnitDeclaration;
+import org.codehaus.jdt.groovy.internal.compiler.ast.GroovyParser;
+import org.codehaus.jdt.groovy.internal.compiler.ast.IGroovyDebugRequestor;
+import org.eclipse.core.runtime.FileLocator;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.core.runtime.Platform;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.ISourceRange;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.internal.compiler.CompilationResult;
+import org.eclipse.jdt.internal.compiler.ISourceElementRequestor;
+import org.eclipse.jdt.internal.compiler.SourceElementRequestorAdapter;
+import org.eclipse.jdt.internal.compiler.ast.TypeDeclaration;
+
+/**
+ * Tests that the source elements of an attached groovy source are reported again to the SourceMapper, without the nodes of
+ * the parse, until the source changes
+ */
+public class SourceElementCacheTests extends AbstractGroovySearchTest {
+
+    private static final String KEY = SourceElementCache.getKey("/cache/test.jar", "", "p", "A.groovy", false);
+    private static final char[] CONTENTS = "package p\nclass A {\n  def x\n}\n".toCharArray();
+
+    /**
+     * Writes down the types and fields it is told about, with their source ranges
+     */
+    private static class DeclarationRecorder extends SourceElementRequestorAdapter {
+        final List<String> declarations = new ArrayList<String>();
+        final List<TypeInfo> types = new ArrayList<TypeInfo>();
+
+        @Override
+        public void enterType(TypeInfo typeInfo) {
+            types.add(typeInfo);
+            declarations.add("type " + new String(typeInfo.name) + " " + typeInfo.modifiers + " " + typeInfo.declarationStart
+                    + " " + typeInfo.nameSourceStart + ":" + typeInfo.nameSourceEnd);
+        }
+
+        @Override
+        public void exitType(int declarationEnd) {
+            declarations.add("end " + declarationEnd);
+        }
+
+        @Override
+        public void enterField(FieldInfo fieldInfo) {
+            declarations.add("field " + new String(fieldInfo.name) + " " + fieldInfo.nameSourceStart + ":"
+                    + fieldInfo.nameSourceEnd);
+        }
+    }
+
+    /**
+     * Writes down the groovy sources that are parsed
+     */
+    private static class ParseRecorder implements IGroovyDebugRequestor {
+        final List<String> parsed = new ArrayList<String>();
+
+        public void acceptCompilationUnitDeclaration(GroovyCompilationUnitDeclaration gcuDeclaration) {
+            synchronized (parsed) {
+                parsed.add(new String(gcuDeclaration.getFileName()));
+            }
+        }
+    }
+
+    public SourceElementCacheTests(String name) {
+        super(name);
+    }
+
+    public static Test suite() {
+        return buildTestSuite(SourceElementCacheTests.class);
+    }
+
+    private static void reportDeclarations(ISourceElementRequestor requestor) {
+        ISourceElementRequestor.TypeInfo typeInfo = new ISourceElementRequestor.TypeInfo();
+        typeInfo.name = "A".toCharArray();
+        typeInfo.modifiers = 1;
+        typeInfo.declarationStart = 10;
+        typeInfo.nameSourceStart = 16;
+        typeInfo.nameSourceEnd = 16;
+        typeInfo.node = new TypeDeclaration(new CompilationResult("A.groovy".toCharArray(), 0, 1, 10));
+        requestor.enterType(typeInfo);
+        ISourceElementRequestor.FieldInfo fieldInfo = new ISourceElementRequestor.FieldInfo();
+        fieldInfo.name = "x".toCharArray();
+        fieldInfo.nameSourceStart = 26;
+        fieldInfo.nameSourceEnd = 26;
+        requestor.enterField(fieldInfo);
+        requestor.exitField(0, 26, 26);
+        requestor.exitType(28);
+    }
+
+    public void testReplayedWithoutNodes() throws Exception {
+        DeclarationRecorder parsed = new DeclarationRecorder();
+        ISourceElementRequestor recorder = SourceElementCache.record(parsed);
+        reportDeclarations(recorder);
+        SourceElementCache.store(KEY, CONTENTS, recorder);
+        assertNotNull(parsed.types.get(0).node);
+
+        DeclarationRecorder replayed = new DeclarationRecorder();
+        assertTrue(SourceElementCache.replay(KEY, CONTENTS.clone(), replayed));
+        assertEquals(parsed.declarations, replayed.declarations);
+        assertNull("The cache must not keep the nodes of the parse", replayed.types.get(0).node);
+        assertNull(replayed.types.get(0).annotations);
+    }
+
+    public void testChangedContentsNotReplayed() throws Exception {
+        ISourceElementRequestor recorder = SourceElementCache.record(new DeclarationRecorder());
+        reportDeclarations(recorder);
+        SourceElementCache.store(KEY, CONTENTS, recorder);
+
+        DeclarationRecorder replayed = new DeclarationRecorder();
+        char[] changed = new String(CONTENTS).replace("def x", "def y").toCharArray();
+        assertFalse(SourceElementCache.replay(KEY, changed, replayed));
+        assertEquals("[]", replayed.declarations.toString());
+        assertFalse(SourceElementCache.replay(KEY + "other", CONTENTS, replayed));
+        assertEquals("[]", replayed.declarations.toString());
+    }
+
+    public void testSecondClassFileOfSourceReplayed() throws Exception {
+        Path libFolder = new Path(FileLocator.resolve(Platform.getBundle("org.eclipse.jdt.groovy.core.tests.builder").getEntry("lib")).getFile());
+        env.addEntry(project.getFullPath(), JavaCore.newLibraryEntry(libFolder.append("binGroovySearch.jar"),
+                libFolder.append("binGroovySearchSrc.zip"), null));
+        IJavaProject javaProject = env.getJavaProject(project.getName());
+
+        // AGroovyClass and OtherClass are two class files of the same source
+        IType aGroovyClass = javaProject.findType("pack.AGroovyClass");
+        assertNotNull(aGroovyClass.getSourceRange());
+        String contents = aGroovyClass.getTypeRoot().getBuffer().getContents();
+
+        ParseRecorder recorder = new ParseRecorder();
+        GroovyParser.debugRequestor = recorder;
+        ISourceRange nameRange, sourceRange;
+        try {
+            IType otherClass = javaProject.findType("pack.OtherClass");
+            nameRange = otherClass.getNameRange();
+            sourceRange = otherClass.getSourceRange();
+        } finally {
+            GroovyParser.debugRequestor = null;
+        }
+        assertEquals("The source should not be parsed again", "[]", recorder.parsed.toString());
+        assertEquals(contents.indexOf("OtherClass"), nameRange.getOffset());
+        assertEquals("OtherClass".length(), nameRange.getLength());
+        assertEquals(contents.indexOf("class OtherClass"), sourceRange.getOffset());
+        assertTrue(sourceRange.getOffset() + sourceRange.getLength() >= nameRange.getOffset() + nameRange.getLength());
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eclipse.jdt.core.groovy.tests.search;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.codehaus.jdt.groovy.integration.internal.SupplementalIndexCache;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.ResourcesPlugin;
+
+/**
+ * Tests that the names of the class files of a jar are reused until the jar changes
+ */
+public class SupplementalIndexCacheTests extends TestCase {
+
+    private static final List<char[]> NAMES = Arrays.asList("java.lang.Object".toCharArray(), "groovy.lang.Closure".toCharArray());
+
+    private File tempDir;
+    private File cacheDir;
+    private IProject project;
+
+    public SupplementalIndexCacheTests(String name) {
+        super(name);
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        tempDir = File.createTempFile("supplementalIndex", "");
+        tempDir.delete();
+        tempDir.mkdirs();
+        cacheDir = new File(tempDir, "cache");
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        if (project != null) {
+            project.delete(true, null);
+        }
+        delete(tempDir);
+        super.tearDown();
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+
+    private static void write(File file, String contents) throws IOException {
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(contents.getBytes("UTF-8"));
+        } finally {
+            out.close();
+        }
+    }
+
+    private static List<String> toStrings(List<char[]> names) {
+        if (names == null) {
+            return null;
+        }
+        List<String> strings = new ArrayList<String>();
+        for (char[] name : names) {
+            strings.add(String.valueOf(name));
+        }
+        return strings;
+    }
+
+    private File createJar(String contents) throws IOException {
+        File jar = new File(tempDir, "lib.jar");
+        write(jar, contents);
+        return jar;
+    }
+
+    public void testNamesReusedByAnotherInstance() throws Exception {
+        File jar = createJar("first contents");
+        String document = jar.getAbsolutePath() + "|p/A.class";
+
+        SupplementalIndexCache cache = new SupplementalIndexCache(cacheDir);
+        assertNull(cache.getNames(document));
+        cache.putNames(document, NAMES);
+        // the names are kept for the jar that is being indexed
+        assertEquals(toStrings(NAMES), toStrings(cache.getNames(document)));
+        cache.closeJar();
+        assertEquals(0, cache.getNumJarsFromCache());
+        assertEquals(1, cache.getNumJarsScanned());
+
+        cache = new SupplementalIndexCache(cacheDir);
+        assertEquals(toStrings(NAMES), toStrings(cache.getNames(document)));
+        assertNull(cache.getNames(jar.getAbsolutePath() + "|p/B.class"));
+        assertEquals(1, cache.getNumJarsFromCache());
+        assertEquals(0, cache.getNumJarsScanned());
+    }
+
+    public void testChangedJarInvalidatesOpenNames() throws Exception {
+        File jar = createJar("first contents");
+        String document = jar.getAbsolutePath() + "|p/A.class";
+
+        SupplementalIndexCache cache = new SupplementalIndexCache(cacheDir);
+        cache.putNames(document, NAMES);
+
+        // same path, other contents, while the jar is still open
+        write(jar, "second, longer contents");
+        assertNull(cache.getNames(document));
+        assertEquals(2, cache.getNumJarsScanned());
+
+        // same size, but newer
+        cache.putNames(document, NAMES);
+        write(jar, "second, LONGER contents");
+        jar.setLastModified(jar.lastModified() + 10000);
+        assertNull(cache.getNames(document));
+        assertEquals(3, cache.getNumJarsScanned());
+        assertEquals(0, cache.getNumJarsFromCache());
+    }
+
+    public void testChangedJarInvalidatesWrittenNames() throws Exception {
+        File jar = createJar("first contents");
+        String document = jar.getAbsolutePath() + "|p/A.class";
+
+        SupplementalIndexCache cache = new SupplementalIndexCache(cacheDir);
+        cache.putNames(document, NAMES);
+        cache.closeJar();
+
+        write(jar, "FIRST contents");
+        jar.setLastModified(jar.lastModified() + 10000);
+        cache = new SupplementalIndexCache(cacheDir);
+        assertNull(cache.getNames(document));
+        assertEquals(0, cache.getNumJarsFromCache());
+        assertEquals(1, cache.getNumJarsScanned());
+    }
+
+    public void testTouchedJarStillCached() throws Exception {
+        File jar = createJar("first contents");
+        String document = jar.getAbsolutePath() + "|p/A.class";
+
+        SupplementalIndexCache cache = new SupplementalIndexCache(cacheDir);
+        cache.putNames(document, NAMES);
+        cache.closeJar();
+
+        jar.setLastModified(jar.lastModified() + 10000);
+        cache = new SupplementalIndexCache(cacheDir);
+        assertEquals(toStrings(NAMES), toStrings(cache.getNames(document)));
+        assertEquals(1, cache.getNumJarsFromCache());
+        cache.closeJar();
+
+        // the new time stamp was recorded, so the contents need not be compared again
+        cache = new SupplementalIndexCache(cacheDir);
+        assertEquals(toStrings(NAMES), toStrings(cache.getNames(document)));
+        assertEquals(1, cache.getNumJarsFromCache());
+    }
+
+    public void testWorkspacePath() throws Exception {
+        project = ResourcesPlugin.getWorkspace().getRoot().getProject("SupplementalIndexCacheTests");
+        project.create(null);
+        project.open(null);
+        IFile jar = project.getFile("lib.jar");
+        jar.create(new ByteArrayInputStream("jar contents".getBytes("UTF-8")), true, null);
+        String document = jar.getFullPath() + "|p/A.class";
+        assertFalse(new File(jar.getFullPath().toOSString()).exists());
+
+        SupplementalIndexCache cache = new SupplementalIndexCache(cacheDir);
+        cache.putNames(document, NAMES);
+        cache.closeJar();
+        assertEquals(1, cache.getNumJarsScanned());
+
+        cache = new SupplementalIndexCache(cacheDir);
+        assertEquals(toStrings(NAMES), toStrings(cache.getNames(document)));
+        assertEquals(1, cache.getNumJarsFromCache());
+
+        jar.setContents(new ByteArrayInputStream("other jar contents".getBytes("UTF-8")), IResource.FORCE, null);
+        assertNull(cache.getNames(document));
+
+        assertNull(cache.getNames("/SupplementalIndexCacheTests/missing.jar|p/A.class"));
+    }
+}
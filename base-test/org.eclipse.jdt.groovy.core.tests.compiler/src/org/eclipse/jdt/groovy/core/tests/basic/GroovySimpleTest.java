@@ -10,13 +10,22 @@
  *******************************************************************************/
 package org.eclipse.jdt.groovy.core.tests.basic;
 
+import groovy.lang.GroovyClassLoader;
+import groovy.lang.GroovyShell;
 import groovy.transform.Immutable;
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
 
 import junit.framework.Test;
 
@@ -27,6 +36,10 @@ import org.codehaus.groovy.ast.ImportNode;
 import org.codehaus.groovy.ast.MethodNode;
 import org.codehaus.groovy.ast.ModuleNode;
 import org.codehaus.groovy.ast.Parameter;
+import org.codehaus.groovy.control.CompilationFailedException;
+import org.codehaus.groovy.control.CompilationUnit;
+import org.codehaus.groovy.control.CompilerConfiguration;
+import org.codehaus.groovy.control.Phases;
 import org.codehaus.jdt.groovy.internal.compiler.ast.AliasImportReference;
 import org.codehaus.jdt.groovy.internal.compiler.ast.EventListener;
 import org.codehaus.jdt.groovy.internal.compiler.ast.GroovyClassScope;
@@ -9889,6 +9902,330 @@ public class GroovySimpleTest extends AbstractGroovyRegressionTest {
 				"}\n"+
 				"printDate()"},"");
 	}
+
+	/**
+	 * Creates a maven repository with the (empty) artifact test.grab:grabbed:1.0 in it
+	 */
+	private File createGrabRepository() throws IOException {
+		File repository = new File(Util.getOutputDirectory(), "grabRepository");
+		File module = new File(repository, "test/grab/grabbed/1.0");
+		module.mkdirs();
+		Util.writeToFile("<project><modelVersion>4.0.0</modelVersion><groupId>test.grab</groupId>"
+				+ "<artifactId>grabbed</artifactId><version>1.0</version></project>",
+				new File(module, "grabbed-1.0.pom").getAbsolutePath());
+		new JarOutputStream(new FileOutputStream(new File(module, "grabbed-1.0.jar")), new Manifest()).close();
+		return repository;
+	}
+
+	private static Class<?> grabResolutionCache() throws ClassNotFoundException {
+		return Class.forName("groovy.grape.GrabResolutionCache");
+	}
+
+	private static Object callGrabResolutionCache(String name, Class<?>[] types, Object... args) throws Exception {
+		Method method = grabResolutionCache().getDeclaredMethod(name, types);
+		method.setAccessible(true);
+		try {
+			return method.invoke(null, args);
+		} catch (InvocationTargetException e) {
+			throw (Exception) e.getCause();
+		}
+	}
+
+	private static int getGrabResolveCount() throws Exception {
+		return (Integer) callGrabResolutionCache("getResolveCount", new Class<?>[0]);
+	}
+
+	private static void awaitGrabBackground() throws Exception {
+		callGrabResolutionCache("awaitBackground", new Class<?>[] { long.class }, 60000L);
+	}
+
+	private static Map<String, Object> grabOf(String module, String version) {
+		Map<String, Object> grab = new HashMap<String, Object>();
+		grab.put("group", "test.grab");
+		grab.put("module", module);
+		grab.put("version", version);
+		return grab;
+	}
+
+	private static List<Map<String, Object>> resolversOf(File repository) {
+		Map<String, Object> resolver = new HashMap<String, Object>();
+		resolver.put("name", "local");
+		resolver.put("root", repository.toURI().toString());
+		return Collections.singletonList(resolver);
+	}
+
+	private static boolean grab(Map<String, Object> grab, List<Map<String, Object>> resolvers, boolean isReconcile) throws Exception {
+		return grab(new GroovyClassLoader(), grab, resolvers, isReconcile);
+	}
+
+	private static boolean grab(GroovyClassLoader loader, Map<String, Object> grab, List<Map<String, Object>> resolvers,
+			boolean isReconcile) throws Exception {
+		return (Boolean) callGrabResolutionCache("grab", new Class<?>[] { GroovyClassLoader.class, Map.class, Map.class, List.class, boolean.class },
+				loader, new HashMap<String, Object>(), grab, resolvers, isReconcile);
+	}
+
+	private static String grabKey(Map<String, Object> grab, List<Map<String, Object>> resolvers) throws Exception {
+		return (String) callGrabResolutionCache("key", new Class<?>[] { Map.class, Map.class, List.class },
+				new HashMap<String, Object>(), grab, resolvers);
+	}
+
+	/**
+	 * Points the grab resolution cache at a new store
+	 * @return the store, and the previous value of the store property in the system properties
+	 */
+	private static File useGrabStore(Map<String, String> oldProperties) {
+		File store = new File(Util.getOutputDirectory(), "grabCache" + System.nanoTime() + ".properties");
+		oldProperties.put("greclipse.grab.cache", System.setProperty("greclipse.grab.cache", store.getAbsolutePath()));
+		return store;
+	}
+
+	private static void restoreProperties(Map<String, String> oldProperties) {
+		for (Map.Entry<String, String> entry : oldProperties.entrySet()) {
+			if (entry.getValue() == null) {
+				System.clearProperty(entry.getKey());
+			} else {
+				System.setProperty(entry.getKey(), entry.getValue());
+			}
+		}
+	}
+
+	// What a grab resolves to is remembered, compiling the same grab again does not ask Ivy
+	public void testGrabResolvedOnlyOnce() throws Exception {
+		if (GroovyUtils.GROOVY_LEVEL < 21) {
+			return;
+		}
+		File repository = createGrabRepository();
+		Map<String, String> oldProperties = new HashMap<String, String>();
+		File store = useGrabStore(oldProperties);
+		try {
+			String[] sources = new String[] {
+				"Grabber.groovy",
+				"@GrabResolver(name='local', root='" + repository.toURI() + "')\n"+
+				"@Grab(group='test.grab', module='grabbed', version='1.0')\n"+
+				"class Grabber {}\n"};
+			int count = getGrabResolveCount();
+
+			this.runConformTest(sources);
+			assertEquals("Ivy should have resolved the grab", count + 1, getGrabResolveCount());
+			assertTrue("Artifact should be stored", Util.fileContent(store.getAbsolutePath()).indexOf("grabbed-1.0.jar") != -1);
+
+			this.runConformTest(sources);
+			assertEquals("Ivy should not have been asked again", count + 1, getGrabResolveCount());
+		} finally {
+			restoreProperties(oldProperties);
+		}
+	}
+
+	// A reconcile does not wait for Ivy, the grab is resolved in the background and used by the next reconcile
+	public void testGrabResolvedInBackgroundOnReconcile() throws Exception {
+		if (GroovyUtils.GROOVY_LEVEL < 21) {
+			return;
+		}
+		List<Map<String, Object>> resolvers = resolversOf(createGrabRepository());
+		Map<String, String> oldProperties = new HashMap<String, String>();
+		File store = useGrabStore(oldProperties);
+		try {
+			int count = getGrabResolveCount();
+			assertFalse("Nothing should be known yet", grab(grabOf("grabbed", "1.0"), resolvers, true));
+			awaitGrabBackground();
+			assertEquals("Ivy should have resolved the grab in the background", count + 1, getGrabResolveCount());
+			assertTrue("Artifact should be stored", Util.fileContent(store.getAbsolutePath()).indexOf("grabbed-1.0.jar") != -1);
+
+			assertTrue("Artifact should be added", grab(grabOf("grabbed", "1.0"), resolvers, true));
+			awaitGrabBackground();
+			assertEquals("Ivy should not have been asked again", count + 1, getGrabResolveCount());
+		} finally {
+			restoreProperties(oldProperties);
+		}
+	}
+
+	// A grab that failed in the background is reported by the next reconcile
+	public void testGrabFailureReportedOnReconcile() throws Exception {
+		if (GroovyUtils.GROOVY_LEVEL < 21) {
+			return;
+		}
+		List<Map<String, Object>> resolvers = resolversOf(createGrabRepository());
+		Map<String, String> oldProperties = new HashMap<String, String>();
+		useGrabStore(oldProperties);
+		try {
+			assertFalse("Nothing should be known yet", grab(grabOf("missing", "1.0"), resolvers, true));
+			awaitGrabBackground();
+			try {
+				grab(grabOf("missing", "1.0"), resolvers, true);
+				fail("The failure should be reported");
+			} catch (RuntimeException e) {
+				// expected
+			}
+		} finally {
+			restoreProperties(oldProperties);
+		}
+	}
+
+	// A dynamic version is used until its lifetime is over, then a reconcile resolves it again in the background
+	public void testDynamicGrabResolvedAgainAfterLifetime() throws Exception {
+		if (GroovyUtils.GROOVY_LEVEL < 21) {
+			return;
+		}
+		File repository = createGrabRepository();
+		List<Map<String, Object>> resolvers = resolversOf(repository);
+		String jar = new File(repository, "test/grab/grabbed/1.0/grabbed-1.0.jar").toURI().toString();
+		Map<String, String> oldProperties = new HashMap<String, String>();
+		File store = useGrabStore(oldProperties);
+		oldProperties.put("greclipse.grab.dynamicLifetime", System.setProperty("greclipse.grab.dynamicLifetime", "60000"));
+		try {
+			// stored long ago
+			Util.writeToFile(
+				escapeProperty(grabKey(grabOf("grabbed", "1.+"), resolvers)) + "=@1 " + jar + "\n" +
+				escapeProperty(grabKey(grabOf("grabbed", "1.0"), resolvers)) + "=" + jar + "\n",
+				store.getAbsolutePath());
+			int count = getGrabResolveCount();
+
+			assertTrue("A fixed version should not expire", grab(grabOf("grabbed", "1.0"), resolvers, true));
+			awaitGrabBackground();
+			assertEquals("Ivy should not have been asked", count, getGrabResolveCount());
+
+			assertTrue("The old artifacts should be used meanwhile", grab(grabOf("grabbed", "1.+"), resolvers, true));
+			awaitGrabBackground();
+			assertEquals("Ivy should have been asked again", count + 1, getGrabResolveCount());
+		} finally {
+			restoreProperties(oldProperties);
+		}
+	}
+
+	// The extension module of a jar that is added from what was remembered of the grab is registered, as grab would do it
+	public void testGrabbedExtensionModuleRegistered() throws Exception {
+		if (GroovyUtils.GROOVY_LEVEL < 21) {
+			return;
+		}
+		File repository = createGrabRepository();
+		File module = new File(repository, "test/grab/shouting/1.0");
+		module.mkdirs();
+		File jar = new File(module, "shouting-1.0.jar");
+		Util.createJar(new String[] {
+				"test/grab/Shouting.java",
+				"package test.grab;\n" +
+				"public class Shouting {\n" +
+				"  public static String shout(String self) { return self.toUpperCase() + \"!\"; }\n" +
+				"}\n"},
+			new String[] {
+				"META-INF/services/org.codehaus.groovy.runtime.ExtensionModule",
+				"moduleName=shouting\nmoduleVersion=1.0\nextensionClasses=test.grab.Shouting\n"},
+			jar.getAbsolutePath(), CompilerOptions.VERSION_1_5);
+		List<Map<String, Object>> resolvers = resolversOf(repository);
+		Map<String, String> oldProperties = new HashMap<String, String>();
+		File store = useGrabStore(oldProperties);
+		try {
+			Util.writeToFile(escapeProperty(grabKey(grabOf("shouting", "1.0"), resolvers)) + "=" + jar.toURI() + "\n",
+					store.getAbsolutePath());
+			int count = getGrabResolveCount();
+
+			GroovyClassLoader loader = new GroovyClassLoader();
+			assertTrue("Artifact should be added", grab(loader, grabOf("shouting", "1.0"), resolvers, false));
+			assertEquals("Ivy should not have been asked", count, getGrabResolveCount());
+			assertEquals("HI!", new GroovyShell(loader).evaluate("'hi'.shout()"));
+		} finally {
+			restoreProperties(oldProperties);
+		}
+	}
+
+	/**
+	 * Counts how often the classes are asked for
+	 */
+	private static class CountingTransformLoader extends GroovyClassLoader {
+		private final Map<String, Integer> loads = new HashMap<String, Integer>();
+
+		CountingTransformLoader() {
+			super(GroovySimpleTest.class.getClassLoader());
+		}
+
+		@Override
+		public Class loadClass(String name, boolean lookupScriptFiles, boolean preferClassOverScript, boolean resolve)
+				throws ClassNotFoundException, CompilationFailedException {
+			synchronized (loads) {
+				Integer count = loads.get(name);
+				loads.put(name, count == null ? 1 : count + 1);
+			}
+			return super.loadClass(name, lookupScriptFiles, preferClassOverScript, resolve);
+		}
+
+		int getLoads(String name) {
+			synchronized (loads) {
+				Integer count = loads.get(name);
+				return count == null ? 0 : count;
+			}
+		}
+	}
+
+	/**
+	 * Creates a jar with a global transform that does nothing
+	 */
+	private File createGlobalTransformJar(String className) throws IOException {
+		File jar = new File(Util.getOutputDirectory(), className + ".jar");
+		Util.createJar(new String[] {
+				"test/transform/" + className + ".java",
+				"package test.transform;\n" +
+				"import org.codehaus.groovy.ast.ASTNode;\n" +
+				"import org.codehaus.groovy.control.CompilePhase;\n" +
+				"import org.codehaus.groovy.control.SourceUnit;\n" +
+				"import org.codehaus.groovy.transform.ASTTransformation;\n" +
+				"import org.codehaus.groovy.transform.GroovyASTTransformation;\n" +
+				"@GroovyASTTransformation(phase = CompilePhase.SEMANTIC_ANALYSIS)\n" +
+				"public class " + className + " implements ASTTransformation {\n" +
+				"  public void visit(ASTNode[] nodes, SourceUnit source) {}\n" +
+				"}\n"},
+			new String[] {
+				"META-INF/services/org.codehaus.groovy.transform.ASTTransformation",
+				"test.transform." + className + "\n"},
+			getCompilerOptions(), getDefaultClassPaths(), jar.getAbsolutePath());
+		return jar;
+	}
+
+	private static void compileWithTransformLoader(GroovyClassLoader transformLoader) {
+		CompilationUnit unit = new CompilationUnit(new CompilerConfiguration(), null,
+				new GroovyClassLoader(GroovySimpleTest.class.getClassLoader()), transformLoader, true, null, null);
+		unit.addSource("A.groovy", "class A {}\n");
+		unit.compile(Phases.SEMANTIC_ANALYSIS);
+	}
+
+	// The global transforms of a transform loader are looked up once, later compiles with the same loader reuse them
+	public void testGlobalTransformClassesReused() throws Exception {
+		CountingTransformLoader transformLoader = new CountingTransformLoader();
+		transformLoader.addURL(createGlobalTransformJar("Reused").toURI().toURL());
+
+		compileWithTransformLoader(transformLoader);
+		assertEquals("The transform should have been loaded", 1, transformLoader.getLoads("test.transform.Reused"));
+
+		compileWithTransformLoader(transformLoader);
+		assertEquals("The transform should not have been loaded again", 1, transformLoader.getLoads("test.transform.Reused"));
+	}
+
+	// What is remembered of a transform loader is thrown away when its classpath changes (eg- after a grab)
+	public void testGlobalTransformsLookedUpAgainWhenClasspathChanges() throws Exception {
+		CountingTransformLoader transformLoader = new CountingTransformLoader();
+		transformLoader.addURL(createGlobalTransformJar("First").toURI().toURL());
+		compileWithTransformLoader(transformLoader);
+		assertEquals(1, transformLoader.getLoads("test.transform.First"));
+
+		transformLoader.addURL(createGlobalTransformJar("Second").toURI().toURL());
+		compileWithTransformLoader(transformLoader);
+		assertEquals("The transforms should have been looked up again", 2, transformLoader.getLoads("test.transform.First"));
+		assertEquals("The service file of the new jar should have been read", 1, transformLoader.getLoads("test.transform.Second"));
+
+		compileWithTransformLoader(transformLoader);
+		assertEquals(2, transformLoader.getLoads("test.transform.First"));
+		assertEquals(1, transformLoader.getLoads("test.transform.Second"));
+	}
+
+	private static String escapeProperty(String key) {
+		StringBuilder sb = new StringBuilder();
+		for (char c : key.toCharArray()) {
+			if (c == ' ' || c == '=' || c == ':' || c == '\\') {
+				sb.append('\\');
+			}
+			sb.append(c);
+		}
+		return sb.toString();
+	}
 	
 	public void testScriptWithError() {
 		this.runNegativeTest(new String[] {
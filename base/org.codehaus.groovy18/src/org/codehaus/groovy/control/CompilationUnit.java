@@ -93,6 +93,9 @@ public class CompilationUnit extends ProcessingUnit {
 
     protected CompileUnit ast;        // The overall AST for this CompilationUnit.
     protected List<GroovyClass> generatedClasses;  // The classes generated during classgen.
+    // GRECLIPSE: start
+    protected Map<SourceUnit, List<GroovyClass>> generatedClassesBySource; // The generated classes of each SourceUnit.
+    // end
 
     protected Verifier verifier;   // For use by verify().
 
@@ -180,6 +183,9 @@ public class CompilationUnit extends ProcessingUnit {
 
         this.ast = new CompileUnit(this.classLoader, security, this.configuration);
         this.generatedClasses = new ArrayList<GroovyClass>();
+        // GRECLIPSE: start
+        this.generatedClassesBySource = new HashMap<SourceUnit, List<GroovyClass>>();
+        // end
 
 
         this.verifier = new Verifier();
@@ -366,6 +372,16 @@ public class CompilationUnit extends ProcessingUnit {
         return generatedClasses;
     }
 
+    // GRECLIPSE: start
+    /**
+     * Get the GroovyClasses generated by compile() from the given SourceUnit.
+     */
+    public List<GroovyClass> getClasses(SourceUnit source) {
+        List<GroovyClass> classes = generatedClassesBySource.get(source);
+        return classes != null ? classes : Collections.<GroovyClass>emptyList();
+    }
+    // end
+
 
     /**
      * Convenience routine to get the first ClassNode, for
@@ -880,7 +896,14 @@ public class CompilationUnit extends ProcessingUnit {
 	            generatedClasses.add(new GroovyClass(classNode.getName(), bytes));
 	            }*/
 	            // newcode
-	            generatedClasses.add(new GroovyClass(classNode.getName(), bytes, classNode, source));
+	            GroovyClass generatedClass = new GroovyClass(classNode.getName(), bytes, classNode, source);
+	            generatedClasses.add(generatedClass);
+	            List<GroovyClass> classesOfSource = generatedClassesBySource.get(source);
+	            if (classesOfSource == null) {
+	                classesOfSource = new ArrayList<GroovyClass>();
+	                generatedClassesBySource.put(source, classesOfSource);
+	            }
+	            classesOfSource.add(generatedClass);
 			// end
 			
 	            //
@@ -18,13 +18,9 @@ package org.codehaus.groovy.transform;
 
 import groovy.lang.GroovyClassLoader;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.net.URL;
 import java.util.ArrayList;
-import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -252,84 +248,36 @@ public final class ASTTransformationVisitor extends ClassCodeVisitorSupport {
         GroovyClassLoader transformLoader = compilationUnit.getTransformLoader();
         Map<String, URL> transformNames = new LinkedHashMap<String, URL>();
         try {
-            Enumeration<URL> globalServices = transformLoader.getResources("META-INF/services/org.codehaus.groovy.transform.ASTTransformation");
-            while (globalServices.hasMoreElements()) {
-                URL service = globalServices.nextElement();
-                String className;
-                
-                // GRECLIPSE: start: don't consume our own META-INF entries - bit of a hack...
-//                try {
-//                	// this unfortunately also prevents the execution of transforms from project dependencies!
-//					String file = service.getFile().toString();
-//					System.out.println("TRANSFORM: Processing META-INF file "+file);					
-//					if (file.indexOf("jar!")==-1) {
-//						// it is a 'local' services file
-//						// eg. /META-INF/services/org.codehaus.groovy.transform.ASTTransformation
-//						// whereas a jar related one would be:
-//						// eg. file:/N:/workspaces/groovy35/org.codehaus.groovy/lib/groovy-all-1.7-rc-1.jar!/META-INF/services/org.codehaus.groovy.transform.ASTTransformation
-//						continue;
-//					}
-//                } catch (Throwable t) {
-//                	t.printStackTrace();
-//                }
-                // end
-                // GRECLIPSE start
-                // was
-                // BufferedReader svcIn = new BufferedReader(new InputStreamReader(service.openStream()));
-                // now
-           
-                InputStream is = service.openStream();
-                BufferedReader svcIn = new BufferedReader(new InputStreamReader(is));
-               
-                // end
-                try {
-                    className = svcIn.readLine();
-                } catch (IOException ioe) {
-                    compilationUnit.getErrorCollector().addError(new SimpleMessage(
-                        "IOException reading the service definition at "
-                        + service.toExternalForm() + " because of exception " + ioe.toString(), null));
-                    continue;
-                }
-                while (className != null) {
+            // GRECLIPSE: start: the service files are only read again when the classpath of the loader changes
+            for (GlobalTransformServices.Service svc : GlobalTransformServices.getServices(transformLoader)) {
+                URL service = svc.url;
+
+                for (String className : svc.lines) {
                     if (!className.startsWith("#") && className.length() > 0) {
                         if (transformNames.containsKey(className)) {
                             if (!service.equals(transformNames.get(className))) {
                                 compilationUnit.getErrorCollector().addWarning(
-                                        WarningMessage.POSSIBLE_ERRORS,
-                                        "The global transform for class " + className + " is defined in both "
-                                            + transformNames.get(className).toExternalForm()
-                                            + " and "
-                                            + service.toExternalForm()
-                                            + " - the former definition will be used and the latter ignored.",
-                                        null,
-                                        null);
+                                    WarningMessage.POSSIBLE_ERRORS,
+                                    "The global transform for class " + className + " is defined in both "
+                                        + transformNames.get(className).toExternalForm()
+                                        + " and "
+                                        + service.toExternalForm()
+                                        + " - the former definition will be used and the latter ignored.",
+                                    null,
+                                    null);
                             }
-
-                        } else {
-                        	// GRECLIPSE: start
-                        	/*old{
-                        		transformNames.put(className, service);
-                        	}new*/
-                        	if (compilationUnit.allowTransforms || globalTransformsAllowedInReconcile.contains(className)) {
-                        		transformNames.put(className, service);
-                        	}
-                        	// GRECLIPSE: end
+                        } else if (compilationUnit.allowTransforms || globalTransformsAllowedInReconcile.contains(className)) {
+                            transformNames.put(className, service);
                         }
                     }
-                    try {
-                        className = svcIn.readLine();
-                    } catch (IOException ioe) {
-                        compilationUnit.getErrorCollector().addError(new SimpleMessage(
-                            "IOException reading the service definition at "
-                            + service.toExternalForm() + " because of exception " + ioe.toString(), null));
-                        //noinspection UnnecessaryContinue
-                        continue;
-                    }
                 }
-                // GRECLIPSE: start
-                is.close();
-                // end
+                if (svc.readError != null) {
+                    compilationUnit.getErrorCollector().addError(new SimpleMessage(
+                        "IOException reading the service definition at "
+                        + service.toExternalForm() + " because of exception " + svc.readError.toString(), null));
+                }
             }
+            // GRECLIPSE: end
         } catch (IOException e) {
             //FIXME the warning message will NPE with what I have :(
             compilationUnit.getErrorCollector().addError(new SimpleMessage(
@@ -400,7 +348,12 @@ public final class ASTTransformationVisitor extends ClassCodeVisitorSupport {
         GroovyClassLoader transformLoader = compilationUnit.getTransformLoader();
         for (Map.Entry<String, URL> entry : transformNames.entrySet()) {
             try {
+                // GRECLIPSE: start
+                /*old{
                 Class gTransClass = transformLoader.loadClass(entry.getKey(), false, true, false);
+                }new*/
+                Class gTransClass = GlobalTransformServices.loadClass(transformLoader, entry.getKey());
+                // GRECLIPSE: end
                 //no inspection unchecked
                 GroovyASTTransformation transformAnnotation = (GroovyASTTransformation) gTransClass.getAnnotation(GroovyASTTransformation.class);
                 if (transformAnnotation == null) {
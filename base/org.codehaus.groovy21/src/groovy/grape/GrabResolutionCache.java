@@ -0,0 +1,451 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package groovy.grape;
+
+import groovy.lang.GroovyClassLoader;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * GRECLIPSE: new class
+ * <p>
+ * Remembers the artifacts that each grab resolved to, so that {@link GrabAnnotationTransformation} can add them to the loader
+ * without asking Ivy again. A grab is known by its coordinates together with the excludes, the resolvers and the grab
+ * configuration of its source, so a change to any of them resolves it again.
+ * <p>
+ * The resolved artifacts are kept in the properties file named by the {@link #STORE_PROPERTY} system property (if it is set),
+ * so that they survive a restart. An entry is dropped if one of its files is gone.
+ * <p>
+ * A reconcile never waits for Ivy: grabs that are not known yet are resolved on a background thread, and the next reconcile
+ * picks up the result.
+ * <p>
+ * What a dynamic version (eg- <code>latest.release</code>, <code>1.+</code> or a range) resolves to changes as new versions are
+ * published, so it is only used for the time given by the {@link #DYNAMIC_LIFETIME_PROPERTY} system property. After that a
+ * build resolves it again, while a reconcile keeps using it until the background resolution is done.
+ * <p>
+ * As Ivy is not asked, the artifacts don't go through {@link Grape#grab(Map, Map[])}. So the extension modules
+ * (<code>META-INF/services/org.codehaus.groovy.runtime.ExtensionModule</code>) and the other services of the jars are
+ * registered here once the artifacts are added to the loader, as grab does it.
+ */
+public final class GrabResolutionCache {
+
+    /** The system property that names the file that the resolved artifacts are stored in */
+    public static final String STORE_PROPERTY = "greclipse.grab.cache";
+
+    /** The system property that gives how long (in milliseconds) the artifacts of a dynamic version are used */
+    public static final String DYNAMIC_LIFETIME_PROPERTY = "greclipse.grab.dynamicLifetime";
+
+    private static final long DEFAULT_DYNAMIC_LIFETIME = 60 * 60 * 1000;
+
+    /** Marks the time of resolution at the start of a stored entry of a dynamic version */
+    private static final char TIME_MARKER = '@';
+
+    /** The number of times Ivy was asked to resolve a grab */
+    private static final AtomicInteger resolveCount = new AtomicInteger();
+
+    /**
+     * The artifacts of a grab, and when they were resolved if the grab has a dynamic version
+     */
+    private static final class Resolution {
+        final URI[] uris;
+        /** When the dynamic version was resolved, or -1 if the version is fixed */
+        final long time;
+
+        Resolution(URI[] uris, long time) {
+            this.uris = uris;
+            this.time = time;
+        }
+
+        boolean isExpired() {
+            return time >= 0 && System.currentTimeMillis() - time >= Long.getLong(DYNAMIC_LIFETIME_PROPERTY, DEFAULT_DYNAMIC_LIFETIME);
+        }
+    }
+
+    private static final Map<String, Resolution> resolved = new HashMap<String, Resolution>();
+
+    /** Errors of the latest resolutions that failed, only reported by reconciles (builds always try again) */
+    private static final Map<String, String> failures = new HashMap<String, String>();
+
+    private static final Set<String> pending = new HashSet<String>();
+
+    private static Properties store;
+
+    private static File storeFile;
+
+    private static ExecutorService background;
+
+    /** Grape is not safe to be called by more than one thread at a time */
+    private static final Object resolveLock = new Object();
+
+    private GrabResolutionCache() {
+        // static only
+    }
+
+    /**
+     * Stops the background resolution. Called when the plugin stops.
+     */
+    public static synchronized void shutdown() {
+        if (background != null) {
+            background.shutdownNow();
+            background = null;
+        }
+        pending.clear();
+    }
+
+    /**
+     * For testing: the number of times Ivy was asked to resolve a grab
+     */
+    static int getResolveCount() {
+        return resolveCount.get();
+    }
+
+    /**
+     * For testing: waits until the resolutions that were started in the background are done.
+     */
+    static void awaitBackground(long timeout) throws Exception {
+        ExecutorService executor;
+        synchronized (GrabResolutionCache.class) {
+            executor = background;
+        }
+        if (executor != null) {
+            // there is a single thread, so everything submitted before is done when this is
+            executor.submit(new Runnable() {
+                public void run() {
+                }
+            }).get(timeout, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Adds the artifacts of the grab to the loader, resolving them first if they are not known yet.
+     *
+     * @param args the arguments shared by the grabs of the source (excludes and grab configuration, the class loader is ignored)
+     * @param resolvers the resolvers declared in the source
+     * @param isReconcile if true a grab that is not known yet is resolved in the background, and nothing is added now
+     * @return true if anything was added to the loader
+     * @throws RuntimeException if the grab can't be resolved
+     */
+    static boolean grab(GroovyClassLoader loader, Map<String, Object> args, Map<String, Object> grab,
+            List<Map<String, Object>> resolvers, boolean isReconcile) {
+        String key = key(args, grab, resolvers);
+        Resolution resolution = get(key);
+        URI[] uris;
+        if (resolution == null || resolution.isExpired()) {
+            if (isReconcile) {
+                if (resolution == null) {
+                    String failure;
+                    synchronized (GrabResolutionCache.class) {
+                        failure = failures.get(key);
+                    }
+                    if (failure != null) {
+                        throw new RuntimeException(failure);
+                    }
+                }
+                resolveInBackground(key, args, grab, resolvers);
+                if (resolution == null) {
+                    return false;
+                }
+                // good enough until the background resolution is done
+                uris = resolution.uris;
+            } else {
+                uris = resolve(key, args, grab, resolvers);
+            }
+        } else {
+            uris = resolution.uris;
+        }
+        for (URI uri : uris) {
+            try {
+                loader.addURL(uri.toURL());
+            } catch (MalformedURLException e) {
+                throw new RuntimeException("Error grabbing Grapes -- " + e.getMessage());
+            }
+        }
+        if (uris.length > 0) {
+            processServices(loader, uris);
+        }
+        return uris.length > 0;
+    }
+
+    /**
+     * Registers the extension modules and the other services of the jars, as {@link Grape#grab(Map, Map[])} does after adding
+     * them to the loader
+     */
+    private static void processServices(GroovyClassLoader loader, URI[] uris) {
+        GrapeEngine engine = Grape.getInstance();
+        if (engine instanceof GrapeIvy) {
+            try {
+                ((GrapeIvy) engine).processServices(loader, uris);
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                // groovy does not declare what it throws
+                throw new RuntimeException("Error grabbing Grapes -- " + e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * @return the key for the grab, in which the order of the maps and lists that make it up does not matter
+     */
+    static String key(Map<String, Object> args, Map<String, Object> grab, List<Map<String, Object>> resolvers) {
+        Map<String, Object> parts = new HashMap<String, Object>(args);
+        parts.remove("classLoader");
+        parts.put("grab", grab);
+        parts.put("resolvers", resolvers);
+        return normalize(parts);
+    }
+
+    private static String normalize(Object value) {
+        if (value instanceof Map) {
+            Map<String, String> sorted = new TreeMap<String, String>();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                sorted.put(String.valueOf(entry.getKey()), normalize(entry.getValue()));
+            }
+            return sorted.toString();
+        }
+        if (value instanceof Collection) {
+            List<String> sorted = new ArrayList<String>();
+            for (Object element : (Collection<?>) value) {
+                sorted.add(normalize(element));
+            }
+            Collections.sort(sorted);
+            return sorted.toString();
+        }
+        return String.valueOf(value);
+    }
+
+    /**
+     * @return whether the version of the grab may resolve to something else as new versions are published
+     */
+    static boolean isDynamic(Map<String, Object> grab) {
+        Object value = grab.get("version");
+        if (value == null) {
+            // grape asks for the latest version then
+            return true;
+        }
+        String version = value.toString();
+        return version.equals("*") || version.startsWith("latest.") || version.endsWith("+") || version.startsWith("[")
+                || version.startsWith("(") || version.endsWith("]") || version.endsWith(")");
+    }
+
+    /**
+     * @return the artifacts of the grab, or null if they are not known or one of them is gone
+     */
+    private static synchronized Resolution get(String key) {
+        Resolution resolution = resolved.get(key);
+        if (resolution == null) {
+            String value = getStore().getProperty(key);
+            if (value == null) {
+                return null;
+            }
+            resolution = fromString(value);
+            if (resolution == null) {
+                remove(key);
+                return null;
+            }
+            resolved.put(key, resolution);
+        }
+        for (URI uri : resolution.uris) {
+            if (!new File(uri).exists()) {
+                remove(key);
+                return null;
+            }
+        }
+        return resolution;
+    }
+
+    private static URI[] resolve(String key, Map<String, Object> args, Map<String, Object> grab,
+            List<Map<String, Object>> resolvers) {
+        URI[] uris;
+        synchronized (resolveLock) {
+            for (Map<String, Object> resolver : resolvers) {
+                Grape.addResolver(new HashMap<String, Object>(resolver));
+            }
+            Map<String, Object> resolveArgs = new HashMap<String, Object>(args);
+            // a loader of its own, otherwise grape resolves what was grabbed for the loader before along with this grab
+            resolveArgs.put("classLoader", new GroovyClassLoader(GrabResolutionCache.class.getClassLoader()));
+            resolveCount.incrementAndGet();
+            try {
+                uris = Grape.resolve(resolveArgs, new HashMap<String, Object>(grab));
+            } catch (RuntimeException e) {
+                synchronized (GrabResolutionCache.class) {
+                    failures.put(key, e.getMessage());
+                }
+                throw e;
+            }
+        }
+        if (uris == null) {
+            // grapes are disabled, which says nothing about what the grab resolves to
+            return new URI[0];
+        }
+        put(key, new Resolution(uris, isDynamic(grab) ? System.currentTimeMillis() : -1));
+        return uris;
+    }
+
+    private static synchronized void resolveInBackground(final String key, final Map<String, Object> args,
+            final Map<String, Object> grab, final List<Map<String, Object>> resolvers) {
+        if (!pending.add(key)) {
+            return;
+        }
+        if (background == null) {
+            background = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "Groovy grab resolution");
+                    thread.setDaemon(true);
+                    // not the transform loader of the reconcile that happens to start the thread
+                    thread.setContextClassLoader(GrabResolutionCache.class.getClassLoader());
+                    return thread;
+                }
+            });
+        }
+        final Map<String, Object> argsCopy = new HashMap<String, Object>(args);
+        argsCopy.remove("classLoader");
+        final Map<String, Object> grabCopy = new HashMap<String, Object>(grab);
+        final List<Map<String, Object>> resolversCopy = new ArrayList<Map<String, Object>>(resolvers);
+        background.execute(new Runnable() {
+            public void run() {
+                try {
+                    resolve(key, argsCopy, grabCopy, resolversCopy);
+                } catch (RuntimeException e) {
+                    // remembered as a failure, the next reconcile reports it
+                } finally {
+                    synchronized (GrabResolutionCache.class) {
+                        pending.remove(key);
+                    }
+                }
+            }
+        });
+    }
+
+    private static synchronized void put(String key, Resolution resolution) {
+        resolved.put(key, resolution);
+        failures.remove(key);
+        getStore().setProperty(key, toString(resolution));
+        save();
+    }
+
+    private static void remove(String key) {
+        resolved.remove(key);
+        if (getStore().remove(key) != null) {
+            save();
+        }
+    }
+
+    private static String toString(Resolution resolution) {
+        StringBuilder sb = new StringBuilder();
+        if (resolution.time >= 0) {
+            sb.append(TIME_MARKER).append(resolution.time);
+        }
+        for (URI uri : resolution.uris) {
+            if (sb.length() > 0) {
+                sb.append(' ');
+            }
+            sb.append(uri);
+        }
+        return sb.toString();
+    }
+
+    private static Resolution fromString(String value) {
+        long time = -1;
+        List<URI> uris = new ArrayList<URI>();
+        for (String part : value.split(" ")) {
+            if (part.length() > 0 && part.charAt(0) == TIME_MARKER) {
+                try {
+                    time = Long.parseLong(part.substring(1));
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+            } else if (part.length() > 0) {
+                try {
+                    uris.add(new URI(part));
+                } catch (URISyntaxException e) {
+                    return null;
+                }
+            }
+        }
+        return new Resolution(uris.toArray(new URI[uris.size()]), time);
+    }
+
+    /**
+     * @return the stored artifacts, read again if the store was moved
+     */
+    private static Properties getStore() {
+        String path = System.getProperty(STORE_PROPERTY);
+        File file = path == null ? null : new File(path);
+        if (store == null || (file == null ? storeFile != null : !file.equals(storeFile))) {
+            store = new Properties();
+            storeFile = file;
+            resolved.clear();
+            if (file != null && file.exists()) {
+                try {
+                    InputStream in = new FileInputStream(file);
+                    try {
+                        store.load(in);
+                    } finally {
+                        in.close();
+                    }
+                } catch (IOException e) {
+                    // start again with an empty store
+                    store.clear();
+                }
+            }
+        }
+        return store;
+    }
+
+    private static void save() {
+        if (storeFile == null) {
+            return;
+        }
+        try {
+            File dir = storeFile.getParentFile();
+            if (dir != null) {
+                dir.mkdirs();
+            }
+            OutputStream out = new FileOutputStream(storeFile);
+            try {
+                store.store(out, "Artifacts resolved for @Grab");
+            } finally {
+                out.close();
+            }
+        } catch (IOException e) {
+            // only kept in memory then
+        }
+    }
+}
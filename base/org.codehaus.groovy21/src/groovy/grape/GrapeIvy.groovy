@@ -274,6 +274,20 @@ class GrapeIvy implements GrapeEngine {
         return null
     }
 
+    // GRECLIPSE add
+    /**
+     * Does what grab does once it has the artifacts, for artifacts that were added to the loader without asking Ivy (see
+     * GrabResolutionCache): registers the extension modules and the other services of the jars
+     */
+    void processServices(ClassLoader loader, URI[] uris) {
+        for (URI uri in uris) {
+            File file = new File(uri)
+            processCategoryMethods(uri, loader, file)
+            processOtherServices(file, loader)
+        }
+    }
+    // GRECLIPSE end
+
     private processCategoryMethods(URI uri, ClassLoader loader, File file) {
         URL url = uri.toURL()
         loader.addURL(url)
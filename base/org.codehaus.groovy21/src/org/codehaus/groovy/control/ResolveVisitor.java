@@ -1346,6 +1346,17 @@ public class ResolveVisitor extends ClassCodeExpressionTransformer {
     protected void finishedResolution() {
     	// template method
     }
+    /**
+     * Finds the node of a type that is not being compiled without loading its
+     * class.  Used by the class writer when computing stack map frames.
+     *
+     * @param source the source unit whose classes are being generated
+     * @return the node, or null if it can't be found this way
+     */
+    protected ClassNode findClassNodeForFrames(String qualifiedName, SourceUnit source) {
+    	// template method
+    	return null;
+    }
     // end
 
     private void checkAnnotationMemberValue(Expression newValue) {
@@ -21,6 +21,7 @@ import groovy.lang.GrabConfig;
 import groovy.lang.GrabExclude;
 import groovy.lang.GrabResolver;
 import groovy.lang.Grapes;
+import groovy.lang.GroovyClassLoader;
 import groovy.transform.CompilationUnitAware;
 import org.codehaus.groovy.ast.ASTNode;
 import org.codehaus.groovy.ast.AnnotatedNode;
@@ -185,6 +186,9 @@ public class GrabAnnotationTransformation extends ClassCodeVisitorSupport implem
         Collection<Map<String,Object>> grabMaps = new LinkedHashSet<Map<String,Object>>();
         List<Map<String,Object>> grabMapsInit = new ArrayList<Map<String,Object>>();
         List<Map<String,Object>> grabExcludeMaps = new ArrayList<Map<String,Object>>();
+        // GRECLIPSE - the resolvers are only added to grape when a grab has to be resolved
+        List<Map<String,Object>> grabResolverMaps = new ArrayList<Map<String,Object>>();
+        // GRECLIPSE end
 
         for (ClassNode classNode : sourceUnit.getAST().getClasses()) {
             grabAnnotations = new ArrayList<AnnotationNode>();
@@ -254,7 +258,11 @@ public class GrabAnnotationTransformation extends ClassCodeVisitorSupport implem
                             grabResolverMap.put(s, ((ConstantExpression) member).getValue());
                         }
                     }
-                    Grape.addResolver(grabResolverMap);
+                    // GRECLIPSE was:
+                    // Grape.addResolver(grabResolverMap);
+                    // GRECLIPSE now:
+                    grabResolverMaps.add(grabResolverMap);
+                    // GRECLIPSE end
                     addGrabResolverAsStaticInitIfNeeded(grapeClassNode, node, grabResolverInitializers, grabResolverMap);
                 }
             }
@@ -345,13 +353,24 @@ public class GrabAnnotationTransformation extends ClassCodeVisitorSupport implem
             */
             // GRECLIPSE now:
             // This grabs one thing at a time (so the errors are discovered individually), they are recorded
-            // against the first node
+            // against the first node. What a grab resolves to is remembered, so that Ivy is not asked again
+            // for the same coordinates, and a reconcile leaves the grabs that are not known yet to the background.
+            Object grabLoader = basicArgs.get("classLoader");
         	Map<String,Object>[] grabMapsAsMapArray = grabMaps.toArray(new Map[grabMaps.size()]);
         	for (int i=0;i<grabMapsAsMapArray.length;i++) {
 	            try {
-	           		Grape.grab(new HashMap<String,Object>(basicArgs),grabMapsAsMapArray[i]);
+	                boolean added = true;
+	                if (grabLoader instanceof GroovyClassLoader) {
+	                    added = GrabResolutionCache.grab((GroovyClassLoader) grabLoader, basicArgs, grabMapsAsMapArray[i],
+	                            grabResolverMaps, sourceUnit.isReconcile);
+	                } else {
+	                    for (Map<String,Object> grabResolverMap : grabResolverMaps) {
+	                        Grape.addResolver(grabResolverMap);
+	                    }
+	                    Grape.grab(new HashMap<String,Object>(basicArgs),grabMapsAsMapArray[i]);
+	                }
 	                // grab may have added more transformations through new URLs added to classpath, so do one more scan
-	                if (compilationUnit!=null) {
+	                if (added && compilationUnit!=null) {
 	                    ASTTransformationVisitor.addGlobalTransformsAfterGrab(compilationUnit.getASTTransformationsContext());
 	                }
 	            } catch (RuntimeException re) {
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.groovy.transform;
+
+import groovy.lang.GroovyClassLoader;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.ref.WeakReference;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * GRECLIPSE: new class
+ * <p>
+ * Remembers the global transforms that the service files on the classpath of a transform loader declare and the classes that
+ * they resolve to, so that {@link ASTTransformationVisitor} does not read the files and look up the classes again for every
+ * compilation unit (eg- on every reconcile). What is remembered for a loader is thrown away when its classpath (or that of one
+ * of its parents) changes, eg- after a grab.
+ * <p>
+ * The transforms are still instantiated for every compilation unit.
+ */
+final class GlobalTransformServices {
+
+    private static final String SERVICE_FILE = "META-INF/services/org.codehaus.groovy.transform.ASTTransformation";
+
+    /**
+     * A service file and the lines in it
+     */
+    static final class Service {
+        final URL url;
+        final List<String> lines;
+        /** Set if the file could not be read to the end */
+        final IOException readError;
+
+        Service(URL url, List<String> lines, IOException readError) {
+            this.url = url;
+            this.lines = lines;
+            this.readError = readError;
+        }
+    }
+
+    private static final class Entry {
+        final List<URL> classpath;
+        final List<Service> services;
+        // weak so that the entry does not keep the loader alive; a loader holds on to its classes anyway
+        final Map<String, WeakReference<Class>> classes = new HashMap<String, WeakReference<Class>>();
+
+        Entry(List<URL> classpath, List<Service> services) {
+            this.classpath = classpath;
+            this.services = services;
+        }
+    }
+
+    private static final Map<ClassLoader, Entry> entries = new WeakHashMap<ClassLoader, Entry>();
+
+    private GlobalTransformServices() {
+        // static only
+    }
+
+    /**
+     * @return the service files on the classpath of the loader, in the order the loader finds them
+     */
+    static List<Service> getServices(GroovyClassLoader loader) throws IOException {
+        List<URL> classpath = getClasspath(loader);
+        synchronized (entries) {
+            Entry entry = entries.get(loader);
+            if (entry != null && entry.classpath.equals(classpath)) {
+                return entry.services;
+            }
+        }
+
+        List<Service> services = new ArrayList<Service>();
+        boolean complete = true;
+        Enumeration<URL> urls = loader.getResources(SERVICE_FILE);
+        while (urls.hasMoreElements()) {
+            Service service = read(urls.nextElement());
+            complete &= service.readError == null;
+            services.add(service);
+        }
+        services = Collections.unmodifiableList(services);
+        if (complete) {
+            synchronized (entries) {
+                entries.put(loader, new Entry(classpath, services));
+            }
+        }
+        return services;
+    }
+
+    /**
+     * Loads the transform class through the loader, or answers it from the cache if it was loaded before with the same classpath
+     */
+    static Class loadClass(GroovyClassLoader loader, String className) throws ClassNotFoundException {
+        synchronized (entries) {
+            Entry entry = entries.get(loader);
+            if (entry != null) {
+                WeakReference<Class> ref = entry.classes.get(className);
+                Class clazz = ref == null ? null : ref.get();
+                if (clazz != null) {
+                    return clazz;
+                }
+            }
+        }
+        Class clazz = loader.loadClass(className, false, true, false);
+        synchronized (entries) {
+            Entry entry = entries.get(loader);
+            if (entry != null) {
+                entry.classes.put(className, new WeakReference<Class>(clazz));
+            }
+        }
+        return clazz;
+    }
+
+    private static List<URL> getClasspath(ClassLoader loader) {
+        List<URL> classpath = new ArrayList<URL>();
+        for (ClassLoader l = loader; l != null; l = l.getParent()) {
+            if (l instanceof URLClassLoader) {
+                classpath.addAll(Arrays.asList(((URLClassLoader) l).getURLs()));
+            }
+        }
+        return classpath;
+    }
+
+    private static Service read(URL url) {
+        List<String> lines = new ArrayList<String>();
+        IOException readError = null;
+        try {
+            InputStream is = url.openStream();
+            try {
+                BufferedReader in = new BufferedReader(new InputStreamReader(is, "UTF-8"));
+                String line;
+                while ((line = in.readLine()) != null) {
+                    lines.add(line);
+                }
+            } finally {
+                is.close();
+            }
+        } catch (IOException e) {
+            readError = e;
+        }
+        return new Service(url, Collections.unmodifiableList(lines), readError);
+    }
+}
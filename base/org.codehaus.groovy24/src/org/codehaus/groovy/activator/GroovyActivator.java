@@ -15,6 +15,8 @@
  */
 package org.codehaus.groovy.activator;
 
+import groovy.grape.GrabResolutionCache;
+
 import java.io.IOException;
 import java.net.URL;
 
@@ -105,6 +107,7 @@ public class GroovyActivator extends Plugin {
 
     @Override
     public void stop(BundleContext context) throws Exception {
+        GrabResolutionCache.shutdown();
         super.stop(context);
     }
 }
\ No newline at end of file
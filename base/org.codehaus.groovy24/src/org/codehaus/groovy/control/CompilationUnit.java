@@ -74,6 +74,12 @@ public class CompilationUnit extends ProcessingUnit {
 
     protected CompileUnit ast;        // The overall AST for this CompilationUnit.
     protected List<GroovyClass> generatedClasses;  // The classes generated during classgen.
+    // GRECLIPSE: start
+    protected Map<SourceUnit, List<GroovyClass>> generatedClassesBySource; // The generated classes of each SourceUnit.
+    // Types outside of this unit and common super classes, looked up while computing stack map frames
+    private final Map<String, ClassNode> frameClassNodes = new HashMap<String, ClassNode>();
+    private final Map<String, String> commonSuperClasses = new HashMap<String, String>();
+    // end
 
     protected Verifier verifier;   // For use by verify().
 
@@ -154,6 +160,9 @@ public class CompilationUnit extends ProcessingUnit {
 
         this.ast = new CompileUnit(this.classLoader, security, this.configuration);
         this.generatedClasses = new ArrayList<GroovyClass>();
+        // GRECLIPSE: start
+        this.generatedClassesBySource = new HashMap<SourceUnit, List<GroovyClass>>();
+        // end
 
 
         this.verifier = new Verifier();
@@ -363,6 +372,16 @@ public class CompilationUnit extends ProcessingUnit {
         return generatedClasses;
     }
 
+    // GRECLIPSE: start
+    /**
+     * Get the GroovyClasses generated by compile() from the given SourceUnit.
+     */
+    public List<GroovyClass> getClasses(SourceUnit source) {
+        List<GroovyClass> classes = generatedClassesBySource.get(source);
+        return classes != null ? classes : Collections.<GroovyClass>emptyList();
+    }
+    // end
+
 
     /**
      * Convenience routine to get the first ClassNode, for
@@ -866,7 +885,12 @@ public class CompilationUnit extends ProcessingUnit {
             //
             // Prep the generator machinery
             //
+            // GRECLIPSE: start
+            /*old{
             ClassVisitor visitor = createClassVisitor();
+            }*/
+            ClassVisitor visitor = createClassVisitor(source);
+            // end
 
             String sourceName = (source == null ? classNode.getModule().getDescription() : source.getName());
             // only show the file name and its extension like javac does in its stacktraces rather than the full path
@@ -891,7 +915,14 @@ public class CompilationUnit extends ProcessingUnit {
 	            generatedClasses.add(new GroovyClass(classNode.getName(), bytes));
 	            }*/
 	            // newcode
-	            generatedClasses.add(new GroovyClass(classNode.getName(), bytes, classNode, source));
+	            GroovyClass generatedClass = new GroovyClass(classNode.getName(), bytes, classNode, source);
+	            generatedClasses.add(generatedClass);
+	            List<GroovyClass> classesOfSource = generatedClassesBySource.get(source);
+	            if (classesOfSource == null) {
+	                classesOfSource = new ArrayList<GroovyClass>();
+	                generatedClassesBySource.put(source, classesOfSource);
+	            }
+	            classesOfSource.add(generatedClass);
 			// end
 			
 	            //
@@ -915,7 +946,17 @@ public class CompilationUnit extends ProcessingUnit {
     };
 
 
+    // GRECLIPSE: start
     protected ClassVisitor createClassVisitor() {
+        return createClassVisitor(null);
+    }
+
+    /**
+     * @param source the source unit whose classes are written, so that types
+     * needed for stack map frames can be looked up in its scope; may be null
+     */
+    protected ClassVisitor createClassVisitor(final SourceUnit source) {
+    // end
         CompilerConfiguration config = getConfiguration();
         int computeMaxStackAndFrames = ClassWriter.COMPUTE_MAXS;
         if (CompilerConfiguration.isPostJDK7(config.getTargetBytecode())
@@ -931,6 +972,17 @@ public class CompilationUnit extends ProcessingUnit {
                 // try inner classes
                 cn = cu.getGeneratedInnerClass(name);
                 if (cn!=null) return cn;
+                // GRECLIPSE: start: ask the resolver before loading (and linking) the class
+                cn = frameClassNodes.get(name);
+                if (cn!=null) return cn;
+                if (resolveVisitor!=null) {
+                    cn = resolveVisitor.findClassNodeForFrames(name, source);
+                    if (cn!=null) {
+                        frameClassNodes.put(name, cn);
+                        return cn;
+                    }
+                }
+                // end
                 // try class loader classes
                 try {
                     cn = ClassHelper.make(
@@ -954,9 +1006,21 @@ public class CompilationUnit extends ProcessingUnit {
             }
             @Override
             protected String getCommonSuperClass(String arg1, String arg2) {
+                // GRECLIPSE: start: the same pairs come up again and again
+                String key = arg1 + ';' + arg2;
+                String common = commonSuperClasses.get(key);
+                if (common!=null) return common;
+                // end
                 ClassNode a = getClassNode(arg1.replace('/', '.')); 
                 ClassNode b = getClassNode(arg2.replace('/', '.'));
+                // GRECLIPSE: start
+                /*old{
                 return getCommonSuperClassNode(a,b).getName().replace('.','/');
+                }*/
+                common = getCommonSuperClassNode(a,b).getName().replace('.','/');
+                commonSuperClasses.put(key, common);
+                return common;
+                // end
             }
 
         };
@@ -32,6 +32,16 @@ import org.eclipse.jdt.internal.compiler.classfmt.ClassFileReader;
  */
 public class BinaryGroovySupplementalIndexer implements ISupplementalIndexer {
 
+	public List<char[]> extractNamedReferences(byte[] contents, ClassFileReader reader, String documentPath) {
+		SupplementalIndexCache cache = SupplementalIndexCache.getInstance();
+		List<char[]> refs = cache.getNames(documentPath);
+		if (refs == null) {
+			refs = extractNamedReferences(contents, reader);
+			cache.putNames(documentPath, refs);
+		}
+		return refs;
+	}
+
 	public List<char[]> extractNamedReferences(byte[] contents, ClassFileReader reader) {
 		int[] constantPoolOffsets = reader.getConstantPoolOffsets();
 		int constantPoolCount = constantPoolOffsets.length;
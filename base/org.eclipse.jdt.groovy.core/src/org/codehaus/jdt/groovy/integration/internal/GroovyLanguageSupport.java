@@ -16,6 +16,7 @@ import java.util.Arrays;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.regex.Pattern;
 
 import org.codehaus.groovy.control.CompilerConfiguration;
 import org.codehaus.groovy.control.ErrorCollector;
@@ -26,6 +27,7 @@ import org.codehaus.jdt.groovy.integration.ISupplementalIndexer;
 import org.codehaus.jdt.groovy.integration.LanguageSupport;
 import org.codehaus.jdt.groovy.internal.compiler.ast.GroovyCompilationUnitDeclaration;
 import org.codehaus.jdt.groovy.internal.compiler.ast.GroovyErrorCollectorForJDT;
+import org.codehaus.jdt.groovy.internal.compiler.ast.GroovyStructureUnitDeclaration;
 import org.codehaus.jdt.groovy.internal.compiler.ast.GroovyTypeDeclaration;
 import org.codehaus.jdt.groovy.internal.compiler.ast.JDTResolver;
 import org.codehaus.jdt.groovy.model.GroovyClassFileWorkingCopy;
@@ -33,6 +35,7 @@ import org.codehaus.jdt.groovy.model.GroovyCompilationUnit;
 import org.codehaus.jdt.groovy.model.GroovyNature;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.jdt.core.IImportDeclaration;
 import org.eclipse.jdt.core.IJavaElement;
 import org.eclipse.jdt.core.ISourceRange;
 import org.eclipse.jdt.core.JavaModelException;
@@ -84,6 +87,8 @@ import org.eclipse.jdt.internal.core.util.Util;
  */
 public class GroovyLanguageSupport implements LanguageSupport {
 
+	private static final Pattern ALIASED_IMPORT = Pattern.compile("\\sas\\s");
+
 	public Parser getParser(Object requestor, CompilerOptions compilerOptions, ProblemReporter problemReporter,
 			boolean parseLiteralExpressionsAsConstants, int variant) {
 		if (variant == 1) {
@@ -175,6 +180,28 @@ public class GroovyLanguageSupport implements LanguageSupport {
 		}
 	}
 
+	/**
+	 * The java model of a groovy unit keeps the names of its imports but not their aliases, so a unit with an aliased import has
+	 * to be parsed for its supertypes to be found.
+	 */
+	public CompilationUnitDeclaration newStructureCompilationUnitDeclaration(ICompilationUnit unit,
+			ProblemReporter problemReporter, CompilationResult compilationResult) {
+		if (!(unit instanceof GroovyCompilationUnit)) {
+			return null;
+		}
+		try {
+			for (IImportDeclaration importDeclaration : ((GroovyCompilationUnit) unit).getImports()) {
+				String source = importDeclaration.getSource();
+				if (source == null || ALIASED_IMPORT.matcher(source).find()) {
+					return null;
+				}
+			}
+		} catch (JavaModelException e) {
+			return null;
+		}
+		return new GroovyStructureUnitDeclaration(problemReporter, compilationResult);
+	}
+
 	public boolean isInterestingProject(IProject project) {
 		return GroovyNature.hasGroovyNature(project);
 	}
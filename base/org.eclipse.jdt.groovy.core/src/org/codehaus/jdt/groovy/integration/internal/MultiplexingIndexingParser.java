@@ -42,6 +42,11 @@ public class MultiplexingIndexingParser extends IndexingParser {
 	boolean groovyReportReferenceInfo;
 	ISourceElementRequestor requestor;
 
+	// one index job uses one indexing parser for all documents of a project, so the groovy parser is kept and reset
+	// between documents rather than recreated (with its configuration, customizers and loaders) for each one
+	private GroovyParser groovyParser;
+	private boolean groovyParserInUse;
+
 	public MultiplexingIndexingParser(ISourceElementRequestor requestor, IProblemFactory problemFactory, CompilerOptions options,
 			boolean reportLocalDeclarations, boolean optimizeStringLiterals, boolean useSourceJavadocParser) {
 		super(requestor, problemFactory, options, reportLocalDeclarations, optimizeStringLiterals, useSourceJavadocParser);
@@ -67,9 +72,26 @@ public class MultiplexingIndexingParser extends IndexingParser {
 
 			CompilationResult compilationResult = new CompilationResult(unit, 0, 0, this.options.maxProblemsPerUnit);
 
-			// FIXASC Is it ok to use a new parser here everytime? If we don't we sometimes recurse back into the first one
-			GroovyCompilationUnitDeclaration cud = (GroovyCompilationUnitDeclaration) new GroovyParser(this.options,
-					problemReporter, false, true).dietParse(unit, compilationResult);
+			// only goes as far as conversion, which is all that indexing needs
+			GroovyCompilationUnitDeclaration cud;
+			if (groovyParserInUse) {
+				// recursed back into this parser while it is busy, so use a new one
+				cud = (GroovyCompilationUnitDeclaration) new GroovyParser(this.options, problemReporter, false, true).dietParse(
+						unit, compilationResult);
+			} else {
+				groovyParserInUse = true;
+				try {
+					if (groovyParser == null) {
+						groovyParser = new GroovyParser(this.options, problemReporter, false, true);
+					} else {
+						// start from an empty groovy compilation unit
+						groovyParser.reset();
+					}
+					cud = (GroovyCompilationUnitDeclaration) groovyParser.dietParse(unit, compilationResult);
+				} finally {
+					groovyParserInUse = false;
+				}
+			}
 
 			// CompilationUnitDeclaration cud groovyParser.dietParse(sourceUnit, compilationResult);
 			HashtableOfObjectToInt sourceEnds = createSourceEnds(cud);
@@ -0,0 +1,369 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codehaus.org, SpringSource, and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     SpringSource - Initial API and implementation
+ *******************************************************************************/
+package org.codehaus.jdt.groovy.integration.internal;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.codehaus.groovy.eclipse.GroovyLogManager;
+import org.codehaus.groovy.eclipse.TraceCategory;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.jdt.groovy.core.Activator;
+import org.eclipse.jdt.internal.core.JavaModel;
+import org.eclipse.jdt.internal.core.util.Util;
+
+/**
+ * Remembers the names that {@link BinaryGroovySupplementalIndexer} extracts from the class files of a jar, so that a jar does
+ * not have to be scanned again when it is re-indexed (eg- after the indexes were discarded on restart).
+ * <p>
+ * There is one file per jar under the state location of the plugin. It is only used if the path, the size and the contents of
+ * the jar are the same as when it was written. The contents are compared by hash, which is only computed when the time stamp
+ * of the jar changed. Jars are found by their workspace path first, then by their file system path. Class files that are not
+ * in a jar are always scanned.
+ * <p>
+ * The JDT indexer indexes one jar at a time, so the names of the current jar are kept in memory and written out when the
+ * indexer moves on to another jar or the plugin is stopped. The size and time stamp of the jar are checked for every class
+ * file, so names kept for a jar that has since changed are dropped.
+ */
+public final class SupplementalIndexCache {
+
+	private static final int VERSION = 1;
+
+	/** Separates the path of the jar from the path of the entry in the path of an index document */
+	private static final char JAR_ENTRY_SEPARATOR = '|';
+
+	private static SupplementalIndexCache instance;
+
+	static synchronized SupplementalIndexCache getInstance() {
+		if (instance == null) {
+			Activator activator = Activator.getDefault();
+			File dir = activator == null ? null : activator.getStateLocation().append("supplementalIndex").toFile();
+			instance = new SupplementalIndexCache(dir);
+		}
+		return instance;
+	}
+
+	/**
+	 * Writes out the names of the jar that is currently being indexed.
+	 */
+	public static synchronized void flush() {
+		if (instance != null) {
+			instance.closeJar();
+		}
+	}
+
+	/**
+	 * The names of the class files of a single jar
+	 */
+	private static class JarNames {
+		final String path;
+		final File file;
+		final long size;
+		final long lastModified;
+		String contentHash;
+		final Map<String, char[][]> namesByEntry = new LinkedHashMap<String, char[][]>();
+		boolean dirty;
+
+		JarNames(String path, File file, long size, long lastModified) {
+			this.path = path;
+			this.file = file;
+			this.size = size;
+			this.lastModified = lastModified;
+		}
+
+		boolean isUpToDate() {
+			return file.length() == size && file.lastModified() == lastModified;
+		}
+	}
+
+	/** Where the cache files go, or null if the names are not persisted */
+	private final File cacheDir;
+
+	/** The jar that is currently being indexed */
+	private JarNames current;
+
+	private int numJarsFromCache;
+	private int numJarsScanned;
+
+	/**
+	 * @param cacheDir where the cache files go, or null if the names should not be persisted
+	 */
+	public SupplementalIndexCache(File cacheDir) {
+		this.cacheDir = cacheDir;
+	}
+
+	/**
+	 * @return the number of jars whose names were read back from the cache
+	 */
+	public synchronized int getNumJarsFromCache() {
+		return numJarsFromCache;
+	}
+
+	/**
+	 * @return the number of jars whose class files had to be scanned
+	 */
+	public synchronized int getNumJarsScanned() {
+		return numJarsScanned;
+	}
+
+	/**
+	 * @param documentPath the path of the index document, ie- the path of the jar and the entry in it separated by '|'
+	 * @return the names of the class file, or null if they are not known
+	 */
+	public synchronized List<char[]> getNames(String documentPath) {
+		int separator = documentPath == null ? -1 : documentPath.indexOf(JAR_ENTRY_SEPARATOR);
+		if (separator < 0 || cacheDir == null) {
+			return null;
+		}
+		JarNames jar = openJar(documentPath.substring(0, separator));
+		if (jar == null) {
+			return null;
+		}
+		char[][] names = jar.namesByEntry.get(documentPath.substring(separator + 1));
+		return names == null ? null : new ArrayList<char[]>(Arrays.asList(names));
+	}
+
+	public synchronized void putNames(String documentPath, List<char[]> names) {
+		int separator = documentPath == null ? -1 : documentPath.indexOf(JAR_ENTRY_SEPARATOR);
+		if (separator < 0 || cacheDir == null) {
+			return;
+		}
+		JarNames jar = openJar(documentPath.substring(0, separator));
+		if (jar != null) {
+			jar.namesByEntry.put(documentPath.substring(separator + 1), names.toArray(new char[names.size()][]));
+			jar.dirty = true;
+		}
+	}
+
+	/**
+	 * Writes out the names of the jar that is currently being indexed.
+	 */
+	public synchronized void closeJar() {
+		if (current != null && current.dirty) {
+			try {
+				// names gathered from a jar that changed in the meantime must not be stamped with its new contents
+				if (current.isUpToDate()) {
+					write(current);
+				}
+			} catch (IOException e) {
+				Util.log(e, "Could not write supplemental index cache for " + current.path);
+			}
+		}
+		current = null;
+	}
+
+	private JarNames openJar(String jarPath) {
+		if (current != null && current.path.equals(jarPath)) {
+			if (current.isUpToDate()) {
+				return current;
+			}
+			// the jar has changed since its names were gathered
+			trace("Dropping names of changed jar " + jarPath);
+			current = null;
+		}
+		closeJar();
+
+		File jarFile = toFile(jarPath);
+		if (jarFile == null || !jarFile.isFile()) {
+			return null;
+		}
+		JarNames jar = new JarNames(jarPath, jarFile, jarFile.length(), jarFile.lastModified());
+		if (read(jar)) {
+			numJarsFromCache += 1;
+			trace("Using cached names for " + jarPath);
+		} else {
+			numJarsScanned += 1;
+			trace("Scanning " + jarPath);
+		}
+		current = jar;
+		return jar;
+	}
+
+	/**
+	 * @param jarPath the workspace path of a jar in the workspace, or the file system path of an external jar
+	 * @return the jar file, or null if it can't be found
+	 */
+	private static File toFile(String jarPath) {
+		Object target = JavaModel.getTarget(new Path(jarPath), true);
+		if (target instanceof IFile) {
+			IPath location = ((IFile) target).getLocation();
+			return location == null ? null : location.toFile();
+		}
+		if (target instanceof File) {
+			return (File) target;
+		}
+		return null;
+	}
+
+	/**
+	 * Reads the cached names of the jar if they are still valid.
+	 *
+	 * @return true iff the cached names were read
+	 */
+	private boolean read(JarNames jar) {
+		File file = cacheFile(jar.path);
+		if (!file.isFile()) {
+			return false;
+		}
+		DataInputStream in = null;
+		try {
+			in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+			if (in.readInt() != VERSION || !in.readUTF().equals(jar.path) || in.readLong() != jar.size) {
+				return false;
+			}
+			long lastModified = in.readLong();
+			String contentHash = in.readUTF();
+			if (lastModified != jar.lastModified) {
+				// touched, but maybe not changed
+				jar.contentHash = hash(jar.file);
+				if (!contentHash.equals(jar.contentHash)) {
+					return false;
+				}
+				jar.dirty = true; // to record the new time stamp
+			} else {
+				jar.contentHash = contentHash;
+			}
+
+			char[][] names = new char[in.readInt()][];
+			for (int i = 0; i < names.length; i += 1) {
+				names[i] = in.readUTF().toCharArray();
+			}
+			for (int i = 0, n = in.readInt(); i < n; i += 1) {
+				String entry = in.readUTF();
+				char[][] entryNames = new char[in.readInt()][];
+				for (int j = 0; j < entryNames.length; j += 1) {
+					entryNames[j] = names[in.readInt()];
+				}
+				jar.namesByEntry.put(entry, entryNames);
+			}
+			return true;
+		} catch (IOException e) {
+			jar.namesByEntry.clear();
+			return false;
+		} finally {
+			close(in);
+		}
+	}
+
+	private void write(JarNames jar) throws IOException {
+		if (jar.contentHash == null) {
+			jar.contentHash = hash(jar.file);
+		}
+		// the same names show up in many class files, so write each one once and refer to it by index
+		Map<String, Integer> indexes = new HashMap<String, Integer>();
+		List<String> names = new ArrayList<String>();
+		for (char[][] entryNames : jar.namesByEntry.values()) {
+			for (char[] name : entryNames) {
+				String key = String.valueOf(name);
+				if (!indexes.containsKey(key)) {
+					indexes.put(key, names.size());
+					names.add(key);
+				}
+			}
+		}
+
+		cacheDir.mkdirs();
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(cacheFile(jar.path))));
+		try {
+			out.writeInt(VERSION);
+			out.writeUTF(jar.path);
+			out.writeLong(jar.size);
+			out.writeLong(jar.lastModified);
+			out.writeUTF(jar.contentHash);
+			out.writeInt(names.size());
+			for (String name : names) {
+				out.writeUTF(name);
+			}
+			out.writeInt(jar.namesByEntry.size());
+			for (Map.Entry<String, char[][]> entry : jar.namesByEntry.entrySet()) {
+				out.writeUTF(entry.getKey());
+				out.writeInt(entry.getValue().length);
+				for (char[] name : entry.getValue()) {
+					out.writeInt(indexes.get(String.valueOf(name)));
+				}
+			}
+		} finally {
+			out.close();
+		}
+		jar.dirty = false;
+	}
+
+	private File cacheFile(String jarPath) {
+		try {
+			return new File(cacheDir, toHex(MessageDigest.getInstance("MD5").digest(jarPath.getBytes("UTF-8"))) + ".names");
+		} catch (Exception e) {
+			// MD5 and UTF-8 are always available
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static String hash(File file) throws IOException {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("MD5");
+		} catch (NoSuchAlgorithmException e) {
+			// MD5 is always available
+			throw new IllegalStateException(e);
+		}
+		InputStream in = new BufferedInputStream(new FileInputStream(file));
+		try {
+			byte[] buffer = new byte[8192];
+			int read;
+			while ((read = in.read(buffer)) != -1) {
+				digest.update(buffer, 0, read);
+			}
+		} finally {
+			close(in);
+		}
+		return toHex(digest.digest());
+	}
+
+	private static String toHex(byte[] bytes) {
+		StringBuilder sb = new StringBuilder(bytes.length * 2);
+		for (byte b : bytes) {
+			sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+		}
+		return sb.toString();
+	}
+
+	private static void close(InputStream in) {
+		if (in != null) {
+			try {
+				in.close();
+			} catch (IOException e) {
+				// ignore
+			}
+		}
+	}
+
+	private static void trace(String message) {
+		if (GroovyLogManager.manager.hasLoggers()) {
+			GroovyLogManager.manager.log(TraceCategory.COMPILER, "Supplemental index: " + message);
+		}
+	}
+}
@@ -511,8 +511,9 @@ public class GroovyClassScope extends ClassScope {
 	@Override
 	public void buildFieldsAndMethods() {
 		super.buildFieldsAndMethods();
-		GroovyTypeDeclaration context = (GroovyTypeDeclaration) referenceContext;
-		GroovyTypeDeclaration[] anonymousTypes = context.getAnonymousTypes();
+		// will not be an instance of GroovyTypeDeclaration if created through SourceTypeConverter
+		GroovyTypeDeclaration[] anonymousTypes = referenceContext instanceof GroovyTypeDeclaration ? ((GroovyTypeDeclaration) referenceContext)
+				.getAnonymousTypes() : null;
 		if (anonymousTypes != null) {
 			for (GroovyTypeDeclaration anonType : anonymousTypes) {
 				GroovyClassScope anonScope = new GroovyClassScope(this, anonType);
@@ -110,6 +110,7 @@ import org.eclipse.jdt.internal.compiler.problem.AbortCompilation;
 import org.eclipse.jdt.internal.compiler.problem.DefaultProblemFactory;
 import org.eclipse.jdt.internal.compiler.problem.ProblemReporter;
 import org.eclipse.jdt.internal.compiler.problem.ProblemSeverities;
+import org.eclipse.jdt.internal.core.builder.NameEnvironment;
 import org.eclipse.jdt.internal.core.util.Util;
 
 /**
@@ -180,22 +181,37 @@ public class GroovyCompilationUnitDeclaration extends CompilationUnitDeclaration
 	 */
 	public boolean processToPhase(int phase) {
 		// GRECLIPSE-1776 start
-		// Try to discard cached class loaders for traits
+		// Try to discard the cached class loaders that hold the previous versions of the traits
 		if (phase == Phases.CANONICALIZATION) {
+			List<String> traitNames = null;
 			for (ModuleNode module : groovyCompilationUnit.getAST().getModules()) {
 				for (ClassNode classNode : module.getClasses()) {
 					if (traitHelper.isTrait(classNode)) {
-						GroovyParser.tidyCache();
-						break;
+						if (traitNames == null) {
+							traitNames = new ArrayList<String>();
+						}
+						traitNames.add(classNode.getName());
 					}
 				}
 			}
+			if (traitNames != null) {
+				GroovyParser.tidyCacheForTraits(traitNames);
+			}
 		}
 		// GRECLIPSE end
 		boolean alreadyHasProblems = compilationResult.hasProblems();
 		// Our replacement error collector doesn't cause an exception, instead they are checked for post 'compile'
 		try {
 			ClassLoader cl = Thread.currentThread().getContextClassLoader();
+			// When the builder compiles in groups, groovy units of later groups can't be faulted in any more once the groovy
+			// compilation drives its units past parsing (parsing does not look up any types). The builder compiles the group
+			// again with the units that are asked for after that point, see NameEnvironment.missedGroovyUnits
+			if (phase > Phases.CONVERSION && scope instanceof GroovyCompilationUnitScope) {
+				NameEnvironment faultingEnvironment = ((GroovyCompilationUnitScope) scope).getFaultingNameEnvironment();
+				if (faultingEnvironment != null) {
+					faultingEnvironment.avoidAdditionalGroovyAnswers = true;
+				}
+			}
 			try {
 				Thread.currentThread().setContextClassLoader(groovyCompilationUnit.getTransformLoader());
 				groovyCompilationUnit.compile(phase);
@@ -1706,7 +1722,6 @@ public class GroovyCompilationUnitDeclaration extends CompilationUnitDeclaration
 
 	// FIXASC are costly regens being done for all the classes???
 
-	@SuppressWarnings("unchecked")
 	@Override
 	public void generateCode() {
 		boolean successful = processToPhase(Phases.ALL);
@@ -1733,65 +1748,61 @@ public class GroovyCompilationUnitDeclaration extends CompilationUnitDeclaration
 			// we have to do very little hunting for the binding and don't have to mess around with strings (chopping off
 			// packages, etc).
 
-			// This returns all of them, for all source files
-			List<GroovyClass> classes = groovyCompilationUnit.getClasses();
+			// Only those coming about because of this groovySourceUnit; the compilation unit indexes
+			// the generated classes by source as they are created, so there is no need to look
+			// through the classes of all source files
+			List<GroovyClass> classes = groovyCompilationUnit.getClasses(groovySourceUnit);
 
 			if (DEBUG) {
 				log("Processing sourceUnit " + groovySourceUnit.getName());
 			}
 
+			Map<ClassNode, SourceTypeBinding> bindings = indexBindings();
 			for (GroovyClass clazz : classes) {
 				ClassNode classnode = clazz.getClassNode();
 				if (DEBUG) {
 					log("Looking at class " + clazz.getName());
 					log("ClassNode where it came from " + classnode);
 				}
-				// Only care about those coming about because of this groovySourceUnit
-				if (clazz.getSourceUnit() == groovySourceUnit) {
-					if (DEBUG) {
-						log("It is from this source unit");
-					}
-					// Worth continuing
-					String classname = clazz.getName();
-					SourceTypeBinding binding = null;
-					if (types != null && types.length != 0) {
-						binding = findBinding(types, clazz.getClassNode());
-					}
-					if (DEBUG) {
-						log("Binding located?" + (binding != null));
-					}
-					if (binding == null) {
-						// closures will be represented as InnerClassNodes
-						ClassNode current = classnode;
-						while (current instanceof InnerClassNode && binding == null) {
-							current = ((InnerClassNode) current).getOuterClass();
-							binding = findBinding(types, current);
-							if (DEBUG) {
-								log("Had another look because it is in an InnerClassNode, found binding? " + (binding != null));
-							}
+				String classname = clazz.getName();
+				SourceTypeBinding binding = null;
+				if (types != null && types.length != 0) {
+					binding = bindings.get(clazz.getClassNode());
+				}
+				if (DEBUG) {
+					log("Binding located?" + (binding != null));
+				}
+				if (binding == null) {
+					// closures will be represented as InnerClassNodes
+					ClassNode current = classnode;
+					while (current instanceof InnerClassNode && binding == null) {
+						current = ((InnerClassNode) current).getOuterClass();
+						binding = bindings.get(current);
+						if (DEBUG) {
+							log("Had another look because it is in an InnerClassNode, found binding? " + (binding != null));
 						}
 					}
+				}
 
-					boolean isScript = false;
-					// Suppress class file output if it is a script
-					// null binding implies synthetic type, which we assume cannot be a script
-					if (binding != null && binding.scope != null && (binding.scope.parent instanceof GroovyCompilationUnitScope)) {
-						GroovyCompilationUnitScope gcuScope = (GroovyCompilationUnitScope) binding.scope.parent;
-						if (gcuScope.isScript()) {
-							isScript = true;
-						}
+				boolean isScript = false;
+				// Suppress class file output if it is a script
+				// null binding implies synthetic type, which we assume cannot be a script
+				if (binding != null && binding.scope != null && (binding.scope.parent instanceof GroovyCompilationUnitScope)) {
+					GroovyCompilationUnitScope gcuScope = (GroovyCompilationUnitScope) binding.scope.parent;
+					if (gcuScope.isScript()) {
+						isScript = true;
 					}
-					if (!isScript) {
-						byte[] classbytes = clazz.getBytes();
-						String path = clazz.getName().replace('.', '/');
-						GroovyClassFile classFile = new GroovyClassFile(classname, classbytes, binding, path);
-						char[] classNameChars = classname.toCharArray();
-						if (binding == null) {
-							// GRECLIPSE-1653 this type likely added by AST transform and is synthetic
-							compilationResult.compiledTypes.put(classNameChars, classFile);
-						} else {
-							compilationResult.record(classNameChars, classFile);
-						}
+				}
+				if (!isScript) {
+					byte[] classbytes = clazz.getBytes();
+					String path = clazz.getName().replace('.', '/');
+					GroovyClassFile classFile = new GroovyClassFile(classname, classbytes, binding, path);
+					char[] classNameChars = classname.toCharArray();
+					if (binding == null) {
+						// GRECLIPSE-1653 this type likely added by AST transform and is synthetic
+						compilationResult.compiledTypes.put(classNameChars, classFile);
+					} else {
+						compilationResult.record(classNameChars, classFile);
 					}
 				}
 			}
@@ -1813,20 +1824,28 @@ public class GroovyCompilationUnitDeclaration extends CompilationUnitDeclaration
 		System.out.println(message);
 	}
 
-	private SourceTypeBinding findBinding(TypeDeclaration[] typedeclarations, ClassNode cnode) {
+	/**
+	 * @return map from the ClassNode of each (possibly member) type declaration to its binding
+	 */
+	private Map<ClassNode, SourceTypeBinding> indexBindings() {
+		Map<ClassNode, SourceTypeBinding> bindings = new HashMap<ClassNode, SourceTypeBinding>();
+		if (types != null) {
+			indexBindings(types, bindings);
+		}
+		return bindings;
+	}
+
+	private void indexBindings(TypeDeclaration[] typedeclarations, Map<ClassNode, SourceTypeBinding> bindings) {
 		for (TypeDeclaration typedeclaration : typedeclarations) {
 			GroovyTypeDeclaration groovyTypeDeclaration = (GroovyTypeDeclaration) typedeclaration;
-			if (groovyTypeDeclaration.getClassNode().equals(cnode)) {
-				return groovyTypeDeclaration.binding;
+			// first declaration wins, as it did when searching the declarations in order
+			if (!bindings.containsKey(groovyTypeDeclaration.getClassNode())) {
+				bindings.put(groovyTypeDeclaration.getClassNode(), groovyTypeDeclaration.binding);
 			}
 			if (typedeclaration.memberTypes != null) {
-				SourceTypeBinding binding = findBinding(typedeclaration.memberTypes, cnode);
-				if (binding != null) {
-					return binding;
-				}
+				indexBindings(typedeclaration.memberTypes, bindings);
 			}
 		}
-		return null;
 	}
 
 	// ---
@@ -2305,7 +2324,7 @@ public class GroovyCompilationUnitDeclaration extends CompilationUnitDeclaration
 		// FIXASC any tidy up for us to do?
 		super.cleanUp();
 		if (this.groovySourceUnit instanceof EclipseSourceUnit) {
-			((EclipseSourceUnit) this.groovySourceUnit).resolver.cleanUp();
+			((EclipseSourceUnit) this.groovySourceUnit).resolver.cleanUp(this.groovySourceUnit);
 		}
 	}
 
@@ -18,6 +18,8 @@ import java.util.Map;
 import java.util.StringTokenizer;
 
 import org.codehaus.groovy.ast.ClassNode;
+import org.codehaus.groovy.ast.ModuleNode;
+import org.codehaus.groovy.control.ResolveVisitor;
 import org.eclipse.jdt.core.compiler.CharOperation;
 import org.eclipse.jdt.internal.compiler.ast.CompilationUnitDeclaration;
 import org.eclipse.jdt.internal.compiler.ast.ImportReference;
@@ -83,17 +85,68 @@ public class GroovyCompilationUnitScope extends CompilationUnitScope {
 
 	private boolean isScript = false;
 
-	public GroovyCompilationUnitScope(GroovyCompilationUnitDeclaration compilationUnitDeclaration,
+	public GroovyCompilationUnitScope(CompilationUnitDeclaration compilationUnitDeclaration,
 			LookupEnvironment lookupEnvironment) {
 		super(compilationUnitDeclaration, lookupEnvironment);
 		// GRECLIPSE 1594
 		// lookupEnvironment.nameEnvironment.getClass() = class org.eclipse.jdt.internal.core.builder.NameEnvironment
+		// When the builder compiles in groups the groovy units of later groups are faulted in instead, see faultInTypes()
 		INameEnvironment nameEnvironment = lookupEnvironment.nameEnvironment;
-		if (nameEnvironment instanceof NameEnvironment) {
+		if (nameEnvironment instanceof NameEnvironment && !((NameEnvironment) nameEnvironment).faultInAdditionalGroovyUnits) {
 			((NameEnvironment) nameEnvironment).avoidAdditionalGroovyAnswers = true;
 		}
 	}
 
+	/**
+	 * @return the name environment of the builder if it compiles in groups and the groovy units of later groups can be faulted in,
+	 *         otherwise null
+	 */
+	NameEnvironment getFaultingNameEnvironment() {
+		INameEnvironment nameEnvironment = environment.nameEnvironment;
+		if (nameEnvironment instanceof NameEnvironment && ((NameEnvironment) nameEnvironment).faultInAdditionalGroovyUnits) {
+			return (NameEnvironment) nameEnvironment;
+		}
+		return null;
+	}
+
+	/**
+	 * When the builder compiles in groups, faults in the groovy units of later groups that the groovy units being compiled may
+	 * refer to. This has to be done before the first of them is resolved, because groovy resolves all of them at once and can't
+	 * take on another unit whilst doing so.
+	 */
+	@Override
+	public void faultInTypes() {
+		if (getFaultingNameEnvironment() != null && referenceContext instanceof GroovyCompilationUnitDeclaration) {
+			ResolveVisitor resolver = ((GroovyCompilationUnitDeclaration) referenceContext).getCompilationUnit().getResolveVisitor();
+			if (resolver instanceof JDTResolver) {
+				((JDTResolver) resolver).faultInReferencedTypes();
+			}
+		}
+		super.faultInTypes();
+	}
+
+	/**
+	 * Looks up the types that the module may refer to. The name environment answers those that are defined by groovy units of
+	 * later groups with the unit, which is then parsed and added to the groovy compilation.
+	 */
+	void faultInReferencedTypes() {
+		GroovyCompilationUnitDeclaration unit = (GroovyCompilationUnitDeclaration) referenceContext;
+		ModuleNode module = unit.getModuleNode();
+		if (module == null) {
+			return;
+		}
+		for (String name : new TypeReferenceCollector(unit.getSourceUnit()).collect(module)) {
+			char[][] compoundName = CharOperation.splitOn('.', name.toCharArray());
+			try {
+				getType(compoundName, compoundName.length);
+			} catch (AbortCompilation t) {
+				if (!(t.silentException instanceof AbortIncrementalBuildException)) {
+					throw t;
+				}
+			}
+		}
+	}
+
 	@Override
 	protected ImportBinding[] getDefaultImports() {
 		ImportBinding[] defaultImports = super.getDefaultImports(); // picks up 'java.lang'
@@ -16,12 +16,15 @@ import groovy.lang.GroovyClassLoader;
 
 import java.io.File;
 import java.lang.reflect.Field;
+import java.lang.reflect.Method;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLClassLoader;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.StringTokenizer;
@@ -82,6 +85,10 @@ public class GroovyParser {
 	private boolean allowTransforms;
 	private boolean isReconcile;
 
+	// the configuration (and the customizers in it) is kept across resets as long as the transform loader is the same
+	private CompilerConfiguration compilerConfiguration;
+	private GroovyClassLoader compilerConfigurationLoader;
+
 	/*
 	 * Each project is allowed a GroovyClassLoader that will be used to load transform definitions and supporting classes. A cache
 	 * is maintained from project names to the current classpath and associated loader. If the classpath matches the cached version
@@ -158,11 +165,56 @@ public class GroovyParser {
 		}
 	}
 
+	private static Method findLoadedClass;
+
 	/**
-	 * Clears cached class loaders for all caches. It helps to fix problems with cached trait helper classes.
+	 * Discards the cached class loaders that have loaded one of the given traits or their helper classes, since those classes are
+	 * stale once the traits are compiled again. The loaders of the other projects are kept.
+	 *
+	 * @param traitNames the names of the traits being compiled
 	 */
-	static void tidyCache() {
-		projectToLoaderCache.clear();
+	static void tidyCacheForTraits(Collection<String> traitNames) {
+		List<String> classNames = new ArrayList<String>();
+		for (String traitName : traitNames) {
+			classNames.add(traitName);
+			classNames.add(traitName + "$Trait$Helper");
+			classNames.add(traitName + "$Trait$FieldHelper");
+		}
+		synchronized (projectToLoaderCache) {
+			for (Iterator<PathLoaderPair> iterator = projectToLoaderCache.values().iterator(); iterator.hasNext();) {
+				PathLoaderPair pathAndLoader = iterator.next();
+				// This will orphan the loader on the heap
+				if (hasLoadedAny(pathAndLoader.groovyClassLoader, classNames)
+						|| hasLoadedAny(pathAndLoader.groovyClassLoader.getParent(), classNames)) {
+					iterator.remove();
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return true if the loader itself defined one of the classes, or if that can't be determined
+	 */
+	private static boolean hasLoadedAny(ClassLoader loader, List<String> classNames) {
+		if (loader == null) {
+			return false;
+		}
+		try {
+			if (findLoadedClass == null) {
+				Method method = ClassLoader.class.getDeclaredMethod("findLoadedClass", String.class);
+				method.setAccessible(true);
+				findLoadedClass = method;
+			}
+			for (String className : classNames) {
+				if (findLoadedClass.invoke(loader, className) != null) {
+					return true;
+				}
+			}
+			return false;
+		} catch (Exception e) {
+			// Not the kind of VM we thought it was...
+			return true;
+		}
 	}
 
 	// public GroovyParser(CompilerOptions options, ProblemReporter problemReporter) {
@@ -546,10 +598,7 @@ public class GroovyParser {
 		this.groovyCompilationUnit.setResolveVisitor(resolver);
 	}
 
-	private CompilationUnit makeCompilationUnit(GroovyClassLoader loader, GroovyClassLoader transformLoader, boolean isReconcile,
-			boolean allowTransforms) {
-
-		// FIXASC (M3) need our own tweaked subclass of CompilerConfiguration?
+	private CompilerConfiguration makeCompilerConfiguration(GroovyClassLoader loader, GroovyClassLoader transformLoader) {
 		CompilerConfiguration compilerConfiguration = new CompilerConfiguration();
 		if (compilerOptions.groovyCustomizerClassesList != null && transformLoader != null) {
 			List<CompilationCustomizer> customizers = new ArrayList<CompilationCustomizer>();
@@ -574,6 +623,17 @@ public class GroovyParser {
 				compilerConfiguration.addCompilationCustomizers(customizers.toArray(new CompilationCustomizer[customizers.size()]));
 			}
 		}
+		return compilerConfiguration;
+	}
+
+	private CompilationUnit makeCompilationUnit(GroovyClassLoader loader, GroovyClassLoader transformLoader, boolean isReconcile,
+			boolean allowTransforms) {
+
+		// FIXASC (M3) need our own tweaked subclass of CompilerConfiguration?
+		if (this.compilerConfiguration == null || this.compilerConfigurationLoader != transformLoader) {
+			this.compilerConfiguration = makeCompilerConfiguration(loader, transformLoader);
+			this.compilerConfigurationLoader = transformLoader;
+		}
 
 		CompilationUnit it = new CompilationUnit(compilerConfiguration, null, loader, transformLoader, allowTransforms,
 				compilerOptions.groovyTransformsToRunOnReconcile, compilerOptions.groovyExcludeGlobalASTScan);
@@ -0,0 +1,37 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codehaus.org, SpringSource, and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     SpringSource - Initial API and implementation
+ *******************************************************************************/
+package org.codehaus.jdt.groovy.internal.compiler.ast;
+
+import org.eclipse.jdt.internal.compiler.CompilationResult;
+import org.eclipse.jdt.internal.compiler.ast.CompilationUnitDeclaration;
+import org.eclipse.jdt.internal.compiler.lookup.CompilationUnitScope;
+import org.eclipse.jdt.internal.compiler.lookup.LookupEnvironment;
+import org.eclipse.jdt.internal.compiler.problem.ProblemReporter;
+
+/**
+ * The declaration of a groovy compilation unit whose imports and types are converted from the element infos of the java model by
+ * the SourceTypeConverter, instead of being built from a groovy parse. There is no module node behind it, so it is only good for
+ * what the structure can tell (eg- the type hierarchy).
+ * <p>
+ * Its scope is a {@link GroovyCompilationUnitScope}, so that its types see the groovy default imports and implement
+ * groovy.lang.GroovyObject as they do when the unit is parsed.
+ */
+public class GroovyStructureUnitDeclaration extends CompilationUnitDeclaration {
+
+	public GroovyStructureUnitDeclaration(ProblemReporter problemReporter, CompilationResult compilationResult) {
+		super(problemReporter, compilationResult, 0);
+	}
+
+	@Override
+	public CompilationUnitScope buildCompilationUnitScope(LookupEnvironment lookupEnvironment) {
+		return new GroovyCompilationUnitScope(this, lookupEnvironment);
+	}
+}
@@ -33,6 +33,7 @@ import org.codehaus.jdt.groovy.internal.compiler.ast.GroovyParser.GrapeAwareGroo
 import org.eclipse.jdt.core.compiler.CharOperation;
 import org.eclipse.jdt.internal.compiler.ast.TypeDeclaration;
 import org.eclipse.jdt.internal.compiler.lookup.Binding;
+import org.eclipse.jdt.internal.compiler.lookup.CompilationUnitScope;
 import org.eclipse.jdt.internal.compiler.lookup.TypeBinding;
 
 /**
@@ -65,6 +66,9 @@ public class JDTResolver extends ResolveVisitor {
 	public static boolean recordInstances = false;
 	public static List<JDTResolver> instances = null;
 
+	// So that testcases can compare the class files against those written with frame types from the transform loader
+	public static boolean findFramesThroughScope = true;
+
 	static {
 		commonTypes.put("java.lang.Object", ClassHelper.OBJECT_TYPE);
 		commonTypes.put("java.lang.String", ClassHelper.STRING_TYPE);
@@ -101,6 +105,17 @@ public class JDTResolver extends ResolveVisitor {
 
 	private List<ClassNode> haveBeenResolved = new ArrayList<ClassNode>();
 
+	// declarations recorded since the referenced types were last faulted in, null until that is first done
+	private List<GroovyTypeDeclaration> toFaultIn = null;
+
+	private Set<CompilationUnitScope> faultedIn = new HashSet<CompilationUnitScope>();
+
+	// the scope of each source unit that has been resolved, for looking up the types needed by the class writer
+	private Map<SourceUnit, GroovyCompilationUnitScope> unitScopes = new HashMap<SourceUnit, GroovyCompilationUnitScope>();
+
+	private int frameTypesFound;
+	private int frameTypesNotFound;
+
 	// Cache from bindings to JDTClassNodes to avoid unnecessary JDTClassNode creation
 	private Map<Binding, JDTClassNode> nodeCache = Collections.synchronizedMap(new WeakHashMap<Binding, JDTClassNode>());
 
@@ -392,6 +407,42 @@ public class JDTResolver extends ResolveVisitor {
 		}
 	}
 
+	/**
+	 * Answers the types asked about while computing stack map frames from the scope of the compilation unit that is being
+	 * generated, so the class writer does not have to load (and link) them through the transform loader. Not an override
+	 * for groovy 1.8, where it is never called.
+	 *
+	 * @param source the source unit whose classes are being generated
+	 * @return the node for the type, or null if the scope does not know it
+	 */
+	protected ClassNode findClassNodeForFrames(String qualifiedName, SourceUnit source) {
+		GroovyCompilationUnitScope unitScope = findFramesThroughScope ? unitScopes.get(source) : null;
+		ClassNode node = null;
+		if (unitScope != null) {
+			node = unitScope.lookupClassNodeForSource(qualifiedName, this);
+		}
+		if (node != null) {
+			frameTypesFound += 1;
+		} else {
+			frameTypesNotFound += 1;
+		}
+		return node;
+	}
+
+	/**
+	 * @return how many types asked about while computing stack map frames were answered from a scope
+	 */
+	public int getFrameTypesFound() {
+		return frameTypesFound;
+	}
+
+	/**
+	 * @return how many types asked about while computing stack map frames were left to the transform loader
+	 */
+	public int getFrameTypesNotFound() {
+		return frameTypesNotFound;
+	}
+
 	// avoiding an inner resolve is dangerous.
 	// leave a back door here to turn it back on
 	// if no one complains, then safe to remove
@@ -542,6 +593,9 @@ public class JDTResolver extends ResolveVisitor {
 	 */
 	public void record(GroovyTypeDeclaration gtDeclaration) {
 		scopes.put(gtDeclaration.getClassNode(), gtDeclaration);
+		if (toFaultIn != null) {
+			toFaultIn.add(gtDeclaration);
+		}
 		if (gtDeclaration.memberTypes != null) {
 			TypeDeclaration[] members = gtDeclaration.memberTypes;
 			for (int m = 0; m < members.length; m++) {
@@ -556,11 +610,38 @@ public class JDTResolver extends ResolveVisitor {
 		}
 	}
 
+	/**
+	 * Looks up the types that the recorded declarations may refer to, so that the groovy sources waiting in later groups of the
+	 * build that define them are faulted in before resolution starts (the groovy compilation can't take on another source once it
+	 * has). The declarations of the sources that are faulted in are looked at as well, so that a group takes on all the groovy
+	 * sources it refers to, directly or not, in one go. References that are not seen here (such as the type arguments of a
+	 * method call) are left to the builder, which compiles the group again with the sources asked for later on.
+	 */
+	public void faultInReferencedTypes() {
+		if (toFaultIn == null) {
+			toFaultIn = new ArrayList<GroovyTypeDeclaration>(scopes.values());
+		}
+		// looking up a type may record more declarations
+		while (!toFaultIn.isEmpty()) {
+			GroovyTypeDeclaration gtDeclaration = toFaultIn.remove(toFaultIn.size() - 1);
+			if (gtDeclaration.scope != null) {
+				CompilationUnitScope unitScope = gtDeclaration.scope.compilationUnitScope();
+				if (unitScope instanceof GroovyCompilationUnitScope && faultedIn.add(unitScope)) {
+					((GroovyCompilationUnitScope) unitScope).faultInReferencedTypes();
+				}
+			}
+		}
+	}
+
 	private void log(String string, ClassNode type, boolean foundit) {
 		System.err.println("Resolver: " + string + " " + type.getName() + "  ?" + foundit);
 	}
 
 	public void startResolving(ClassNode node, SourceUnit source) {
+		GroovyTypeDeclaration gtDeclaration = scopes.get(node);
+		if (gtDeclaration != null && gtDeclaration.scope != null) {
+			unitScopes.put(source, (GroovyCompilationUnitScope) gtDeclaration.scope.compilationUnitScope());
+		}
 		try {
 			super.startResolving(node, source);
 			unresolvables.clear();
@@ -569,7 +650,11 @@ public class JDTResolver extends ResolveVisitor {
 		}
 	}
 
-	public void cleanUp() {
+	/**
+	 * Forgets the scope of a source unit once its declaration has been cleaned up
+	 */
+	public void cleanUp(SourceUnit source) {
+		unitScopes.remove(source);
 		// this.nodeCache.clear();
 	}
 
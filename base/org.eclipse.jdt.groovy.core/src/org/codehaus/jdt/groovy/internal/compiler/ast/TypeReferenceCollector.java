@@ -0,0 +1,248 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codehaus.org, SpringSource, and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     SpringSource - Initial API and implementation
+ *******************************************************************************/
+package org.codehaus.jdt.groovy.internal.compiler.ast;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.codehaus.groovy.ast.AnnotatedNode;
+import org.codehaus.groovy.ast.AnnotationNode;
+import org.codehaus.groovy.ast.ClassCodeVisitorSupport;
+import org.codehaus.groovy.ast.ClassHelper;
+import org.codehaus.groovy.ast.ClassNode;
+import org.codehaus.groovy.ast.FieldNode;
+import org.codehaus.groovy.ast.GenericsType;
+import org.codehaus.groovy.ast.MethodNode;
+import org.codehaus.groovy.ast.ModuleNode;
+import org.codehaus.groovy.ast.Parameter;
+import org.codehaus.groovy.ast.PropertyNode;
+import org.codehaus.groovy.ast.expr.ArrayExpression;
+import org.codehaus.groovy.ast.expr.CastExpression;
+import org.codehaus.groovy.ast.expr.ClassExpression;
+import org.codehaus.groovy.ast.expr.ClosureExpression;
+import org.codehaus.groovy.ast.expr.ConstantExpression;
+import org.codehaus.groovy.ast.expr.ConstructorCallExpression;
+import org.codehaus.groovy.ast.expr.Expression;
+import org.codehaus.groovy.ast.expr.PropertyExpression;
+import org.codehaus.groovy.ast.expr.VariableExpression;
+import org.codehaus.groovy.ast.stmt.CatchStatement;
+import org.codehaus.groovy.ast.stmt.ForStatement;
+import org.codehaus.groovy.control.SourceUnit;
+
+/**
+ * Collects the names of the types that a module may refer to, before the module has been resolved. The names are as written in
+ * the source, so they may be simple, qualified or refer to member types, and some of them (eg- capitalized variable names) may
+ * not be types at all. It is used to fault in the sources that the groovy resolver will ask for, since it can't take on another
+ * source once it has started.
+ * <p>
+ * Like the groovy resolver, a variable or a property path is only taken as a type name if it starts with a capital letter.
+ */
+class TypeReferenceCollector extends ClassCodeVisitorSupport {
+
+	private final Set<String> names = new LinkedHashSet<String>();
+
+	private final SourceUnit sourceUnit;
+
+	TypeReferenceCollector(SourceUnit sourceUnit) {
+		this.sourceUnit = sourceUnit;
+	}
+
+	/**
+	 * @return the names of the types that the module may refer to
+	 */
+	Set<String> collect(ModuleNode module) {
+		for (ClassNode classNode : module.getClasses()) {
+			visitClass(classNode);
+		}
+		return names;
+	}
+
+	@Override
+	protected SourceUnit getSourceUnit() {
+		return sourceUnit;
+	}
+
+	private void addType(ClassNode type) {
+		if (type == null) {
+			return;
+		}
+		while (type.isArray()) {
+			type = type.getComponentType();
+		}
+		if (!type.isResolved() && !ClassHelper.isPrimitiveType(type)) {
+			names.add(type.getName());
+		}
+		GenericsType[] generics = type.getGenericsTypes();
+		if (generics != null) {
+			for (GenericsType generic : generics) {
+				addType(generic.getType());
+				addType(generic.getLowerBound());
+				ClassNode[] upperBounds = generic.getUpperBounds();
+				if (upperBounds != null) {
+					for (ClassNode bound : upperBounds) {
+						addType(bound);
+					}
+				}
+			}
+		}
+	}
+
+	private void addParameters(Parameter[] parameters) {
+		if (parameters != null) {
+			for (Parameter parameter : parameters) {
+				addType(parameter.getType());
+			}
+		}
+	}
+
+	/**
+	 * Adds every prefix of the path that ends in a capitalized name, eg- 'a.b.C' and 'a.b.C.D' for 'a.b.C.D.e'
+	 */
+	private void addPath(String path) {
+		int start = 0;
+		while (start < path.length()) {
+			int end = path.indexOf('.', start);
+			if (end < 0) {
+				end = path.length();
+			}
+			if (end > start && Character.isUpperCase(path.charAt(start))) {
+				names.add(path.substring(0, end));
+			}
+			start = end + 1;
+		}
+	}
+
+	/**
+	 * @return the dotted path of a chain of variable and property expressions, or null if it is not such a chain
+	 */
+	private static String getPath(Expression expression) {
+		if (expression instanceof VariableExpression) {
+			return ((VariableExpression) expression).getName();
+		}
+		if (expression instanceof PropertyExpression) {
+			PropertyExpression property = (PropertyExpression) expression;
+			if (property.getProperty() instanceof ConstantExpression) {
+				String object = getPath(property.getObjectExpression());
+				if (object != null) {
+					return object + '.' + property.getPropertyAsString();
+				}
+			}
+		}
+		return null;
+	}
+
+	@Override
+	public void visitClass(ClassNode node) {
+		addType(node.getUnresolvedSuperClass());
+		ClassNode[] interfaces = node.getInterfaces();
+		if (interfaces != null) {
+			for (ClassNode face : interfaces) {
+				addType(face);
+			}
+		}
+		super.visitClass(node);
+	}
+
+	@Override
+	public void visitAnnotations(AnnotatedNode node) {
+		for (AnnotationNode annotation : node.getAnnotations()) {
+			addType(annotation.getClassNode());
+		}
+		super.visitAnnotations(node);
+	}
+
+	@Override
+	public void visitField(FieldNode node) {
+		addType(node.getType());
+		super.visitField(node);
+	}
+
+	@Override
+	public void visitProperty(PropertyNode node) {
+		addType(node.getType());
+		super.visitProperty(node);
+	}
+
+	@Override
+	protected void visitConstructorOrMethod(MethodNode node, boolean isConstructor) {
+		addType(node.getReturnType());
+		addParameters(node.getParameters());
+		ClassNode[] exceptions = node.getExceptions();
+		if (exceptions != null) {
+			for (ClassNode exception : exceptions) {
+				addType(exception);
+			}
+		}
+		super.visitConstructorOrMethod(node, isConstructor);
+	}
+
+	@Override
+	public void visitCatchStatement(CatchStatement statement) {
+		addType(statement.getExceptionType());
+		super.visitCatchStatement(statement);
+	}
+
+	@Override
+	public void visitForLoop(ForStatement forLoop) {
+		if (forLoop.getVariable() != null) {
+			addType(forLoop.getVariable().getType());
+		}
+		super.visitForLoop(forLoop);
+	}
+
+	@Override
+	public void visitClosureExpression(ClosureExpression expression) {
+		addParameters(expression.getParameters());
+		super.visitClosureExpression(expression);
+	}
+
+	@Override
+	public void visitConstructorCallExpression(ConstructorCallExpression call) {
+		addType(call.getType());
+		super.visitConstructorCallExpression(call);
+	}
+
+	@Override
+	public void visitClassExpression(ClassExpression expression) {
+		addType(expression.getType());
+		super.visitClassExpression(expression);
+	}
+
+	@Override
+	public void visitCastExpression(CastExpression expression) {
+		addType(expression.getType());
+		super.visitCastExpression(expression);
+	}
+
+	@Override
+	public void visitArrayExpression(ArrayExpression expression) {
+		addType(expression.getElementType());
+		super.visitArrayExpression(expression);
+	}
+
+	@Override
+	public void visitVariableExpression(VariableExpression expression) {
+		addType(expression.getOriginType());
+		addPath(expression.getName());
+		super.visitVariableExpression(expression);
+	}
+
+	@Override
+	public void visitPropertyExpression(PropertyExpression expression) {
+		String path = getPath(expression);
+		if (path != null) {
+			// covers the variable and properties that the path is made of
+			addPath(path);
+		} else {
+			super.visitPropertyExpression(expression);
+		}
+	}
+}
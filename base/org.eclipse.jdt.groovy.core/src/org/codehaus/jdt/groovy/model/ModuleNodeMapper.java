@@ -48,6 +48,23 @@ public class ModuleNodeMapper {
 
 		public final ModuleNode module;
 		public final JDTResolver resolver;
+
+		// computed from the module when first asked for, and dropped along with it when the unit is reconciled again
+		private final Map<Class<?>, Object> derived = new HashMap<Class<?>, Object>();
+
+		/**
+		 * @return what was computed from the module and stored under the given kind, or null if nothing was stored yet
+		 */
+		public synchronized <T> T getDerived(Class<T> kind) {
+			return kind.cast(derived.get(kind));
+		}
+
+		/**
+		 * Stores something computed from the module (eg- an index of its nodes), so that it is computed only once per module
+		 */
+		public synchronized <T> void putDerived(Class<T> kind, T value) {
+			derived.put(kind, value);
+		}
 	}
 
 	private static final ModuleNodeMapper INSTANCE = new ModuleNodeMapper();
@@ -15,6 +15,7 @@ import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 
+import org.codehaus.jdt.groovy.integration.internal.SupplementalIndexCache;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.ProjectScope;
 import org.eclipse.core.runtime.Plugin;
@@ -52,13 +53,20 @@ public class Activator extends Plugin {
 
 	public static final String GROOVY_COMPILER_LEVEL = "groovy.compiler.level";
 
+	// system property naming the file in which the groovy compiler remembers what each @Grab resolved to
+	private static final String GRAB_CACHE_PROPERTY = "greclipse.grab.cache";
+
 	public void start(BundleContext context) throws Exception {
 		super.start(context);
 		plugin = this;
 		SystemPropertyCleaner.clean();
+		if (System.getProperty(GRAB_CACHE_PROPERTY) == null) {
+			System.setProperty(GRAB_CACHE_PROPERTY, getStateLocation().append("grabCache.properties").toOSString());
+		}
 	}
 
 	public void stop(BundleContext context) throws Exception {
+		SupplementalIndexCache.flush();
 		plugin = null;
 		super.stop(context);
 	}
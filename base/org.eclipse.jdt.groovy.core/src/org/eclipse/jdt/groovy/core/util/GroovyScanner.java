@@ -61,6 +61,21 @@ public class GroovyScanner {
 		this(new StringReader(text), false);
 	}
 
+	/**
+	 * Create a scanner that starts scanning the document at the given offset. Antlr line and column positions of the tokens
+	 * are relative to the start of the document. The lexer starts in its initial state, so the offset should be a place where
+	 * that is the state a scanner of the whole document would be in, for example the start of a newline token.
+	 * 
+	 * @throws BadLocationException
+	 */
+	public GroovyScanner(IDocument document, int offset) throws BadLocationException {
+		int line = document.getLineOfOffset(offset);
+		int col = offset - document.getLineOffset(line) + 1; // antlr cols start at 1
+		init(new StringReader(document.get(offset, document.getLength() - offset)), false);
+		lexer.setLine(line + 1); // antlr lines start at 1
+		lexer.setColumn(col);
+	}
+
 	public Token nextToken() throws TokenStreamException {
 		return stream.nextToken();
 	}
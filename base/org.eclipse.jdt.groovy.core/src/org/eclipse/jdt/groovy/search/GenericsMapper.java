@@ -31,6 +31,20 @@ public class GenericsMapper {
 	 * @return
 	 */
 	public static GenericsMapper gatherGenerics(ClassNode resolvedType, ClassNode declaringType) {
+		// mappers only depend on the type arguments of resolvedType, so reuse them for the same receiver during an inferencing pass
+		ParameterizedTypeCache cache = ParameterizedTypeCache.current();
+		if (cache == null) {
+			return createMapper(resolvedType, declaringType);
+		}
+		GenericsMapper mapper = cache.getMapper(resolvedType, declaringType.getName());
+		if (mapper == null) {
+			mapper = createMapper(resolvedType, declaringType);
+			cache.putMapper(resolvedType, declaringType.getName(), mapper);
+		}
+		return mapper;
+	}
+
+	private static GenericsMapper createMapper(ClassNode resolvedType, ClassNode declaringType) {
 		ClassNode ucandidate = resolvedType.redirect();
 		ClassNode rcandidate = resolvedType;
 		GenericsType[] ugts;
@@ -0,0 +1,239 @@
+/*******************************************************************************
+ * Copyright (c) 2014 SpringSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     SpringSource - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.groovy.search;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+import org.codehaus.groovy.ast.ClassNode;
+import org.codehaus.groovy.ast.FieldNode;
+import org.codehaus.groovy.ast.MethodNode;
+import org.codehaus.groovy.ast.ModuleNode;
+import org.codehaus.groovy.ast.Parameter;
+import org.codehaus.groovy.ast.PropertyNode;
+import org.codehaus.jdt.groovy.model.ModuleNodeMapper.ModuleNodeInfo;
+import org.eclipse.jdt.core.Flags;
+
+/**
+ * Indexes the members of the types looked at while inferencing a module, so that repeated lookups on the same type do not walk
+ * the hierarchy and the overloads again. The members of a type are indexed once, over its whole hierarchy: methods by name and
+ * number of parameters, and properties and constants by name.
+ * <p>
+ * The tables of a {@link ModuleNode} are kept in its {@link ModuleNodeInfo} and shared by all inferencing passes over it
+ * (reconcile, hover, code select, search, ...). They go away along with the module info when the unit is reconciled again or
+ * discarded. Tables are safe to use from several threads.
+ */
+public final class MemberTables {
+
+	/**
+	 * @return the tables kept with the module, reusing the ones of earlier passes if the module has not been replaced since, or
+	 *         new tables for a single pass if there is no module info
+	 */
+	static MemberTables forModule(ModuleNodeInfo info) {
+		if (info == null || info.module == null) {
+			return new MemberTables();
+		}
+		synchronized (info) {
+			MemberTables tables = info.getDerived(MemberTables.class);
+			if (tables == null) {
+				tables = new MemberTables();
+				info.putDerived(MemberTables.class, tables);
+			}
+			return tables;
+		}
+	}
+
+	/**
+	 * The members of a single type, over its hierarchy
+	 */
+	private static final class TypeMembers {
+		private final ClassNode type;
+		private volatile LinkedHashSet<ClassNode> hierarchy;
+		private volatile LinkedHashSet<ClassNode> interfaces;
+		/** Name, then number of parameters (or {@link MemberTables#ALL}), to the methods of the type and its super classes */
+		private volatile Map<String, Map<Integer, List<MethodNode>>> methods;
+		/** Name to the first property in the hierarchy */
+		private volatile Map<String, PropertyNode> properties;
+		/** Name to the first static final field in the hierarchy */
+		private volatile Map<String, FieldNode> constants;
+
+		TypeMembers(ClassNode type) {
+			this.type = type;
+		}
+	}
+
+	/** Key for methods of any arity */
+	private static final Integer ALL = -1;
+
+	// ClassNode.equals only compares names, but nodes of the same name can come from different places
+	private final Map<ClassNode, TypeMembers> members = Collections.synchronizedMap(new IdentityHashMap<ClassNode, TypeMembers>());
+
+	/** Argument type, then parameter type, to whether a value of the one can be passed to the other */
+	private final Map<ClassNode, Map<ClassNode, Boolean>> assignable = Collections.synchronizedMap(new IdentityHashMap<ClassNode, Map<ClassNode, Boolean>>());
+
+	private MemberTables() {
+	}
+
+	private TypeMembers membersOf(ClassNode type) {
+		// everything below only depends on the redirect, but hierarchies are built from the type as given
+		// so that they hold the same (unresolved) super types as VariableScope.createTypeHierarchy
+		ClassNode key = type.redirect();
+		synchronized (members) {
+			TypeMembers typeMembers = members.get(key);
+			if (typeMembers == null) {
+				typeMembers = new TypeMembers(type);
+				members.put(key, typeMembers);
+			}
+			return typeMembers;
+		}
+	}
+
+	/**
+	 * @return the type and all of its super types and interfaces
+	 * @see VariableScope#createTypeHierarchy(ClassNode, LinkedHashSet, boolean)
+	 */
+	LinkedHashSet<ClassNode> getHierarchy(ClassNode type) {
+		return getHierarchy(membersOf(type));
+	}
+
+	private static LinkedHashSet<ClassNode> getHierarchy(TypeMembers typeMembers) {
+		LinkedHashSet<ClassNode> hierarchy = typeMembers.hierarchy;
+		if (hierarchy == null) {
+			hierarchy = new LinkedHashSet<ClassNode>();
+			VariableScope.createTypeHierarchy(typeMembers.type, hierarchy, true);
+			typeMembers.hierarchy = hierarchy;
+		}
+		return hierarchy;
+	}
+
+	/**
+	 * @return the interface and all of its super interfaces
+	 * @see VariableScope#findAllInterfaces(ClassNode, LinkedHashSet, boolean)
+	 */
+	LinkedHashSet<ClassNode> getInterfaces(ClassNode type) {
+		TypeMembers typeMembers = membersOf(type);
+		LinkedHashSet<ClassNode> interfaces = typeMembers.interfaces;
+		if (interfaces == null) {
+			interfaces = new LinkedHashSet<ClassNode>();
+			VariableScope.findAllInterfaces(typeMembers.type, interfaces, true);
+			typeMembers.interfaces = interfaces;
+		}
+		return interfaces;
+	}
+
+	/**
+	 * @param arity the number of parameters, or -1 for all methods
+	 * @return the methods of the type and its super classes with the given name and number of parameters, in the same order as
+	 *         {@link ClassNode#getMethods(String)}
+	 */
+	List<MethodNode> getMethods(ClassNode type, String name, int arity) {
+		TypeMembers typeMembers = membersOf(type);
+		Map<String, Map<Integer, List<MethodNode>>> methods = typeMembers.methods;
+		if (methods == null) {
+			methods = new HashMap<String, Map<Integer, List<MethodNode>>>();
+			for (ClassNode clazz = typeMembers.type; clazz != null; clazz = clazz.getSuperClass()) {
+				for (MethodNode method : clazz.getMethods()) {
+					Map<Integer, List<MethodNode>> byArity = methods.get(method.getName());
+					if (byArity == null) {
+						byArity = new HashMap<Integer, List<MethodNode>>(4);
+						methods.put(method.getName(), byArity);
+					}
+					Parameter[] parameters = method.getParameters();
+					add(byArity, ALL, method);
+					add(byArity, parameters == null ? 0 : parameters.length, method);
+				}
+			}
+			typeMembers.methods = methods;
+		}
+		Map<Integer, List<MethodNode>> byArity = methods.get(name);
+		List<MethodNode> withArity = byArity != null ? byArity.get(arity) : null;
+		return withArity != null ? withArity : Collections.<MethodNode> emptyList();
+	}
+
+	private static void add(Map<Integer, List<MethodNode>> byArity, Integer arity, MethodNode method) {
+		List<MethodNode> methods = byArity.get(arity);
+		if (methods == null) {
+			methods = new ArrayList<MethodNode>(2);
+			byArity.put(arity, methods);
+		}
+		methods.add(method);
+	}
+
+	/**
+	 * @return the first property with the given name in the hierarchy of the type, or null
+	 */
+	PropertyNode getProperty(ClassNode type, String name) {
+		TypeMembers typeMembers = membersOf(type);
+		Map<String, PropertyNode> properties = typeMembers.properties;
+		if (properties == null) {
+			properties = new HashMap<String, PropertyNode>();
+			for (ClassNode clazz : getHierarchy(typeMembers)) {
+				for (PropertyNode property : clazz.getProperties()) {
+					if (!properties.containsKey(property.getName())) {
+						properties.put(property.getName(), property);
+					}
+				}
+			}
+			typeMembers.properties = properties;
+		}
+		return properties.get(name);
+	}
+
+	/**
+	 * @return the first static final field with the given name in the hierarchy of the type, or null
+	 */
+	FieldNode getConstant(ClassNode type, String name) {
+		TypeMembers typeMembers = membersOf(type);
+		Map<String, FieldNode> constants = typeMembers.constants;
+		if (constants == null) {
+			constants = new HashMap<String, FieldNode>();
+			for (ClassNode clazz : getHierarchy(typeMembers)) {
+				for (FieldNode field : clazz.getFields()) {
+					if (!constants.containsKey(field.getName()) && Flags.isFinal(field.getModifiers()) && field.isStatic()) {
+						constants.put(field.getName(), field);
+					}
+				}
+			}
+			typeMembers.constants = constants;
+		}
+		return constants.get(name);
+	}
+
+	/**
+	 * Both checks only depend on the redirects of the types, so the answers are shared by all their parameterizations.
+	 *
+	 * @return true iff the parameter type is an interface declared by the argument type, or a class it is derived from
+	 */
+	boolean isAssignable(ClassNode argumentType, ClassNode parameterType) {
+		ClassNode argumentKey = argumentType.redirect();
+		Map<ClassNode, Boolean> byParameter = assignable.get(argumentKey);
+		if (byParameter == null) {
+			byParameter = Collections.synchronizedMap(new IdentityHashMap<ClassNode, Boolean>());
+			assignable.put(argumentKey, byParameter);
+		}
+		ClassNode parameterKey = parameterType.redirect();
+		Boolean result = byParameter.get(parameterKey);
+		if (result == null) {
+			if (parameterType.isInterface()) {
+				result = argumentType.declaresInterface(parameterType);
+			} else {
+				result = argumentType.isDerivedFrom(parameterType);
+			}
+			byParameter.put(parameterKey, result);
+		}
+		return result;
+	}
+}
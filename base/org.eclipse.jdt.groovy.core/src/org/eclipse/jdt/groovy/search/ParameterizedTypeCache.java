@@ -0,0 +1,328 @@
+/*******************************************************************************
+ * Copyright (c) 2014 SpringSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     SpringSource - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.groovy.search;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import org.codehaus.groovy.ast.ClassNode;
+import org.codehaus.groovy.ast.GenericsType;
+
+/**
+ * Shares parameterized types and {@link GenericsMapper}s during inferencing.
+ * <p>
+ * Resolved declaration types are interned: all the types with the same redirect and the same type arguments (eg- every
+ * <code>List&lt;String&gt;</code>) are the same canonical node. Canonical nodes are shared and must not be changed; use
+ * {@link VariableScope#clone(ClassNode)} first, as the code that resolves types in place already does. A canonical node that
+ * has been changed anyway no longer matches its key and is replaced. The intern table only holds on to its nodes weakly.
+ * <p>
+ * Mappers are remembered for each receiver node, together with a snapshot of its redirect and type arguments. A receiver that
+ * has been changed since no longer matches its snapshot and gets a new mapper. Since receivers are mostly canonical nodes
+ * themselves, equal receivers share their mappers. These tables live only as long as the outermost pass on the current
+ * thread, since the mappers belong to one compilation and keeping them any longer would hold on to it.
+ */
+public final class ParameterizedTypeCache {
+
+	private static final ThreadLocal<ParameterizedTypeCache> CURRENT = new ThreadLocal<ParameterizedTypeCache>();
+
+	/**
+	 * Starts a pass on the current thread. Nested passes share the cache of the outermost one.
+	 */
+	public static void begin() {
+		ParameterizedTypeCache cache = CURRENT.get();
+		if (cache == null) {
+			cache = new ParameterizedTypeCache();
+			CURRENT.set(cache);
+		}
+		cache.depth += 1;
+	}
+
+	/**
+	 * Ends a pass on the current thread, throwing the cache away when it is the outermost one.
+	 */
+	public static void end() {
+		ParameterizedTypeCache cache = CURRENT.get();
+		if (cache != null && --cache.depth == 0) {
+			CURRENT.remove();
+		}
+	}
+
+	/**
+	 * @return the cache of the current pass, or null if there is none
+	 */
+	public static ParameterizedTypeCache current() {
+		return CURRENT.get();
+	}
+
+	/** Canonical parameterized types by their key */
+	private static final Map<Key, Canonical> INTERNED = new HashMap<Key, Canonical>();
+
+	private static final ReferenceQueue<ClassNode> COLLECTED = new ReferenceQueue<ClassNode>();
+
+	private static final class Canonical extends WeakReference<ClassNode> {
+		final Key key;
+
+		Canonical(Key key, ClassNode type) {
+			super(type, COLLECTED);
+			this.key = key;
+		}
+	}
+
+	/**
+	 * @return the canonical node for the redirect and type arguments of the type, which is the type itself if there was none
+	 *         yet. It must not be changed.
+	 */
+	public static ClassNode intern(ClassNode type) {
+		if (type == null) {
+			return null;
+		}
+		Key key = Key.of(type);
+		synchronized (INTERNED) {
+			for (Canonical collected; (collected = (Canonical) COLLECTED.poll()) != null;) {
+				if (INTERNED.get(collected.key) == collected) {
+					INTERNED.remove(collected.key);
+				}
+			}
+			Canonical canonical = INTERNED.get(key);
+			ClassNode existing = canonical != null ? canonical.get() : null;
+			if (existing != null && key.matches(existing)) {
+				return existing;
+			}
+			INTERNED.put(key, new Canonical(key, type));
+			return type;
+		}
+	}
+
+	/**
+	 * An immutable snapshot of a (possibly parameterized) type: its redirect and its type arguments. Redirects are only held
+	 * weakly, and compared by identity.
+	 */
+	static final class Key {
+		private static final Key[] NO_KEYS = new Key[0];
+
+		private static final int WILDCARD = 1;
+		private static final int PLACEHOLDER = 2;
+
+		private final WeakReference<ClassNode> redirect;
+		private final String name;
+		private final int flags;
+		private final Key[] arguments;
+		private final int hash;
+
+		private Key(ClassNode redirect, String name, int flags, Key[] arguments) {
+			this.redirect = redirect != null ? new WeakReference<ClassNode>(redirect) : null;
+			this.name = name;
+			this.flags = flags;
+			this.arguments = arguments;
+			int hash = System.identityHashCode(redirect);
+			hash = 31 * hash + name.hashCode();
+			hash = 31 * hash + flags;
+			for (Key argument : arguments) {
+				hash = 31 * hash + (argument != null ? argument.hash : 0);
+			}
+			this.hash = hash;
+		}
+
+		private ClassNode redirect() {
+			return redirect != null ? redirect.get() : null;
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) obj;
+			if (hash != other.hash || flags != other.flags || redirect() != other.redirect() || !name.equals(other.name)
+					|| arguments.length != other.arguments.length) {
+				return false;
+			}
+			if (redirect != null && redirect() == null) {
+				// the redirect is gone, so this is only equal to itself
+				return false;
+			}
+			for (int i = 0; i < arguments.length; i += 1) {
+				Key argument = arguments[i];
+				if (argument == null ? other.arguments[i] != null : !argument.equals(other.arguments[i])) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		static Key of(ClassNode type) {
+			return of(type, 0);
+		}
+
+		private static Key of(ClassNode type, int depth) {
+			if (type == null) {
+				return null;
+			}
+			GenericsType[] gts = type.getGenericsTypes();
+			// same depth limit as VariableScope.clone
+			if (gts == null || gts.length == 0 || depth > 10) {
+				return new Key(type.redirect(), type.getName(), 0, NO_KEYS);
+			}
+			// each type argument is its type, its lower bound and its upper bounds
+			Key[] arguments = new Key[gts.length * 3];
+			for (int i = 0; i < gts.length; i += 1) {
+				GenericsType gt = gts[i];
+				arguments[i * 3] = new Key(null, gt.getName(), flagsOf(gt), new Key[] { of(gt.getType(), depth + 1) });
+				arguments[i * 3 + 1] = of(gt.getLowerBound(), depth + 1);
+				ClassNode[] upperBounds = gt.getUpperBounds();
+				if (upperBounds != null) {
+					Key[] bounds = new Key[upperBounds.length];
+					for (int j = 0; j < upperBounds.length; j += 1) {
+						// Enum<E extends Enum<E>> is cut off the same way as in VariableScope.clone
+						bounds[j] = isSelfBound(gt, upperBounds[j]) ? null : of(upperBounds[j], depth + 1);
+					}
+					arguments[i * 3 + 2] = new Key(null, "", 0, bounds);
+				}
+			}
+			return new Key(type.redirect(), type.getName(), 0, arguments);
+		}
+
+		private static int flagsOf(GenericsType gt) {
+			return (gt.isWildcard() ? WILDCARD : 0) | (gt.isPlaceholder() ? PLACEHOLDER : 0);
+		}
+
+		private static boolean isSelfBound(GenericsType gt, ClassNode upperBound) {
+			return upperBound.getName().equals(gt.getType().getName());
+		}
+
+		/**
+		 * Compares the snapshot with the current state of a type without building another snapshot.
+		 */
+		boolean matches(ClassNode type) {
+			return matches(this, type, 0);
+		}
+
+		private static boolean matches(Key key, ClassNode type, int depth) {
+			if (key == null || type == null) {
+				return key == null && type == null;
+			}
+			if (key.redirect() != type.redirect() || !key.name.equals(type.getName())) {
+				return false;
+			}
+			GenericsType[] gts = type.getGenericsTypes();
+			if (gts == null || gts.length == 0 || depth > 10) {
+				return key.arguments.length == 0;
+			}
+			if (key.arguments.length != gts.length * 3) {
+				return false;
+			}
+			for (int i = 0; i < gts.length; i += 1) {
+				GenericsType gt = gts[i];
+				Key argument = key.arguments[i * 3];
+				if (argument.flags != flagsOf(gt) || !argument.name.equals(gt.getName())
+						|| !matches(argument.arguments[0], gt.getType(), depth + 1)
+						|| !matches(key.arguments[i * 3 + 1], gt.getLowerBound(), depth + 1)) {
+					return false;
+				}
+				ClassNode[] upperBounds = gt.getUpperBounds();
+				Key bounds = key.arguments[i * 3 + 2];
+				if (upperBounds == null || bounds == null) {
+					if ((upperBounds == null) != (bounds == null)) {
+						return false;
+					}
+					continue;
+				}
+				if (bounds.arguments.length != upperBounds.length) {
+					return false;
+				}
+				for (int j = 0; j < upperBounds.length; j += 1) {
+					if (isSelfBound(gt, upperBounds[j]) ? bounds.arguments[j] != null : !matches(bounds.arguments[j],
+							upperBounds[j], depth + 1)) {
+						return false;
+					}
+				}
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * The mappers of one receiver node, valid while the node still matches the snapshot
+	 */
+	private static final class Receiver {
+		final Key key;
+		final Map<String, GenericsMapper> mappers = new HashMap<String, GenericsMapper>(4);
+
+		Receiver(Key key) {
+			this.key = key;
+		}
+	}
+
+	private int depth;
+
+	/** Receiver node to its mappers, by declaring type name */
+	private final Map<ClassNode, Receiver> receivers = new IdentityHashMap<ClassNode, Receiver>();
+
+	/** Mapper, then unresolved type, to the canonical resolved type */
+	private final Map<GenericsMapper, Map<ClassNode, ClassNode>> resolved = new IdentityHashMap<GenericsMapper, Map<ClassNode, ClassNode>>();
+
+	private ParameterizedTypeCache() {
+	}
+
+	GenericsMapper getMapper(ClassNode resolvedType, String declaringTypeName) {
+		Receiver receiver = receivers.get(resolvedType);
+		if (receiver == null || !receiver.key.matches(resolvedType)) {
+			return null;
+		}
+		return receiver.mappers.get(declaringTypeName);
+	}
+
+	void putMapper(ClassNode resolvedType, String declaringTypeName, GenericsMapper mapper) {
+		Receiver receiver = receivers.get(resolvedType);
+		if (receiver == null || !receiver.key.matches(resolvedType)) {
+			if (receiver != null) {
+				// the node has been changed, so its old mappers are of no more use
+				for (GenericsMapper stale : receiver.mappers.values()) {
+					resolved.remove(stale);
+				}
+			}
+			receiver = new Receiver(Key.of(resolvedType));
+			receivers.put(resolvedType, receiver);
+		}
+		receiver.mappers.put(declaringTypeName, mapper);
+	}
+
+	/**
+	 * Resolves the type parameters of a declared type once per mapper.
+	 *
+	 * @return the canonical resolved type, which must not be changed
+	 * @see VariableScope#resolveTypeParameterization(GenericsMapper, ClassNode)
+	 */
+	public ClassNode resolveTypeParameterization(GenericsMapper mapper, ClassNode typeToParameterize) {
+		Map<ClassNode, ClassNode> byType = resolved.get(mapper);
+		if (byType == null) {
+			byType = new IdentityHashMap<ClassNode, ClassNode>(4);
+			resolved.put(mapper, byType);
+		}
+		ClassNode result = byType.get(typeToParameterize);
+		if (result == null) {
+			result = intern(VariableScope.resolveTypeParameterization(mapper, VariableScope.clone(typeToParameterize)));
+			byType.put(typeToParameterize, result);
+		}
+		return result;
+	}
+}
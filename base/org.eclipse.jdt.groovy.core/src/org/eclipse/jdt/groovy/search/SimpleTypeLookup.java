@@ -17,10 +17,7 @@ import static org.eclipse.jdt.groovy.search.VariableScope.NO_GENERICS;
 import groovyjarjarasm.asm.Opcodes;
 
 import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Set;
 
 import org.codehaus.groovy.ast.ASTNode;
 import org.codehaus.groovy.ast.AnnotatedNode;
@@ -51,7 +48,6 @@ import org.codehaus.groovy.ast.expr.TupleExpression;
 import org.codehaus.groovy.ast.expr.VariableExpression;
 import org.codehaus.groovy.ast.stmt.BlockStatement;
 import org.codehaus.jdt.groovy.model.GroovyCompilationUnit;
-import org.eclipse.jdt.core.Flags;
 import org.eclipse.jdt.groovy.search.TypeLookupResult.TypeConfidence;
 import org.eclipse.jdt.groovy.search.VariableScope.VariableInfo;
 
@@ -65,10 +61,19 @@ public class SimpleTypeLookup implements ITypeLookupExtension {
 
 	private GroovyCompilationUnit unit;
 
+	private MemberTables tables;
+
 	public void initialize(GroovyCompilationUnit unit, VariableScope topLevelScope) {
 		this.unit = unit;
 	}
 
+	/**
+	 * Sets the member tables of the module being inferenced, so that they are shared with the other passes over it
+	 */
+	void setMemberTables(MemberTables tables) {
+		this.tables = tables;
+	}
+
 	public TypeLookupResult lookupType(Expression node, VariableScope scope, ClassNode objectExpressionType) {
 		return lookupType(node, scope, objectExpressionType, false);
 	}
@@ -528,6 +533,10 @@ public class SimpleTypeLookup implements ITypeLookupExtension {
 		// travel up the hierarchy and look for more generics
 		// also look for generics on methods...(not doing this yet...)
 		GenericsMapper mapper = GenericsMapper.gatherGenerics(resolvedType, declaringType.redirect());
+		ParameterizedTypeCache cache = ParameterizedTypeCache.current();
+		if (cache != null) {
+			return cache.resolveTypeParameterization(mapper, typeOfDeclaration);
+		}
 		ClassNode resolvedTypeOfDeclaration = VariableScope.resolveTypeParameterization(mapper,
 				VariableScope.clone(typeOfDeclaration));
 		return resolvedTypeOfDeclaration;
@@ -580,10 +589,7 @@ public class SimpleTypeLookup implements ITypeLookupExtension {
 			}
 		}
 
-		LinkedHashSet<ClassNode> allClasses = new LinkedHashSet<ClassNode>();
-		VariableScope.createTypeHierarchy(declaringType, allClasses, true);
-
-		maybe = findPropertyInClass(name, allClasses);
+		maybe = tables().getProperty(declaringType, name);
 		if (maybe != null) {
 			return maybe;
 		}
@@ -594,7 +600,7 @@ public class SimpleTypeLookup implements ITypeLookupExtension {
 		}
 
 		// look for constants declared in super class
-		FieldNode constantFromSuper = findConstantInClass(name, allClasses);
+		FieldNode constantFromSuper = tables().getConstant(declaringType, name);
 		if (constantFromSuper != null) {
 			return constantFromSuper;
 		}
@@ -628,10 +634,8 @@ public class SimpleTypeLookup implements ITypeLookupExtension {
 		// do this piece first since findAllInterfaces will return the current interface as well and this will avoid running this
 		// method on the same interface twice.
 		if (checkSuperInterfaces && declaringType.isInterface()) {
-			LinkedHashSet<ClassNode> allInterfaces = new LinkedHashSet<ClassNode>();
-			VariableScope.findAllInterfaces(declaringType, allInterfaces, true);
 			AnnotatedNode candidate = null;
-			interfacesSearch: for (ClassNode interf : allInterfaces) {
+			interfacesSearch: for (ClassNode interf : tables().getInterfaces(declaringType)) {
 				AnnotatedNode methodDeclaration = findMethodDeclaration(name, interf, methodCallArgumentTypes, false);
 
 				if (candidate == null) {
@@ -651,14 +655,8 @@ public class SimpleTypeLookup implements ITypeLookupExtension {
 							if (!methodCallArgumentTypes.get(i).equals(methodParameters[i].getType())) {
 								exactMatchFound = false;
 							}
-							if (methodParameters[i].getType().isInterface()) {
-								if (!methodCallArgumentTypes.get(i).declaresInterface(methodParameters[i].getType())) {
-									continue interfacesSearch;
-								}
-							} else {
-								if (!methodCallArgumentTypes.get(i).isDerivedFrom(methodParameters[i].getType())) {
-									continue interfacesSearch;
-								}
+							if (!tables().isAssignable(methodCallArgumentTypes.get(i), methodParameters[i].getType())) {
+								continue interfacesSearch;
 							}
 						}
 						if (exactMatchFound) {
@@ -670,49 +668,33 @@ public class SimpleTypeLookup implements ITypeLookupExtension {
 			return candidate;
 		}
 
-		List<MethodNode> maybeMethods = declaringType.getMethods(name);
+		List<MethodNode> maybeMethods = tables().getMethods(declaringType, name, -1);
 
-		if (maybeMethods != null && maybeMethods.size() > 0) {
+		if (maybeMethods.size() > 0) {
 			// Remember first entry in case exact match not found
 			MethodNode closestMatch = maybeMethods.get(0);
 			// prefer retrieving the method with the same number of args as specified in the parameter.
 			// if none exists, or parameter is -1, then arbitrarily choose the first.
-			if (methodCallArgumentTypes != null && methodCallArgumentTypes.size() >= 0) {
-				for (Iterator<MethodNode> iterator = maybeMethods.iterator(); iterator.hasNext();) {
-					MethodNode maybeMethod = iterator.next();
+			if (methodCallArgumentTypes != null) {
+				// only look at the methods with as many parameters as there are arguments
+				for (MethodNode maybeMethod : tables().getMethods(declaringType, name, methodCallArgumentTypes.size())) {
 					Parameter[] parameters = maybeMethod.getParameters();
-					if ((parameters == null || parameters.length == 0) && methodCallArgumentTypes.size() == 0) {
+					if (methodCallArgumentTypes.size() == 0) {
 						return maybeMethod.getOriginal();
 					}
-					if (parameters != null && parameters.length == methodCallArgumentTypes.size()) {
-						boolean found = true;
-						boolean exactMatchFound = true;
-						closestMatch = maybeMethod.getOriginal();
-						for (int i = 0; i < parameters.length; i++) {
-							if (!methodCallArgumentTypes.get(i).equals(parameters[i].getType())) {
-								exactMatchFound = false;
-							}
-							if (parameters[i].getType().isInterface()) {
-								if (!methodCallArgumentTypes.get(i).declaresInterface(parameters[i].getType())) {
-									found = false;
-									break;
-								}
-							} else {
-								// TODO 'null' literal argument should be correctly resolved
-								if (!methodCallArgumentTypes.get(i).isDerivedFrom(parameters[i].getType())) {
-									found = false;
-									break;
-								}
-							}
+					boolean exactMatchFound = true;
+					closestMatch = maybeMethod.getOriginal();
+					for (int i = 0; i < parameters.length; i++) {
+						if (!methodCallArgumentTypes.get(i).equals(parameters[i].getType())) {
+							exactMatchFound = false;
 						}
-						if (exactMatchFound) {
-							return closestMatch;
-						}
-						if (!found) {
-							iterator.remove();
+						// TODO 'null' literal argument should be correctly resolved
+						if (!tables().isAssignable(methodCallArgumentTypes.get(i), parameters[i].getType())) {
+							break;
 						}
-					} else {
-						iterator.remove();
+					}
+					if (exactMatchFound) {
+						return closestMatch;
 					}
 				}
 			}
@@ -734,23 +716,11 @@ public class SimpleTypeLookup implements ITypeLookupExtension {
 		return lengthField;
 	}
 
-	private PropertyNode findPropertyInClass(String name, Set<ClassNode> allClasses) {
-		for (ClassNode clazz : allClasses) {
-			PropertyNode prop = clazz.getProperty(name);
-			if (prop != null) {
-				return prop;
-			}
-		}
-		return null;
-	}
-
-	private FieldNode findConstantInClass(String name, Set<ClassNode> allClasses) {
-		for (ClassNode clazz : allClasses) {
-			FieldNode field = clazz.getField(name);
-			if (field != null && Flags.isFinal(field.getModifiers()) && field.isStatic()) {
-				return field;
-			}
+	private MemberTables tables() {
+		if (tables == null) {
+			// not initialized for a module
+			tables = MemberTables.forModule(null);
 		}
-		return null;
+		return tables;
 	}
 }
\ No newline at end of file
@@ -297,6 +297,8 @@ public class TypeInferencingVisitorWithRequestor extends ClassCodeVisitorSupport
 
 	private final JDTResolver resolver;
 
+	private final ModuleNodeInfo moduleInfo;
+
 	private final AssignmentStorer assignmentStorer = new AssignmentStorer();
 
 	private ClassNode inferredStaticMethodType;
@@ -314,9 +316,9 @@ public class TypeInferencingVisitorWithRequestor extends ClassCodeVisitorSupport
 	TypeInferencingVisitorWithRequestor(GroovyCompilationUnit unit, ITypeLookup[] lookups) {
 		super();
 		this.unit = unit;
-		ModuleNodeInfo info = createModuleNode(unit);
-		this.enclosingDeclarationNode = info != null ? info.module : null;
-		this.resolver = info != null ? info.resolver : null;
+		this.moduleInfo = createModuleNode(unit);
+		this.enclosingDeclarationNode = moduleInfo != null ? moduleInfo.module : null;
+		this.resolver = moduleInfo != null ? moduleInfo.resolver : null;
 		this.lookups = lookups;
 		scopes = new Stack<VariableScope>();
 		completeExpressionStack = new Stack<ASTNode>();
@@ -341,8 +343,12 @@ public class TypeInferencingVisitorWithRequestor extends ClassCodeVisitorSupport
 				((ITypeResolver) lookup).setResolverInformation((ModuleNode) enclosingDeclarationNode, resolver);
 			}
 			lookup.initialize(unit, topLevelScope);
+			if (lookup instanceof SimpleTypeLookup) {
+				((SimpleTypeLookup) lookup).setMemberTables(MemberTables.forModule(moduleInfo));
+			}
 		}
 
+		ParameterizedTypeCache.begin();
 		try {
 			visitPackage(((ModuleNode) enclosingDeclarationNode).getPackage());
 			visitImports((ModuleNode) enclosingDeclarationNode);
@@ -365,6 +371,8 @@ public class TypeInferencingVisitorWithRequestor extends ClassCodeVisitorSupport
 				System.err.println("Excpetion thrown from inferencing engine");
 				e.printStackTrace();
 			}
+		} finally {
+			ParameterizedTypeCache.end();
 		}
 		if (DEBUG) {
 			postVisitSanityCheck();
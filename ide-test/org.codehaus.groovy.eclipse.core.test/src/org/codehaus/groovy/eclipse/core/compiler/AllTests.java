@@ -25,6 +25,8 @@ public class AllTests {
         // $JUnit-BEGIN$
         suite.addTestSuite(ErrorRecoveryTests.class);
         suite.addTestSuite(AstPositionTests.class);
+        suite.addTestSuite(SharedSnippetCompilerTests.class);
+        suite.addTestSuite(GroovyJDTCompileTaskTests.class);
         // $JUnit-END$
         return suite;
     }
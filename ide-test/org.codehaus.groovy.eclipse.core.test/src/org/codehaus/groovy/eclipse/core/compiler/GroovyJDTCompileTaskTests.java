@@ -0,0 +1,150 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.groovy.eclipse.core.compiler;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+import junit.framework.TestCase;
+
+import org.eclipse.ant.core.AntRunner;
+import org.eclipse.core.runtime.FileLocator;
+
+/**
+ * Tests for the <code>buildstate</code> attribute of the
+ * <code>groovy.jdtcompile</code> ant task
+ */
+public class GroovyJDTCompileTaskTests extends TestCase {
+
+    /** Class files get this time stamp after each build, so that rewritten ones can be told apart */
+    private static final long BUILT = (System.currentTimeMillis() - 60000) / 1000 * 1000;
+
+    private File root;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        root = File.createTempFile("buildstate", "");
+        root.delete();
+        new File(root, "src").mkdirs();
+        new File(root, "other").mkdirs();
+        String groovyJar = new File(FileLocator.toFileURL(CompilerUtils.getExportedGroovyAllJar()).getFile()).getAbsolutePath();
+        write("build.xml",
+                "<project default='build'>\n" +
+                "  <target name='build'>\n" +
+                "    <groovy.jdtcompile srcdir='other' destdir='bin' classpath='" + groovyJar + "'\n" +
+                "        compiler='org.codehaus.groovy.eclipse.ant.GroovyCompilerAdapter' includeantruntime='false'/>\n" +
+                "    <groovy.jdtcompile srcdir='src' destdir='bin' classpath='" + groovyJar + "' buildstate='true'\n" +
+                "        compiler='org.codehaus.groovy.eclipse.ant.GroovyCompilerAdapter' includeantruntime='false'/>\n" +
+                "  </target>\n" +
+                "</project>\n");
+        new File(root, "bin").mkdirs();
+        write("src/p/A.groovy", "package p\nclass A { String name }\n");
+        write("src/p/B.groovy", "package p\nclass B { A a }\n");
+        write("src/q/C.groovy", "package q\nclass C { }\n");
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        // the build state is kept next to bin, so it goes too
+        delete(root);
+        super.tearDown();
+    }
+
+    public void testUnchangedRebuildCompilesNothing() throws Exception {
+        build();
+        build();
+        assertNotRewritten("p/A", "p/B", "q/C");
+    }
+
+    public void testDependentsOfChangedSourceRecompiled() throws Exception {
+        build();
+        write("src/p/A.groovy", "package p\nclass A { String name; int size }\n");
+        build();
+        assertRewritten("p/A", "p/B");
+        assertNotRewritten("q/C");
+    }
+
+    public void testClassFilesOfDeletedSourceRemoved() throws Exception {
+        build();
+        new File(root, "src/q/C.groovy").delete();
+        build();
+        assertFalse(classFile("q/C").exists());
+        assertNotRewritten("p/A", "p/B");
+    }
+
+    public void testSameNamedClassInOtherPackageSurvives() throws Exception {
+        // r/A.class is written into the same folder by another task just
+        // before the sources with build state are compiled
+        write("other/r/A.groovy", "package r\nclass A { }\n");
+        build();
+        assertTrue(classFile("r/A").exists());
+        new File(root, "src/p/A.groovy").delete();
+        new File(root, "src/p/B.groovy").delete();
+        build();
+        assertFalse(classFile("p/A").exists());
+        assertFalse(classFile("p/B").exists());
+        assertTrue("Class files the build state did not record must not be deleted", classFile("r/A").exists());
+    }
+
+    private void build() throws Exception {
+        AntRunner runner = new AntRunner();
+        runner.setBuildFileLocation(new File(root, "build.xml").getAbsolutePath());
+        runner.run();
+        for (String type : new String[] { "p/A", "p/B", "q/C", "r/A" }) {
+            classFile(type).setLastModified(BUILT);
+        }
+    }
+
+    private void assertRewritten(String... types) {
+        for (String type : types) {
+            assertTrue(type + " should have been compiled", classFile(type).lastModified() != BUILT);
+        }
+    }
+
+    private void assertNotRewritten(String... types) {
+        for (String type : types) {
+            assertEquals(type + " should not have been compiled", BUILT, classFile(type).lastModified());
+        }
+    }
+
+    private File classFile(String type) {
+        return new File(root, "bin/" + type + ".class");
+    }
+
+    private void write(String path, String contents) throws IOException {
+        File file = new File(root, path);
+        file.getParentFile().mkdirs();
+        Writer writer = new FileWriter(file);
+        try {
+            writer.write(contents);
+        } finally {
+            writer.close();
+        }
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.groovy.eclipse.core.compiler;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.codehaus.groovy.ast.ModuleNode;
+import org.codehaus.groovy.eclipse.core.model.GroovyRuntime;
+import org.codehaus.groovy.eclipse.test.EclipseTestCase;
+
+/**
+ * Tests for the compilers returned by {@link GroovySnippetCompiler#getSharedCompiler}
+ */
+public class SharedSnippetCompilerTests extends EclipseTestCase {
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        GroovyRuntime.addGroovyRuntime(testProject.getProject());
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        GroovySnippetCompiler.disposeSharedCompilers();
+        super.tearDown();
+    }
+
+    public void testSameCompilerForSameProject() throws Exception {
+        GroovySnippetCompiler compiler = GroovySnippetCompiler.getSharedCompiler(testProject.getGroovyProjectFacade());
+        assertSame(compiler, GroovySnippetCompiler.getSharedCompiler(testProject.getGroovyProjectFacade()));
+
+        // cleanup must not break the shared compiler
+        compiler.cleanup();
+        ModuleNode first = compiler.compile("def x = new ArrayList()", "First");
+        ModuleNode second = compiler.compile("def y = new HashMap()", "Second");
+        assertFalse(first.encounteredUnrecoverableError());
+        assertFalse(second.encounteredUnrecoverableError());
+        assertEquals("First", first.getClasses().get(0).getName());
+        assertEquals("Second", second.getClasses().get(0).getName());
+    }
+
+    public void testNewCompilerAfterClasspathChange() throws Exception {
+        GroovySnippetCompiler compiler = GroovySnippetCompiler.getSharedCompiler(testProject.getGroovyProjectFacade());
+        testProject.createOtherSourceFolder();
+        assertNotSame(compiler, GroovySnippetCompiler.getSharedCompiler(testProject.getGroovyProjectFacade()));
+    }
+
+    public void testOldCompilerStillWorksAfterClasspathChange() throws Exception {
+        GroovySnippetCompiler compiler = GroovySnippetCompiler.getSharedCompiler(testProject.getGroovyProjectFacade());
+        compiler.compile("def x = new ArrayList()", "First");
+        testProject.createOtherSourceFolder();
+        ModuleNode node = compiler.compile("def y = new HashMap()", "Second");
+        assertFalse(node.encounteredUnrecoverableError());
+        assertEquals("Second", node.getClasses().get(0).getName());
+    }
+
+    public void testSnippetsDoNotSeeEachOther() throws Exception {
+        GroovySnippetCompiler compiler = GroovySnippetCompiler.getSharedCompiler(testProject.getGroovyProjectFacade());
+        assertFalse(compiler.compileForErrors("class Foo { }\nnew Foo()", "Snippet").hasErrors());
+        // the same type again is not a duplicate
+        assertFalse(compiler.compileForErrors("class Foo { }\nnew Foo()", "Snippet").hasErrors());
+        // and a type of an earlier snippet is not visible
+        assertTrue(compiler.compileForErrors("new Foo()", "Other").hasErrors());
+    }
+
+    public void testSnippetsSeeNewSources() throws Exception {
+        testProject.createGroovyTypeAndPackage("p", "Helper.groovy", "class Helper { }");
+        GroovySnippetCompiler compiler = GroovySnippetCompiler.getSharedCompiler(testProject.getGroovyProjectFacade());
+        assertFalse(compiler.compileForErrors("p.Helper h = null", "First").hasErrors());
+        assertTrue(compiler.compileForErrors("p.Extra e = null", "Second").hasErrors());
+
+        // a type that was not found before is found once its source exists
+        testProject.createGroovyTypeAndPackage("p", "Extra.groovy", "class Extra { }");
+        assertFalse(compiler.compileForErrors("p.Extra e = null", "Third").hasErrors());
+    }
+
+    public void testConcurrentCompiles() throws Exception {
+        final GroovySnippetCompiler compiler = GroovySnippetCompiler.getSharedCompiler(testProject.getGroovyProjectFacade());
+        final List<Throwable> failures = new ArrayList<Throwable>();
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            final int n = i;
+            threads[i] = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        for (int j = 0; j < 5; j++) {
+                            ModuleNode node = compiler.compile("def x" + j + " = " + n + "\n", "Snippet" + n + "_" + j);
+                            assertEquals("Snippet" + n + "_" + j, node.getClasses().get(0).getName());
+                        }
+                    } catch (Throwable t) {
+                        synchronized (failures) {
+                            failures.add(t);
+                        }
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertTrue("Compile failures: " + failures, failures.isEmpty());
+    }
+}
@@ -23,11 +23,14 @@ import java.util.List;
 import org.codehaus.groovy.ast.ModuleNode;
 import org.codehaus.groovy.eclipse.core.model.GroovyRuntime;
 import org.codehaus.groovy.eclipse.test.EclipseTestCase;
+import org.codehaus.groovy.eclipse.test.TestProject;
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.jdt.core.ICompilationUnit;
 import org.eclipse.jdt.core.IField;
 import org.eclipse.jdt.core.IJavaElement;
 import org.eclipse.jdt.core.IType;
 import org.eclipse.jdt.core.JavaModelException;
+import org.eclipse.jdt.core.search.IJavaSearchScope;
 import org.eclipse.jdt.core.search.SearchMatch;
 
 /**
@@ -227,6 +230,46 @@ public class SyntheticMemberSearchTests extends EclipseTestCase {
     }
 
 
+    public void testScopeOfSourceElement() throws Exception {
+        TestProject referencing = new TestProject("Referencing");
+        TestProject transitive = new TestProject("Transitive");
+        TestProject unrelated = new TestProject("Unrelated");
+        try {
+            referencing.addProjectReference(testProject.getJavaProject());
+            transitive.addProjectReference(referencing.getJavaProject());
+            ICompilationUnit referencingUnit = referencing.createUnit("q", "R.java", "package q;\nclass R { }");
+            ICompilationUnit transitiveUnit = transitive.createUnit("q", "T.java", "package q;\nclass T { }");
+            ICompilationUnit unrelatedUnit = unrelated.createUnit("q", "U.java", "package q;\nclass U { }");
+
+            IJavaSearchScope scope = new SyntheticAccessorSearchRequestor().createReferencingScope(findSearchTarget("prop"));
+            assertTrue(scope.encloses(gType));
+            assertTrue(scope.encloses(referencingUnit));
+            assertTrue(scope.encloses(transitiveUnit));
+            assertFalse(scope.encloses(unrelatedUnit));
+        } finally {
+            referencing.dispose();
+            transitive.dispose();
+            unrelated.dispose();
+        }
+    }
+
+    public void testScopeOfBinaryElement() throws Exception {
+        TestProject unrelated = new TestProject("Unrelated");
+        try {
+            ICompilationUnit unrelatedUnit = unrelated.createUnit("q", "U.java", "package q;\nclass U { }");
+            // the jar may be on the classpath of any project
+            IType binaryType = testProject.getJavaProject().findType("java.util.ArrayList");
+            assertTrue(binaryType.isBinary());
+
+            IJavaSearchScope scope = new SyntheticAccessorSearchRequestor().createReferencingScope(binaryType.getMethod("size",
+                    new String[0]));
+            assertTrue(scope.encloses(gType));
+            assertTrue(scope.encloses(unrelatedUnit));
+        } finally {
+            unrelated.dispose();
+        }
+    }
+
     private IJavaElement findSearchTarget(String name) throws JavaModelException {
         for (IJavaElement child : gType.getChildren()) {
             if (child.getElementName().equals(name)) {
@@ -0,0 +1,209 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.groovy.eclipse.dsl.tests;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import org.codehaus.groovy.ast.ASTNode;
+import org.codehaus.groovy.eclipse.dsl.checker.CompositeStaticCheckerHandler;
+import org.codehaus.groovy.eclipse.dsl.checker.IStaticCheckerHandler;
+import org.codehaus.groovy.eclipse.dsl.checker.RecordingStaticCheckerHandler.Problem;
+import org.codehaus.groovy.eclipse.dsl.checker.ResourceTypeChecker;
+import org.codehaus.groovy.eclipse.dsl.checker.StaticCheckerResultCache;
+import org.codehaus.groovy.eclipse.dsl.checker.XmlReportStaticCheckerHandler;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.jface.text.Position;
+import org.eclipse.swt.widgets.Shell;
+
+/**
+ * Tests the parallel mode and the result cache of the static checker
+ */
+public class StaticCheckerTests extends AbstractDSLInferencingTest {
+    public static Test suite() {
+        return new TestSuite(StaticCheckerTests.class);
+    }
+
+    public StaticCheckerTests(String name) {
+        super(name);
+    }
+
+    /**
+     * Writes down every call it gets, so that the calls of two runs can be compared
+     */
+    private static class CallLog implements IStaticCheckerHandler {
+        final List<String> calls = new ArrayList<String>();
+
+        public void handleUnknownReference(ASTNode node, Position position, int line) {
+            calls.add("unknown " + node.getText() + " " + position.offset + ":" + position.length + " " + line);
+        }
+
+        public void handleTypeAssertionFailed(ASTNode node, String expectedType, String actualType, Position position, int line) {
+            calls.add("assertion " + node.getText() + " " + expectedType + " " + actualType + " " + position.offset + ":" + position.length + " " + line);
+        }
+
+        public void setResource(IFile resource) {
+            calls.add("file " + resource.getFullPath());
+        }
+
+        public int numProblemsFound() {
+            return 0;
+        }
+
+        public void handleResourceStart(IResource resource) {
+            calls.add("start " + resource.getFullPath());
+        }
+
+        public boolean finish(Shell shell) {
+            return true;
+        }
+    }
+
+    private File cacheFile;
+
+    @Override
+    protected void tearDown() throws Exception {
+        if (cacheFile != null) {
+            cacheFile.delete();
+        }
+        super.tearDown();
+    }
+
+    private void createUnits() throws Exception {
+        createUnit("Super", "class Super {\n Integer foo() { 1 }\n}");
+        createUnit("Sub", "class Sub extends Super {\n}");
+        createUnit("p", "Uses", "class Uses {\n def x = new Sub().foo() //TYPE:java.lang.String\n def y = unknownThing\n}");
+        createUnit("p", "Script", "def z = 'z' //TYPE:java.lang.Integer\nz.nothingLikeThis()");
+        createUnit("q", "Other", "class Other {\n def w = new Sub().bar()\n}");
+    }
+
+    private String check(int numThreads, StaticCheckerResultCache cache, CallLog log) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        IStaticCheckerHandler handler = new CompositeStaticCheckerHandler(log, new XmlReportStaticCheckerHandler(new PrintStream(bytes, true, "UTF-8")));
+        ResourceTypeChecker checker = new ResourceTypeChecker(handler, project.getName(), null, null, false);
+        checker.setNumThreads(numThreads);
+        checker.setResultCache(cache);
+        checker.doCheck(null);
+        return bytes.toString("UTF-8");
+    }
+
+    public void testParallelRunSameAsSerialRun() throws Exception {
+        createUnits();
+
+        CallLog serialLog = new CallLog();
+        String serialReport = check(1, null, serialLog);
+        CallLog parallelLog = new CallLog();
+        String parallelReport = check(4, null, parallelLog);
+
+        assertTrue("Expected some problems:\n" + serialReport, serialReport.contains("<unknown"));
+        assertTrue("Expected some problems:\n" + serialReport, serialReport.contains("<assertion"));
+        assertEquals(serialReport, parallelReport);
+        assertEquals(serialLog.calls, parallelLog.calls);
+    }
+
+    public void testCachedRunSameAsSerialRun() throws Exception {
+        createUnits();
+        cacheFile = File.createTempFile("staticCheck", ".cache");
+        cacheFile.delete();
+
+        CallLog serialLog = new CallLog();
+        String serialReport = check(1, null, serialLog);
+
+        StaticCheckerResultCache cache = new StaticCheckerResultCache(cacheFile);
+        cache.load();
+        CallLog firstLog = new CallLog();
+        assertEquals(serialReport, check(2, cache, firstLog));
+        assertEquals(serialLog.calls, firstLog.calls);
+
+        cache = new StaticCheckerResultCache(cacheFile);
+        cache.load();
+        assertEquals(5, cache.getEntries().size());
+        CallLog secondLog = new CallLog();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ResourceTypeChecker checker = new ResourceTypeChecker(new CompositeStaticCheckerHandler(secondLog,
+                new XmlReportStaticCheckerHandler(new PrintStream(bytes, true, "UTF-8"))), project.getName(), null, null, false);
+        checker.setResultCache(cache);
+        checker.doCheck(null);
+        assertEquals(0, checker.getNumChecked());
+        assertEquals(5, checker.getNumFromCache());
+        assertEquals(serialReport, bytes.toString("UTF-8"));
+        assertEquals(serialLog.calls, secondLog.calls);
+    }
+
+    public void testCacheInvalidatedBySupertypeChange() throws Exception {
+        createUnits();
+        cacheFile = File.createTempFile("staticCheck", ".cache");
+        cacheFile.delete();
+        StaticCheckerResultCache cache = new StaticCheckerResultCache(cacheFile);
+        String firstReport = check(1, cache, new CallLog());
+        assertTrue("Expected bar() to be unknown:\n" + firstReport, firstReport.contains("bar"));
+
+        // Other only references Sub, the change is in its supertype
+        createUnit("Super", "class Super {\n String foo() { null }\n def bar() { 2 }\n}");
+
+        cache = new StaticCheckerResultCache(cacheFile);
+        cache.load();
+        CallLog cachedLog = new CallLog();
+        String cachedReport = check(1, cache, cachedLog);
+        CallLog serialLog = new CallLog();
+        String serialReport = check(1, null, serialLog);
+        assertEquals(serialReport, cachedReport);
+        assertEquals(serialLog.calls, cachedLog.calls);
+        assertFalse("Expected bar() to be found now:\n" + serialReport, serialReport.contains("bar"));
+    }
+
+    public void testCacheKeepsLongTexts() throws Exception {
+        cacheFile = File.createTempFile("staticCheck", ".cache");
+        StringBuilder sb = new StringBuilder();
+        while (sb.length() < 100000) {
+            sb.append("veryLongExpression\u00e9 + ");
+        }
+        String text = sb.toString();
+        List<Problem> problems = Collections.singletonList(new Problem(false, text, "java.lang.String", null, 10, text.length(), 2));
+
+        StaticCheckerResultCache cache = new StaticCheckerResultCache(cacheFile);
+        cache.setEnvironmentHash("env");
+        cache.put("/Project/src/Long.groovy", new StaticCheckerResultCache.Entry("abc", Collections.singletonMap("Long", "def"), problems));
+        cache.save();
+
+        cache = new StaticCheckerResultCache(cacheFile);
+        cache.load();
+        cache.setEnvironmentHash("env");
+        StaticCheckerResultCache.Entry entry = cache.get("/Project/src/Long.groovy", "abc");
+        assertNotNull(entry);
+        assertEquals("def", entry.dependencyHashes.get("Long"));
+        assertEquals(1, entry.problems.size());
+        Problem problem = entry.problems.get(0);
+        assertEquals(text, problem.text);
+        assertEquals("java.lang.String", problem.expectedType);
+        assertNull(problem.actualType);
+        assertEquals(10, problem.offset);
+        assertEquals(text.length(), problem.length);
+        assertEquals(2, problem.line);
+
+        assertNull("Changed contents must not be reused", cache.get("/Project/src/Long.groovy", "abd"));
+        cache.setEnvironmentHash("other");
+        assertNull("Changed environment must discard everything", cache.get("/Project/src/Long.groovy", "abc"));
+    }
+}
@@ -20,6 +20,7 @@ import junit.framework.TestSuite;
 
 import org.codehaus.groovy.eclipse.quickfix.test.resolvers.GroovyProjectGroovyQuickFixTest;
 import org.codehaus.groovy.eclipse.quickfix.test.resolvers.GroovyProjectJavaQuickFixTest;
+import org.codehaus.groovy.eclipse.quickfix.test.resolvers.MissingTypeCandidatesTest;
 import org.codehaus.groovy.eclipse.quickfix.test.resolvers.NonGroovyProjectQuickFixTest;
 
 public class AllQuickFixTests {
@@ -28,6 +29,7 @@ public class AllQuickFixTests {
         suite.addTestSuite(GroovyProjectGroovyQuickFixTest.class);
         suite.addTestSuite(GroovyProjectJavaQuickFixTest.class);
         suite.addTestSuite(NonGroovyProjectQuickFixTest.class);
+        suite.addTestSuite(MissingTypeCandidatesTest.class);
         suite.addTestSuite(QuickAssistTests.class);
 		return suite;
 	}
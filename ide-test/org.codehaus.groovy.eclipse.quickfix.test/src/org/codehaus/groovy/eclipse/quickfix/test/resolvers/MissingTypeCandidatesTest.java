@@ -0,0 +1,131 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.groovy.eclipse.quickfix.test.resolvers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.codehaus.groovy.eclipse.quickfix.proposals.MissingTypeCandidates;
+import org.codehaus.groovy.eclipse.quickfix.test.GroovyProjectTestCase;
+import org.codehaus.groovy.eclipse.refactoring.actions.OrganizeGroovyImports;
+import org.codehaus.jdt.groovy.model.GroovyCompilationUnit;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.search.TypeNameMatch;
+
+/**
+ * Tests that the candidates for unresolved type names are searched for once
+ * and forgotten when a type is added or removed, and that the other
+ * unresolved names of a file come from its editor contents
+ */
+public class MissingTypeCandidatesTest extends GroovyProjectTestCase {
+
+	private IJavaProject javaProject;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		javaProject = testProject.getJavaProject();
+		createJavaTypeInTestPackage("Foo.java", "package com.test;\npublic class Foo { }");
+		createJavaTypeInTestPackage("Bar.java", "package com.test;\npublic class Bar { }");
+		MissingTypeCandidates.dispose();
+	}
+
+	protected void tearDown() throws Exception {
+		MissingTypeCandidates.dispose();
+		super.tearDown();
+	}
+
+	private static List<String> names(List<TypeNameMatch> matches) {
+		List<String> names = new ArrayList<String>();
+		for (TypeNameMatch match : matches) {
+			names.add(match.getFullyQualifiedName());
+		}
+		return names;
+	}
+
+	public void testOtherNamesAnsweredFromCache() throws Exception {
+		int searches = MissingTypeCandidates.getNumSearches();
+		assertEquals("[com.test.Foo]", names(MissingTypeCandidates.getCandidates(javaProject, "Foo",
+				Arrays.asList("Bar", "Baz"))).toString());
+		assertEquals(searches + 1, MissingTypeCandidates.getNumSearches());
+
+		assertEquals("[com.test.Bar]", names(MissingTypeCandidates.getCandidates(javaProject, "Bar",
+				Collections.<String> emptyList())).toString());
+		assertEquals("[]", names(MissingTypeCandidates.getCandidates(javaProject, "Baz",
+				Collections.<String> emptyList())).toString());
+		assertEquals(searches + 1, MissingTypeCandidates.getNumSearches());
+	}
+
+	public void testAddedTypeClearsCache() throws Exception {
+		assertEquals("[]", names(MissingTypeCandidates.getCandidates(javaProject, "Baz",
+				Collections.<String> emptyList())).toString());
+
+		createJavaTypeInTestPackage("Baz.java", "package com.test;\npublic class Baz { }");
+		int searches = MissingTypeCandidates.getNumSearches();
+		assertEquals("[com.test.Baz]", names(MissingTypeCandidates.getCandidates(javaProject, "Baz",
+				Collections.<String> emptyList())).toString());
+		assertEquals(searches + 1, MissingTypeCandidates.getNumSearches());
+	}
+
+	public void testRemovedTypeClearsCache() throws Exception {
+		ICompilationUnit baz = createJavaTypeInTestPackage("Baz.java", "package com.test;\npublic class Baz { }");
+		assertEquals("[com.test.Baz]", names(MissingTypeCandidates.getCandidates(javaProject, "Baz",
+				Collections.<String> emptyList())).toString());
+
+		baz.delete(true, null);
+		fullProjectBuild();
+		waitForIndexes();
+		assertEquals("[]", names(MissingTypeCandidates.getCandidates(javaProject, "Baz",
+				Collections.<String> emptyList())).toString());
+	}
+
+	public void testWorkingCopyKeepsCache() throws Exception {
+		assertEquals("[com.test.Foo]", names(MissingTypeCandidates.getCandidates(javaProject, "Foo",
+				Collections.<String> emptyList())).toString());
+		int searches = MissingTypeCandidates.getNumSearches();
+
+		ICompilationUnit unit = getTestPackage().getCompilationUnit("Bar.java");
+		ICompilationUnit workingCopy = unit.getWorkingCopy(null);
+		try {
+			workingCopy.getBuffer().append("\nclass Other { }");
+			workingCopy.reconcile(ICompilationUnit.NO_AST, false, null, null);
+			assertEquals("[com.test.Foo]", names(MissingTypeCandidates.getCandidates(javaProject, "Foo",
+					Collections.<String> emptyList())).toString());
+			assertEquals(searches, MissingTypeCandidates.getNumSearches());
+		} finally {
+			workingCopy.discardWorkingCopy();
+		}
+	}
+
+	public void testOtherNamesFromUnsavedWorkingCopy() throws Exception {
+		ICompilationUnit unit = createGroovyTypeInTestPackage("Other.groovy",
+				"package com.test\nclass Other { Qux q }");
+		ICompilationUnit workingCopy = unit.getWorkingCopy(null);
+		try {
+			// the build markers still name Qux, but the editor does not
+			workingCopy.getBuffer().setContents("package com.test\nclass Other { Quux q; Foo f; Corge c }");
+			workingCopy.reconcile(ICompilationUnit.NO_AST, false, null, null);
+			Set<String> names = new OrganizeGroovyImports((GroovyCompilationUnit) workingCopy, null).findMissingTypeNames();
+			assertEquals("[Corge, Quux]", new TreeSet<String>(names).toString());
+		} finally {
+			workingCopy.discardWorkingCopy();
+		}
+	}
+}
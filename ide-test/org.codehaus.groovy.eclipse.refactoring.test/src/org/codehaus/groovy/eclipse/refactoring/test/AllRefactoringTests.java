@@ -23,6 +23,7 @@ import junit.framework.TestSuite;
 
 import org.codehaus.groovy.eclipse.codebrowsing.tests.FindAllOccurrencesVisitorTests;
 import org.codehaus.groovy.eclipse.codebrowsing.tests.IsSameExpressionTests;
+import org.codehaus.groovy.eclipse.refactoring.test.extract.ASTWriterTests;
 import org.codehaus.groovy.eclipse.refactoring.test.extract.ExtractConstantTests;
 import org.codehaus.groovy.eclipse.refactoring.test.extract.ExtractLocalTests;
 import org.codehaus.groovy.eclipse.refactoring.test.extract.StaticExpressionCheckerTests;
@@ -63,6 +64,7 @@ public class AllRefactoringTests {
         suite.addTest(ExtractConstantTests.suite());
         suite.addTest(ExtractLocalTests.suite());
         suite.addTest(ExtractMethodTestSuite.suite());
+        suite.addTest(new TestSuite(ASTWriterTests.class));
 
         // formatting and indenting
         suite.addTest(FormatterTestSuite.suite());
@@ -0,0 +1,234 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.groovy.eclipse.refactoring.test.extract;
+
+import java.util.List;
+
+import org.codehaus.groovy.antlr.LineColumn;
+import org.codehaus.groovy.ast.ClassNode;
+import org.codehaus.groovy.ast.ModuleNode;
+import org.codehaus.groovy.ast.stmt.BlockStatement;
+import org.codehaus.groovy.eclipse.codebrowsing.tests.AbstractCheckerTests;
+import org.codehaus.groovy.eclipse.refactoring.core.rewriter.ASTWriter;
+import org.codehaus.groovy.eclipse.refactoring.core.utils.IndexedSource;
+import org.codehaus.groovy.runtime.StringGroovyMethods;
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.Document;
+import org.eclipse.jface.text.IDocument;
+
+/**
+ * Checks that the {@link ASTWriter} writes the same code as it did before it
+ * read the original source through a line index.
+ * <p>
+ * Before that, FilePartReader took the text from the coordinate up to and
+ * including the index one past the end of the line, which threw, so a writer
+ * with a document failed on the first parenthesized expression or string. The
+ * comparisons here use a copy of the old way of splitting a line into words
+ * with only that range corrected, and the expected code of the golden tests
+ * was written by the old {@link ASTWriter} in the same way.
+ */
+public class ASTWriterTests extends AbstractCheckerTests {
+
+    private static final int NUM_LINES = 3000;
+
+    private static final String GOLDEN_SOURCE =
+            "class Golden {\n" +
+            "    void run() {\n" +
+            "        def a = 'single'\n" +
+            "        def b = \"double ${a} and $a\"\n" +
+            "        def c = (1 + 2) * 3\n" +
+            "        def d = /slashy/\n" +
+            "        if (c > 3) {\n" +
+            "            println '''triple\n" +
+            "quoted'''\n" +
+            "        }\n" +
+            "        String e = \"esc\\t\\\"q\\\" \\\\ \\n\"\n" +
+            "    }\n" +
+            "}\n";
+
+    public ASTWriterTests() {
+        super(ASTWriterTests.class.getName());
+    }
+
+    /**
+     * Reads the original source the way the writer did before it was indexed
+     */
+    private static class BaselineReadingASTWriter extends ASTWriter {
+        private final IDocument document;
+
+        BaselineReadingASTWriter(ModuleNode root, IDocument document) {
+            super(root, document);
+            this.document = document;
+        }
+
+        @Override
+        protected String readForwardFromCoordinate(LineColumn coords) {
+            try {
+                return baselineReadForward(document, coords);
+            } catch (BadLocationException e) {
+                return " ";
+            }
+        }
+    }
+
+    private static String baselineReadForward(IDocument document, LineColumn coords) throws BadLocationException {
+        if (coords.getLine() <= 0 || coords.getColumn() <= 0) {
+            return " ";
+        }
+        String line = getLine(document, coords.getLine());
+        List<String> words = baselineWords(line.substring(Math.min(coords.getColumn() - 1, line.length())));
+        return words.isEmpty() ? " " : words.get(0);
+    }
+
+    private static String baselineReadBackwards(IDocument document, LineColumn coords) throws BadLocationException {
+        if (coords.getLine() <= 0 || coords.getColumn() <= 0) {
+            return " ";
+        }
+        String line = getLine(document, coords.getLine());
+        List<String> words = baselineWords(line.substring(0, Math.min(coords.getColumn() - 1, line.length())));
+        return words.isEmpty() ? " " : words.get(words.size() - 1);
+    }
+
+    private static String getLine(IDocument document, int line) throws BadLocationException {
+        return document.get(document.getLineOffset(line - 1), document.getLineLength(line - 1));
+    }
+
+    /**
+     * The word splitting of FilePartReader before the source was indexed
+     */
+    private static List<String> baselineWords(String relevantPieceOfLine) {
+        relevantPieceOfLine = relevantPieceOfLine.replaceAll("\\(", " ( ");
+        relevantPieceOfLine = relevantPieceOfLine.replaceAll("\\)", " ) ");
+        return StringGroovyMethods.tokenize(relevantPieceOfLine);
+    }
+
+    public void testLargeScript() throws Exception {
+        assertSameCode(createLargeScript("\n"));
+    }
+
+    public void testLargeScriptWithWindowsLineEndings() throws Exception {
+        assertSameCode(createLargeScript("\r\n"));
+    }
+
+    public void testGoldenWithDocument() throws Exception {
+        assertEquals(lines("\n",
+                "{",
+                "    def a = 'single'",
+                "    def b = \"double $a and $a\"",
+                "    def c = (1 + 2) * 3",
+                "    def d = /slashy/",
+                "    if (c > 3) {",
+                "        println('''triple",
+                "quoted''')",
+                "    }",
+                "    String e = \"esc\\t\\\"q\\\" \\\\ \\n\"",
+                "}"), writeGoldenMethod(new Document(GOLDEN_SOURCE)));
+    }
+
+    public void testGoldenWithoutDocument() throws Exception {
+        // without the source, parentheses are dropped and every string is written in double quotes
+        assertEquals(lines(System.getProperty("line.separator"),
+                "{",
+                "    def a = \"single\"",
+                "    def b = \"double $a and $a\"",
+                "    def c = 1 + 2 * 3",
+                "    def d = \"slashy\"",
+                "    if (c > 3) {",
+                "        println(\"triple",
+                "quoted\")",
+                "",
+                "    }",
+                "    String e = \"esc\\t\\\"q\\\" \\\\ \\n\"",
+                "}"), writeGoldenMethod(null));
+    }
+
+    public void testIndexedReads() throws Exception {
+        String text = createLargeScript("\n");
+        IDocument document = new Document(text);
+        IndexedSource source = new IndexedSource(document);
+        assertEquals(document.getNumberOfLines(), source.getNumberOfLines());
+        assertEquals("\n", source.getLineDelimiter());
+        for (int line = 1; line <= document.getNumberOfLines(); line += 7) {
+            int length = document.getLineLength(line - 1);
+            for (int column = 1; column <= length + 2; column += 3) {
+                LineColumn coords = new LineColumn(line, column);
+                assertEquals("Forward at " + line + ":" + column, baselineReadForward(document, coords),
+                        source.readForwardFromCoordinate(coords));
+                assertEquals("Backwards at " + line + ":" + column, baselineReadBackwards(document, coords),
+                        source.readBackwardsFromCoordinate(coords));
+            }
+        }
+        assertEquals(" ", source.readForwardFromCoordinate(new LineColumn(NUM_LINES * 2, 1)));
+        assertEquals(" ", source.readBackwardsFromCoordinate(new LineColumn(0, 1)));
+    }
+
+    private void assertSameCode(String text) throws Exception {
+        ModuleNode module = createModuleFromText(text);
+
+        ASTWriter expected = new BaselineReadingASTWriter(module, new Document(text));
+        expected.visitRoot();
+
+        ASTWriter actual = new ASTWriter(module, new Document(text));
+        actual.visitRoot();
+
+        assertTrue("Nothing was written", actual.getGroovyCode().length() > 0);
+        assertEquals(expected.getGroovyCode(), actual.getGroovyCode());
+    }
+
+    /**
+     * Writes the body of Golden.run(), which is the same in every phase
+     * since nothing is added to a void method
+     */
+    private String writeGoldenMethod(IDocument document) throws Exception {
+        ModuleNode module = createModuleFromText(GOLDEN_SOURCE);
+        ClassNode golden = null;
+        for (ClassNode classNode : module.getClasses()) {
+            if (classNode.getName().equals("Golden")) {
+                golden = classNode;
+            }
+        }
+        ASTWriter writer = new ASTWriter(module, document);
+        ((BlockStatement) golden.getMethods("run").get(0).getCode()).visit(writer);
+        return writer.getGroovyCode().trim();
+    }
+
+    private static String lines(String delimiter, String... lines) {
+        StringBuilder sb = new StringBuilder();
+        for (String line : lines) {
+            if (sb.length() > 0) {
+                sb.append(delimiter);
+            }
+            sb.append(line);
+        }
+        return sb.toString();
+    }
+
+    private static String createLargeScript(String delimiter) {
+        StringBuilder sb = new StringBuilder();
+        int lines = 0;
+        for (int i = 0; lines < NUM_LINES; i += 1) {
+            sb.append("def x").append(i).append(" = 'single ").append(i).append("'").append(delimiter);
+            sb.append("def y").append(i).append(" = \"double ${x").append(i).append("} and $x").append(i).append("\"").append(delimiter);
+            sb.append("def z").append(i).append(" = (x").append(i).append(" + y").append(i).append(") * 2").append(delimiter);
+            sb.append("if (z").append(i).append(") {").append(delimiter);
+            sb.append("    println '''triple").append(delimiter);
+            sb.append("quoted ").append(i).append("'''").append(delimiter);
+            sb.append("}").append(delimiter);
+            lines += 7;
+        }
+        return sb.toString();
+    }
+}
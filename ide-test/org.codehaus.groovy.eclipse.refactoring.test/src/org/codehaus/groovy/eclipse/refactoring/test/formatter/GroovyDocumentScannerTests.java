@@ -17,6 +17,7 @@ package org.codehaus.groovy.eclipse.refactoring.test.formatter;
 
 import groovyjarjarantlr.Token;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import junit.framework.TestCase;
@@ -119,6 +120,83 @@ public class GroovyDocumentScannerTests extends TestCase {
         scanner.dispose();
     }
 
+    public void testIncrementalEdits() throws Exception {
+        String text =
+            "class Foo {\n" +
+            "    def a = \"x${1 +\n 2}y\"\n" +
+            "    def b = <***>\n" +
+            "    /* comment */\n" +
+            "    def c = 7\n" +
+            "}\n";
+        makeEditor(text);
+
+        IDocument doc = getDocument();
+        GroovyDocumentScanner scanner = new GroovyDocumentScanner(doc);
+        scanner.getLastToken(); // force a scan
+
+        send("3 +\n  4");
+        assertSameTokens(scanner);
+        send("\n    def d = \"${");
+        assertSameTokens(scanner);
+        send("}\"");
+        assertSameTokens(scanner);
+        doc.replace(0, "class Foo {".length(), "class Bar {\n");
+        assertSameTokens(scanner);
+        doc.replace(doc.getLength() - 2, 2, "");
+        assertSameTokens(scanner);
+        scanner.dispose();
+    }
+
+    public void testIncrementalEditKeepsOldTokens() throws Exception {
+        String text =
+            "class Foo {\n" +
+            "    def a = <***>1\n" +
+            "    def b = 2\n" +
+            "}\n";
+        makeEditor(text);
+
+        IDocument doc = getDocument();
+        GroovyDocumentScanner scanner = new GroovyDocumentScanner(doc);
+        List<Token> before = new ArrayList<Token>(scanner.getTokens(0, doc.getLength()));
+        int[] lines = new int[before.size()];
+        for (int i = 0; i < lines.length; i++) {
+            lines[i] = before.get(i).getLine();
+        }
+
+        send("0 +\n  ");
+        assertSameTokens(scanner);
+        for (int i = 0; i < lines.length; i++) {
+            assertEquals("line of token " + before.get(i), lines[i], before.get(i).getLine());
+        }
+        scanner.dispose();
+    }
+
+    /**
+     * Checks that an incrementally updated scanner has the same tokens as a new scanner
+     */
+    private void assertSameTokens(GroovyDocumentScanner scanner) throws BadLocationException {
+        IDocument doc = scanner.getDocument();
+        GroovyDocumentScanner expectedScanner = new GroovyDocumentScanner(doc);
+        List<Token> expected = expectedScanner.getTokens(0, doc.getLength());
+        List<Token> actual = scanner.getTokens(0, doc.getLength());
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getType(), actual.get(i).getType());
+            assertEquals(expected.get(i).getText(), actual.get(i).getText());
+            assertEquals(expected.get(i).getLine(), actual.get(i).getLine());
+            assertEquals(expected.get(i).getColumn(), actual.get(i).getColumn());
+        }
+        for (int line = 0; line < doc.getNumberOfLines(); line++) {
+            List<Token> expectedLine = expectedScanner.getLineTokens(line);
+            String[] texts = new String[expectedLine.size()];
+            for (int i = 0; i < texts.length; i++) {
+                texts[i] = expectedLine.get(i).getText();
+            }
+            assertTokens(texts, scanner.getLineTokens(line));
+        }
+        expectedScanner.dispose();
+    }
+
     private IDocument getDocument() {
         return editDoc;
     }
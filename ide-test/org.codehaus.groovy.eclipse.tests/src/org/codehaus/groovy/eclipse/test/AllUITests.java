@@ -31,6 +31,7 @@ import org.codehaus.groovy.eclipse.test.debug.BreakpointLocationTests;
 import org.codehaus.groovy.eclipse.test.debug.ConsoleLineTrackerTests;
 import org.codehaus.groovy.eclipse.test.debug.DebugBreakpointsTests;
 import org.codehaus.groovy.eclipse.test.debug.GroovyLauncherShortcutTests;
+import org.codehaus.groovy.eclipse.test.debug.StackFrameFilterTests;
 import org.codehaus.groovy.eclipse.test.ui.BracketInserterTests;
 import org.codehaus.groovy.eclipse.test.ui.ErrorLogTest;
 import org.codehaus.groovy.eclipse.test.ui.GroovyAutoIndenterTests;
@@ -59,6 +60,7 @@ public class AllUITests {
 		suite.addTestSuite(GroovyTagScannerTests.class);
 		suite.addTestSuite(DebugBreakpointsTests.class);
 		suite.addTestSuite(BreakpointLocationTests.class);
+		suite.addTestSuite(StackFrameFilterTests.class);
 		suite.addTestSuite(OrganizeImportsTest.class);
 		suite.addTestSuite(AliasingOrganizeImportsTest.class);
 		suite.addTestSuite(SaveParticipantRegistryTest.class);
@@ -2,8 +2,10 @@
 package org.codehaus.groovy.eclipse.test.actions
 
 import org.codehaus.groovy.eclipse.core.model.GroovyRuntime;
+import org.codehaus.groovy.eclipse.refactoring.actions.BatchOrganizeGroovyImports
 import org.codehaus.groovy.eclipse.refactoring.actions.OrganizeGroovyImports;
 import org.codehaus.groovy.eclipse.test.EclipseTestCase 
+import org.codehaus.jdt.groovy.model.GroovyCompilationUnit
 import org.codehaus.jdt.groovy.model.GroovyNature;
 import org.eclipse.jdt.core.ISourceRange 
 import org.eclipse.jdt.core.search.TypeNameMatch 
@@ -634,6 +636,39 @@ public class OrganizeImportsTest extends AbstractOrganizeImportsTest {
                 """
         doAddImportTest(contents)
     }
+
+    void testBatchOrganizeImports() {
+        def contents = [
+            """
+            FirstClass x
+            """,
+            """
+            class Main1 {
+                SecondClass y
+            }
+            """,
+            """
+            import javax.swing.text.html.HTML
+            def x = new ThirdClass()
+            """
+        ]
+        def units = []
+        contents.eachWithIndex { text, i ->
+            units << JavaCore.createCompilationUnitFrom(testProject.createGroovyTypeAndPackage("main", "Main${i}.groovy", text))
+        }
+        testProject.waitForIndexer()
+
+        // the batch edits should be the same as organizing each unit on its own
+        def edits = new BatchOrganizeGroovyImports(units as GroovyCompilationUnit[], new NoChoiceQuery()).calculateMissingImports(null)
+        assertEquals 3, edits.size()
+        units.each { unit ->
+            TextEdit expected = new OrganizeGroovyImports(unit, new NoChoiceQuery()).calculateMissingImports()
+            assertEquals "Wrong edit for ${unit.elementName}", expected.toString(), edits[unit].toString()
+        }
+        assertTrue edits[units[0]].toString().contains("import other.FirstClass")
+        assertTrue edits[units[1]].toString().contains("import other.SecondClass")
+        assertTrue edits[units[2]].toString().contains("import other.ThirdClass")
+    }
     
 //    // GRECLIPSE-1392
 //    void testDefaultImport1() {
@@ -21,10 +21,12 @@ import java.net.URL;
 import org.apache.commons.io.IOUtils;
 import org.codehaus.groovy.ast.ASTNode;
 import org.codehaus.groovy.eclipse.core.model.GroovyRuntime;
+import org.codehaus.groovy.eclipse.debug.ui.BreakpointLocationTable;
 import org.codehaus.groovy.eclipse.debug.ui.ValidBreakpointLocationFinder;
 import org.codehaus.groovy.eclipse.test.Activator;
 import org.codehaus.groovy.eclipse.test.EclipseTestCase;
 import org.codehaus.jdt.groovy.model.GroovyCompilationUnit;
+import org.codehaus.jdt.groovy.model.ModuleNodeMapper.ModuleNodeInfo;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jface.text.Document;
@@ -173,9 +175,27 @@ public class BreakpointLocationTests extends EclipseTestCase {
         doBreakpointTest(23);
     }
     
-    private void doBreakpointTest(int i) throws Exception {
+    public void testLocationTableIsKeptWithModule() throws Exception {
+        ModuleNodeInfo info = unit.getModuleInfo(true);
+        for (int i = 1; i <= 23; i++) {
+            int line = getLine(i);
+            assertSame("Wrong location for line " + line,
+                    new ValidBreakpointLocationFinder(line).findValidBreakpointLocation(info.module),
+                    new ValidBreakpointLocationFinder(line).findValidBreakpointLocation(info));
+        }
+        BreakpointLocationTable table = info.getDerived(BreakpointLocationTable.class);
+        assertNotNull("Table should be kept with the module", table);
+        new ValidBreakpointLocationFinder(getLine(1)).findValidBreakpointLocation(info);
+        assertSame("Table should have been reused", table, info.getDerived(BreakpointLocationTable.class));
+    }
+
+    private int getLine(int i) throws Exception {
         int location = document.get().indexOf("// " + i)-3;
-        int line = document.getLineOfOffset(location)+1;  
+        return document.getLineOfOffset(location)+1;
+    }
+
+    private void doBreakpointTest(int i) throws Exception {
+        int line = getLine(i);
         ValidBreakpointLocationFinder finder = new ValidBreakpointLocationFinder(line);
         ASTNode node = finder.findValidBreakpointLocation(unit.getModuleNode());
         assertNotNull("Could not find a breakpoint for line " + line, node);
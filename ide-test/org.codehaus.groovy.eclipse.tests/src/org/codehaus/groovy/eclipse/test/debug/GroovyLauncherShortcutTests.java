@@ -17,11 +17,15 @@ package org.codehaus.groovy.eclipse.test.debug;
 
 import java.io.File;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 
 import junit.framework.AssertionFailedError;
 
 import org.codehaus.groovy.eclipse.core.compiler.CompilerUtils;
+import org.codehaus.groovy.eclipse.core.model.GroovyProjectFacade;
 import org.codehaus.groovy.eclipse.core.model.GroovyRuntime;
 import org.codehaus.groovy.eclipse.launchers.GroovyScriptLaunchShortcut;
 import org.codehaus.groovy.eclipse.test.EclipseTestCase;
@@ -46,6 +50,7 @@ import org.eclipse.jdt.core.IPackageFragmentRoot;
 import org.eclipse.jdt.core.IType;
 import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jdt.debug.ui.launchConfigurations.JavaApplicationLaunchShortcut;
+import org.eclipse.jdt.groovy.core.util.ReflectionUtils;
 import org.eclipse.jface.dialogs.MessageDialogWithToggle;
 
 /**
@@ -195,6 +200,52 @@ public class GroovyLauncherShortcutTests extends EclipseTestCase {
         }
     }
 
+    // runnable types and scripts are found through the index, and found again after a change
+    public void testFindRunnableTypesAndScripts() throws Exception {
+        createGroovyCompilationUnit("pack", "Script1.groovy", "print 'test me'");
+        createGroovyCompilationUnit("pack", "Main1.groovy", "class Main1 { static main(args) { } }");
+        createGroovyCompilationUnit("pack", "NotMain1.groovy", "class NotMain1 { def main(args) { } }");
+        createJavaCompilationUnit("Main2.java", "class Main2 { public static void main(String[] args) { } }");
+        testProject.waitForIndexer();
+
+        GroovyProjectFacade facade = testProject.getGroovyProjectFacade();
+        assertEquals("[Main1, Main2, Script1]", getNames(facade.findAllRunnableTypes()));
+        assertEquals("[Script1]", getNames(facade.findAllScripts()));
+
+        createGroovyCompilationUnit("pack", "Script2.groovy", "print 'test me too'");
+        testProject.waitForIndexer();
+        assertEquals("[Main1, Main2, Script1, Script2]", getNames(facade.findAllRunnableTypes()));
+        assertEquals("[Script1, Script2]", getNames(facade.findAllScripts()));
+    }
+
+    // a change to a file that is neither Java nor Groovy keeps what was found
+    public void testRunnableTypesKeptOverOtherChanges() throws Exception {
+        createGroovyCompilationUnit("pack", "Script1.groovy", "print 'test me'");
+        testProject.waitForIndexer();
+
+        GroovyProjectFacade facade = testProject.getGroovyProjectFacade();
+        assertEquals("[Script1]", getNames(facade.findAllRunnableTypes()));
+        Map<?, ?> cache = (Map<?, ?>) ReflectionUtils.getPrivateField(GroovyProjectFacade.class, "runnableTypesCache", null);
+        assertTrue(cache.containsKey(testProject.getJavaProject()));
+
+        testProject.createFile("notes.txt", "not a source");
+        assertTrue("Cache should be kept", cache.containsKey(testProject.getJavaProject()));
+
+        createGroovyCompilationUnit("pack", "Script2.groovy", "print 'test me too'");
+        assertFalse("Cache should be cleared", cache.containsKey(testProject.getJavaProject()));
+        testProject.waitForIndexer();
+        assertEquals("[Script1, Script2]", getNames(facade.findAllRunnableTypes()));
+    }
+
+    private static String getNames(List<IType> types) {
+        List<String> names = new ArrayList<String>();
+        for (IType type : types) {
+            names.add(type.getElementName());
+        }
+        Collections.sort(names);
+        return names.toString();
+    }
+
     // This test might fail on windows
     // test that the classpath generation occurs as expected
     public void testClasspathGeneration1() throws Exception {
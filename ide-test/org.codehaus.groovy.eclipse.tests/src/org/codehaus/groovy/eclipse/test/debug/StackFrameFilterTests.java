@@ -0,0 +1,53 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.groovy.eclipse.test.debug;
+
+import junit.framework.TestCase;
+
+import org.codehaus.groovy.eclipse.debug.ui.StackFrameFilter;
+
+/**
+ * Tests that stack frames are filtered by the prefixes of the filter list
+ */
+public class StackFrameFilterTests extends TestCase {
+
+    public void testPrefixes() throws Exception {
+        StackFrameFilter filter = new StackFrameFilter("org.codehaus.groovy,groovy.lang,sun.reflect,groovy.ui".split(","));
+        assertTrue(filter.isFiltered("org.codehaus.groovy.runtime.callsite.AbstractCallSite"));
+        assertTrue(filter.isFiltered("groovy.lang.MetaClassImpl"));
+        assertTrue(filter.isFiltered("sun.reflect.NativeMethodAccessorImpl"));
+        assertTrue(filter.isFiltered("groovy.ui.GroovyMain"));
+        assertFalse(filter.isFiltered("groovy.util.Node"));
+        assertFalse(filter.isFiltered("org.codehaus"));
+        assertFalse(filter.isFiltered("p.Script"));
+        // same answers the second time, from the cache
+        assertTrue(filter.isFiltered("groovy.lang.MetaClassImpl"));
+        assertFalse(filter.isFiltered("p.Script"));
+    }
+
+    public void testPrefixOfPrefix() throws Exception {
+        StackFrameFilter filter = new StackFrameFilter(new String[] { "java.lang.reflect", "java" });
+        assertTrue(filter.isFiltered("java.util.List"));
+        assertTrue(filter.isFiltered("java.lang.reflect.Method"));
+        assertTrue(filter.isFiltered("java"));
+        assertFalse(filter.isFiltered("jav"));
+    }
+
+    public void testEmptyList() throws Exception {
+        StackFrameFilter filter = new StackFrameFilter("".split(","));
+        assertFalse(filter.isFiltered("groovy.lang.MetaClassImpl"));
+    }
+}
@@ -129,6 +129,12 @@ public class OutlineExtender1 implements IOutlineExtender, IProjectNature {
       return m;
     }
     
+    public TMethod addTestMethod(String name, String returnType, String[] parameterTypes, int flags) {
+      TMethod m = new TMethod(this, name, returnType, parameterTypes, flags);
+      addChild(m);
+      return m;
+    }
+    
     public TField addTestField(String name, String typeSignature) {
       TField f = new TField(this, name, typeSignature);
       addChild(f);
@@ -143,6 +149,8 @@ public class OutlineExtender1 implements IOutlineExtender, IProjectNature {
   public static class TMethod extends OMethod {
     
     private String returnType;
+    
+    private int flags;
 
     public TMethod(OType parent, String name, String returnType) {
       super(parent, new ConstantExpression(name), name);      
@@ -150,6 +158,12 @@ public class OutlineExtender1 implements IOutlineExtender, IProjectNature {
       this.returnType = returnType;
     }
 
+    public TMethod(OType parent, String name, String returnType, String[] parameterTypes, int flags) {
+      this(parent, name, returnType);
+      this.parameterTypes = parameterTypes;
+      this.flags = flags;
+    }
+
     @Override
     public ASTNode getElementNameNode() {
       return getNode();
@@ -160,6 +174,11 @@ public class OutlineExtender1 implements IOutlineExtender, IProjectNature {
       return returnType; 
     }      
     
+    @Override
+    public int getFlags() {
+      return flags;
+    }
+    
   }
   
   /*******************************************************
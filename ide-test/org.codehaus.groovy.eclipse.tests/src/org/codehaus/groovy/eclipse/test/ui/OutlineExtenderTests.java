@@ -13,6 +13,9 @@
  */
 package org.codehaus.groovy.eclipse.test.ui;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.codehaus.groovy.eclipse.GroovyPlugin;
 import org.codehaus.groovy.eclipse.core.model.GroovyRuntime;
 import org.codehaus.groovy.eclipse.editor.GroovyEditor;
@@ -22,20 +25,28 @@ import org.codehaus.groovy.eclipse.editor.outline.OCompilationUnit;
 import org.codehaus.groovy.eclipse.editor.outline.OField;
 import org.codehaus.groovy.eclipse.editor.outline.OMethod;
 import org.codehaus.groovy.eclipse.editor.outline.OType;
+import org.codehaus.groovy.eclipse.editor.outline.OutlineDelta;
 import org.codehaus.groovy.eclipse.editor.outline.OutlineExtenderRegistry;
 import org.codehaus.groovy.eclipse.test.EclipseTestCase;
 import org.codehaus.groovy.eclipse.test.ui.OutlineExtender1.TCompilationUnit;
 import org.codehaus.groovy.eclipse.test.ui.OutlineExtender1.TGroovyOutlinePage;
+import org.codehaus.groovy.eclipse.test.ui.OutlineExtender1.TMethod;
 import org.codehaus.groovy.eclipse.test.ui.OutlineExtender1.TType;
 import org.codehaus.groovy.eclipse.test.ui.OutlineExtender2.TCompilationUnit2;
 import org.codehaus.jdt.groovy.model.GroovyCompilationUnit;
 import org.eclipse.core.resources.IFile;
+import org.eclipse.jdt.core.Flags;
 import org.eclipse.jdt.core.IField;
 import org.eclipse.jdt.core.IJavaElement;
 import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jdt.core.JavaModelException;
+import org.eclipse.jdt.groovy.core.util.ReflectionUtils;
 import org.eclipse.jdt.internal.ui.javaeditor.EditorUtility;
+import org.eclipse.jdt.internal.ui.javaeditor.JavaOutlinePage;
 import org.eclipse.jdt.internal.ui.javaeditor.JavaSourceViewer;
+import org.eclipse.jface.viewers.TreeViewer;
+import org.eclipse.swt.widgets.TreeItem;
+import org.eclipse.ui.IPageLayout;
 import org.eclipse.ui.PartInitException;
 import org.eclipse.ui.internal.Workbench;
 
@@ -249,6 +260,93 @@ public class OutlineExtenderTests extends EclipseTestCase {
         assertEquals(3, ((IField) children[3]).getNameRange().getLength());
     }
     
+    public void testGroovyScriptOutlineKeepsUnchangedElements() throws Exception {
+        String contents = "def aaa = 1\n" + "def bbb = 2\n" + "String ccc() {  }";
+        GroovyOutlinePage outline = openFile("Script", contents);
+        TreeViewer viewer = showOutlineViewer(outline);
+
+        OCompilationUnit unit = outline.getOutlineCompilationUnit();
+        IJavaElement[] children = unit.getChildren();
+        assertEquals("Wrong number of children", 3, children.length);
+        assertEquals("[aaa, bbb, ccc]", getItemNames(viewer));
+
+        // nothing changed, so nothing is computed again
+        outline.refresh();
+        assertSame(children, unit.getChildren());
+        assertTrue(unit.getLastDelta().isEmpty());
+
+        String newContents = "def zzz = 0\n" + contents.replace("def bbb", "int bbb");
+        GroovyCompilationUnit groovyUnit = unit.getUnit();
+        groovyUnit.getBuffer().setContents(newContents);
+        groovyUnit.reconcile(true, null);
+        outline.refresh();
+
+        IJavaElement[] newChildren = unit.getChildren();
+        assertEquals("Wrong number of children", 4, newChildren.length);
+        assertEquals("zzz", newChildren[0].getElementName());
+        assertEquals("aaa", newChildren[1].getElementName());
+        assertEquals("bbb", newChildren[2].getElementName());
+        assertEquals("ccc", newChildren[3].getElementName());
+
+        // same name and type, so the element is kept and has moved
+        assertSame(children[0], newChildren[1]);
+        assertEquals(newContents.indexOf("aaa"), ((IField) newChildren[1]).getNameRange().getOffset());
+        // the type changed
+        assertNotSame(children[1], newChildren[2]);
+        assertEquals("I", ((IField) newChildren[2]).getTypeSignature());
+        assertFalse(unit.getLastDelta().isEmpty());
+
+        // zzz is in front of the kept elements, so the viewer must not just append it
+        assertEquals("[zzz, aaa, bbb, ccc]", getItemNames(viewer));
+        assertSame(children[0], viewer.getTree().getItem(1).getData());
+        assertSame(newChildren[2], viewer.getTree().getItem(2).getData());
+
+        // an element added at the end is appended
+        newContents += "\ndef yyy = 3";
+        groovyUnit.getBuffer().setContents(newContents);
+        groovyUnit.reconcile(true, null);
+        outline.refresh();
+        assertEquals("[zzz, aaa, bbb, ccc, yyy]", getItemNames(viewer));
+        assertSame(newChildren[0], viewer.getTree().getItem(0).getData());
+
+        // reordered elements are moved in the viewer
+        groovyUnit.getBuffer().setContents("int bbb = 2\n" + "def aaa = 1\n" + "def zzz = 0");
+        groovyUnit.reconcile(true, null);
+        outline.refresh();
+        assertSame(newChildren[2], unit.getChildren()[0]);
+        assertEquals("[bbb, aaa, zzz]", getItemNames(viewer));
+    }
+
+    public void testOutlineDeltaComparesMethodSignatures() throws Exception {
+        testProject.addNature(OutlineExtender1.NATURE); // applies to *X*.groovy files
+        GroovyOutlinePage outline = openFile("X", "class X { }");
+        TCompilationUnit tu = (TCompilationUnit) outline.getOutlineCompilationUnit();
+
+        TType oldType = new TType(tu, "T");
+        TMethod m = oldType.addTestMethod("m", "void", new String[] { "I" }, Flags.AccPublic);
+        TMethod n = oldType.addTestMethod("n", "void", new String[0], Flags.AccStatic);
+
+        TType newType = new TType(tu, "T");
+        TMethod newM = newType.addTestMethod("m", "void", new String[] { "I" }, Flags.AccPublic);
+        TMethod newN = newType.addTestMethod("n", "void", new String[0], Flags.AccPublic);
+        TMethod newM2 = newType.addTestMethod("m", "void", new String[] { "QString;" }, Flags.AccPublic);
+
+        OutlineDelta delta = new OutlineDelta();
+        IJavaElement[] merged = delta.merge(tu, new IJavaElement[] { oldType }, new IJavaElement[] { newType });
+        assertSame(oldType, merged[0]);
+        IJavaElement[] children = oldType.getChildren();
+        assertEquals(3, children.length);
+        // same parameters and flags
+        assertSame(m, children[0]);
+        assertSame(newM.getNode(), m.getNode());
+        // the flags changed
+        assertSame(newN, children[1]);
+        assertNotSame(n, children[1]);
+        // an overload is not the same method
+        assertSame(newM2, children[2]);
+        assertFalse(delta.isEmpty());
+    }
+
     public void testStructureUnknown() throws Exception {
         String contents = 
             "class X {  }\n int o( \n}";
@@ -259,6 +357,24 @@ public class OutlineExtenderTests extends EclipseTestCase {
         assertEquals("Problem" + GroovyScriptOutlineExtender.NO_STRUCTURE_FOUND, children[0].getElementName());
     }
 
+    /**
+     * Shows the outline view, so that the page has a viewer
+     */
+    private TreeViewer showOutlineViewer(GroovyOutlinePage outline) throws PartInitException {
+        Workbench.getInstance().getActiveWorkbenchWindow().getActivePage().showView(IPageLayout.ID_OUTLINE);
+        TreeViewer viewer = (TreeViewer) ReflectionUtils.executeNoArgPrivateMethod(JavaOutlinePage.class, "getOutlineViewer", outline);
+        assertNotNull("Outline page should have a viewer", viewer);
+        return viewer;
+    }
+
+    private static String getItemNames(TreeViewer viewer) {
+        List<String> names = new ArrayList<String>();
+        for (TreeItem item : viewer.getTree().getItems()) {
+            names.add(((IJavaElement) item.getData()).getElementName());
+        }
+        return names.toString();
+    }
+
     private GroovyOutlinePage openFile(String className, String contents)
             throws Exception {
         IFile file = testProject.createGroovyTypeAndPackage("", className
@@ -0,0 +1,463 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codehaus.org, SpringSource, and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     SpringSource - Initial API and implementation
+ *******************************************************************************/
+package org.codehaus.groovy.eclipse.ant;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.tools.ant.Project;
+import org.apache.tools.ant.Task;
+import org.eclipse.jdt.core.ToolFactory;
+import org.eclipse.jdt.core.util.IClassFileReader;
+import org.eclipse.jdt.core.util.IConstantPool;
+import org.eclipse.jdt.core.util.IConstantPoolConstant;
+import org.eclipse.jdt.core.util.IConstantPoolEntry;
+import org.eclipse.jdt.core.util.ISourceAttribute;
+
+/**
+ * Remembers what the last build into a destination directory compiled, so
+ * that the next build only compiles the sources whose contents changed and
+ * the sources that depend on them.
+ * <p>
+ * For each source it records the size, time stamp and hash of the contents,
+ * the class files it produced and the types those class files refer to. A
+ * source whose size or time stamp changed only counts as changed if its hash
+ * changed too, so a fresh checkout of the same sources does not cause a full
+ * build.
+ * <p>
+ * The references are read from the constant pools of the class files. A
+ * dependent is missed if all it uses of a changed type are constants that the
+ * compiler inlined.
+ * <p>
+ * A class file belongs to a source only if it is in the folder of the
+ * source's path and its source file attribute names the source. Class files
+ * of sources that are not in the folder of their package are not recorded,
+ * so they are neither tracked nor deleted. Nothing is deleted that is not
+ * recorded here and still names its source.
+ * <p>
+ * It is only kept when the <code>buildstate</code> attribute of the
+ * {@link GroovyJDTCompileTask} is set.
+ */
+class BuildState {
+
+    private static final int VERSION = 2;
+
+    private static class SourceState {
+        long size;
+        long lastModified;
+        String hash;
+        /** Names of the produced types, ie- the class file paths relative to the destination directory without ".class" */
+        final List<String> outputs = new ArrayList<String>();
+        /** Names of the types the produced class files refer to */
+        final Set<String> references = new HashSet<String>();
+    }
+
+    /**
+     * @return where the build state of the given destination directory is kept,
+     *         or null if there is no place for it. It is kept next to the
+     *         directory, so that it does not end up in jars made from it.
+     */
+    static File stateFileFor(File destDir) {
+        if (destDir == null || destDir.getParentFile() == null) {
+            return null;
+        }
+        return new File(destDir.getParentFile(), "." + destDir.getName() + ".groovy-buildstate");
+    }
+
+    private final File stateFile;
+    private final File destDir;
+    private final Task task;
+
+    /** The state of each source, by its path relative to its source folder */
+    private final Map<String, SourceState> sources = new LinkedHashMap<String, SourceState>();
+
+    /** The sources handed to the compiler, with their new size, time stamp and hash */
+    private final Map<String, SourceState> compiling = new LinkedHashMap<String, SourceState>();
+
+    BuildState(File stateFile, File destDir, Task task) {
+        this.stateFile = stateFile;
+        this.destDir = destDir;
+        this.task = task;
+        if (stateFile.isFile()) {
+            try {
+                read();
+            } catch (IOException e) {
+                task.log("Could not read build state " + stateFile + ", doing a full build: " + e, Project.MSG_VERBOSE);
+                sources.clear();
+            }
+        }
+    }
+
+    /**
+     * Works out what to compile and deletes the class files of the sources
+     * that are going to be compiled or that no longer exist.
+     *
+     * @param currentSources all of the sources, by their path relative to
+     *        their source folder
+     * @return the sources to compile
+     */
+    File[] selectSources(Map<String, File> currentSources) {
+        Set<String> changed = new LinkedHashSet<String>();
+        for (Map.Entry<String, File> entry : currentSources.entrySet()) {
+            String key = entry.getKey();
+            File file = entry.getValue();
+            SourceState old = sources.get(key);
+            SourceState current = new SourceState();
+            current.size = file.length();
+            current.lastModified = file.lastModified();
+            if (old != null && old.size == current.size && old.lastModified == current.lastModified) {
+                current.hash = old.hash;
+            } else {
+                current.hash = hash(file);
+            }
+            if (old == null || current.hash == null || !current.hash.equals(old.hash) || !outputsExist(old)) {
+                changed.add(key);
+                compiling.put(key, current);
+            } else if (old.lastModified != current.lastModified) {
+                // same contents, so just remember the new time stamp
+                old.lastModified = current.lastModified;
+            }
+        }
+
+        Set<String> removed = new LinkedHashSet<String>(sources.keySet());
+        removed.removeAll(currentSources.keySet());
+
+        // everything that depends on a changed or removed source has to be
+        // compiled again, and so on
+        Map<String, Set<String>> dependents = computeDependents();
+        LinkedList<String> toVisit = new LinkedList<String>(changed);
+        toVisit.addAll(removed);
+        while (!toVisit.isEmpty()) {
+            Set<String> keys = dependents.get(toVisit.removeFirst());
+            if (keys != null) {
+                for (String key : keys) {
+                    if (!compiling.containsKey(key) && currentSources.containsKey(key)) {
+                        SourceState old = sources.get(key);
+                        SourceState current = new SourceState();
+                        current.size = old.size;
+                        current.lastModified = old.lastModified;
+                        current.hash = old.hash;
+                        compiling.put(key, current);
+                        toVisit.add(key);
+                    }
+                }
+            }
+        }
+
+        for (String key : removed) {
+            deleteOutputs(key, sources.remove(key));
+        }
+        for (String key : compiling.keySet()) {
+            deleteOutputs(key, sources.get(key));
+        }
+        if (!removed.isEmpty()) {
+            task.log("Deleted the class files of " + removed.size() + " removed source file"
+                    + (removed.size() == 1 ? "" : "s"), Project.MSG_VERBOSE);
+        }
+        task.log(changed.size() + " changed source file" + (changed.size() == 1 ? "" : "s") + ", "
+                + (compiling.size() - changed.size()) + " dependent" + (compiling.size() - changed.size() == 1 ? "" : "s")
+                + ", " + (currentSources.size() - compiling.size()) + " up to date", Project.MSG_VERBOSE);
+
+        File[] toCompile = new File[compiling.size()];
+        int i = 0;
+        for (String key : compiling.keySet()) {
+            toCompile[i++] = currentSources.get(key);
+        }
+        return toCompile;
+    }
+
+    /**
+     * Records what the compiler produced and writes the state out.
+     *
+     * @param success whether the compile succeeded. If not, the sources that
+     *        were compiled are forgotten, so the next build compiles them
+     *        again. If it did, they are up to date, even the ones that
+     *        produced no class files.
+     */
+    void compiled(boolean success) {
+        if (success && !compiling.isEmpty()) {
+            collectOutputs();
+        }
+        for (Map.Entry<String, SourceState> entry : compiling.entrySet()) {
+            SourceState state = entry.getValue();
+            if (success && state.hash != null) {
+                sources.put(entry.getKey(), state);
+            } else {
+                // nothing is known about the result, so compile it again next time
+                sources.remove(entry.getKey());
+            }
+        }
+        compiling.clear();
+        try {
+            write();
+        } catch (IOException e) {
+            task.log("Could not write build state " + stateFile + ": " + e, Project.MSG_WARN);
+            stateFile.delete();
+        }
+    }
+
+    private Map<String, Set<String>> computeDependents() {
+        Map<String, String> producers = new HashMap<String, String>();
+        for (Map.Entry<String, SourceState> entry : sources.entrySet()) {
+            for (String type : entry.getValue().outputs) {
+                producers.put(type, entry.getKey());
+            }
+        }
+        Map<String, Set<String>> dependents = new HashMap<String, Set<String>>();
+        for (Map.Entry<String, SourceState> entry : sources.entrySet()) {
+            for (String type : entry.getValue().references) {
+                String producer = producers.get(type);
+                if (producer != null && !producer.equals(entry.getKey())) {
+                    Set<String> keys = dependents.get(producer);
+                    if (keys == null) {
+                        keys = new HashSet<String>();
+                        dependents.put(producer, keys);
+                    }
+                    keys.add(entry.getKey());
+                }
+            }
+        }
+        return dependents;
+    }
+
+    private boolean outputsExist(SourceState state) {
+        for (String type : state.outputs) {
+            if (!classFile(type).isFile()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Deletes the recorded class files of the source, as long as they still
+     * name it. Another source may have written a class of the same name since.
+     */
+    private void deleteOutputs(String key, SourceState state) {
+        if (state != null) {
+            for (String type : state.outputs) {
+                File file = classFile(type);
+                if (file.isFile() && key.equals(sourceOf(file, type.substring(0, type.lastIndexOf('/') + 1)))) {
+                    file.delete();
+                }
+            }
+        }
+    }
+
+    private File classFile(String type) {
+        return new File(destDir, type.replace('/', File.separatorChar) + ".class");
+    }
+
+    /**
+     * Finds the class files written by the compile and attributes them to the
+     * sources they were compiled from. Only the folders of the compiled
+     * sources can have class files that belong to them.
+     */
+    private void collectOutputs() {
+        Set<String> packagePaths = new LinkedHashSet<String>();
+        for (String key : compiling.keySet()) {
+            packagePaths.add(key.substring(0, key.lastIndexOf('/') + 1));
+        }
+        for (String packagePath : packagePaths) {
+            File[] files = new File(destDir, packagePath.replace('/', File.separatorChar)).listFiles();
+            if (files == null) {
+                continue;
+            }
+            for (File file : files) {
+                String name = file.getName();
+                if (name.endsWith(".class") && file.isFile()) {
+                    IClassFileReader reader = readClassFile(file);
+                    SourceState state = reader == null ? null : compiling.get(sourceOf(reader, packagePath));
+                    if (state != null) {
+                        state.outputs.add(packagePath + name.substring(0, name.length() - ".class".length()));
+                        addReferences(reader.getConstantPool(), state.references);
+                    }
+                }
+            }
+        }
+    }
+
+    private static IClassFileReader readClassFile(File file) {
+        return ToolFactory.createDefaultClassFileReader(file.getAbsolutePath(),
+                IClassFileReader.CONSTANT_POOL | IClassFileReader.CLASSFILE_ATTRIBUTES);
+    }
+
+    /**
+     * @return the path of the source the class file was compiled from, relative
+     *         to its source folder, or null if the class file does not say
+     */
+    private static String sourceOf(File file, String packagePath) {
+        IClassFileReader reader = readClassFile(file);
+        return reader == null ? null : sourceOf(reader, packagePath);
+    }
+
+    private static String sourceOf(IClassFileReader reader, String packagePath) {
+        ISourceAttribute sourceAttribute = reader.getSourceFileAttribute();
+        if (sourceAttribute == null) {
+            return null;
+        }
+        return packagePath + new String(sourceAttribute.getSourceFileName());
+    }
+
+    private static void addReferences(IConstantPool pool, Set<String> references) {
+        for (int i = 1, n = pool.getConstantPoolCount(); i < n; i += 1) {
+            switch (pool.getEntryKind(i)) {
+                case IConstantPoolConstant.CONSTANT_Class:
+                    String className = new String(pool.decodeEntry(i).getClassInfoName());
+                    if (className.startsWith("[")) {
+                        addDescriptorReferences(className, references);
+                    } else {
+                        references.add(className);
+                    }
+                    break;
+                case IConstantPoolConstant.CONSTANT_Utf8:
+                    // field and method descriptors and generic signatures
+                    IConstantPoolEntry entry = pool.decodeEntry(i);
+                    char[] value = entry.getUtf8Value();
+                    if (value.length > 0 && (value[0] == '(' || value[0] == 'L' || value[0] == '[' || value[0] == '<')) {
+                        addDescriptorReferences(new String(value), references);
+                    }
+                    break;
+                case IConstantPoolConstant.CONSTANT_Long:
+                case IConstantPoolConstant.CONSTANT_Double:
+                    // these take up two entries
+                    i += 1;
+                    break;
+            }
+        }
+    }
+
+    private static void addDescriptorReferences(String descriptor, Set<String> references) {
+        int start = descriptor.indexOf('L');
+        while (start >= 0) {
+            int end = start + 1;
+            while (end < descriptor.length() && descriptor.charAt(end) != ';' && descriptor.charAt(end) != '<') {
+                end += 1;
+            }
+            if (end < descriptor.length()) {
+                references.add(descriptor.substring(start + 1, end));
+            }
+            start = descriptor.indexOf('L', end);
+        }
+    }
+
+    private void read() throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(stateFile)));
+        try {
+            if (in.readInt() != VERSION || !in.readUTF().equals(destDir.getAbsolutePath())) {
+                return;
+            }
+            for (int i = 0, n = in.readInt(); i < n; i += 1) {
+                String key = in.readUTF();
+                SourceState state = new SourceState();
+                state.size = in.readLong();
+                state.lastModified = in.readLong();
+                state.hash = in.readUTF();
+                for (int j = 0, m = in.readInt(); j < m; j += 1) {
+                    state.outputs.add(in.readUTF());
+                }
+                for (int j = 0, m = in.readInt(); j < m; j += 1) {
+                    state.references.add(in.readUTF());
+                }
+                sources.put(key, state);
+            }
+        } finally {
+            close(in);
+        }
+    }
+
+    private void write() throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(stateFile)));
+        try {
+            out.writeInt(VERSION);
+            out.writeUTF(destDir.getAbsolutePath());
+            out.writeInt(sources.size());
+            for (Map.Entry<String, SourceState> entry : sources.entrySet()) {
+                SourceState state = entry.getValue();
+                out.writeUTF(entry.getKey());
+                out.writeLong(state.size);
+                out.writeLong(state.lastModified);
+                out.writeUTF(state.hash);
+                out.writeInt(state.outputs.size());
+                for (String type : state.outputs) {
+                    out.writeUTF(type);
+                }
+                out.writeInt(state.references.size());
+                for (String type : state.references) {
+                    out.writeUTF(type);
+                }
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * @return the hash of the contents of the file, or null if it can't be
+     *         read
+     */
+    private String hash(File file) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            // MD5 is always available
+            throw new IllegalStateException(e);
+        }
+        InputStream in = null;
+        try {
+            in = new BufferedInputStream(new FileInputStream(file));
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        } catch (IOException e) {
+            task.log("Could not read " + file + ": " + e, Project.MSG_VERBOSE);
+            return null;
+        } finally {
+            close(in);
+        }
+        StringBuilder sb = new StringBuilder();
+        for (byte b : digest.digest()) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+
+    private static void close(InputStream in) {
+        if (in != null) {
+            try {
+                in.close();
+            } catch (IOException e) {
+                // ignore
+            }
+        }
+    }
+}
@@ -13,6 +13,8 @@ package org.codehaus.groovy.eclipse.ant;
 
 import java.io.File;
 import java.lang.reflect.Method;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import org.apache.tools.ant.BuildException;
 import org.apache.tools.ant.DirectoryScanner;
@@ -30,9 +32,24 @@ import org.eclipse.jdt.core.JDTCompilerAdapter;
  */
 public class GroovyCompilerAdapter extends JDTCompilerAdapter implements CompilerAdapter {
     
+    private BuildState buildState;
+
     @Override
     public void setJavac(Javac javac) {
+        if (isBuildStateEnabled(javac)) {
+            // the build state tells which source a class file belongs to by
+            // its source file attribute
+            requireSourceFileAttribute(javac);
+        }
         super.setJavac(javac);
+        File stateFile = isBuildStateEnabled(javac) ? BuildState.stateFileFor(destDir) : null;
+        if (stateFile != null) {
+            // decide what to compile by content rather than by time stamp
+            buildState = new BuildState(stateFile, destDir, javac);
+            compileList = buildState.selectSources(getSourceFiles(javac));
+            return;
+        }
+
         // now ensure that Groovy files are included
         File[] groovyFiles = getGroovyFiles(javac);
         if (groovyFiles.length > 0) {
@@ -52,6 +69,63 @@ public class GroovyCompilerAdapter extends JDTCompilerAdapter implements Compile
         }
     }
     
+    @Override
+    public boolean execute() throws BuildException {
+        if (buildState == null) {
+            return super.execute();
+        }
+        boolean success = false;
+        try {
+            if (compileList.length == 0) {
+                attributes.log("All source files are up to date");
+                success = true;
+            } else {
+                success = super.execute();
+            }
+            return success;
+        } finally {
+            buildState.compiled(success);
+        }
+    }
+
+    private static boolean isBuildStateEnabled(Javac javac) {
+        return javac instanceof GroovyJDTCompileTask && ((GroovyJDTCompileTask) javac).isBuildState();
+    }
+
+    private static void requireSourceFileAttribute(Javac javac) {
+        if (!javac.getDebug()) {
+            javac.setDebug(true);
+            javac.setDebugLevel("source");
+        } else if (javac.getDebugLevel() != null && javac.getDebugLevel().indexOf("source") < 0) {
+            javac.setDebugLevel(javac.getDebugLevel() + ",source");
+        }
+    }
+
+    /**
+     * @return all of the java and groovy files in the source folders, by their
+     *         path relative to their source folder
+     */
+    protected Map<String, File> getSourceFiles(Javac javac) {
+        String[] list = javac.getSrcdir().list();
+        Map<String, File> sourceFiles = new LinkedHashMap<String, File>();
+        for (int i = 0; i < list.length; i++) {
+            File srcDir = javac.getProject().resolveFile(list[i]);
+            if (!srcDir.exists()) {
+                throw new BuildException("srcdir \""
+                                         + srcDir.getPath()
+                                         + "\" does not exist!", javac.getLocation());
+            }
+
+            DirectoryScanner ds = getDirectoryScanner(srcDir, javac);
+            for (String file : ds.getIncludedFiles()) {
+                if (file.endsWith(".java") || file.endsWith(".groovy")) {
+                    sourceFiles.put(file.replace(File.separatorChar, '/'), new File(srcDir, file));
+                }
+            }
+        }
+        return sourceFiles;
+    }
+
     protected File[] getGroovyFiles(Javac javac) {
         String[] list = javac.getSrcdir().list();
         File destDir = javac.getDestdir();
@@ -11,6 +11,10 @@
 package org.codehaus.groovy.eclipse.ant;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 
 import org.apache.tools.ant.taskdefs.Javac;
 import org.apache.tools.ant.util.GlobPatternMapper;
@@ -27,11 +31,36 @@ import org.apache.tools.ant.util.SourceFileScanner;
  *
  */
 public class GroovyJDTCompileTask extends Javac {
+
+    private boolean buildState;
+
     public GroovyJDTCompileTask() {
     }
 
+    /**
+     * If set, {@link GroovyCompilerAdapter} keeps a build state next to the
+     * destination directory and compiles the sources whose contents changed
+     * and their dependents, rather than the sources that are newer than their
+     * class files. The class files always get the source file attribute then,
+     * since that is how they are told apart.
+     */
+    public void setBuildState(boolean buildState) {
+        this.buildState = buildState;
+    }
+
+    public boolean isBuildState() {
+        return buildState;
+    }
+
     
     protected void scanDir(File srcDir, File destDir, String[] files) {
+        if (buildState) {
+            // the adapter works out what to compile, but it is only called if
+            // there is something in the list. It also deletes the class files
+            // of removed sources, which time stamps know nothing about
+            addSourceFiles(srcDir, files);
+            return;
+        }
         GlobPatternMapper m = new GlobPatternMapper();
         m.setFrom("*.java"); //$NON-NLS-1$
         m.setTo("*.class"); //$NON-NLS-1$
@@ -56,4 +85,28 @@ public class GroovyJDTCompileTask extends Javac {
         }
 
     }
+
+    private void addSourceFiles(File srcDir, String[] files) {
+        List<File> sourceFiles = new ArrayList<File>(Arrays.asList(compileList));
+        for (String file : files) {
+            if (file.endsWith(".java") || file.endsWith(".groovy")) { //$NON-NLS-1$ //$NON-NLS-2$
+                sourceFiles.add(new File(srcDir, file));
+            }
+        }
+        compileList = sourceFiles.toArray(new File[sourceFiles.size()]);
+    }
+
+    @Override
+    protected void compile() {
+        File stateFile = buildState ? BuildState.stateFileFor(getDestdir()) : null;
+        if (compileList.length == 0 && stateFile != null && stateFile.isFile()) {
+            // all of the sources are gone, so the adapter is not called to
+            // delete their class files
+            BuildState state = new BuildState(stateFile, getDestdir(), this);
+            state.selectSources(Collections.<String, File> emptyMap());
+            state.compiled(true);
+            return;
+        }
+        super.compile();
+    }
 }
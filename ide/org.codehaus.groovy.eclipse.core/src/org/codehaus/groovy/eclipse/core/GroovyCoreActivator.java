@@ -15,6 +15,8 @@
  */
 package org.codehaus.groovy.eclipse.core;
 
+import org.codehaus.groovy.eclipse.core.compiler.GroovySnippetCompiler;
+import org.codehaus.groovy.eclipse.core.model.GroovyProjectFacade;
 import org.eclipse.core.runtime.Plugin;
 import org.eclipse.core.runtime.preferences.IEclipsePreferences;
 import org.eclipse.core.runtime.preferences.IScopeContext;
@@ -43,6 +45,8 @@ public class GroovyCoreActivator extends Plugin {
 
     @Override
     public void stop(BundleContext context) throws Exception {
+        GroovySnippetCompiler.disposeSharedCompilers();
+        GroovyProjectFacade.dispose();
         plugin = null;
     }
 
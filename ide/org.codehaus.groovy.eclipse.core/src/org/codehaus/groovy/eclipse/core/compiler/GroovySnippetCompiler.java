@@ -13,6 +13,7 @@ package org.codehaus.groovy.eclipse.core.compiler;
 
 import groovyjarjarasm.asm.Opcodes;
 
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 
@@ -22,13 +23,17 @@ import org.codehaus.groovy.ast.ModuleNode;
 import org.codehaus.groovy.eclipse.core.GroovyCore;
 import org.codehaus.groovy.eclipse.core.model.GroovyProjectFacade;
 import org.codehaus.jdt.groovy.internal.compiler.ast.GroovyCompilationUnitDeclaration;
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaElementDelta;
+import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jdt.core.JavaModelException;
 import org.eclipse.jdt.core.WorkingCopyOwner;
 import org.eclipse.jdt.core.dom.CompilationUnitResolver;
 import org.eclipse.jdt.groovy.core.util.ContentTypeUtils;
 import org.eclipse.jdt.internal.compiler.CompilationResult;
-import org.eclipse.jdt.internal.compiler.Compiler;
 import org.eclipse.jdt.internal.compiler.DefaultErrorHandlingPolicies;
 import org.eclipse.jdt.internal.compiler.ICompilerRequestor;
 import org.eclipse.jdt.internal.compiler.env.INameEnvironment;
@@ -47,6 +52,13 @@ import org.eclipse.jdt.internal.core.SearchableEnvironment;
  *          The client is responsible for calling {@link #cleanup()} when all
  *          {@link ClassNode}s
  *          created by this compiler are no longer needed
+ *
+ *          A compiler keeps its name environment and the bindings of the
+ *          binary types it has seen between snippets, so compiling many
+ *          snippets with the same compiler doesn't read the same class files
+ *          again for each one. Clients that compile snippets for the same
+ *          project at different times should use
+ *          {@link #getSharedCompiler(GroovyProjectFacade)}.
  */
 public class GroovySnippetCompiler {
 
@@ -60,17 +72,125 @@ public class GroovySnippetCompiler {
         }
     }
 
+    /**
+     * Throws away shared compilers when the classpath of their project changes
+     * or the project goes away
+     */
+    private static class ClasspathListener implements IElementChangedListener {
+        public void elementChanged(ElementChangedEvent event) {
+            for (IJavaElementDelta delta : event.getDelta().getAffectedChildren()) {
+                if (delta.getElement().getElementType() == IJavaElement.JAVA_PROJECT
+                        && (delta.getKind() == IJavaElementDelta.REMOVED || (delta.getFlags()
+                                & (IJavaElementDelta.F_CLASSPATH_CHANGED | IJavaElementDelta.F_RESOLVED_CLASSPATH_CHANGED | IJavaElementDelta.F_CLOSED)) != 0)) {
+                    removeSharedCompiler((IJavaProject) delta.getElement());
+                }
+            }
+        }
+    }
+
+    private static final Map<IJavaProject, GroovySnippetCompiler> sharedCompilers = new HashMap<IJavaProject, GroovySnippetCompiler>();
+
+    private static IElementChangedListener classpathListener;
+
+    /**
+     * Returns a compiler for the project that is shared by all callers.  Its name
+     * environment and bindings are kept until the classpath of the project changes,
+     * so compiling many snippets doesn't reopen the classpath for each one.
+     * Snippets are compiled one at a time, so the compiler can be used from
+     * several threads.  Calling {@link #cleanup()} on a shared compiler does nothing.
+     * A caller that holds on to a shared compiler after the classpath changed
+     * can still use it, the compiler opens the new classpath on the next snippet.
+     */
+    public static GroovySnippetCompiler getSharedCompiler(GroovyProjectFacade project) {
+        IJavaProject javaProject = project.getProject();
+        synchronized (sharedCompilers) {
+            if (classpathListener == null) {
+                classpathListener = new ClasspathListener();
+                JavaCore.addElementChangedListener(classpathListener, ElementChangedEvent.POST_CHANGE);
+            }
+            GroovySnippetCompiler compiler = sharedCompilers.get(javaProject);
+            if (compiler == null) {
+                compiler = new GroovySnippetCompiler(project);
+                compiler.shared = true;
+                sharedCompilers.put(javaProject, compiler);
+            }
+            return compiler;
+        }
+    }
+
+    private static void removeSharedCompiler(IJavaProject javaProject) {
+        GroovySnippetCompiler compiler;
+        synchronized (sharedCompilers) {
+            compiler = sharedCompilers.remove(javaProject);
+        }
+        if (compiler != null) {
+            // not disposed right away, since a snippet may be compiling on another thread
+            compiler.stale = true;
+        }
+    }
+
+    /**
+     * Cleans up all shared compilers
+     */
+    public static void disposeSharedCompilers() {
+        synchronized (sharedCompilers) {
+            for (GroovySnippetCompiler compiler : sharedCompilers.values()) {
+                compiler.dispose();
+            }
+            sharedCompilers.clear();
+            if (classpathListener != null) {
+                JavaCore.removeElementChangedListener(classpathListener);
+                classpathListener = null;
+            }
+        }
+    }
+
+    /**
+     * After this many snippets the bindings are thrown away, since the
+     * parameterizations of the forgotten source types are never released
+     * by the lookup environment
+     */
+    private static final int MAX_SNIPPETS_PER_ENVIRONMENT = 50;
+
+    private final GroovyProjectFacade project;
+
     private INameEnvironment nameEnvironment;
 
+    /** compiles the snippets, its lookup environment keeps the binary bindings between snippets */
+    private CompilationUnitResolver resolver;
+
+    /** options that the resolver was made with */
+    private Map<?, ?> resolverOptions;
+
+    private int numSnippets;
+
+    private boolean shared;
+
+    /** set when the classpath of the project changed, the next snippet opens the new classpath */
+    private volatile boolean stale;
+
     public GroovySnippetCompiler(GroovyProjectFacade project) {
+        this.project = project;
+        nameEnvironment = createNameEnvironment();
+    }
+
+    private INameEnvironment createNameEnvironment() {
         try {
-            nameEnvironment = new SearchableEnvironment((JavaProject) project.getProject(), (WorkingCopyOwner) null);
+            return new SearchableEnvironment((JavaProject) project.getProject(), (WorkingCopyOwner) null);
         } catch (JavaModelException e) {
             GroovyCore
                     .logException("Problem initializing snippet compiler for project " + project.getProject().getElementName(), e);
+            return null;
         }
     }
 
+    @SuppressWarnings("unchecked")
+    private static Map<?, ?> currentOptions() {
+        Map options = JavaCore.getOptions();
+        options.put(CompilerOptions.OPTIONG_BuildGroovyFiles, CompilerOptions.ENABLED);
+        return options;
+    }
+
     /**
      * Compiles source code into a ModuleNode.  Source code
      * must be a complete file including package declaration
@@ -101,8 +221,7 @@ public class GroovySnippetCompiler {
         return unit.compilationResult();
     }
 
-    @SuppressWarnings({ "unchecked" })
-    private GroovyCompilationUnitDeclaration internalCompile(String source,
+    private synchronized GroovyCompilationUnitDeclaration internalCompile(String source,
             String sourcePath) {
         if (sourcePath == null) {
             sourcePath = "Nothing.groovy";
@@ -110,19 +229,56 @@ public class GroovySnippetCompiler {
             sourcePath = sourcePath.concat(".groovy");
         }
 
-        Map options = JavaCore.getOptions();
-        options.put(CompilerOptions.OPTIONG_BuildGroovyFiles, CompilerOptions.ENABLED);
-        Compiler compiler = new CompilationUnitResolver(nameEnvironment, DefaultErrorHandlingPolicies.proceedWithAllProblems(),
-                new CompilerOptions(options), new Requestor(), new DefaultProblemFactory(), null, true);
-        GroovyCompilationUnitDeclaration decl =
-            (GroovyCompilationUnitDeclaration)
-            compiler.resolve(new MockCompilationUnit(source.toCharArray(), sourcePath.toCharArray()), true, false, false);
-        return decl;
+        Map<?, ?> options = currentOptions();
+        if (stale || nameEnvironment == null) {
+            // dropped after a classpath change, or cleaned up
+            stale = false;
+            if (nameEnvironment != null) {
+                nameEnvironment.cleanup();
+            }
+            nameEnvironment = createNameEnvironment();
+            resolver = null;
+        }
+        if (resolver == null || !options.equals(resolverOptions) || numSnippets >= MAX_SNIPPETS_PER_ENVIRONMENT) {
+            resolver = new CompilationUnitResolver(nameEnvironment, DefaultErrorHandlingPolicies.proceedWithAllProblems(),
+                    new CompilerOptions(options), new Requestor(), new DefaultProblemFactory(), null, true);
+            resolverOptions = options;
+            numSnippets = 0;
+        } else {
+            // the types of the previous snippets and of the workspace sources may have changed
+            resolver.lookupEnvironment.resetSourceTypes();
+        }
+        numSnippets += 1;
+
+        boolean completed = false;
+        try {
+            GroovyCompilationUnitDeclaration decl =
+                (GroovyCompilationUnitDeclaration)
+                resolver.resolve(new MockCompilationUnit(source.toCharArray(), sourcePath.toCharArray()), true, false, false);
+            completed = true;
+            return decl;
+        } finally {
+            if (!completed) {
+                // the lookup environment may be half way through a unit
+                resolver = null;
+            }
+        }
     }
 
 
     public void cleanup() {
-        nameEnvironment.cleanup();
+        if (!shared) {
+            dispose();
+        }
+    }
+
+    private synchronized void dispose() {
+        if (nameEnvironment != null) {
+            nameEnvironment.cleanup();
+            nameEnvironment = null;
+        }
+        resolver = null;
+        resolverOptions = null;
     }
 
     /**
@@ -17,8 +17,13 @@ package org.codehaus.groovy.eclipse.core.model;
 
 import static org.codehaus.groovy.eclipse.core.util.ListUtil.newList;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.codehaus.groovy.ast.ASTNode;
 import org.codehaus.groovy.ast.ClassNode;
@@ -32,8 +37,16 @@ import org.codehaus.jdt.groovy.model.GroovyCompilationUnit;
 import org.codehaus.jdt.groovy.model.GroovyNature;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IResourceDeltaVisitor;
+import org.eclipse.core.resources.IWorkspaceRoot;
+import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.Path;
 import org.eclipse.jdt.core.Flags;
 import org.eclipse.jdt.core.ICompilationUnit;
 import org.eclipse.jdt.core.IJavaElement;
@@ -45,8 +58,18 @@ import org.eclipse.jdt.core.IType;
 import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jdt.core.JavaModelException;
 import org.eclipse.jdt.core.Signature;
+import org.eclipse.jdt.core.search.IJavaSearchConstants;
+import org.eclipse.jdt.core.search.IJavaSearchScope;
+import org.eclipse.jdt.core.search.SearchEngine;
+import org.eclipse.jdt.core.search.SearchParticipant;
+import org.eclipse.jdt.core.search.SearchPattern;
+import org.eclipse.jdt.groovy.core.util.ContentTypeUtils;
 import org.eclipse.jdt.groovy.core.util.ReflectionUtils;
+import org.eclipse.jdt.internal.compiler.env.AccessRuleSet;
+import org.eclipse.jdt.internal.core.JavaModelManager;
 import org.eclipse.jdt.internal.core.SourceType;
+import org.eclipse.jdt.internal.core.search.IndexQueryRequestor;
+import org.eclipse.jdt.internal.core.search.PatternSearchJob;
 /**
  * @author Andrew Eisenberg
  * @created May 29, 2009
@@ -65,6 +88,19 @@ public class GroovyProjectFacade {
      }
 
 
+    /**
+     * The runnable types and the scripts found for each project, kept until
+     * the next change to a Java or Groovy file in the workspace
+     */
+    private static final Map<IJavaProject, List<IType>> runnableTypesCache = new HashMap<IJavaProject, List<IType>>();
+
+    private static final Map<IJavaProject, List<IType>> scriptsCache = new HashMap<IJavaProject, List<IType>>();
+
+    /** Counts the times the caches were cleared */
+    private static int generation;
+
+    private static IResourceChangeListener listener;
+
     private IJavaProject project;
 
      public GroovyProjectFacade(IJavaProject project) {
@@ -236,22 +272,24 @@ public class GroovyProjectFacade {
     }
 
 
+    /**
+     * @return the types in the source folders of the project (and of the
+     *         projects it requires) that have a runnable main method
+     */
     public List<IType> findAllRunnableTypes() throws JavaModelException {
-        final List<IType> results = newList();
-        IPackageFragmentRoot[] roots = project.getAllPackageFragmentRoots();
-        for (IPackageFragmentRoot root : roots) {
-            if (!root.isReadOnly()) {
-                IJavaElement[] children = root.getChildren();
-                for (IJavaElement child : children) {
-                    if (child.getElementType() == IJavaElement.PACKAGE_FRAGMENT) {
-                        ICompilationUnit[] units = ((IPackageFragment) child).getCompilationUnits();
-                        for (ICompilationUnit unit : units) {
-                            results.addAll(findAllRunnableTypes(unit));
-                        }
-                    }
-                }
+        int startGeneration;
+        synchronized (GroovyProjectFacade.class) {
+            List<IType> cached = runnableTypesCache.get(project);
+            if (cached != null) {
+                return new ArrayList<IType>(cached);
             }
+            startGeneration = generation;
+        }
+        final List<IType> results = newList();
+        for (ICompilationUnit unit : findCandidateUnits()) {
+            results.addAll(findAllRunnableTypes(unit));
         }
+        cache(runnableTypesCache, results, startGeneration);
         return results;
     }
 
@@ -319,29 +357,180 @@ public class GroovyProjectFacade {
         return false;
     }
 
+    /**
+     * @return the scripts in the source folders of the project (and of the
+     *         projects it requires)
+     */
     public List<IType> findAllScripts() throws JavaModelException {
+        int startGeneration;
+        synchronized (GroovyProjectFacade.class) {
+            List<IType> cached = scriptsCache.get(project);
+            if (cached != null) {
+                return new ArrayList<IType>(cached);
+            }
+            startGeneration = generation;
+        }
         final List<IType> results = newList();
+        for (ICompilationUnit unit : findCandidateUnits()) {
+            if (unit instanceof GroovyCompilationUnit) {
+                for (IType type : unit.getTypes()) {
+                    if (isGroovyScript(type)) {
+                        results.add(type);
+                    }
+                }
+            }
+        }
+        cache(scriptsCache, results, startGeneration);
+        return results;
+    }
+
+    /**
+     * The units that may hold a runnable type or a script are the ones that
+     * declare a method named main, since every script class gets one. They are
+     * looked up in the search index, so that only they are opened. If the
+     * index can't be queried, all units in the source folders are answered.
+     */
+    private List<ICompilationUnit> findCandidateUnits() throws JavaModelException {
+        List<ICompilationUnit> units = findUnitsDeclaringMain();
+        if (units != null) {
+            return units;
+        }
+        units = newList();
         IPackageFragmentRoot[] roots = project.getAllPackageFragmentRoots();
         for (IPackageFragmentRoot root : roots) {
             if (!root.isReadOnly()) {
                 IJavaElement[] children = root.getChildren();
                 for (IJavaElement child : children) {
                     if (child.getElementType() == IJavaElement.PACKAGE_FRAGMENT) {
-                        ICompilationUnit[] units = ((IPackageFragment) child).getCompilationUnits();
-                        for (ICompilationUnit unit : units) {
-                            if (unit instanceof GroovyCompilationUnit) {
-                                for (IType type : unit.getTypes()) {
-                                    if (isGroovyScript(type)) {
-                                        results.add(type);
-                                    }
-                                }
-                            }
+                        for (ICompilationUnit unit : ((IPackageFragment) child).getCompilationUnits()) {
+                            units.add(unit);
                         }
                     }
                 }
             }
         }
-        return results;
+        return units;
+    }
+
+    /**
+     * @return the units whose index entries declare a method named main, or
+     *         null if the index could not be queried
+     */
+    private List<ICompilationUnit> findUnitsDeclaringMain() {
+        SearchPattern pattern = SearchPattern.createPattern("main", IJavaSearchConstants.METHOD,
+                IJavaSearchConstants.DECLARATIONS, SearchPattern.R_EXACT_MATCH | SearchPattern.R_CASE_SENSITIVE);
+        IJavaSearchScope scope = SearchEngine.createJavaSearchScope(new IJavaElement[] { project },
+                IJavaSearchScope.SOURCES | IJavaSearchScope.REFERENCED_PROJECTS);
+        final Set<String> paths = new LinkedHashSet<String>();
+        IndexQueryRequestor requestor = new IndexQueryRequestor() {
+            @Override
+            public boolean acceptIndexMatch(String documentPath, SearchPattern indexRecord,
+                    SearchParticipant participant, AccessRuleSet access) {
+                paths.add(documentPath);
+                return true;
+            }
+        };
+        try {
+            boolean done = JavaModelManager.getIndexManager().performConcurrentJob(
+                    new PatternSearchJob(pattern, SearchEngine.getDefaultSearchParticipant(), scope, requestor),
+                    IJavaSearchConstants.CANCEL_IF_NOT_READY_TO_SEARCH, null);
+            if (!done) {
+                // the index is still being built, don't wait for it
+                return null;
+            }
+        } catch (RuntimeException e) {
+            GroovyCore.logException("Error querying the index for main methods in " + project.getElementName(), e);
+            return null;
+        }
+
+        IWorkspaceRoot root = ResourcesPlugin.getWorkspace().getRoot();
+        List<ICompilationUnit> units = newList();
+        for (String path : paths) {
+            IJavaElement element = JavaCore.create(root.getFile(new Path(path)));
+            if (element instanceof ICompilationUnit && element.exists()) {
+                units.add((ICompilationUnit) element);
+            }
+        }
+        return units;
+    }
+
+    /**
+     * Keeps the types for the project, unless a change came in while they
+     * were looked for
+     */
+    private void cache(Map<IJavaProject, List<IType>> cache, List<IType> types, int startGeneration) {
+        synchronized (GroovyProjectFacade.class) {
+            if (listener == null) {
+                listener = new IResourceChangeListener() {
+                    public void resourceChanged(IResourceChangeEvent event) {
+                        if (event.getDelta() != null && affectsSources(event.getDelta())) {
+                            clearCaches();
+                        }
+                    }
+                };
+                ResourcesPlugin.getWorkspace().addResourceChangeListener(listener, IResourceChangeEvent.POST_CHANGE);
+            }
+            if (startGeneration == generation) {
+                cache.put(project, new ArrayList<IType>(types));
+            }
+        }
+    }
+
+    /**
+     * Forgets the runnable types and scripts found so far and stops listening
+     * for changes
+     */
+    public static synchronized void dispose() {
+        if (listener != null) {
+            ResourcesPlugin.getWorkspace().removeResourceChangeListener(listener);
+            listener = null;
+        }
+        clearCaches();
+    }
+
+    private static synchronized void clearCaches() {
+        runnableTypesCache.clear();
+        scriptsCache.clear();
+        generation += 1;
+    }
+
+    /**
+     * @return true if the delta adds, removes or changes the contents of a Java
+     *         or Groovy file, or changes which files belong to a project (eg- a
+     *         project is opened or its classpath is changed). Other changes,
+     *         like the markers of a build, can't add or remove a runnable type
+     *         or a script.
+     */
+    static boolean affectsSources(IResourceDelta delta) {
+        final boolean[] affects = new boolean[1];
+        try {
+            delta.accept(new IResourceDeltaVisitor() {
+                public boolean visit(IResourceDelta child) {
+                    if (affects[0]) {
+                        return false;
+                    }
+                    IResource resource = child.getResource();
+                    switch (resource.getType()) {
+                        case IResource.PROJECT:
+                            affects[0] = child.getKind() != IResourceDelta.CHANGED
+                                    || (child.getFlags() & (IResourceDelta.OPEN | IResourceDelta.DESCRIPTION)) != 0;
+                            break;
+                        case IResource.FILE:
+                            String name = resource.getName();
+                            if (JavaCore.isJavaLikeFileName(name) || ContentTypeUtils.isGroovyLikeFileName(name)
+                                    || name.equals(".classpath")) {
+                                affects[0] = child.getKind() != IResourceDelta.CHANGED
+                                        || (child.getFlags() & ~IResourceDelta.MARKERS) != 0;
+                            }
+                            break;
+                    }
+                    return !affects[0];
+                }
+            });
+        } catch (CoreException e) {
+            return true;
+        }
+        return affects[0];
     }
 
     public boolean isGroovyScript(ICompilationUnit unit) {
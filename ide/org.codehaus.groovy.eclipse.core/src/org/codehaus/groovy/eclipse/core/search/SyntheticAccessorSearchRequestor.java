@@ -16,7 +16,11 @@
 package org.codehaus.groovy.eclipse.core.search;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 
 import org.codehaus.jdt.groovy.model.GroovyNature;
 import org.eclipse.core.resources.IResource;
@@ -28,6 +32,7 @@ import org.eclipse.jdt.core.Flags;
 import org.eclipse.jdt.core.IAnnotatable;
 import org.eclipse.jdt.core.IAnnotation;
 import org.eclipse.jdt.core.IClassFile;
+import org.eclipse.jdt.core.IClasspathEntry;
 import org.eclipse.jdt.core.ICompilationUnit;
 import org.eclipse.jdt.core.IField;
 import org.eclipse.jdt.core.IJavaElement;
@@ -38,6 +43,7 @@ import org.eclipse.jdt.core.IMember;
 import org.eclipse.jdt.core.IMemberValuePair;
 import org.eclipse.jdt.core.IMethod;
 import org.eclipse.jdt.core.IOpenable;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
 import org.eclipse.jdt.core.ISourceRange;
 import org.eclipse.jdt.core.ISourceReference;
 import org.eclipse.jdt.core.IType;
@@ -343,12 +349,65 @@ public class SyntheticAccessorSearchRequestor {
 
     public void findSyntheticMatches(IJavaElement element, ISearchRequestor uiRequestor, IProgressMonitor monitor)
             throws CoreException {
-        // findSyntheticMatches(element, IJavaSearchConstants.REFERENCES, new
-        // SearchParticipant[] { new JavaSearchParticipant() },
-        // SearchEngine.createJavaSearchScope(new IJavaElement[] { element }),
-        // uiRequestor, monitor);
+        if (!isInteresting(element)) {
+            return;
+        }
         findSyntheticMatches(element, IJavaSearchConstants.REFERENCES, new SearchParticipant[] { new JavaSearchParticipant() },
-                SearchEngine.createWorkspaceScope(), uiRequestor, monitor);
+                createReferencingScope(element), uiRequestor, monitor);
+    }
+
+    /**
+     * The synthetic members of a source element can only be referenced from
+     * the project that declares them and from the projects that have it on
+     * their classpath, so there is no need to look through the rest of the
+     * workspace. Binary elements may come from a jar that any project has on
+     * its classpath, so they are searched for in the whole workspace.
+     */
+    public IJavaSearchScope createReferencingScope(IJavaElement element) throws JavaModelException {
+        IPackageFragmentRoot root = (IPackageFragmentRoot) element.getAncestor(IJavaElement.PACKAGE_FRAGMENT_ROOT);
+        if (root == null || root.getKind() != IPackageFragmentRoot.K_SOURCE) {
+            return SearchEngine.createWorkspaceScope();
+        }
+        IJavaProject declaringProject = element.getJavaProject();
+        List<IJavaElement> projects = new ArrayList<IJavaElement>();
+        projects.add(declaringProject);
+        Set<IPath> referencing = new HashSet<IPath>();
+        referencing.add(declaringProject.getPath());
+        List<IJavaProject> candidates = new ArrayList<IJavaProject>(Arrays.asList(declaringProject.getJavaModel()
+                .getJavaProjects()));
+        candidates.remove(declaringProject);
+
+        // projects that reference a referencing project may see the members
+        // through an exported entry, so keep going until nothing is added
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (Iterator<IJavaProject> iter = candidates.iterator(); iter.hasNext();) {
+                IJavaProject candidate = iter.next();
+                if (referencesAny(candidate, referencing)) {
+                    projects.add(candidate);
+                    referencing.add(candidate.getPath());
+                    iter.remove();
+                    changed = true;
+                }
+            }
+        }
+
+        return SearchEngine.createJavaSearchScope(projects.toArray(new IJavaElement[projects.size()]),
+                IJavaSearchScope.SOURCES | IJavaSearchScope.APPLICATION_LIBRARIES);
+    }
+
+    private boolean referencesAny(IJavaProject project, Set<IPath> projectPaths) {
+        try {
+            for (IClasspathEntry entry : project.getResolvedClasspath(true)) {
+                if (entry.getEntryKind() == IClasspathEntry.CPE_PROJECT && projectPaths.contains(entry.getPath())) {
+                    return true;
+                }
+            }
+        } catch (JavaModelException e) {
+            // not a java project any more, so it can't reference anything
+        }
+        return false;
     }
 
     public void findSyntheticMatches(IJavaElement element, int limitTo, SearchParticipant[] participants,
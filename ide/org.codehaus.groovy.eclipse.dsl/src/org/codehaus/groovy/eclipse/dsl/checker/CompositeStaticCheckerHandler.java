@@ -0,0 +1,71 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.groovy.eclipse.dsl.checker;
+
+import org.codehaus.groovy.ast.ASTNode;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.jface.text.Position;
+import org.eclipse.swt.widgets.Shell;
+
+/**
+ * Passes the results of static checking on to several handlers
+ */
+public class CompositeStaticCheckerHandler implements IStaticCheckerHandler {
+
+    private final IStaticCheckerHandler[] handlers;
+
+    public CompositeStaticCheckerHandler(IStaticCheckerHandler... handlers) {
+        this.handlers = handlers;
+    }
+
+    public void handleUnknownReference(ASTNode node, Position position, int line) {
+        for (IStaticCheckerHandler handler : handlers) {
+            handler.handleUnknownReference(node, position, line);
+        }
+    }
+
+    public void handleTypeAssertionFailed(ASTNode node, String expectedType, String actualType, Position position, int line) {
+        for (IStaticCheckerHandler handler : handlers) {
+            handler.handleTypeAssertionFailed(node, expectedType, actualType, position, line);
+        }
+    }
+
+    public void setResource(IFile resource) {
+        for (IStaticCheckerHandler handler : handlers) {
+            handler.setResource(resource);
+        }
+    }
+
+    public int numProblemsFound() {
+        return handlers.length > 0 ? handlers[0].numProblemsFound() : 0;
+    }
+
+    public void handleResourceStart(IResource resource) throws CoreException {
+        for (IStaticCheckerHandler handler : handlers) {
+            handler.handleResourceStart(resource);
+        }
+    }
+
+    public boolean finish(Shell shell) {
+        boolean success = true;
+        for (IStaticCheckerHandler handler : handlers) {
+            success &= handler.finish(shell);
+        }
+        return success;
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.groovy.eclipse.dsl.checker;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.codehaus.groovy.ast.ASTNode;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.jface.text.Position;
+import org.eclipse.swt.widgets.Shell;
+
+/**
+ * Remembers the problems found in a single file so that they can be
+ * passed on to another handler later, possibly from another thread
+ * or from a later run of the checker.
+ */
+public class RecordingStaticCheckerHandler implements IStaticCheckerHandler {
+
+    /**
+     * A problem found by the checker
+     */
+    public static class Problem {
+        public final boolean isUnknown;
+        public final String text;
+        public final String expectedType;
+        public final String actualType;
+        public final int offset;
+        public final int length;
+        public final int line;
+
+        public Problem(boolean isUnknown, String text, String expectedType, String actualType, int offset, int length, int line) {
+            this.isUnknown = isUnknown;
+            this.text = text;
+            this.expectedType = expectedType;
+            this.actualType = actualType;
+            this.offset = offset;
+            this.length = length;
+            this.line = line;
+        }
+    }
+
+    /**
+     * Stands in for the original node when a problem is replayed
+     */
+    private static class ReportedNode extends ASTNode {
+        private final String text;
+
+        ReportedNode(Problem problem) {
+            this.text = problem.text;
+            setStart(problem.offset);
+            setEnd(problem.offset + problem.length);
+            setLineNumber(problem.line);
+        }
+
+        @Override
+        public String getText() {
+            return text;
+        }
+    }
+
+    private final List<Problem> problems;
+
+    public RecordingStaticCheckerHandler() {
+        this.problems = new ArrayList<Problem>();
+    }
+
+    public RecordingStaticCheckerHandler(List<Problem> problems) {
+        this.problems = problems;
+    }
+
+    public void handleUnknownReference(ASTNode node, Position position, int line) {
+        problems.add(new Problem(true, node.getText(), null, null, position.offset, position.length, line));
+    }
+
+    public void handleTypeAssertionFailed(ASTNode node, String expectedType, String actualType, Position position, int line) {
+        problems.add(new Problem(false, node.getText(), expectedType, actualType, position.offset, position.length, line));
+    }
+
+    public void setResource(IFile resource) {
+        // only one resource per recorder
+    }
+
+    public int numProblemsFound() {
+        return problems.size();
+    }
+
+    public void handleResourceStart(IResource resource) {
+        // do nothing
+    }
+
+    public boolean finish(Shell shell) {
+        return problems.isEmpty();
+    }
+
+    public List<Problem> getProblems() {
+        return problems;
+    }
+
+    /**
+     * Passes all recorded problems on to the given handler
+     */
+    public void replay(IStaticCheckerHandler target) {
+        for (Problem problem : problems) {
+            Position position = new Position(problem.offset, problem.length);
+            if (problem.isUnknown) {
+                target.handleUnknownReference(new ReportedNode(problem), position, problem.line);
+            } else {
+                target.handleTypeAssertionFailed(new ReportedNode(problem), problem.expectedType, problem.actualType, position, problem.line);
+            }
+        }
+    }
+}
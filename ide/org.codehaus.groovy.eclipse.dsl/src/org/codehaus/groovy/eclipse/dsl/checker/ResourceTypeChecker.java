@@ -15,13 +15,27 @@
  */
 package org.codehaus.groovy.eclipse.dsl.checker;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.StringTokenizer;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.codehaus.groovy.ast.Comment;
+import org.codehaus.groovy.eclipse.dsl.GroovyDSLCoreActivator;
 import org.codehaus.jdt.groovy.model.GroovyCompilationUnit;
 import org.codehaus.jdt.groovy.model.GroovyNature;
 import org.eclipse.core.resources.IFile;
@@ -31,8 +45,14 @@ import org.eclipse.core.resources.IResourceVisitor;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.eclipse.jdt.core.IType;
 import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jdt.groovy.core.util.ContentTypeUtils;
 import org.eclipse.jdt.groovy.search.TypeInferencingVisitorFactory;
@@ -48,17 +68,32 @@ public class ResourceTypeChecker {
     
     class CheckerVisitor implements IResourceVisitor {
         private IProgressMonitor monitor;
+        /**
+         * if not null, the visited resources and the units to check are
+         * collected here in visiting order, instead of being passed on to
+         * the handler and checked right away
+         */
+        private List<Object> steps;
 
         CheckerVisitor(IProgressMonitor monitor) {
             this.monitor = monitor;
         }
 
+        CheckerVisitor(IProgressMonitor monitor, List<Object> steps) {
+            this.monitor = monitor;
+            this.steps = steps;
+        }
+
         public boolean visit(IResource resource) throws CoreException {
             if (resource.isDerived()) {
                 return false;
             }
             
-            handler.handleResourceStart(resource);
+            if (steps != null) {
+                steps.add(resource);
+            } else {
+                handler.handleResourceStart(resource);
+            }
             
             if (resource.getType() == IResource.FILE && ContentTypeUtils.isGroovyLikeFileName(resource.getName())) {
                 if (Util.isExcluded(resource, includes, excludes)) {
@@ -70,65 +105,128 @@ public class ResourceTypeChecker {
                     if (monitor.isCanceled()) {
                         throw new OperationCanceledException();
                     }
+                    if (steps != null) {
+                        // checked later
+                        steps.add(unit);
+                        return true;
+                    }
                     monitor.subTask(resource.getName());
                     handler.setResource((IFile) resource);
-                    Map<Integer, String> commentsMap = findComments(unit);
-                    StaticTypeCheckerRequestor requestor = new StaticTypeCheckerRequestor(handler, commentsMap, onlyAssertions);
-                    TypeInferencingVisitorWithRequestor visitor = new TypeInferencingVisitorFactory().createVisitor(unit);
-                    try {
-                        unit.becomeWorkingCopy(monitor);
-                        visitor.visitCompilationUnit(requestor);
-                    } finally {
-                        unit.discardWorkingCopy();
-                    }
+                    checkUnit(unit, handler, null, monitor);
                 }
             }
             return true;
         }
+    }
 
-        private Map<Integer, String> findComments(GroovyCompilationUnit unit) {
-            List<Comment> comments = unit.getModuleNode().getContext().getComments();
-            Map<Integer, String> allComments = new HashMap<Integer, String>(comments.size());
-            for (Comment comment : comments) {
-                StringTokenizer stok = new StringTokenizer(comment.toString());
-                String type = null;
-                if (stok.hasMoreTokens()) {
-                    // consume the comment start
-                    String val = stok.nextToken();
-                    int typeIndex = val.indexOf("TYPE:");
-                    if (typeIndex > 0) {
-                        type = val.substring(typeIndex + "TYPE:".length());
-                        if (type.length() == 0) {
-                            type = null;
-                        }
-                    }
+    /**
+     * Checks a single file on a worker thread, or reuses the result of a previous run
+     */
+    class CheckerTask implements Callable<StaticCheckerResultCache.Entry> {
+        private final GroovyCompilationUnit unit;
+        private final IProgressMonitor monitor;
+        boolean fromCache;
+
+        CheckerTask(GroovyCompilationUnit unit, IProgressMonitor monitor) {
+            this.unit = unit;
+            this.monitor = monitor;
+        }
+
+        public StaticCheckerResultCache.Entry call() throws Exception {
+            if (monitor.isCanceled()) {
+                throw new OperationCanceledException();
+            }
+            IFile file = (IFile) unit.getResource();
+            String path = file.getFullPath().toPortableString();
+            String contentHash = StaticCheckerResultCache.hash(file.getContents(true));
+            if (cache != null) {
+                StaticCheckerResultCache.Entry entry = cache.get(path, contentHash);
+                if (entry != null && dependenciesUnchanged(unit.getJavaProject(), entry.dependencyHashes)) {
+                    fromCache = true;
+                    return entry;
                 }
-                String candidate;
-                if (stok.hasMoreTokens() && (candidate = stok.nextToken()).startsWith("TYPE:")) {
-                    // may or may not have a space after the colon
-                    if (candidate.equals("TYPE:")) {
-                        if (stok.hasMoreTokens()) {
-                            type = stok.nextToken();
-                        }
-                    } else {
-                        String[] split = candidate.split("\\:");
-                        type = split[1];
+            }
+
+            RecordingStaticCheckerHandler recorder = new RecordingStaticCheckerHandler();
+            Set<String> referencedTypes = new HashSet<String>();
+            checkUnit(unit, recorder, referencedTypes, null);
+
+            Map<String, String> dependencyHashes = new HashMap<String, String>(referencedTypes.size());
+            for (String typeName : referencedTypes) {
+                dependencyHashes.put(typeName, hashType(unit.getJavaProject(), typeName));
+            }
+            StaticCheckerResultCache.Entry entry = new StaticCheckerResultCache.Entry(contentHash, dependencyHashes, recorder.getProblems());
+            if (cache != null) {
+                cache.put(path, entry);
+            }
+            return entry;
+        }
+    }
+
+    private void checkUnit(GroovyCompilationUnit unit, IStaticCheckerHandler target, Set<String> referencedTypes, IProgressMonitor monitor) throws CoreException {
+        Map<Integer, String> commentsMap = findComments(unit);
+        StaticTypeCheckerRequestor requestor = new StaticTypeCheckerRequestor(target, commentsMap, onlyAssertions, referencedTypes);
+        TypeInferencingVisitorWithRequestor visitor = new TypeInferencingVisitorFactory().createVisitor(unit);
+        try {
+            unit.becomeWorkingCopy(monitor);
+            visitor.visitCompilationUnit(requestor);
+        } finally {
+            unit.discardWorkingCopy();
+        }
+    }
+
+    private Map<Integer, String> findComments(GroovyCompilationUnit unit) {
+        List<Comment> comments = unit.getModuleNode().getContext().getComments();
+        Map<Integer, String> allComments = new HashMap<Integer, String>(comments.size());
+        for (Comment comment : comments) {
+            StringTokenizer stok = new StringTokenizer(comment.toString());
+            String type = null;
+            if (stok.hasMoreTokens()) {
+                // consume the comment start
+                String val = stok.nextToken();
+                int typeIndex = val.indexOf("TYPE:");
+                if (typeIndex > 0) {
+                    type = val.substring(typeIndex + "TYPE:".length());
+                    if (type.length() == 0) {
+                        type = null;
                     }
                 }
-                if (type != null) {
-                    allComments.put(comment.sline, type);
+            }
+            String candidate;
+            if (stok.hasMoreTokens() && (candidate = stok.nextToken()).startsWith("TYPE:")) {
+                // may or may not have a space after the colon
+                if (candidate.equals("TYPE:")) {
+                    if (stok.hasMoreTokens()) {
+                        type = stok.nextToken();
+                    }
+                } else {
+                    String[] split = candidate.split("\\:");
+                    type = split[1];
                 }
             }
-            return allComments;
+            if (type != null) {
+                allComments.put(comment.sline, type);
+            }
         }
+        return allComments;
     }
-    
+
     private final IStaticCheckerHandler handler;
     private final List<IResource> resources;
 
     protected boolean onlyAssertions;
     protected final char[][] includes;
     protected final char[][] excludes;
+
+    /** number of files to check at the same time */
+    private int numThreads = 1;
+    /** results of previous runs, may be null */
+    private StaticCheckerResultCache cache;
+    /** hashes of the types referenced by checked files and of their supertypes, shared by all workers */
+    private final Map<String, String> typeHashes = new ConcurrentHashMap<String, String>();
+    /** hashes of the contents of single types, by handle identifier, shared by all workers */
+    private final Map<String, String> contentHashes = new ConcurrentHashMap<String, String>();
+    private int numChecked, numFromCache;
     
     public ResourceTypeChecker(IStaticCheckerHandler handler, String projectName, char[][] includes, char[][] excludes, boolean onlyAssertions) {
         this(handler, createProject(projectName), includes, excludes, onlyAssertions);
@@ -150,6 +248,37 @@ public class ResourceTypeChecker {
         return Collections.<IResource>singletonList(project);
     }
 
+    /**
+     * Checks files on the given number of worker threads.  Problems are
+     * still passed on to the handler from the calling thread, in the
+     * same order as when checking serially.
+     */
+    public void setNumThreads(int numThreads) {
+        this.numThreads = Math.max(1, numThreads);
+    }
+
+    /**
+     * Reuses the results of files whose contents and referenced types have not changed
+     * since the last run, and remembers the results of this run.
+     */
+    public void setResultCache(StaticCheckerResultCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * @return number of files that were checked in the last run
+     */
+    public int getNumChecked() {
+        return numChecked;
+    }
+
+    /**
+     * @return number of files whose results were taken from the cache in the last run
+     */
+    public int getNumFromCache() {
+        return numFromCache;
+    }
+
     /**
      * Performs the tpe checking on the selected resources.
      * @param monitor progress monitor, can be null
@@ -160,6 +289,9 @@ public class ResourceTypeChecker {
         if (monitor == null) {
             monitor = new NullProgressMonitor();
         }
+        if (numThreads > 1 || cache != null) {
+            return doCheckConcurrently(monitor);
+        }
         monitor.beginTask("Static type analysis", resources.size());
         for (IResource resource : resources) {
             if (monitor.isCanceled()) {
@@ -171,4 +303,191 @@ public class ResourceTypeChecker {
         }
         return handler.finish(null);
     }
+
+    private boolean doCheckConcurrently(IProgressMonitor monitor) throws CoreException {
+        List<Object> steps = new ArrayList<Object>();
+        for (IResource resource : resources) {
+            resource.accept(new CheckerVisitor(monitor, steps));
+        }
+        List<GroovyCompilationUnit> units = new ArrayList<GroovyCompilationUnit>();
+        for (Object step : steps) {
+            if (step instanceof GroovyCompilationUnit) {
+                units.add((GroovyCompilationUnit) step);
+            }
+        }
+        monitor.beginTask("Static type analysis", units.size());
+        numChecked = numFromCache = 0;
+        typeHashes.clear();
+        contentHashes.clear();
+        if (cache != null) {
+            cache.setEnvironmentHash(hashEnvironment());
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        try {
+            List<CheckerTask> tasks = new ArrayList<CheckerTask>(units.size());
+            List<Future<StaticCheckerResultCache.Entry>> futures = new ArrayList<Future<StaticCheckerResultCache.Entry>>(units.size());
+            for (GroovyCompilationUnit unit : units) {
+                CheckerTask task = new CheckerTask(unit, monitor);
+                tasks.add(task);
+                futures.add(executor.submit(task));
+            }
+
+            // the handler sees the same calls in the same order as in a serial run
+            int i = 0;
+            for (Object step : steps) {
+                if (step instanceof IResource) {
+                    handler.handleResourceStart((IResource) step);
+                    continue;
+                }
+                IFile file = (IFile) ((GroovyCompilationUnit) step).getResource();
+                monitor.subTask(file.getName());
+                StaticCheckerResultCache.Entry entry;
+                try {
+                    entry = futures.get(i).get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new OperationCanceledException();
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof OperationCanceledException) {
+                        throw (OperationCanceledException) e.getCause();
+                    }
+                    if (e.getCause() instanceof CoreException) {
+                        throw (CoreException) e.getCause();
+                    }
+                    throw new CoreException(new Status(IStatus.ERROR, GroovyDSLCoreActivator.PLUGIN_ID,
+                            "Failed to check " + file.getFullPath(), e.getCause()));
+                }
+                if (tasks.get(i).fromCache) {
+                    numFromCache += 1;
+                } else {
+                    numChecked += 1;
+                }
+                handler.setResource(file);
+                new RecordingStaticCheckerHandler(entry.problems).replay(handler);
+                monitor.worked(1);
+                i += 1;
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        if (cache != null) {
+            List<String> paths = new ArrayList<String>(units.size());
+            for (GroovyCompilationUnit unit : units) {
+                paths.add(unit.getResource().getFullPath().toPortableString());
+            }
+            cache.retainAll(paths);
+            try {
+                cache.save();
+            } catch (IOException e) {
+                GroovyDSLCoreActivator.logException(e);
+            }
+        }
+        monitor.done();
+        return handler.finish(null);
+    }
+
+    private boolean dependenciesUnchanged(IJavaProject project, Map<String, String> dependencyHashes) throws CoreException {
+        for (Map.Entry<String, String> dependency : dependencyHashes.entrySet()) {
+            if (!dependency.getValue().equals(hashType(project, dependency.getKey()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A type is hashed together with all of its supertypes, since the members
+     * that a file sees through a type may be inherited.  A change to any type
+     * of the hierarchy, or to the shape of the hierarchy, invalidates the
+     * results of all files that reference the type.
+     */
+    private String hashType(IJavaProject project, String typeName) throws CoreException {
+        String hash = typeHashes.get(typeName);
+        if (hash == null) {
+            IType type = project.findType(typeName.replace('$', '.'));
+            if (type == null) {
+                hash = "<missing>";
+            } else {
+                IType[] supertypes = type.newSupertypeHierarchy(null).getAllSupertypes(type);
+                Arrays.sort(supertypes, new Comparator<IType>() {
+                    public int compare(IType t1, IType t2) {
+                        return t1.getFullyQualifiedName().compareTo(t2.getFullyQualifiedName());
+                    }
+                });
+                StringBuilder sb = new StringBuilder(hashContents(type));
+                for (IType supertype : supertypes) {
+                    sb.append('|').append(supertype.getFullyQualifiedName()).append('=').append(hashContents(supertype));
+                }
+                hash = StaticCheckerResultCache.hash(sb.toString());
+            }
+            typeHashes.put(typeName, hash);
+        }
+        return hash;
+    }
+
+    /**
+     * Source types are hashed by their contents and binary types by their
+     * class file container.
+     */
+    private String hashContents(IType type) {
+        String key = type.getHandleIdentifier();
+        String hash = contentHashes.get(key);
+        if (hash == null) {
+            if (type.getResource() instanceof IFile) {
+                try {
+                    hash = StaticCheckerResultCache.hash(((IFile) type.getResource()).getContents(true));
+                } catch (IOException e) {
+                    hash = "<unreadable>";
+                } catch (CoreException e) {
+                    hash = "<unreadable>";
+                }
+            } else {
+                IPackageFragmentRoot root = (IPackageFragmentRoot) type.getAncestor(IJavaElement.PACKAGE_FRAGMENT_ROOT);
+                File file = root.getPath().toFile();
+                if (!file.exists() && root.getResource() != null) {
+                    file = root.getResource().getLocation().toFile();
+                }
+                hash = root.getPath().toPortableString() + '@' + file.lastModified();
+            }
+            contentHashes.put(key, hash);
+        }
+        return hash;
+    }
+
+    /**
+     * The options and the dslds of the checked projects affect the results of all files
+     */
+    private String hashEnvironment() throws CoreException {
+        final StringBuilder sb = new StringBuilder();
+        sb.append(onlyAssertions).append('|').append(toString(includes)).append('|').append(toString(excludes));
+        for (IResource resource : resources) {
+            resource.getProject().accept(new IResourceVisitor() {
+                public boolean visit(IResource resource) throws CoreException {
+                    if (resource.getType() == IResource.FILE && resource.getName().endsWith(".dsld")) {
+                        try {
+                            sb.append('|').append(resource.getFullPath()).append('=')
+                                .append(StaticCheckerResultCache.hash(((IFile) resource).getContents(true)));
+                        } catch (IOException e) {
+                            sb.append('|').append(resource.getFullPath());
+                        }
+                    }
+                    return true;
+                }
+            });
+        }
+        return StaticCheckerResultCache.hash(sb.toString());
+    }
+
+    private static String toString(char[][] filters) {
+        if (filters == null) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder();
+        for (char[] filter : filters) {
+            sb.append(filter).append(';');
+        }
+        return sb.toString();
+    }
 }
@@ -73,8 +73,21 @@ public class StaticCheckerApplication implements IApplication {
             boolean success = false;
             try {
                 IStaticCheckerHandler handler = new SysoutStaticCheckerHandler(resultFile == null ? System.out : createOutStream(resultFile));
+                if (reportFile != null) {
+                    handler = new CompositeStaticCheckerHandler(handler,
+                            new XmlReportStaticCheckerHandler(new PrintStream(new File(reportFile), "UTF-8")));
+                }
                 ResourceTypeChecker checker = new ResourceTypeChecker(handler, projectName, inclusionFilters, exclusionFilters, assertionsOnly);
+                checker.setNumThreads(numThreads);
+                if (cacheFile != null) {
+                    StaticCheckerResultCache cache = new StaticCheckerResultCache(new File(cacheFile));
+                    cache.load();
+                    checker.setResultCache(cache);
+                }
                 success = checker.doCheck(null);
+                if (numThreads > 1 || cacheFile != null) {
+                    System.out.println("Checked " + checker.getNumChecked() + " files, reused results of " + checker.getNumFromCache() + " unchanged files");
+                }
             } catch (Exception e) {
                 e.printStackTrace();
             } finally {
@@ -127,6 +140,9 @@ public class StaticCheckerApplication implements IApplication {
     private String projectFolderPath;
     Display display;
     private String resultFile;
+    private String reportFile;
+    private String cacheFile;
+    private int numThreads = 1;
     
     public Object start(IApplicationContext context) throws Exception {
         processCommandLine((String[]) context.getArguments().get(IApplicationContext.APPLICATION_ARGS));
@@ -255,6 +271,33 @@ public class StaticCheckerApplication implements IApplication {
                     break;
                 }
                 resultFile = args[++i];
+            } else if (arg.equals("--report_file")) {
+                if (i == args.length-1) {
+                    System.err.println("Missing --report_file argument");
+                    doHelp = true;
+                    break;
+                }
+                reportFile = args[++i];
+            } else if (arg.equals("--cache_file")) {
+                if (i == args.length-1) {
+                    System.err.println("Missing --cache_file argument");
+                    doHelp = true;
+                    break;
+                }
+                cacheFile = args[++i];
+            } else if (arg.equals("--threads")) {
+                if (i == args.length-1) {
+                    System.err.println("Missing --threads argument");
+                    doHelp = true;
+                    break;
+                }
+                try {
+                    numThreads = Integer.parseInt(args[++i]);
+                } catch (NumberFormatException e) {
+                    System.err.println("Invalid --threads argument: " + args[i]);
+                    doHelp = true;
+                    break;
+                }
             }
         }
         
@@ -285,7 +328,7 @@ public class StaticCheckerApplication implements IApplication {
         }
         
         System.out.println("Usage:");
-        System.out.println("eclipse -application org.codehause.groovy.eclipse.staticCheck [--help] [-h] [--extra_dslds <FILES>] [--assertions_only] [--excludes <PATH>] [--includes <PATH>] [--project_path <PATH>] <PROJECT_NAME>");
+        System.out.println("eclipse -application org.codehause.groovy.eclipse.staticCheck [--help] [-h] [--extra_dslds <FILES>] [--assertions_only] [--excludes <PATH>] [--includes <PATH>] [--project_path <PATH>] [--result_file <PATH>] [--report_file <PATH>] [--cache_file <PATH>] [--threads <N>] <PROJECT_NAME>");
         System.out.println("where:");
         System.out.println("\t--help OR -h  Print this message and exit.");
         System.out.println("\t--extra_dslds  list of extra dsld files to be included in this check.  Use '|' as a file separator.");
@@ -294,6 +337,9 @@ public class StaticCheckerApplication implements IApplication {
         System.out.println("\t--includes  Project-relative inclusion filters.");
         System.out.println("\t--project_path  File system path to the project to check (only required if project is not already in workspace).");
         System.out.println("\t--result_file  File to send static checking results to.  If not specified, then results sent to sysout.");
+        System.out.println("\t--report_file  File to write an xml report of the static checking results to.");
+        System.out.println("\t--cache_file  File to keep results in between runs.  Files whose contents and referenced types are unchanged are not checked again.");
+        System.out.println("\t--threads  Number of files to check at the same time.  Default is 1.");
         System.out.println("\t<PROJECT_NAME>  Name of a project to type check.  If not already in workspace, then must also use '--project_path'.");
         System.out.println();
         System.out.println("Ant style filters are allowed.  Eg, src/org/codehaus/groovy/**/*.groovy means all files with groovy extensions in the org.codehaus.groovy package or below will be ex/included   Filters can be concentenated using '|'.");
@@ -0,0 +1,269 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.groovy.eclipse.dsl.checker;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.codehaus.groovy.eclipse.dsl.checker.RecordingStaticCheckerHandler.Problem;
+
+/**
+ * Remembers the results of static checking between runs of the checker.
+ * <p>
+ * A result is keyed by the hash of the file contents and the hashes of all
+ * types that were looked up while checking the file, where the hash of a type
+ * covers the type and all of its supertypes.  All results are thrown
+ * away when the environment changes (eg- the dslds in the project or the
+ * checker options).
+ */
+public class StaticCheckerResultCache {
+
+    private static final int VERSION = 2;
+
+    /**
+     * The result of checking a single file
+     */
+    public static class Entry {
+        public final String contentHash;
+        /** Type name to hash of the type's contents at the time of checking */
+        public final Map<String, String> dependencyHashes;
+        public final List<Problem> problems;
+
+        public Entry(String contentHash, Map<String, String> dependencyHashes, List<Problem> problems) {
+            this.contentHash = contentHash;
+            this.dependencyHashes = dependencyHashes;
+            this.problems = problems;
+        }
+    }
+
+    private final File cacheFile;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+    private String environmentHash = "";
+
+    public StaticCheckerResultCache(File cacheFile) {
+        this.cacheFile = cacheFile;
+    }
+
+    /**
+     * Loads the results of the previous run.  A missing or unreadable
+     * cache file is the same as an empty cache.
+     */
+    public void load() {
+        entries.clear();
+        if (cacheFile == null || !cacheFile.isFile()) {
+            return;
+        }
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(cacheFile)));
+            if (in.readInt() != VERSION) {
+                return;
+            }
+            environmentHash = readString(in);
+            for (int i = 0, n = in.readInt(); i < n; i += 1) {
+                String path = readString(in);
+                String contentHash = readString(in);
+                int numDeps = in.readInt();
+                Map<String, String> deps = new ConcurrentHashMap<String, String>(numDeps);
+                for (int j = 0; j < numDeps; j += 1) {
+                    deps.put(readString(in), readString(in));
+                }
+                int numProblems = in.readInt();
+                List<Problem> problems = new ArrayList<Problem>(numProblems);
+                for (int j = 0; j < numProblems; j += 1) {
+                    boolean isUnknown = in.readBoolean();
+                    String text = readString(in);
+                    String expectedType = readNullableString(in);
+                    String actualType = readNullableString(in);
+                    problems.add(new Problem(isUnknown, text, expectedType, actualType, in.readInt(), in.readInt(), in.readInt()));
+                }
+                entries.put(path, new Entry(contentHash, deps, problems));
+            }
+        } catch (IOException e) {
+            System.err.println("Ignoring unreadable static checker cache " + cacheFile + ": " + e.getMessage());
+            entries.clear();
+        } finally {
+            close(in);
+        }
+    }
+
+    public void save() throws IOException {
+        if (cacheFile == null) {
+            return;
+        }
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(cacheFile)));
+        try {
+            out.writeInt(VERSION);
+            writeString(out, environmentHash);
+            out.writeInt(entries.size());
+            for (Map.Entry<String, Entry> mapEntry : entries.entrySet()) {
+                Entry entry = mapEntry.getValue();
+                writeString(out, mapEntry.getKey());
+                writeString(out, entry.contentHash);
+                out.writeInt(entry.dependencyHashes.size());
+                for (Map.Entry<String, String> dep : entry.dependencyHashes.entrySet()) {
+                    writeString(out, dep.getKey());
+                    writeString(out, dep.getValue());
+                }
+                out.writeInt(entry.problems.size());
+                for (Problem problem : entry.problems) {
+                    out.writeBoolean(problem.isUnknown);
+                    writeString(out, problem.text);
+                    writeNullableString(out, problem.expectedType);
+                    writeNullableString(out, problem.actualType);
+                    out.writeInt(problem.offset);
+                    out.writeInt(problem.length);
+                    out.writeInt(problem.line);
+                }
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Sets the hash of everything that affects all results.  If it is different
+     * from the one of the previous run, then all results are discarded.
+     */
+    public void setEnvironmentHash(String hash) {
+        if (!hash.equals(environmentHash)) {
+            entries.clear();
+            environmentHash = hash;
+        }
+    }
+
+    /**
+     * @return the previous result for the file if its contents are unchanged, or null
+     */
+    public Entry get(String path, String contentHash) {
+        Entry entry = entries.get(path);
+        if (entry != null && entry.contentHash.equals(contentHash)) {
+            return entry;
+        }
+        return null;
+    }
+
+    public void put(String path, Entry entry) {
+        entries.put(path, entry);
+    }
+
+    /**
+     * Forgets files that were not seen in this run
+     */
+    public void retainAll(Collection<String> paths) {
+        entries.keySet().retainAll(paths);
+    }
+
+    public Map<String, Entry> getEntries() {
+        return Collections.unmodifiableMap(entries);
+    }
+
+    //--------------------------------------------------------------------------
+
+    public static String hash(InputStream in) throws IOException {
+        MessageDigest digest = createDigest();
+        try {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        } finally {
+            close(in);
+        }
+        return toHex(digest.digest());
+    }
+
+    public static String hash(String value) {
+        MessageDigest digest = createDigest();
+        try {
+            digest.update(value.getBytes("UTF-8"));
+        } catch (IOException e) {
+            // UTF-8 is always supported
+            throw new IllegalStateException(e);
+        }
+        return toHex(digest.digest());
+    }
+
+    private static MessageDigest createDigest() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            // MD5 is always supported
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Strings are written as a length and UTF-8 bytes, since writeUTF cannot
+     * write strings longer than 64K (eg- the text of a large expression)
+     */
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, "UTF-8");
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes("UTF-8");
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readNullableString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? readString(in) : null;
+    }
+
+    private static void writeNullableString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            writeString(out, value);
+        }
+    }
+
+    private static void close(InputStream in) {
+        if (in != null) {
+            try {
+                in.close();
+            } catch (IOException e) {
+                // ignore
+            }
+        }
+    }
+}
@@ -16,9 +16,11 @@
 package org.codehaus.groovy.eclipse.dsl.checker;
 
 import java.util.Map;
+import java.util.Set;
 
 import org.codehaus.groovy.ast.ASTNode;
 import org.codehaus.groovy.ast.AnnotatedNode;
+import org.codehaus.groovy.ast.ClassHelper;
 import org.codehaus.groovy.ast.ClassNode;
 import org.codehaus.groovy.ast.GenericsType;
 import org.codehaus.groovy.ast.stmt.BlockStatement;
@@ -54,14 +56,27 @@ public class StaticTypeCheckerRequestor extends SemanticReferenceRequestor imple
 
     private final boolean onlyAssertions;
 
+    /** Names of the types that were looked up while checking, may be null */
+    private final Set<String> referencedTypes;
+
     StaticTypeCheckerRequestor(IStaticCheckerHandler handler, Map<Integer, String> commentsMap, boolean onlyAssertions) {
+        this(handler, commentsMap, onlyAssertions, null);
+    }
+
+    StaticTypeCheckerRequestor(IStaticCheckerHandler handler, Map<Integer, String> commentsMap, boolean onlyAssertions, Set<String> referencedTypes) {
         this.handler = handler;
         this.commentsMap = commentsMap;
         this.onlyAssertions = onlyAssertions;
+        this.referencedTypes = referencedTypes;
     }
 
 
     public VisitStatus acceptASTNode(ASTNode node, TypeLookupResult result, IJavaElement enclosingElement) {
+        if (referencedTypes != null) {
+            addReferencedType(result.type);
+            addReferencedType(result.declaringType);
+        }
+
         if (node instanceof BlockStatement) {
             if (((BlockStatement) node).getStatements() == null) {
                 return VisitStatus.CANCEL_BRANCH;
@@ -91,6 +106,17 @@ public class StaticTypeCheckerRequestor extends SemanticReferenceRequestor imple
         return VisitStatus.CONTINUE;
     }
     
+    private void addReferencedType(ClassNode type) {
+        if (type != null) {
+            while (type.isArray()) {
+                type = type.getComponentType();
+            }
+            if (!ClassHelper.isPrimitiveType(type)) {
+                referencedTypes.add(type.getName());
+            }
+        }
+    }
+
     /**
      * @param type
      * @param expectedType
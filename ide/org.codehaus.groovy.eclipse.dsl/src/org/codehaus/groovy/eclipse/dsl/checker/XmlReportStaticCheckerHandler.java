@@ -0,0 +1,140 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.groovy.eclipse.dsl.checker;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.codehaus.groovy.ast.ASTNode;
+import org.codehaus.groovy.eclipse.dsl.checker.RecordingStaticCheckerHandler.Problem;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.jface.text.Position;
+import org.eclipse.swt.widgets.Shell;
+
+/**
+ * Writes the results of static checking as an xml report, eg:
+ * <pre>
+ * &lt;staticCheck problems="1"&gt;
+ *   &lt;file path="/Project/src/Foo.groovy"&gt;
+ *     &lt;unknown line="3" offset="42" length="5" text="bar()"/&gt;
+ *     &lt;assertion line="4" offset="50" length="3" text="baz" expected="java.lang.String" actual="java.lang.Object"/&gt;
+ *   &lt;/file&gt;
+ * &lt;/staticCheck&gt;
+ * </pre>
+ * Every checked file is listed, even if it has no problems.
+ */
+public class XmlReportStaticCheckerHandler implements IStaticCheckerHandler {
+
+    private final PrintStream out;
+
+    private final Map<String, List<Problem>> problemsByFile = new LinkedHashMap<String, List<Problem>>();
+
+    private List<Problem> currentProblems;
+
+    private int numProblems = 0;
+
+    public XmlReportStaticCheckerHandler(PrintStream out) {
+        this.out = out;
+    }
+
+    public void handleUnknownReference(ASTNode node, Position position, int line) {
+        currentProblems.add(new Problem(true, node.getText(), null, null, position.offset, position.length, line));
+        numProblems++;
+    }
+
+    public void handleTypeAssertionFailed(ASTNode node, String expectedType, String actualType, Position position, int line) {
+        currentProblems.add(new Problem(false, node.getText(), expectedType, actualType, position.offset, position.length, line));
+        numProblems++;
+    }
+
+    public void setResource(IFile resource) {
+        currentProblems = new ArrayList<Problem>();
+        problemsByFile.put(resource.getFullPath().toPortableString(), currentProblems);
+    }
+
+    public int numProblemsFound() {
+        return numProblems;
+    }
+
+    public void handleResourceStart(IResource resource) {
+        // do nothing
+    }
+
+    public boolean finish(Shell shell) {
+        out.println("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
+        out.println("<staticCheck problems=\"" + numProblems + "\">");
+        for (Map.Entry<String, List<Problem>> entry : problemsByFile.entrySet()) {
+            out.println("  <file path=\"" + escape(entry.getKey()) + "\">");
+            for (Problem problem : entry.getValue()) {
+                StringBuilder sb = new StringBuilder("    <");
+                sb.append(problem.isUnknown ? "unknown" : "assertion");
+                sb.append(" line=\"").append(problem.line).append('"');
+                sb.append(" offset=\"").append(problem.offset).append('"');
+                sb.append(" length=\"").append(problem.length).append('"');
+                sb.append(" text=\"").append(escape(problem.text)).append('"');
+                if (!problem.isUnknown) {
+                    sb.append(" expected=\"").append(escape(problem.expectedType)).append('"');
+                    sb.append(" actual=\"").append(escape(problem.actualType)).append('"');
+                }
+                sb.append("/>");
+                out.println(sb);
+            }
+            out.println("  </file>");
+        }
+        out.println("</staticCheck>");
+        if (out != System.out) {
+            out.close();
+        }
+        return numProblems == 0;
+    }
+
+    private static String escape(String value) {
+        if (value == null) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder(value.length());
+        for (int i = 0, n = value.length(); i < n; i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '<':
+                    sb.append("&lt;");
+                    break;
+                case '>':
+                    sb.append("&gt;");
+                    break;
+                case '&':
+                    sb.append("&amp;");
+                    break;
+                case '"':
+                    sb.append("&quot;");
+                    break;
+                case '\n':
+                    sb.append("&#10;");
+                    break;
+                case '\r':
+                    sb.append("&#13;");
+                    break;
+                default:
+                    sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -17,6 +17,7 @@ package org.codehaus.groovy.eclipse.quickfix;
 
 import java.io.IOException;
 
+import org.codehaus.groovy.eclipse.quickfix.proposals.MissingTypeCandidates;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.preferences.InstanceScope;
@@ -72,6 +73,7 @@ public class GroovyQuickFixPlugin extends AbstractUIPlugin {
 	 * )
 	 */
 	public void stop(BundleContext context) throws Exception {
+		MissingTypeCandidates.dispose();
 		plugin = null;
 		super.stop(context);
 	}
@@ -16,9 +16,12 @@
 package org.codehaus.groovy.eclipse.quickfix.proposals;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -50,6 +53,8 @@ import org.eclipse.text.edits.TextEdit;
  */
 public class AddMissingGroovyImportsResolver extends AbstractQuickFixResolver {
 
+	private static final Pattern WORD = Pattern.compile("\\b\\w+\\b");
+
 	public AddMissingGroovyImportsResolver(QuickFixProblemContext problem) {
 		super(problem);
 	}
@@ -143,8 +148,15 @@ public class AddMissingGroovyImportsResolver extends AbstractQuickFixResolver {
 						simpleTypeName, false, new SourceRange(offset,
 								simpleTypeName.length())));
 
-				new TypeSearch().searchForTypes(getGroovyCompilationUnit(),
-						unresolvedTypes);
+				// look up all of the unresolved names of the file at once, so
+				// that the quick fixes for the other problems are answered
+				// from the cache
+				List<TypeNameMatch> candidates = MissingTypeCandidates
+						.getCandidates(getGroovyCompilationUnit()
+								.getJavaProject(), simpleTypeName,
+								getOtherUnresolvedSimpleNames());
+				new TypeSearch().fillFromIndex(unresolvedTypes, Collections
+						.singletonMap(simpleTypeName, candidates));
 
 				UnresolvedTypeData foundData = unresolvedTypes
 						.get(simpleTypeName);
@@ -185,12 +197,20 @@ public class AddMissingGroovyImportsResolver extends AbstractQuickFixResolver {
 		if (messages == null || messages.length == 0) {
 			return null;
 		}
+		return getUnresolvedSimpleName(messages[0]);
+	}
 
+	/**
+	 * Obtain the simple name of the unresolved type from a problem message
+	 * 
+	 * @return simple name of the unresolved type, or null if the message is
+	 *         not about an unresolved type
+	 */
+	protected static String getUnresolvedSimpleName(String message) {
 		for (String text : ProblemType.MISSING_IMPORTS_TYPE.groovyProblemSnippets) {
-			int startIndex = messages[0].indexOf(text);
+			int startIndex = message.indexOf(text);
 			if (startIndex >= 0) {
-				Pattern pattern = Pattern.compile("\\b\\w+\\b");
-				Matcher matcher = pattern.matcher(messages[0].substring(startIndex + text.length()));
+				Matcher matcher = WORD.matcher(message.substring(startIndex + text.length()));
 				if (matcher.find()) {
 					return getTopLevelType(matcher.group());
 				}
@@ -200,6 +220,17 @@ public class AddMissingGroovyImportsResolver extends AbstractQuickFixResolver {
 		return null;
 	}
 
+	/**
+	 * Obtain the simple names of the other unresolved types in the file from
+	 * its module node, so that unsaved changes count and no build is needed
+	 * 
+	 * @return the simple names, possibly including the one of this problem
+	 */
+	protected Set<String> getOtherUnresolvedSimpleNames() {
+		return new LinkedHashSet<String>(new OrganizeGroovyImports(
+				getGroovyCompilationUnit(), null).findMissingTypeNames());
+	}
+
 	/**
 	 * If the simple name is an Inner Type, this will return the top level type.
 	 * If it already is a top level type, the name will be returned as is. For
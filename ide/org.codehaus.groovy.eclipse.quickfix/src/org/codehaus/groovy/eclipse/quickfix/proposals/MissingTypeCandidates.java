@@ -0,0 +1,180 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.groovy.eclipse.quickfix.proposals;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.codehaus.groovy.eclipse.refactoring.actions.TypeSearch;
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaElementDelta;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.JavaModelException;
+import org.eclipse.jdt.core.search.TypeNameMatch;
+
+/**
+ * Remembers the types found for unresolved simple names, so that the missing
+ * import quick fixes of a file do not each search the project on their own.
+ * <p>
+ * The names are looked up in batches with a single type name search, and the
+ * candidates are kept per project until a delta could have added or removed a
+ * type that the project can see, ie- a classpath change or an added, removed
+ * or changed compilation unit, class file or package fragment root anywhere in
+ * the workspace.
+ * <p>
+ * The search may wait for the indexer, so it runs without holding the lock.
+ * Every change bumps a generation counter, and the results of a search are
+ * only kept if no change happened while it ran.
+ */
+public final class MissingTypeCandidates {
+
+    private static final Map<IJavaProject, Map<String, List<TypeNameMatch>>> candidatesByProject = new HashMap<IJavaProject, Map<String, List<TypeNameMatch>>>();
+
+    private static IElementChangedListener listener;
+
+    /** Incremented whenever the candidates are forgotten */
+    private static int generation;
+
+    private static final AtomicInteger numSearches = new AtomicInteger();
+
+    private MissingTypeCandidates() {
+        // static only
+    }
+
+    /**
+     * Finds the types with the given simple name that the project can see.
+     * The other names are looked up in the same search so that later calls
+     * for them are answered from the cache.
+     *
+     * @param simpleName the name to look for
+     * @param otherNames other unresolved names in the same file
+     * @return the candidates for the simple name, never null
+     */
+    public static List<TypeNameMatch> getCandidates(IJavaProject project, String simpleName, Collection<String> otherNames)
+            throws JavaModelException {
+        Set<String> toSearch = new LinkedHashSet<String>();
+        int searchGeneration;
+        synchronized (MissingTypeCandidates.class) {
+            if (listener == null) {
+                listener = new IElementChangedListener() {
+                    public void elementChanged(ElementChangedEvent event) {
+                        if (affectsTypes(event.getDelta())) {
+                            clear();
+                        }
+                    }
+                };
+                JavaCore.addElementChangedListener(listener, ElementChangedEvent.POST_CHANGE);
+            }
+
+            Map<String, List<TypeNameMatch>> candidates = candidatesByProject.get(project);
+            List<TypeNameMatch> known = candidates == null ? null : candidates.get(simpleName);
+            if (known != null) {
+                return known;
+            }
+            toSearch.add(simpleName);
+            for (String name : otherNames) {
+                if (candidates == null || !candidates.containsKey(name)) {
+                    toSearch.add(name);
+                }
+            }
+            searchGeneration = generation;
+        }
+
+        numSearches.incrementAndGet();
+        Map<String, List<TypeNameMatch>> found = new TypeSearch().searchForTypeNames(project, toSearch);
+        Map<String, List<TypeNameMatch>> results = new HashMap<String, List<TypeNameMatch>>();
+        for (String name : toSearch) {
+            List<TypeNameMatch> matches = found.get(name);
+            results.put(name, matches != null ? matches : Collections.<TypeNameMatch> emptyList());
+        }
+
+        synchronized (MissingTypeCandidates.class) {
+            // a change during the search may have made the results stale
+            if (generation == searchGeneration) {
+                Map<String, List<TypeNameMatch>> candidates = candidatesByProject.get(project);
+                if (candidates == null) {
+                    candidates = new HashMap<String, List<TypeNameMatch>>();
+                    candidatesByProject.put(project, candidates);
+                }
+                candidates.putAll(results);
+            }
+        }
+        return results.get(simpleName);
+    }
+
+    /**
+     * @return the number of type name searches done so far
+     */
+    public static int getNumSearches() {
+        return numSearches.get();
+    }
+
+    /**
+     * Forgets all candidates and stops listening for changes
+     */
+    public static synchronized void dispose() {
+        if (listener != null) {
+            JavaCore.removeElementChangedListener(listener);
+            listener = null;
+        }
+        generation += 1;
+        candidatesByProject.clear();
+    }
+
+    private static synchronized void clear() {
+        generation += 1;
+        candidatesByProject.clear();
+    }
+
+    private static boolean affectsTypes(IJavaElementDelta delta) {
+        int flags = delta.getFlags();
+        if ((flags & (IJavaElementDelta.F_CLASSPATH_CHANGED | IJavaElementDelta.F_RESOLVED_CLASSPATH_CHANGED
+                | IJavaElementDelta.F_ADDED_TO_CLASSPATH | IJavaElementDelta.F_REMOVED_FROM_CLASSPATH
+                | IJavaElementDelta.F_ARCHIVE_CONTENT_CHANGED | IJavaElementDelta.F_OPENED | IJavaElementDelta.F_CLOSED)) != 0) {
+            return true;
+        }
+        switch (delta.getElement().getElementType()) {
+            case IJavaElement.COMPILATION_UNIT:
+            case IJavaElement.CLASS_FILE:
+                // a change to the contents may add or remove a type, but a
+                // change to a working copy alone does not
+                return delta.getKind() != IJavaElementDelta.CHANGED
+                        || (flags & IJavaElementDelta.F_PRIMARY_RESOURCE) != 0;
+            case IJavaElement.PACKAGE_FRAGMENT_ROOT:
+            case IJavaElement.PACKAGE_FRAGMENT:
+            case IJavaElement.JAVA_PROJECT:
+                if (delta.getKind() != IJavaElementDelta.CHANGED) {
+                    return true;
+                }
+                break;
+        }
+        for (IJavaElementDelta child : delta.getAffectedChildren()) {
+            if (affectsTypes(child)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -611,10 +611,7 @@ public class ExtractGroovyMethodRefactoring extends Refactoring {
             sb.append(copyOfSourceCode);
             sb.append(lineDelimiter);
 
-            ASTWriter astw = writeReturnStatements(unitDocument);
-            if (astw.getGroovyCode().length() > 0) {
-                sb.append(astw.getGroovyCode());
-            }
+            writeReturnStatements(unitDocument, sb);
             sb.append("}");
 
             MethodNode newMethod = createNewMethodForValidation(sb.toString(), status);
@@ -700,15 +697,14 @@ public class ExtractGroovyMethodRefactoring extends Refactoring {
         return renamer.rename(method, variablesToRename);
     }
 
-    private ASTWriter writeReturnStatements(IDocument document) {
-        ASTWriter astw = new ASTWriter(unit.getModuleNode(), document);
+    private void writeReturnStatements(IDocument document, StringBuilder out) {
+        ASTWriter astw = new ASTWriter(unit.getModuleNode(), document, out);
 
         for (Variable var : returnParameters) {
             ReturnStatement ret = new ReturnStatement(new VariableExpression(var));
             astw.visitReturnStatement(ret);
             astw.insertLineFeed();
         }
-        return astw;
     }
 
     private InsertEdit createMethodDeclarationEdit(RefactoringStatus status) {
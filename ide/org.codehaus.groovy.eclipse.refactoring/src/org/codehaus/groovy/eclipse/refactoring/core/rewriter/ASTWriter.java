@@ -21,14 +21,14 @@ package org.codehaus.groovy.eclipse.refactoring.core.rewriter;
 import groovyjarjarasm.asm.Opcodes;
 
 import java.io.IOException;
-import java.io.StringWriter;
-import java.io.Writer;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map.Entry;
 import java.util.Stack;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import org.codehaus.groovy.antlr.LineColumn;
 import org.codehaus.groovy.ast.ASTNode;
@@ -102,13 +102,11 @@ import org.codehaus.groovy.ast.stmt.SynchronizedStatement;
 import org.codehaus.groovy.ast.stmt.ThrowStatement;
 import org.codehaus.groovy.ast.stmt.TryCatchStatement;
 import org.codehaus.groovy.ast.stmt.WhileStatement;
-import org.codehaus.groovy.eclipse.core.GroovyCore;
-import org.codehaus.groovy.eclipse.refactoring.core.utils.FilePartReader;
 import org.codehaus.groovy.eclipse.refactoring.core.utils.ImportResolver;
+import org.codehaus.groovy.eclipse.refactoring.core.utils.IndexedSource;
 import org.codehaus.groovy.syntax.Token;
 import org.codehaus.groovy.syntax.Types;
 import org.eclipse.jdt.core.Signature;
-import org.eclipse.jface.text.BadLocationException;
 import org.eclipse.jface.text.IDocument;
 
 /**
@@ -118,6 +116,9 @@ import org.eclipse.jface.text.IDocument;
 public class ASTWriter extends CodeVisitorSupport implements
 		GroovyClassVisitor, Opcodes {
 
+	private static final Pattern NEW_LINE = Pattern.compile("\r\n|\n");
+	private static final String LINE_SEPARATOR = Matcher.quoteReplacement(System.getProperty("line.separator"));
+
 	protected StringBuilder groovyCode;
 	//protected PrintStream groovyCode;
 	private String lineDelimiter;
@@ -129,7 +130,7 @@ public class ASTWriter extends CodeVisitorSupport implements
 	private int columnOffset = 0;
 	private int caseCount = 0;  //to know which case is the first one in switch
 	private boolean inElseBlock = false;
-	private final IDocument currentDocument;  // might be null
+	private final IndexedSource currentSource;  // might be null
 	private int lineOffset = 0;
 	private boolean explizitModifier = false;
 	private String modifier = "";
@@ -151,19 +152,28 @@ public class ASTWriter extends CodeVisitorSupport implements
 	 * @param currentDocument SourceCode, the AST is generated from
 	 */
 	public ASTWriter(ModuleNode root, IDocument currentDocument) {
-		groovyCode = new StringBuilder();
-		try {
-		    if (currentDocument != null) {
-		        lineDelimiter = currentDocument.getLineDelimiter(0);
-		    }
-		} catch (BadLocationException e) {
-		    GroovyCore.logException("Error writing AST", e);
-		}
-		if (lineDelimiter == null) {
-		    lineDelimiter = System.getProperty("line.separator");
+		this(root, currentDocument, new StringBuilder());
+	}
+
+	/**
+	 *
+	 * @param currentDocument SourceCode, the AST is generated from
+	 * @param out buffer that the code is appended to, so that it doesn't have
+	 *        to be copied out with {@link #getGroovyCode()}
+	 */
+	public ASTWriter(ModuleNode root, IDocument currentDocument, StringBuilder out) {
+		groovyCode = out;
+		// index the lines once, rather than asking the document about every node
+		if (currentDocument != null) {
+		    currentSource = new IndexedSource(currentDocument);
+		    lineDelimiter = currentSource.getLineDelimiter();
+		} else {
+		    currentSource = null;
+		}
+		if (lineDelimiter == null) {
+		    lineDelimiter = System.getProperty("line.separator");
 		}
 		this.root = root;
-		this.currentDocument = currentDocument;
 	}
 
 	public ASTWriter(Expression e) {
@@ -327,7 +337,7 @@ public class ASTWriter extends CodeVisitorSupport implements
      */
 	private void writeEnum(ClassNode node) {
 		groovyCode.append("enum ");
-		groovyCode.append(node.getName() + " ");
+		groovyCode.append(node.getName()).append(' ');
 		groovyCode.append('{');
 		for(int i = 0; i < node.getFields().size(); i++){
 			FieldNode fn = (FieldNode) node.getFields().get(i);
@@ -337,7 +347,7 @@ public class ASTWriter extends CodeVisitorSupport implements
 				//ast contains additional variables that start with a '$'
 				//don't write these back
 				if(!fn.getName().startsWith("$")){
-					groovyCode.append(", " + fn.getName());
+					groovyCode.append(", ").append(fn.getName());
 				}
 			}
 		}
@@ -438,7 +448,7 @@ public class ASTWriter extends CodeVisitorSupport implements
 	        	groovyCode.append(" throws ");
 	        	for(int i = 0; i < node.getExceptions().length; i++){
 	        		if(i==0)groovyCode.append(node.getExceptions()[i].getNameWithoutPackage());
-	        		else groovyCode.append(", " + node.getExceptions()[i].getNameWithoutPackage());
+	        		else groovyCode.append(", ").append(node.getExceptions()[i].getNameWithoutPackage());
 	        	}
 	        }
         }
@@ -564,7 +574,7 @@ public class ASTWriter extends CodeVisitorSupport implements
         preVisitStatement(statement);
         groovyCode.append("break");
         if(statement.getLabel() != null){
-        	groovyCode.append(" " + statement.getLabel());
+        	groovyCode.append(' ').append(statement.getLabel());
         }
         super.visitBreakStatement(statement);
         postVisitStatement(statement);
@@ -613,7 +623,7 @@ public class ASTWriter extends CodeVisitorSupport implements
     public void visitExpressionStatement(ExpressionStatement statement) {
         preVisitStatement(statement);
         if(statement.getStatementLabel() != null){
-        	groovyCode.append(statement.getStatementLabel() + ": ");
+        	groovyCode.append(statement.getStatementLabel()).append(": ");
         }
         //super.visitExpressionStatement(statement);
         if (statement.getExpression() instanceof MethodCallExpression){
@@ -905,14 +915,10 @@ public class ASTWriter extends CodeVisitorSupport implements
         } else {
         	LineColumn coords = new LineColumn(expression.getLineNumber(),
         			expression.getColumnNumber());
-            try {
-                if (!(getParent() instanceof DeclarationExpression)
-                        && FilePartReader.readForwardFromCoordinate(currentDocument, coords).startsWith("(")) {
-                    groovyCode.append("(");
-                    writeParanthesis = true;
-                }
-            } catch (BadLocationException e) {
-                GroovyCore.logException("Error in refactoring", e);
+            if (!(getParent() instanceof DeclarationExpression)
+                    && readForwardFromCoordinate(coords).startsWith("(")) {
+                groovyCode.append("(");
+                writeParanthesis = true;
             }
         	expression.getLeftExpression().visit(this);
         	if (expression.getRightExpression().getText() != "null") {
@@ -1144,7 +1150,7 @@ public class ASTWriter extends CodeVisitorSupport implements
     	//methodName in MethodPointerExpression
     	if (constExprIsAString(expression)) {
     		LineColumn coords = new LineColumn(expression.getLineNumber(), expression.getColumnNumber());
-    		String stringMarker = ASTWriterHelper.getStringMarker(currentDocument, coords);
+    		String stringMarker = ASTWriterHelper.getStringMarker(readForwardFromCoordinate(coords));
     		pre += stringMarker;
     		printExpression(pre,expression, stringMarker);
     		if (stringMarker.length() == 3) {
@@ -1180,14 +1186,10 @@ public class ASTWriter extends CodeVisitorSupport implements
     	preVisitExpression(expression);
     	LineColumn coords = new LineColumn(expression.getLineNumber(),
     			expression.getColumnNumber());
-        try {
-            if (FilePartReader.readForwardFromCoordinate(currentDocument, coords).startsWith("(")) {
-                printExpression("(", expression, ")");
-            } else {
-                printExpression(expression);
-            }
-        } catch (BadLocationException e) {
-            GroovyCore.logException("Error in refactoring", e);
+        if (readForwardFromCoordinate(coords).startsWith("(")) {
+            printExpression("(", expression, ")");
+        } else {
+            printExpression(expression);
         }
     	postVisitExpression(expression);
     }
@@ -1325,7 +1327,7 @@ public class ASTWriter extends CodeVisitorSupport implements
         List<Expression> values = expression.getValues();
         Iterator<Expression> it = values.iterator();
 		LineColumn coords = new LineColumn(expression.getLineNumber(), expression.getColumnNumber());
-		String stringMarker = ASTWriterHelper.getStringMarker(currentDocument, coords);
+		String stringMarker = ASTWriterHelper.getStringMarker(readForwardFromCoordinate(coords));
 		groovyCode.append(stringMarker);
         for (ConstantExpression stringExpression : expression.getStrings()) {
             stringExpression.visit(this);
@@ -1354,13 +1356,7 @@ public class ASTWriter extends CodeVisitorSupport implements
     private void visitValueInGString(Iterator<Expression> it) {
         Expression valueExpression = it.next();
 		LineColumn coords = new LineColumn(valueExpression.getLineNumber(), valueExpression.getColumnNumber());
-        char firstChar;
-        try {
-            firstChar = FilePartReader.readForwardFromCoordinate(currentDocument, coords).charAt(0);
-        } catch (BadLocationException e) {
-            GroovyCore.logException("Error during refactoring...trying to recover", e);
-            firstChar = '\0';
-        }
+        char firstChar = readForwardFromCoordinate(coords).charAt(0);
 		groovyCode.append("$");
 		if(firstChar == '{'){
 			groovyCode.append("{");
@@ -1383,7 +1379,7 @@ public class ASTWriter extends CodeVisitorSupport implements
             if (getParent() instanceof ArrayExpression) {
             	groovyCode.append("]");
             } else if (iterator.hasNext()) {
-            	groovyCode.append(separator + " ");
+            	groovyCode.append(separator).append(' ');
             }
             postVisitExpression(expression);
         }
@@ -1521,22 +1517,35 @@ public class ASTWriter extends CodeVisitorSupport implements
     	if (expression.getText() == "null") {
     		printExpression = "";
     	}
+    	groovyCode.append(pre);
 		//Escape if not RegularExpression or MultiLineString
 		if (pre.length() > 0) {
 			if (pre.charAt(0) != '/' && expression.getLineNumber() == expression.getLastLineNumber()) {
-				printExpression = escapeJava(printExpression);
+				escapeJava(groovyCode, printExpression);
 			} else {
-				printExpression = printExpression.replaceAll("\r\n|\n", System.getProperty("line.separator"));
+				groovyCode.append(NEW_LINE.matcher(printExpression).replaceAll(LINE_SEPARATOR));
 			}
+		} else {
+			groovyCode.append(printExpression);
 		}
-    	groovyCode.append(pre);
-    	groovyCode.append(printExpression);
     	groovyCode.append(post);
     	if (getParent() instanceof CaseStatement) {
     		groovyCode.append(" : ");
     	}
     }
 
+	/**
+	 * Reads the first word of the original source at the given coordinates
+	 *
+	 * @return the word, or " " if there is no source or nothing to read
+	 */
+	protected String readForwardFromCoordinate(LineColumn coords) {
+		if (currentSource == null) {
+			return " ";
+		}
+		return currentSource.readForwardFromCoordinate(coords);
+	}
+
 	private void positioningCursor() {
 		boolean onNewLine = false;
 		if ((lineOfPreviousNode == lineOfCurrentNode) && (getTop() instanceof BreakStatement)) {
@@ -1600,34 +1609,14 @@ public class ASTWriter extends CodeVisitorSupport implements
      * </pre>
      * </p>
      *
+     * @param out where to append the escaped string
      * @param str  String to escape values in, may be null
-     * @return String with escaped values, <code>null</code> if null string input
      */
-    private static String escapeJava(String str) {
-        return escapeJavaStyleString(str, false);
-    }
-
-
-    /**
-     * From org.apache.commons.lang.StringEscapeUtils
-     * <p>Worker method for the {@link #escapeJavaScript(String)} method.</p>
-     *
-     * @param str String to escape values in, may be null
-     * @param escapeSingleQuotes escapes single quotes if <code>true</code>
-     * @return the escaped string
-     */
-    private static String escapeJavaStyleString(String str, boolean escapeSingleQuotes) {
-        if (str == null) {
-            return null;
-        }
+    private static void escapeJava(StringBuilder out, String str) {
         try {
-            StringWriter writer = new StringWriter(str.length() * 2);
-            escapeJavaStyleString(writer, str, escapeSingleQuotes);
-            return writer.toString();
-        } catch (IOException ioe) {
-            // this should never ever happen while writing to a StringWriter
-            ioe.printStackTrace();
-            return null;
+            escapeJavaStyleString(out, str, false);
+        } catch (IOException e) {
+            // can't happen when appending to a StringBuilder
         }
     }
 
@@ -1636,14 +1625,14 @@ public class ASTWriter extends CodeVisitorSupport implements
      *
      * <p>Worker method for the {@link #escapeJavaScript(String)} method.</p>
      *
-     * @param out write to receieve the escaped string
+     * @param out where to append the escaped string
      * @param str String to escape values in, may be null
      * @param escapeSingleQuote escapes single quotes if <code>true</code>
      * @throws IOException if an IOException occurs
      */
-    private static void escapeJavaStyleString(Writer out, String str, boolean escapeSingleQuote) throws IOException {
+    private static void escapeJavaStyleString(Appendable out, String str, boolean escapeSingleQuote) throws IOException {
         if (out == null) {
-            throw new IllegalArgumentException("The Writer must not be null");
+            throw new IllegalArgumentException("The Appendable must not be null");
         }
         if (str == null) {
             return;
@@ -1655,38 +1644,38 @@ public class ASTWriter extends CodeVisitorSupport implements
 
             // handle unicode
             if (ch > 0xfff) {
-                out.write("\\u" + hex(ch));
+                out.append("\\u" + hex(ch));
             } else if (ch > 0xff) {
-                out.write("\\u0" + hex(ch));
+                out.append("\\u0" + hex(ch));
             } else if (ch > 0x7f) {
-                out.write("\\u00" + hex(ch));
+                out.append("\\u00" + hex(ch));
             } else if (ch < 32) {
                 switch (ch) {
                     case '\b':
-                        out.write('\\');
-                        out.write('b');
+                        out.append('\\');
+                        out.append('b');
                         break;
                     case '\n':
-                        out.write('\\');
-                        out.write('n');
+                        out.append('\\');
+                        out.append('n');
                         break;
                     case '\t':
-                        out.write('\\');
-                        out.write('t');
+                        out.append('\\');
+                        out.append('t');
                         break;
                     case '\f':
-                        out.write('\\');
-                        out.write('f');
+                        out.append('\\');
+                        out.append('f');
                         break;
                     case '\r':
-                        out.write('\\');
-                        out.write('r');
+                        out.append('\\');
+                        out.append('r');
                         break;
                     default :
                         if (ch > 0xf) {
-                            out.write("\\u00" + hex(ch));
+                            out.append("\\u00" + hex(ch));
                         } else {
-                            out.write("\\u000" + hex(ch));
+                            out.append("\\u000" + hex(ch));
                         }
                         break;
                 }
@@ -1694,20 +1683,20 @@ public class ASTWriter extends CodeVisitorSupport implements
                 switch (ch) {
                     case '\'':
                         if (escapeSingleQuote) {
-                          out.write('\\');
+                          out.append('\\');
                         }
-                        out.write('\'');
+                        out.append('\'');
                         break;
                     case '"':
-                        out.write('\\');
-                        out.write('"');
+                        out.append('\\');
+                        out.append('"');
                         break;
                     case '\\':
-                        out.write('\\');
-                        out.write('\\');
+                        out.append('\\');
+                        out.append('\\');
                         break;
                     default :
-                        out.write(ch);
+                        out.append(ch);
                         break;
                 }
             }
@@ -110,13 +110,22 @@ public class ASTWriterHelper implements Opcodes {
 	    if (currentDocument == null) {
 	        return "\"";
 	    }
-        String expressionInFile;
-        try {
-            expressionInFile = FilePartReader.readForwardFromCoordinate(currentDocument, coords);
-        } catch (BadLocationException e) {
-            GroovyCore.logException("Error during refactoring...trying to recover", e);
-            expressionInFile = "";
+        String expressionInFile;
+        try {
+            expressionInFile = FilePartReader.readForwardFromCoordinate(currentDocument, coords);
+        } catch (BadLocationException e) {
+            GroovyCore.logException("Error during refactoring...trying to recover", e);
+            expressionInFile = " ";
         }
+        return getStringMarker(expressionInFile);
+	}
+
+    /**
+     * @param expressionInFile the first word of the expression in the source
+     * @return different quote versions of groovy strings
+     * @see #getStringMarker(IDocument, LineColumn)
+     */
+    public static String getStringMarker(String expressionInFile) {
 		char charBefore = expressionInFile.charAt(0);
 		String firstThreeChars = "";
 		boolean firstThreeCharsAreSame = false;
@@ -18,15 +18,11 @@
  */
 package org.codehaus.groovy.eclipse.refactoring.core.utils;
 
-import groovy.lang.IntRange;
-
 import java.io.FileReader;
 import java.io.IOException;
-import java.util.List;
 
 import org.codehaus.groovy.antlr.LineColumn;
 import org.codehaus.groovy.runtime.IOGroovyMethods;
-import org.codehaus.groovy.runtime.StringGroovyMethods;
 import org.eclipse.jface.text.BadLocationException;
 import org.eclipse.jface.text.IDocument;
 
@@ -38,21 +34,12 @@ import org.eclipse.jface.text.IDocument;
  */
 public class FilePartReader {
 
-    private static List<String> getWords(String line, IntRange range) {
-		String relevantPieceOfLine = StringGroovyMethods.getAt(line, range);
-		relevantPieceOfLine = relevantPieceOfLine.replaceAll("\\(", " ( ");
-		relevantPieceOfLine = relevantPieceOfLine.replaceAll("\\)", " ) ");
-		return StringGroovyMethods.tokenize(relevantPieceOfLine);
-	}
-
     public static String readBackwardsFromCoordinate(IDocument doc, LineColumn coord) throws BadLocationException {
 		//make sure that no one reads from a file with impossible coordinates
 		if(doc != null && coord.getLine() > 0 && coord.getColumn() > 0) {
-			int lineLength = doc.getLineLength(coord.getLine()-1);
 			int offset = doc.getLineOffset(coord.getLine()-1);
-			String line = doc.get(offset, lineLength);
-			List<String> words = getWords(line, new IntRange(0, coord.getColumn()-2));
-			return words.get(words.size()-1);
+			String line = doc.get(offset, doc.getLineLength(coord.getLine()-1));
+			return lastWord(line, 0, Math.min(coord.getColumn()-1, line.length()));
 		} else {
 			return " ";
 		}
@@ -61,17 +48,71 @@ public class FilePartReader {
     public static String readForwardFromCoordinate(IDocument doc, LineColumn coord) throws BadLocationException {
 		//make sure that no one reads from a file with impossible coordinates
 		if(doc != null && coord.getLine() > 0 && coord.getColumn() > 0) {
-			int lineLength = doc.getLineLength(coord.getLine()-1);
 			int offset = doc.getLineOffset(coord.getLine()-1);
-			String line = doc.get(offset, lineLength);
-            List<String> words = getWords(line, new IntRange(coord.getColumn()-1, line.length()));
-            return words.get(0);
+			String line = doc.get(offset, doc.getLineLength(coord.getLine()-1));
+			return firstWord(line, Math.min(coord.getColumn()-1, line.length()), line.length());
 		} else {
 			return " ";
 		}
 
 	}
 
+    /**
+     * Words are separated by white space, and parentheses are words of their own.
+     *
+     * @return the first word between start and end, or " " if there is none
+     */
+    static String firstWord(CharSequence text, int start, int end) {
+        int i = start;
+        while (i < end && isSeparator(text.charAt(i))) {
+            i++;
+        }
+        if (i == end) {
+            return " ";
+        }
+        int wordStart = i;
+        if (!isParen(text.charAt(i))) {
+            while (i < end && !isSeparator(text.charAt(i)) && !isParen(text.charAt(i))) {
+                i++;
+            }
+        } else {
+            i++;
+        }
+        return text.subSequence(wordStart, i).toString();
+    }
+
+    /**
+     * @return the last word between start and end, or " " if there is none
+     * @see #firstWord(CharSequence, int, int)
+     */
+    static String lastWord(CharSequence text, int start, int end) {
+        int i = end;
+        while (i > start && isSeparator(text.charAt(i-1))) {
+            i--;
+        }
+        if (i == start) {
+            return " ";
+        }
+        int wordEnd = i;
+        if (!isParen(text.charAt(i-1))) {
+            while (i > start && !isSeparator(text.charAt(i-1)) && !isParen(text.charAt(i-1))) {
+                i--;
+            }
+        } else {
+            i--;
+        }
+        return text.subSequence(i, wordEnd).toString();
+    }
+
+    // same as the default delimiters of StringTokenizer
+    private static boolean isSeparator(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f';
+    }
+
+    private static boolean isParen(char c) {
+        return c == '(' || c == ')';
+    }
+
 	public static final String DEFAULT_LINE_DELIMITER = System.getProperty("line.separator");
 
     public static String getLineDelimiter(FileReader file) throws IOException {
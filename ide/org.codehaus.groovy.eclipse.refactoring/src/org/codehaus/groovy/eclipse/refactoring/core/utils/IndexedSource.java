@@ -0,0 +1,131 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.groovy.eclipse.refactoring.core.utils;
+
+import org.codehaus.groovy.antlr.LineColumn;
+import org.eclipse.jface.text.IDocument;
+
+/**
+ * A snapshot of the contents of a document together with the offsets at which
+ * its lines start, so that the line and column coordinates of AST nodes can
+ * be turned into offsets without asking the document every time.
+ * <p>
+ * The table is built once in a single pass over the contents. Reads work like
+ * the ones of {@link FilePartReader}, but without copying out the line.
+ */
+public class IndexedSource {
+
+    private final String contents;
+
+    /** Offset of the first character of each line, plus the length of the contents */
+    private final int[] lineStarts;
+
+    /** The delimiter at the end of the first line, or null if there is only one line */
+    private final String firstLineDelimiter;
+
+    public IndexedSource(IDocument document) {
+        this(document.get());
+    }
+
+    public IndexedSource(String contents) {
+        this.contents = contents;
+        int[] starts = new int[64];
+        int count = 0;
+        starts[count++] = 0;
+        String delimiter = null;
+        int length = contents.length();
+        for (int i = 0; i < length; i++) {
+            char c = contents.charAt(i);
+            if (c == '\r' || c == '\n') {
+                int delimiterLength = (c == '\r' && i + 1 < length && contents.charAt(i + 1) == '\n') ? 2 : 1;
+                if (delimiter == null) {
+                    delimiter = contents.substring(i, i + delimiterLength);
+                }
+                i += delimiterLength - 1;
+                if (count == starts.length) {
+                    starts = grow(starts);
+                }
+                starts[count++] = i + 1;
+            }
+        }
+        if (count == starts.length) {
+            starts = grow(starts);
+        }
+        starts[count++] = length;
+        lineStarts = new int[count];
+        System.arraycopy(starts, 0, lineStarts, 0, count);
+        firstLineDelimiter = delimiter;
+    }
+
+    private static int[] grow(int[] array) {
+        int[] larger = new int[array.length * 2];
+        System.arraycopy(array, 0, larger, 0, array.length);
+        return larger;
+    }
+
+    /**
+     * @return the number of lines in the source
+     */
+    public int getNumberOfLines() {
+        return lineStarts.length - 1;
+    }
+
+    /**
+     * @return the delimiter of the first line, or null if there is only one
+     *         line
+     * @see IDocument#getLineDelimiter(int)
+     */
+    public String getLineDelimiter() {
+        return firstLineDelimiter;
+    }
+
+    /**
+     * @param line 1-based line number
+     * @param column 1-based column number
+     * @return the offset of the coordinate, or -1 if it is not in the source.
+     *         Columns past the end of a line are moved back to its end.
+     */
+    public int getOffset(int line, int column) {
+        if (line < 1 || line >= lineStarts.length || column < 1) {
+            return -1;
+        }
+        return Math.min(lineStarts[line - 1] + column - 1, lineStarts[line]);
+    }
+
+    /**
+     * @see FilePartReader#readForwardFromCoordinate(IDocument, LineColumn)
+     * @return the first word at or after the coordinate on its line, or " "
+     */
+    public String readForwardFromCoordinate(LineColumn coord) {
+        int offset = getOffset(coord.getLine(), coord.getColumn());
+        if (offset < 0) {
+            return " ";
+        }
+        return FilePartReader.firstWord(contents, offset, lineStarts[coord.getLine()]);
+    }
+
+    /**
+     * @see FilePartReader#readBackwardsFromCoordinate(IDocument, LineColumn)
+     * @return the last word before the coordinate on its line, or " "
+     */
+    public String readBackwardsFromCoordinate(LineColumn coord) {
+        int offset = getOffset(coord.getLine(), coord.getColumn());
+        if (offset < 0) {
+            return " ";
+        }
+        return FilePartReader.lastWord(contents, lineStarts[coord.getLine() - 1], offset);
+    }
+}
@@ -123,37 +123,97 @@ public class DefaultGroovyFormatter extends GroovyFormatter {
 
     @Override
     public TextEdit format() {
+        if (formatOffset > 0 || formatLength < document.getLength()) {
+            // only the declarations around the selected lines need to be parsed
+            TextEdit edit = formatInContext();
+            if (edit != null) {
+                return edit;
+            }
+        }
+
         formattedDocument = new Document(document.get());
         try {
-            if (!indentOnly) {
-                initCodebase();
-                GroovyBeautifier beautifier = new GroovyBeautifier(this, pref);
-                int lengthBefore = formattedDocument.getLength();
-                beautifier.getBeautifiEdits().apply(formattedDocument);
-                int lengthAfter = formattedDocument.getLength();
-                formatLength += lengthAfter - lengthBefore;
-            }
+            formatText();
+        } catch (Exception e) {
+            GroovyCore.logWarning("Cannot format, probably due to compilation errors.  Please fix and try again.", e);
+        }
 
+        return createEdit(0, document.get(), formattedDocument.get());
+    }
+
+    private void formatText() throws Exception {
+        if (!indentOnly) {
             initCodebase();
-            GroovyIndentation indent = new GroovyIndentation(this, pref, indentationLevel);
-            UndoEdit undo2 = indent.getIndentationEdits().apply(formattedDocument);
-            formatLength += undo2.getLength();
-
-//          if (!indentendOnly) {
-//              initCodebase();
-//              GroovyLineWrapper linewrap = new GroovyLineWrapper(this, pref, indent.getLineIndentations());
-//              UndoEdit undo3 = linewrap.getLineWrapEdits().apply(formattedDocument);
-//              formatLength += undo3.getLength();
-//          }
+            GroovyBeautifier beautifier = new GroovyBeautifier(this, pref);
+            int lengthBefore = formattedDocument.getLength();
+            beautifier.getBeautifiEdits().apply(formattedDocument);
+            int lengthAfter = formattedDocument.getLength();
+            formatLength += lengthAfter - lengthBefore;
+        }
+
+        initCodebase();
+        GroovyIndentation indent = new GroovyIndentation(this, pref, indentationLevel);
+        UndoEdit undo2 = indent.getIndentationEdits().apply(formattedDocument);
+        formatLength += undo2.getLength();
+
+//      if (!indentendOnly) {
+//          initCodebase();
+//          GroovyLineWrapper linewrap = new GroovyLineWrapper(this, pref, indent.getLineIndentations());
+//          UndoEdit undo3 = linewrap.getLineWrapEdits().apply(formattedDocument);
+//          formatLength += undo3.getLength();
+//      }
+    }
+
+    /**
+     * Formats the selected lines by parsing only the enclosing top level
+     * declarations, or the enclosing members of a type.
+     *
+     * @return the edit, or null if the whole document must be formatted instead
+     */
+    private TextEdit formatInContext() {
+        RangeFormattingContext context = RangeFormattingContext.find(document, formatOffset, formatLength);
+        if (context == null) {
+            return null;
+        }
+        try {
+            String original = document.get(context.offset, context.length);
+            Document contextDocument = new Document(context.prefix + original + context.suffix);
+            DefaultGroovyFormatter contextFormatter = new DefaultGroovyFormatter(new TextSelection(contextDocument,
+                    context.prefix.length() + formatOffset - context.offset, formatLength), contextDocument, pref, indentOnly);
+            contextFormatter.indentationLevel = indentationLevel;
+            contextFormatter.formattedDocument = new Document(contextDocument.get());
+            contextFormatter.formatText();
+
+            String formatted = contextFormatter.formattedDocument.get();
+            if (!formatted.startsWith(context.prefix) || !formatted.endsWith(context.suffix)
+                    || formatted.length() < context.prefix.length() + context.suffix.length()) {
+                return null;
+            }
+            formatted = formatted.substring(context.prefix.length(), formatted.length() - context.suffix.length());
+            return createEdit(context.offset, original, formatted);
         } catch (Exception e) {
-            GroovyCore.logWarning("Cannot format, probably due to compilation errors.  Please fix and try again.", e);
+            // let the whole document have a go
+            return null;
         }
+    }
 
-        if (formattedDocument.get().equals(document.get())) {
+    /**
+     * @return an edit that replaces only the part of the text that was changed
+     */
+    private static TextEdit createEdit(int offset, String original, String formatted) {
+        int start = 0, end = 0;
+        int max = Math.min(original.length(), formatted.length());
+        while (start < max && original.charAt(start) == formatted.charAt(start)) {
+            start += 1;
+        }
+        while (end < max - start && original.charAt(original.length() - end - 1) == formatted.charAt(formatted.length() - end - 1)) {
+            end += 1;
+        }
+        if (start == original.length() && start == formatted.length()) {
             return new MultiTextEdit();
         }
-
-        return new ReplaceEdit(0, document.getLength(), formattedDocument.get());
+        return new ReplaceEdit(offset + start, original.length() - start - end,
+                formatted.substring(start, formatted.length() - end));
     }
 
     /**
@@ -15,6 +15,7 @@
  */
 package org.codehaus.groovy.eclipse.refactoring.formatter;
 
+import groovyjarjarantlr.CommonToken;
 import groovyjarjarantlr.Token;
 import groovyjarjarantlr.TokenStreamException;
 
@@ -37,9 +38,16 @@ import org.eclipse.jface.text.ITextSelection;
  * This class provides methods to retrieve tokens for a given IDocument
  * presumed to contain Groovy source code.
  * <p>
- * A sophisticated implementation could try to work incrementally and invalidate
- * only some tokens when the document is changed. This implementation is rather
- * naive and clears the whole cache on every document change.
+ * The token list is updated incrementally when the document changes. Scanning
+ * restarts at the last newline token before the change and stops as soon as the
+ * new tokens line up again with the old tokens after the change. The old tokens
+ * from that point on are kept. If the change added or removed lines, they are
+ * replaced by copies on the new lines; tokens are never changed in place, so
+ * tokens handed out before the change keep their positions.
+ * <p>
+ * Token offsets and the first token of each document line are kept in int
+ * arrays, so finding the tokens at an offset is a binary search and finding
+ * the tokens of a line is a constant time lookup.
  *
  * @author kdvolder
  * @created 2010-05-26
@@ -61,6 +69,29 @@ public class GroovyDocumentScanner implements IDocumentListener {
      */
     protected List<Token> tokens;
 
+    /**
+     * Document offsets of the tokens in {@link #tokens}. Computed lazily, null
+     * when not yet computed.
+     */
+    private int[] tokenOffsets;
+
+    /**
+     * Nesting depth of string constructors ("...${x}...") at the start of
+     * each token in {@link #tokens}. Scanning can only be restarted at a
+     * newline token with depth 0.
+     */
+    private int[] tokenDepths;
+
+    /**
+     * For each document line, the index of the first token that starts on
+     * or after that line. Has one extra entry for the end of the document.
+     * Computed lazily, null when not yet computed.
+     */
+    private int[] lineTokenIndexes;
+
+    /** Number of lines in the document before the current change */
+    private int linesBeforeChange;
+
     private GroovyScanner tokenScanner;
 
     /** At most this number of scanner errors will be reported */
@@ -76,10 +107,26 @@ public class GroovyDocumentScanner implements IDocumentListener {
     }
 
     public void documentChanged(DocumentEvent event) {
-        reset();
+        if (!isIncremental() || tokens == null || !updateTokens(event)) {
+            reset();
+        }
     }
 
-    public void documentAboutToBeChanged(DocumentEvent event) {}
+    public void documentAboutToBeChanged(DocumentEvent event) {
+        if (isIncremental() && tokens != null) {
+            // token positions must be computed against the unchanged document
+            ensureIndexed();
+            linesBeforeChange = document.getNumberOfLines();
+        }
+    }
+
+    /**
+     * Subclasses that scan the document differently can return false here
+     * to have the tokens rescanned from scratch after every change.
+     */
+    protected boolean isIncremental() {
+        return true;
+    }
 
     /**
      * This method must be called internally before operating on the list of
@@ -115,6 +162,207 @@ public class GroovyDocumentScanner implements IDocumentListener {
         return result;
     }
 
+    /**
+     * Computes the offsets and string constructor depths of the tokens, if
+     * not already done.
+     */
+    private void ensureIndexed() {
+        if (tokenOffsets != null) {
+            return;
+        }
+        int n = tokens.size();
+        int[] offsets = new int[n];
+        int[] depths = new int[n];
+        int depth = 0;
+        for (int i = 0; i < n; i += 1) {
+            Token token = tokens.get(i);
+            offsets[i] = rawOffset(token);
+            depths[i] = depth;
+            depth = nextDepth(depth, token);
+        }
+        tokenOffsets = offsets;
+        tokenDepths = depths;
+    }
+
+    private static int nextDepth(int depth, Token token) {
+        if (token.getType() == GroovyTokenTypeBridge.STRING_CTOR_START) {
+            return depth + 1;
+        } else if (token.getType() == GroovyTokenTypeBridge.STRING_CTOR_END && depth > 0) {
+            return depth - 1;
+        }
+        return depth;
+    }
+
+    /**
+     * Like {@link #getOffset(Token)}, but without the position asserts, and
+     * tolerating the EOF token being past the end of the document.
+     */
+    private int rawOffset(Token token) {
+        try {
+            return Math.min(GroovyScanner.getOffset(document, token.getLine(), token.getColumn()), document.getLength());
+        } catch (BadLocationException e) {
+            return document.getLength();
+        }
+    }
+
+    /**
+     * Updates the cached tokens after a document change by rescanning only the
+     * changed region.
+     *
+     * @return false if the tokens could not be updated, in which case they
+     *         must be discarded
+     */
+    private boolean updateTokens(DocumentEvent event) {
+        int n = tokens.size();
+        if (tokenOffsets == null || n == 0 || tokens.get(n - 1).getType() != GroovyTokenTypeBridge.EOF) {
+            // last scan ended with an error
+            return false;
+        }
+        int changeStart = event.getOffset();
+        int oldChangeEnd = changeStart + event.getLength();
+        int newChangeEnd = changeStart + (event.getText() == null ? 0 : event.getText().length());
+        int delta = newChangeEnd - oldChangeEnd;
+        int lineDelta = document.getNumberOfLines() - linesBeforeChange;
+
+        // restart at the last newline token before the change that is not inside a string constructor
+        int restart = findTokenFrom(changeStart);
+        if (restart == NOT_FOUND) {
+            restart = n - 1;
+        }
+        do {
+            restart -= 1;
+        } while (restart >= 0 && !isResyncPoint(tokens.get(restart), tokenDepths[restart]));
+        int restartOffset = restart < 0 ? 0 : tokenOffsets[restart];
+        int depth = restart < 0 ? 0 : tokenDepths[restart];
+        restart = Math.max(restart, 0);
+
+        List<Token> newTokens = new ArrayList<Token>();
+        int[] newOffsets = new int[64];
+        int[] newDepths = new int[newOffsets.length];
+        int oldIndex = restart;
+        int resync = NOT_FOUND;
+        try {
+            tokenScanner = new GroovyScanner(document, restartOffset);
+            Token token;
+            do {
+                token = nextToken();
+                int offset = rawOffset(token);
+                if (newTokens.size() == newOffsets.length) {
+                    newOffsets = grow(newOffsets);
+                    newDepths = grow(newDepths);
+                }
+                newOffsets[newTokens.size()] = offset;
+                newDepths[newTokens.size()] = depth;
+                newTokens.add(token);
+
+                if (offset >= newChangeEnd && isResyncPoint(token, depth)) {
+                    // line up with the old tokens after the change
+                    while (oldIndex < n && (tokenOffsets[oldIndex] < oldChangeEnd || tokenOffsets[oldIndex] + delta < offset)) {
+                        oldIndex += 1;
+                    }
+                    if (oldIndex < n && tokenOffsets[oldIndex] + delta == offset && tokenDepths[oldIndex] == 0
+                            && tokens.get(oldIndex).getType() == GroovyTokenTypeBridge.NLS) {
+                        // both scans are in the same state from here on
+                        resync = oldIndex;
+                        break;
+                    }
+                }
+                depth = nextDepth(depth, token);
+            } while (token.getType() != GroovyTokenTypeBridge.EOF);
+        } catch (Exception e) {
+            if (logLimit-- > 0) {
+                Util.log(e);
+            }
+            return false;
+        } finally {
+            tokenScanner = null;
+        }
+
+        int tail = resync == NOT_FOUND ? 0 : n - resync - 1;
+        int size = restart + newTokens.size() + tail;
+        List<Token> merged = new ArrayList<Token>(size);
+        int[] offsets = new int[size];
+        int[] depths = new int[size];
+        merged.addAll(tokens.subList(0, restart));
+        System.arraycopy(tokenOffsets, 0, offsets, 0, restart);
+        System.arraycopy(tokenDepths, 0, depths, 0, restart);
+        merged.addAll(newTokens);
+        System.arraycopy(newOffsets, 0, offsets, restart, newTokens.size());
+        System.arraycopy(newDepths, 0, depths, restart, newTokens.size());
+        for (int i = resync + 1, j = restart + newTokens.size(); tail > 0 && i < n; i += 1, j += 1) {
+            // tokens after the resync point start on a later line than the change, so only their lines move
+            Token token = tokens.get(i);
+            merged.add(lineDelta == 0 ? token : moveToken(token, lineDelta));
+            offsets[j] = tokenOffsets[i] + delta;
+            depths[j] = tokenDepths[i];
+        }
+        tokens = merged;
+        tokenOffsets = offsets;
+        tokenDepths = depths;
+        lineTokenIndexes = null;
+        return true;
+    }
+
+    /**
+     * Copies a token to a line that is lineDelta lines further. The old token
+     * is left alone, since callers of {@link #getTokens(int, int)} and friends
+     * may still hold on to it.
+     */
+    private static Token moveToken(Token token, int lineDelta) {
+        Token moved;
+        if (token instanceof GroovySourceToken) {
+            GroovySourceToken gToken = (GroovySourceToken) token;
+            GroovySourceToken gMoved = new GroovySourceToken(gToken.getType());
+            gMoved.setLineLast(gToken.getLineLast() + lineDelta);
+            gMoved.setColumnLast(gToken.getColumnLast());
+            moved = gMoved;
+        } else {
+            moved = new CommonToken(token.getType(), null);
+        }
+        moved.setText(token.getText());
+        moved.setLine(token.getLine() + lineDelta);
+        moved.setColumn(token.getColumn());
+        moved.setFilename(token.getFilename());
+        return moved;
+    }
+
+    private static boolean isResyncPoint(Token token, int depth) {
+        return depth == 0 && token.getType() == GroovyTokenTypeBridge.NLS;
+    }
+
+    private static int[] grow(int[] array) {
+        int[] result = new int[array.length * 2];
+        System.arraycopy(array, 0, result, 0, array.length);
+        return result;
+    }
+
+    /**
+     * Computes the index of the first token of every line, if not already done.
+     */
+    private void ensureLineIndexed() throws BadLocationException {
+        ensureScanned(Integer.MAX_VALUE);
+        ensureIndexed();
+        if (lineTokenIndexes != null) {
+            return;
+        }
+        int lines = document.getNumberOfLines();
+        int[] indexes = new int[lines + 1];
+        int i = 0, n = tokens.size();
+        for (int line = 0; line < lines; line += 1) {
+            int lineOffset = document.getLineOffset(line);
+            while (i < n && tokenOffsets[i] < lineOffset) {
+                i += 1;
+            }
+            indexes[line] = i;
+        }
+        int end = document.getLength();
+        while (i < n && tokenOffsets[i] < end) {
+            i += 1;
+        }
+        indexes[lines] = i;
+        lineTokenIndexes = indexes;
+    }
+
     private Token nextToken() throws TokenStreamException, BadLocationException {
         Token token;
         try {
@@ -134,6 +382,9 @@ public class GroovyDocumentScanner implements IDocumentListener {
      */
     private void reset() {
         tokens = null;
+        tokenOffsets = null;
+        tokenDepths = null;
+        lineTokenIndexes = null;
     }
 
     /**
@@ -239,32 +490,28 @@ public class GroovyDocumentScanner implements IDocumentListener {
         if (start >= end)
             return new ArrayList<Token>();
 
-        try {
-            int startTokenIndex = findTokenFrom(start);
-            if (startTokenIndex == NOT_FOUND)
-                return new ArrayList<Token>();
-
-            if (getOffset(tokens.get(startTokenIndex)) >= end)
-                return new ArrayList<Token>();
-
-            int endTokenIndex = findTokenFrom(end);
-            if (endTokenIndex == NOT_FOUND) {
-                endTokenIndex = tokens.size() - 1;
-                // Take the last token in the file as end token:
-                // Since startToken is between start and end, and since there
-                // are no
-                // tokens after end, all tokens from startToken onward should be
-                // returned!
-            } else {
-                // Actually the token before is the one we want!
-                // The one we found is >= end.
-                endTokenIndex = endTokenIndex - 1;
-            }
-            Assert.isTrue(startTokenIndex <= endTokenIndex);
-            return tokens.subList(startTokenIndex, endTokenIndex + 1);
-        } catch (BadLocationException e) {
-            throw new Error(e);
+        int startTokenIndex = findTokenFrom(start);
+        if (startTokenIndex == NOT_FOUND)
+            return new ArrayList<Token>();
+
+        if (tokenOffsets[startTokenIndex] >= end)
+            return new ArrayList<Token>();
+
+        int endTokenIndex = findTokenFrom(end);
+        if (endTokenIndex == NOT_FOUND) {
+            endTokenIndex = tokens.size() - 1;
+            // Take the last token in the file as end token:
+            // Since startToken is between start and end, and since there
+            // are no
+            // tokens after end, all tokens from startToken onward should be
+            // returned!
+        } else {
+            // Actually the token before is the one we want!
+            // The one we found is >= end.
+            endTokenIndex = endTokenIndex - 1;
         }
+        Assert.isTrue(startTokenIndex <= endTokenIndex);
+        return tokens.subList(startTokenIndex, endTokenIndex + 1);
     }
 
     /**
@@ -311,38 +558,20 @@ public class GroovyDocumentScanner implements IDocumentListener {
     protected int findTokenFrom(int offset) {
         Assert.isLegal(offset >= 0);
         ensureScanned(offset);
-        try {
-            int start = 0;
-            int end = tokens.size() - 1;
-
-            // The "candidates" are all indexes in range [start..end]
-            // We will binary search, until we either exhaust the range,
-            // or find a start that matches the condition.
-            while (start <= end) {
-                if (getOffset(tokens.get(start)) >= offset) {
-                    // start token is good: done
-                    return start;
-                } else {
-                    // start token was bad. No need to consider it anymore
-                    start++;
-                    if (start > end)
-                        return NOT_FOUND;
-                }
-                int mid = (start + end) / 2;
-                int midOfs = getOffset(tokens.get(mid));
-                if (midOfs >= offset) {
-                    // Mid token is already good (matches condition)
-                    end = mid;
-                } else {
-                    // Mid token is still bad (does not match condition)
-                    start = mid + 1;
-                }
+        ensureIndexed();
+
+        // binary search for the first token offset that is >= offset
+        int start = 0;
+        int end = tokens.size();
+        while (start < end) {
+            int mid = (start + end) >>> 1;
+            if (tokenOffsets[mid] >= offset) {
+                end = mid;
+            } else {
+                start = mid + 1;
             }
-            return NOT_FOUND;
-        } catch (BadLocationException e) {
-            throw new Error(e); // If this code works as it should exceptions
-                                // should not happen!
         }
+        return start < tokens.size() ? start : NOT_FOUND;
     }
 
     /**
@@ -384,8 +613,11 @@ public class GroovyDocumentScanner implements IDocumentListener {
      * sequence of newlines.
      */
     public List<Token> getLineTokens(int line) throws BadLocationException {
-        int lineOffset = document.getLineOffset(line);
-        return getTokens(lineOffset, lineOffset + document.getLineLength(line));
+        if (line < 0 || line >= document.getNumberOfLines()) {
+            throw new BadLocationException("Line " + line + " is not in the document");
+        }
+        ensureLineIndexed();
+        return tokens.subList(lineTokenIndexes[line], lineTokenIndexes[line + 1]);
     }
 
     /**
@@ -20,7 +20,7 @@ package org.codehaus.groovy.eclipse.refactoring.formatter;
 
 import groovyjarjarantlr.Token;
 
-import java.util.Vector;
+import java.util.List;
 
 import org.eclipse.jface.text.BadLocationException;
 import org.eclipse.text.edits.MultiTextEdit;
@@ -48,26 +48,28 @@ public class GroovyLineWrapper {
 
 	public TextEdit getLineWrapEdits() throws BadLocationException {
 
-		Vector<Vector<Token>> tokenLines = formatter.getLineTokens();
+		KlenkDocumentScanner tokens = formatter.getTokens();
+		int lineCount = tokens.getKlenkLineCount();
 
-		for(int line = 0; line < tokenLines.size(); line ++) {
-			Token lastTokenOnLine = tokenLines.get(line).get(tokenLines.get(line).size() -1);
+		for(int line = 0; line < lineCount; line ++) {
+			List<Token> lineTokens = tokens.getKlenkLineTokens(line);
+			Token lastTokenOnLine = lineTokens.get(lineTokens.size() -1);
 			if(lastTokenOnLine.getColumn() >= preferences.getMaxLineLength()) {
 
 				int offsetInLine = 0;
 
 				while(true) {
-					int lastToken = getLastTokenPositionUnderMaximum(tokenLines.get(line),offsetInLine);
-					if(lastToken > 0 && lastToken != tokenLines.get(line).size()-2) {
-						int replOffset = formatter.getOffsetOfTokenEnd(tokenLines.get(line).get(lastToken));
-						int replLength = formatter.getOffsetOfToken(tokenLines.get(line).get(lastToken + 1)) -replOffset;
+					int lastToken = getLastTokenPositionUnderMaximum(lineTokens,offsetInLine);
+					if(lastToken > 0 && lastToken != lineTokens.size()-2) {
+						int replOffset = formatter.getOffsetOfTokenEnd(lineTokens.get(lastToken));
+						int replLength = formatter.getOffsetOfToken(lineTokens.get(lastToken + 1)) -replOffset;
 						String insert = formatter.getNewLine();
 						int indentationLevel = lineIndentation.getLineIndentation(lastTokenOnLine.getLine());
 						if(!lineIndentation.isMultilineIndentation(lastTokenOnLine.getLine()))
 							indentationLevel += preferences.getIndentationMultiline();
 						String leadingGap = formatter.getLeadingGap(indentationLevel);
 						lineWraps.addChild(new ReplaceEdit(replOffset,replLength,insert + leadingGap));
-						offsetInLine = tokenLines.get(line).get(lastToken + 1).getColumn() - leadingGap.length();
+						offsetInLine = lineTokens.get(lastToken + 1).getColumn() - leadingGap.length();
 					} else
 						break;
 				}
@@ -76,7 +78,7 @@ public class GroovyLineWrapper {
 		return lineWraps;
 	}
 
-	private int getLastTokenPositionUnderMaximum(Vector<Token> vector, int offsetInLine) throws BadLocationException {
+	private int getLastTokenPositionUnderMaximum(List<Token> vector, int offsetInLine) throws BadLocationException {
 		for(int i = vector.size() -2; i >= 0; i--) {
 			Token token = vector.get(i);
 			if(token.getColumn() - offsetInLine + formatter.getTokenLength(token) <= preferences.getMaxLineLength()) {
@@ -22,6 +22,7 @@ import groovyjarjarantlr.TokenStreamException;
 import java.io.Reader;
 import java.io.StringReader;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Vector;
 
 import org.codehaus.greclipse.GroovyTokenTypeBridge;
@@ -47,24 +48,30 @@ import org.eclipse.jface.text.IDocument;
  */
 public class KlenkDocumentScanner extends GroovyDocumentScanner {
 
-    /** Tokens split up into lines */
-    private Vector<Vector<Token>> tokenLines; // FIXKDV:
-    // If we must have something like this, it could be much cheaper (memory
-    // wise) represented
-    // by only keeping an array of indexes that give the position of the first
-    // line.
-    // (Note, we could not use the document's line info for this purpose,
-    // because Mike
-    // Klenk's lines are not actually the same as document lines (some lines
-    // containing
-    // multiline stuff are skipped, so indexes in this vector do not correspond
-    // to line numbers
-    // in any meaningful way.
+    /**
+     * Tokens split up into lines, as indexes into the token list. Line i consists
+     * of the tokens at lineTokens[lineStarts[i]] up to lineTokens[lineStarts[i + 1]].
+     * (Note, Mike Klenk's lines are not actually the same as document lines,
+     * since tokens inside of strings are skipped and string constructor start
+     * tokens are not part of any line, so indexes of lines do not correspond to
+     * line numbers in any meaningful way.)
+     */
+    private int[] lineTokens;
+
+    private int[] lineStarts;
+
+    private int lineCount;
 
     public KlenkDocumentScanner(IDocument doc) {
         super(doc);
     }
 
+    @Override
+    protected boolean isIncremental() {
+        // tokens are filtered differently than in the super class, so just rescan
+        return false;
+    }
+
     @Override
     protected void ensureScanned(int end) {
         if (tokens != null)
@@ -82,8 +89,10 @@ public class KlenkDocumentScanner extends GroovyDocumentScanner {
 
         Token token = null;
         tokens = new ArrayList<Token>();
-        tokenLines = new Vector<Vector<Token>>();
-        Vector<Token> line = new Vector<Token>();
+        lineTokens = new int[256];
+        lineStarts = new int[64];
+        lineCount = 0;
+        int lineTokenCount = 0;
         try {
             while ((token = stream.nextToken()).getType() != GroovyTokenTypeBridge.EOF) {
                 if (token.getType() != GroovyTokenTypeBridge.WS) {
@@ -99,10 +108,9 @@ public class KlenkDocumentScanner extends GroovyDocumentScanner {
                         }
                     }
                     tokens.add(token);
-                    line.add(token);
+                    lineTokenCount = addLineToken(lineTokenCount, tokens.size() - 1);
                     if (token.getType() == GroovyTokenTypeBridge.NLS) {
-                        tokenLines.add(line);
-                        line = new Vector<Token>();
+                        addLine(lineTokenCount);
                     }
                 }
             }
@@ -111,8 +119,31 @@ public class KlenkDocumentScanner extends GroovyDocumentScanner {
         }
         // Adding last Line with EOF at End
         tokens.add(token);
-        line.add(token);
-        tokenLines.add(line);
+        lineTokenCount = addLineToken(lineTokenCount, tokens.size() - 1);
+        addLine(lineTokenCount);
+    }
+
+    private int addLineToken(int lineTokenCount, int tokenIndex) {
+        if (lineTokenCount == lineTokens.length) {
+            int[] grown = new int[lineTokens.length * 2];
+            System.arraycopy(lineTokens, 0, grown, 0, lineTokenCount);
+            lineTokens = grown;
+        }
+        lineTokens[lineTokenCount] = tokenIndex;
+        return lineTokenCount + 1;
+    }
+
+    /**
+     * Ends the current line. The line starts where the previous one ended.
+     */
+    private void addLine(int lineTokenCount) {
+        if (lineCount + 1 >= lineStarts.length) {
+            int[] grown = new int[lineStarts.length * 2];
+            System.arraycopy(lineStarts, 0, grown, 0, lineCount + 1);
+            lineStarts = grown;
+        }
+        lineCount += 1;
+        lineStarts[lineCount] = lineTokenCount;
     }
 
     private boolean equalTokens(Token t1, Token t2) {
@@ -129,9 +160,34 @@ public class KlenkDocumentScanner extends GroovyDocumentScanner {
         return s1.equals(s2);
     }
 
+    /**
+     * @return the number of lines, as Mike Klenk counts them
+     */
+    public int getKlenkLineCount() {
+        ensureScanned(Integer.MAX_VALUE);
+        return lineCount;
+    }
+
+    /**
+     * @return the tokens of a line, as Mike Klenk counts them
+     */
+    public List<Token> getKlenkLineTokens(int line) {
+        ensureScanned(Integer.MAX_VALUE);
+        int start = lineStarts[line], end = lineStarts[line + 1];
+        List<Token> result = new ArrayList<Token>(end - start);
+        for (int i = start; i < end; i += 1) {
+            result.add(tokens.get(lineTokens[i]));
+        }
+        return result;
+    }
+
     @Deprecated
     public Vector<Vector<Token>> getLineTokensVector() {
         ensureScanned(Integer.MAX_VALUE);
+        Vector<Vector<Token>> tokenLines = new Vector<Vector<Token>>(lineCount);
+        for (int i = 0; i < lineCount; i += 1) {
+            tokenLines.add(new Vector<Token>(getKlenkLineTokens(i)));
+        }
         return tokenLines;
     }
 
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.groovy.eclipse.refactoring.formatter;
+
+import groovyjarjarantlr.Token;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.codehaus.greclipse.GroovyTokenTypeBridge;
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.TextUtilities;
+
+/**
+ * The part of a document that must be parsed to format a range of lines in it.
+ * <p>
+ * This is either a run of top level declarations and statements, or a run of
+ * members of a top level type. The parts are found by looking at the tokens only,
+ * and always start and end at a line that follows a closing brace. Members of a
+ * type are wrapped in a dummy class, so that they can be parsed and indented the
+ * same way as in the whole document.
+ */
+class RangeFormattingContext {
+
+    private static final String WRAPPER_CLASS = "class __GroovyFormatterContext {";
+
+    /** Tokens that can continue a statement that ended with a closing brace */
+    private static final Set<String> CONTINUATIONS = new HashSet<String>(Arrays.asList(
+            "else", "catch", "finally", ".", "?.", "*.", ".&", ")", "]", "}", ",", "as", "in"));
+
+    private static final Set<String> TYPE_KEYWORDS = new HashSet<String>(Arrays.asList(
+            "class", "interface", "enum", "trait"));
+
+    /** Offset of the context in the original document */
+    final int offset;
+
+    /** Length of the context in the original document */
+    final int length;
+
+    /** Text to put before the context so it can be parsed on its own */
+    final String prefix;
+
+    /** Text to put after the context so it can be parsed on its own */
+    final String suffix;
+
+    private RangeFormattingContext(int offset, int length, String prefix, String suffix) {
+        this.offset = offset;
+        this.length = length;
+        this.prefix = prefix;
+        this.suffix = suffix;
+    }
+
+    /**
+     * @return the context of the given range of lines, or null if the whole
+     *         document needs to be formatted
+     */
+    static RangeFormattingContext find(IDocument document, int formatOffset, int formatLength) {
+        int formatEnd = formatOffset + formatLength;
+        GroovyDocumentScanner scanner = new GroovyDocumentScanner(document);
+        try {
+            List<Token> tokens = scanner.getTokens(0, document.getLength());
+
+            // closest boundaries around the range between top level statements and declarations
+            int topStart = 0, topEnd = document.getLength();
+            // closest boundaries around the range between members of a top level type
+            int memberStart = -1, memberEnd = -1;
+            int memberStartType = -1, memberEndType = -1;
+
+            int depth = 0;
+            int typeIndex = -1; // index of the opening brace of the current top level type
+            boolean seenTypeKeyword = false;
+            for (int i = 0, n = tokens.size(); i < n; i += 1) {
+                Token token = tokens.get(i);
+                int type = token.getType();
+                if (type == GroovyTokenTypeBridge.LCURLY || type == GroovyTokenTypeBridge.LBRACK
+                        || type == GroovyTokenTypeBridge.LPAREN || type == GroovyTokenTypeBridge.STRING_CTOR_START) {
+                    if (depth == 0 && type == GroovyTokenTypeBridge.LCURLY) {
+                        typeIndex = seenTypeKeyword ? i : -1;
+                        seenTypeKeyword = false;
+                    }
+                    depth += 1;
+                } else if (type == GroovyTokenTypeBridge.RCURLY || type == GroovyTokenTypeBridge.RBRACK
+                        || type == GroovyTokenTypeBridge.RPAREN || type == GroovyTokenTypeBridge.STRING_CTOR_END) {
+                    depth -= 1;
+                    if (depth < 0) {
+                        // unbalanced, can't say anything about the structure
+                        return null;
+                    }
+                } else if (depth == 0 && TYPE_KEYWORDS.contains(token.getText())
+                        && (i == 0 || !".".equals(tokens.get(i - 1).getText()))) {
+                    seenTypeKeyword = true;
+                }
+
+                if (type == GroovyTokenTypeBridge.NLS && depth <= 1 && i > 0 && i + 1 < n
+                        && tokens.get(i - 1).getType() == GroovyTokenTypeBridge.RCURLY
+                        && !CONTINUATIONS.contains(tokens.get(i + 1).getText())) {
+                    // the next line starts a new statement or member
+                    int boundary = document.getLineOffset(document.getLineOfOffset(scanner.getOffset(token)) + 1);
+                    if (depth == 0) {
+                        seenTypeKeyword = false;
+                        if (boundary <= formatOffset) {
+                            topStart = boundary;
+                        } else if (boundary >= formatEnd && topEnd == document.getLength()) {
+                            topEnd = boundary;
+                        }
+                    } else if (typeIndex >= 0) {
+                        if (boundary <= formatOffset) {
+                            memberStart = boundary;
+                            memberStartType = typeIndex;
+                        } else if (boundary >= formatEnd && memberEnd < 0) {
+                            memberEnd = boundary;
+                            memberEndType = typeIndex;
+                        }
+                    }
+                }
+            }
+
+            if (memberStart >= 0 && memberEnd >= 0 && memberStartType == memberEndType) {
+                String newLine = TextUtilities.getDefaultLineDelimiter(document);
+                return new RangeFormattingContext(memberStart, memberEnd - memberStart, WRAPPER_CLASS + newLine, newLine + "}");
+            }
+            if (topStart > 0 || topEnd < document.getLength()) {
+                return new RangeFormattingContext(topStart, topEnd - topStart, "", "");
+            }
+        } catch (BadLocationException e) {
+            // fall through and format the whole document
+        } finally {
+            scanner.dispose();
+        }
+        return null;
+    }
+}
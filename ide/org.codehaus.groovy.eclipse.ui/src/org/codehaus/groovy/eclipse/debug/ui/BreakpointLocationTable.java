@@ -0,0 +1,117 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.groovy.eclipse.debug.ui;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.codehaus.groovy.ast.ASTNode;
+import org.codehaus.groovy.ast.ClassNode;
+import org.codehaus.groovy.ast.FieldNode;
+import org.codehaus.groovy.ast.ModuleNode;
+import org.codehaus.groovy.ast.expr.ClosureExpression;
+import org.codehaus.groovy.ast.expr.DeclarationExpression;
+import org.codehaus.groovy.ast.expr.Expression;
+import org.codehaus.groovy.ast.stmt.Statement;
+import org.codehaus.groovy.eclipse.core.search.LexicalClassVisitor;
+
+/**
+ * The nodes of a module that a breakpoint can be put on, ordered by line, so
+ * that the valid location for a line is found with a binary search. The table
+ * is built with a single lexical walk of the module and is meant to be kept
+ * with the module (see {@link ValidBreakpointLocationFinder}).
+ */
+public final class BreakpointLocationTable {
+
+    private final int[] lines;
+
+    private final ASTNode[] nodes;
+
+    public BreakpointLocationTable(ModuleNode module) {
+        List<ASTNode> valid = new ArrayList<ASTNode>();
+        LexicalClassVisitor visitor = new LexicalClassVisitor(module);
+        boolean skipNext = false;
+        while (visitor.hasNextNode()) {
+            ASTNode node = visitor.getNextNode();
+            // can't set a breakpoint at a variable declaration that has
+            // no initializer
+            if (node instanceof DeclarationExpression) {
+                skipNext = true;
+                Expression rightExpression = ((DeclarationExpression) node).getRightExpression();
+                if (rightExpression == null || "null".equals(rightExpression.getText())) {
+                    continue;
+                }
+            } else if (skipNext) {
+                // variable expression in a declaration expression
+                skipNext = false;
+            } else if (isValid(node)) {
+                valid.add(node);
+            }
+        }
+        // the sort is stable, so the nodes of a line stay in lexical order
+        Collections.sort(valid, new Comparator<ASTNode>() {
+            public int compare(ASTNode n1, ASTNode n2) {
+                return n1.getLineNumber() < n2.getLineNumber() ? -1 : (n1.getLineNumber() == n2.getLineNumber() ? 0 : 1);
+            }
+        });
+        lines = new int[valid.size()];
+        nodes = valid.toArray(new ASTNode[valid.size()]);
+        for (int i = 0; i < nodes.length; i++) {
+            lines[i] = nodes[i].getLineNumber();
+        }
+    }
+
+    private static boolean isValid(ASTNode node) {
+        // can't set a breakpoint at these locations
+        return node.getLineNumber() != -1 && !(node instanceof Statement) && !(node instanceof ClosureExpression)
+                && !(node instanceof ClassNode) && /* !(node instanceof MethodNode) && */!(node instanceof FieldNode);
+    }
+
+    /**
+     * @return the last valid location on the line, or if there is none, the
+     *         first valid location after it, or null if there is none either
+     */
+    public ASTNode find(int line) {
+        int first = firstIndexAfter(line - 1);
+        if (first == lines.length) {
+            return null;
+        }
+        if (lines[first] == line) {
+            return nodes[firstIndexAfter(line) - 1];
+        }
+        return nodes[first];
+    }
+
+    /**
+     * @return the index of the first location on a line greater than the
+     *         given one, or the number of locations if there is none
+     */
+    private int firstIndexAfter(int line) {
+        int low = 0;
+        int high = lines.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (lines[mid] <= line) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
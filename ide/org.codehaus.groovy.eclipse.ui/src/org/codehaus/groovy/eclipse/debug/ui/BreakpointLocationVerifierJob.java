@@ -21,8 +21,8 @@ import java.util.Map;
 import org.codehaus.groovy.ast.ASTNode;
 import org.codehaus.groovy.ast.ClassNode;
 import org.codehaus.groovy.ast.MethodNode;
-import org.codehaus.groovy.ast.ModuleNode;
 import org.codehaus.jdt.groovy.model.GroovyCompilationUnit;
+import org.codehaus.jdt.groovy.model.ModuleNodeMapper.ModuleNodeInfo;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.runtime.CoreException;
@@ -103,12 +103,12 @@ public class BreakpointLocationVerifierJob extends Job {
     public IStatus run(IProgressMonitor monitor) {
 		ICompilationUnit cu = JavaCore.createCompilationUnitFrom((IFile) fResource);
 		try {
-		    ModuleNode node = null;
+		    ModuleNodeInfo info = null;
 		    if (cu instanceof GroovyCompilationUnit) {
-		        node = ((GroovyCompilationUnit) cu).getModuleNode();
+		        info = ((GroovyCompilationUnit) cu).getModuleInfo(true);
 		    }
 
-		    if (node == null) {
+		    if (info == null || info.module == null) {
 		        return new Status(IStatus.WARNING, JDIDebugUIPlugin.getUniqueIdentifier(), IStatus.ERROR, ActionMessages.BreakpointLocationVerifierJob_not_valid_location, null);
 		    }
 
@@ -116,7 +116,7 @@ public class BreakpointLocationVerifierJob extends Job {
                 DebugPlugin.getDefault().getBreakpointManager().removeBreakpoint(fBreakpoint, true);
             }
 		    ValidBreakpointLocationFinder finder = new ValidBreakpointLocationFinder(fLineNumber);
-		    ASTNode valid = finder.findValidBreakpointLocation(node);
+		    ASTNode valid = finder.findValidBreakpointLocation(info);
             if (valid instanceof MethodNode && ((MethodNode) valid).getNameEnd() > 0) {
                 createNewMethodBreakpoint((MethodNode) valid, fTypeName);
                 return new Status(IStatus.OK, JDIDebugUIPlugin.getUniqueIdentifier(), IStatus.OK,
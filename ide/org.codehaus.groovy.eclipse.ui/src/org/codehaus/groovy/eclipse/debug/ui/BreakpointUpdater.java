@@ -19,6 +19,7 @@ package org.codehaus.groovy.eclipse.debug.ui;
 import org.codehaus.groovy.ast.ASTNode;
 import org.codehaus.groovy.eclipse.core.GroovyCore;
 import org.codehaus.jdt.groovy.model.GroovyCompilationUnit;
+import org.codehaus.jdt.groovy.model.ModuleNodeMapper.ModuleNodeInfo;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IMarker;
 import org.eclipse.core.resources.IResource;
@@ -79,7 +80,11 @@ public class BreakpointUpdater implements IMarkerUpdater {
             if (attribute != null) {
                 ValidBreakpointLocationFinder finder = new ValidBreakpointLocationFinder(
                         ((Integer) attribute).intValue());
-                ASTNode validNode = finder.findValidBreakpointLocation(unit.getModuleNode());
+                ModuleNodeInfo info = unit.getModuleInfo(true);
+                if (info == null || info.module == null) {
+                    return false;
+                }
+                ASTNode validNode = finder.findValidBreakpointLocation(info);
                 if (validNode == null) {
                     return false;
                 }
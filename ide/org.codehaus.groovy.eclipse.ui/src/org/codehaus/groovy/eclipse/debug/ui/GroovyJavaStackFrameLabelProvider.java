@@ -34,20 +34,20 @@ import org.eclipse.swt.graphics.RGB;
 class GroovyJavaStackFrameLabelProvider extends JavaStackFrameLabelProvider implements IPropertyChangeListener {
     
     private boolean isEnabled;
-    private String[] filteredList;
+    private volatile StackFrameFilter filter;
     private IPreferenceStore preferenceStore;
     public GroovyJavaStackFrameLabelProvider() {
         preferenceStore = GroovyPlugin.getDefault().getPreferenceStore();
         isEnabled = preferenceStore.getBoolean(PreferenceConstants.GROOVY_DEBUG_FILTER_STACK);
-        filteredList = computeFilteredList();
+        filter = computeFilter();
     }
 	
-    private String[] computeFilteredList() {
-        String filter = preferenceStore.getString(PreferenceConstants.GROOVY_DEBUG_FILTER_LIST);
-        if (filter != null) {
-            return filter.split(",");
+    private StackFrameFilter computeFilter() {
+        String filterList = preferenceStore.getString(PreferenceConstants.GROOVY_DEBUG_FILTER_LIST);
+        if (filterList != null) {
+            return new StackFrameFilter(filterList.split(","));
         } else {
-            return new String[0];
+            return new StackFrameFilter(new String[0]);
         }
     }
 
@@ -58,7 +58,7 @@ class GroovyJavaStackFrameLabelProvider extends JavaStackFrameLabelProvider impl
 		    Object element = update.getElement();
 			if (element instanceof IJavaStackFrame) {
 			    IJavaStackFrame frame = (IJavaStackFrame) element;
-			    if (isFiltered(frame.getDeclaringTypeName())) {
+			    if (filter.isFiltered(frame.getDeclaringTypeName())) {
 			        try {
 			            update.setForeground(new RGB(200, 200, 200), 0);
 			        } catch (ArrayIndexOutOfBoundsException e) {
@@ -71,20 +71,11 @@ class GroovyJavaStackFrameLabelProvider extends JavaStackFrameLabelProvider impl
 		}
 	}
     
-    private boolean isFiltered(String qualifiedName) {
-        for (String filter : filteredList) {
-            if (qualifiedName.startsWith(filter)) {
-                return true;
-            }
-        }
-        return false;
-    }
-
     public void propertyChange(PropertyChangeEvent event) {
         if (PreferenceConstants.GROOVY_DEBUG_FILTER_STACK.equals(event.getProperty())) {
             isEnabled = preferenceStore.getBoolean(PreferenceConstants.GROOVY_DEBUG_FILTER_STACK);
         } else if (PreferenceConstants.GROOVY_DEBUG_FILTER_LIST.equals(event.getProperty())) {
-            filteredList = computeFilteredList();
+            filter = computeFilter();
         }
     }
 	
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.groovy.eclipse.debug.ui;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tells which declaring types of stack frames are filtered, ie- start with
+ * one of the prefixes of the filter list. The prefixes are kept in a trie, so
+ * that a type name is matched against all of them in one pass, and the answer
+ * for each type name is remembered, since the same types show up in every
+ * frame of a groovy call stack and the stack is labelled again on every step.
+ * <p>
+ * A filter is made for one filter list; a new one is made when the list
+ * changes.
+ */
+public final class StackFrameFilter {
+
+    private static final class Node {
+        final Map<Character, Node> children = new HashMap<Character, Node>();
+        boolean isPrefix;
+    }
+
+    private final Node root = new Node();
+
+    // labels are retrieved by more than one thread
+    private final Map<String, Boolean> verdicts = new ConcurrentHashMap<String, Boolean>();
+
+    /**
+     * @param prefixes the filter list, empty entries are ignored
+     */
+    public StackFrameFilter(String[] prefixes) {
+        for (String prefix : prefixes) {
+            if (prefix.length() > 0) {
+                add(prefix);
+            }
+        }
+    }
+
+    private void add(String prefix) {
+        Node node = root;
+        for (int i = 0; i < prefix.length(); i++) {
+            Character c = prefix.charAt(i);
+            Node child = node.children.get(c);
+            if (child == null) {
+                child = new Node();
+                node.children.put(c, child);
+            }
+            node = child;
+        }
+        node.isPrefix = true;
+    }
+
+    /**
+     * @return true if the type name starts with one of the prefixes
+     */
+    public boolean isFiltered(String qualifiedName) {
+        Boolean verdict = verdicts.get(qualifiedName);
+        if (verdict == null) {
+            verdict = matches(qualifiedName);
+            verdicts.put(qualifiedName, verdict);
+        }
+        return verdict;
+    }
+
+    private boolean matches(String qualifiedName) {
+        Node node = root;
+        for (int i = 0; i < qualifiedName.length(); i++) {
+            if (node.isPrefix) {
+                return true;
+            }
+            node = node.children.get(qualifiedName.charAt(i));
+            if (node == null) {
+                return false;
+            }
+        }
+        return node.isPrefix;
+    }
+}
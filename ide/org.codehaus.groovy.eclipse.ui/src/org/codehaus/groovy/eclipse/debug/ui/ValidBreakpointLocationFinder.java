@@ -16,14 +16,8 @@
 package org.codehaus.groovy.eclipse.debug.ui;
 
 import org.codehaus.groovy.ast.ASTNode;
-import org.codehaus.groovy.ast.ClassNode;
-import org.codehaus.groovy.ast.FieldNode;
 import org.codehaus.groovy.ast.ModuleNode;
-import org.codehaus.groovy.ast.expr.ClosureExpression;
-import org.codehaus.groovy.ast.expr.DeclarationExpression;
-import org.codehaus.groovy.ast.expr.Expression;
-import org.codehaus.groovy.ast.stmt.Statement;
-import org.codehaus.groovy.eclipse.core.search.LexicalClassVisitor;
+import org.codehaus.jdt.groovy.model.ModuleNodeMapper.ModuleNodeInfo;
 
 /**
  * @author Andrew Eisenberg
@@ -33,63 +27,27 @@ import org.codehaus.groovy.eclipse.core.search.LexicalClassVisitor;
  * The result is the first valid location with a line number greater or equals than the given position.
  * A valid location is considered to be the last expression or statement on a given line
  *
+ * The locations are looked up in a {@link BreakpointLocationTable}, which is kept with the module
+ * when the module info is given.
  */
 public class ValidBreakpointLocationFinder {
 
-    private class VisitCompleted extends RuntimeException {
-        private static final long serialVersionUID = 1L;
-    }
-
-    private ASTNode lastValid = null;
-
     private int startLine;
 
     public ValidBreakpointLocationFinder(int startLine) {
         this.startLine = startLine;
     }
 
-    private void validateNode(ASTNode node) throws VisitCompleted {
-
-        // can't set a breakpoint at these locations
-        if (node.getLineNumber() == -1 || node instanceof Statement || node instanceof ClosureExpression
-                || node instanceof ClassNode || /* node instanceof MethodNode || */node instanceof FieldNode) {
-            return;
-        }
-
-        if (node.getLineNumber() == startLine) {
-            lastValid = node;
-            // keep on searching until the line is over
-        } else if (node.getLineNumber() > startLine) {
-            if (lastValid == null) {
-                lastValid = node;
-            }
-            throw new VisitCompleted();
-        }
+    public ASTNode findValidBreakpointLocation(ModuleNode module) {
+        return new BreakpointLocationTable(module).find(startLine);
     }
 
-    public ASTNode findValidBreakpointLocation(ModuleNode module) {
-        LexicalClassVisitor visitor = new LexicalClassVisitor(module);
-        try {
-            boolean skipNext = false;
-            while (visitor.hasNextNode()) {
-                ASTNode node = visitor.getNextNode();
-                // can't set a breakpoint at a variable declaration that has
-                // no initializer
-                if (node instanceof DeclarationExpression) {
-                    skipNext = true;
-                    Expression rightExpression = ((DeclarationExpression) node).getRightExpression();
-                    if (rightExpression == null || "null".equals(rightExpression.getText())) {
-                        continue;
-                    }
-                } else if (skipNext) {
-                    // variable expression in a declaration expression with no
-                    // initializer
-                    skipNext = false;
-                } else {
-                    validateNode(node);
-                }
-            }
-        } catch (VisitCompleted vc) {}
-        return lastValid;
+    public ASTNode findValidBreakpointLocation(ModuleNodeInfo moduleInfo) {
+        BreakpointLocationTable table = moduleInfo.getDerived(BreakpointLocationTable.class);
+        if (table == null) {
+            table = new BreakpointLocationTable(moduleInfo.module);
+            moduleInfo.putDerived(BreakpointLocationTable.class, table);
+        }
+        return table.find(startLine);
     }
 }
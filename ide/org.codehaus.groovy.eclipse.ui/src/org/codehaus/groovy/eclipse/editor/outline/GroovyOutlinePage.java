@@ -53,7 +53,12 @@ public class GroovyOutlinePage extends JavaOutlinePage {
 
         JavaOutlineViewer outlineViewer = getOutlineViewer();
         if (outlineViewer != null) {
-            outlineViewer.refresh();
+            OutlineDelta delta = outlineUnit.getLastDelta();
+            if (delta == null) {
+                outlineViewer.refresh();
+            } else if (!delta.isEmpty()) {
+                delta.applyTo(outlineViewer);
+            }
         }
     }
 
@@ -76,6 +76,16 @@ class GroovyScriptOCompilationUnit extends OCompilationUnit {
         super(unit);
     }
 
+    /**
+     * The outline is made from the module and from the java model of the unit,
+     * and both are replaced by a reconcile, so there is nothing to do (eg- when
+     * only the caret moved) until the unit has a new module
+     */
+    @Override
+    protected boolean isUpToDate(ASTNode node) {
+        return node != null && node == getNode();
+    }
+
     @Override
     public IJavaElement[] refreshChildren() {
         ModuleNode node = (ModuleNode) getNode();
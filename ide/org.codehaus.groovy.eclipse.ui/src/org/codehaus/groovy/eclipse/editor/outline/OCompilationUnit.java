@@ -38,6 +38,12 @@ public abstract class OCompilationUnit extends GroovyCompilationUnit implements
 
     private IJavaElement[] children = null;
 
+    /** The node that the children were computed for */
+    private ASTNode refreshedNode = null;
+
+    /** What the latest refresh changed, null if not known */
+    private OutlineDelta delta = null;
+
     public OCompilationUnit(GroovyCompilationUnit unit) {
         super((PackageFragment) unit.getParent(), unit.getElementName(), unit.getOwner());
         this.unit = unit;
@@ -82,14 +88,47 @@ public abstract class OCompilationUnit extends GroovyCompilationUnit implements
     }
 
     /**
-     * refresh children
+     * Tells if the children computed for a node are still valid. Defaults to
+     * false, so the children are computed again on every refresh.
+     *
+     * Can override if the children only depend on the node
+     *
+     * @param node the node that the current children were computed for
+     */
+    protected boolean isUpToDate(ASTNode node) {
+        return false;
+    }
+
+    /**
+     * refresh children, keeping the elements that did not change (see
+     * {@link OutlineDelta})
      */
     protected void refresh() {
+        delta = null;
         if (this.exists()) {
-            this.children = refreshChildren();
+            if (children != null && isUpToDate(refreshedNode)) {
+                delta = new OutlineDelta();
+                return;
+            }
+            ASTNode node = getNode();
+            IJavaElement[] newChildren = refreshChildren();
+            if (children != null && newChildren != null) {
+                delta = new OutlineDelta();
+                newChildren = delta.merge(this, children, newChildren);
+            }
+            this.children = newChildren;
+            this.refreshedNode = node;
         }
     }
 
+    /**
+     * @return what the latest refresh changed in the children, or null if it
+     *         is not known (eg- the children were computed for the first time)
+     */
+    public OutlineDelta getLastDelta() {
+        return delta;
+    }
+
     /**
      * get children
      */
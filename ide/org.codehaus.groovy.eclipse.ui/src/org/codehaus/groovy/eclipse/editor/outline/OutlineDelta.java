@@ -0,0 +1,223 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.groovy.eclipse.editor.outline;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.codehaus.groovy.ast.ASTNode;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IMember;
+import org.eclipse.jdt.core.IParent;
+import org.eclipse.jdt.core.JavaModelException;
+import org.eclipse.jface.viewers.AbstractTreeViewer;
+
+/**
+ * What a refresh of an {@link OCompilationUnit} changed in its outline, so
+ * that the viewer is told about the elements that were added, removed or
+ * updated instead of being refreshed as a whole.
+ * <p>
+ * The delta is made while the new children are merged with the old ones: an
+ * outline element that has the same kind, name, displayed type, parameter
+ * types and flags as an old one is not replaced, the old instance is kept and
+ * given the new node (its source range may have moved), and its label is
+ * updated. The children of kept {@link OType}s are merged the same way.
+ * Elements of the java model (eg- the members of a class declared in a
+ * script) are handles, so the old handle is kept if it is equal to the new
+ * one, and its subtree is refreshed since it is not known what changed below
+ * it.
+ * <p>
+ * The viewer appends the elements that are added to it and does not move
+ * the ones it has. So if the kept children of a parent changed their order,
+ * or a child was added in front of a kept one, the parent is refreshed
+ * instead.
+ */
+public class OutlineDelta {
+
+    private final List<Object> removed = new ArrayList<Object>();
+
+    private final Map<Object, List<Object>> added = new LinkedHashMap<Object, List<Object>>();
+
+    private final List<Object> refreshed = new ArrayList<Object>();
+
+    private final List<Object> updated = new ArrayList<Object>();
+
+    /**
+     * Merges the new children of the parent with the old ones and records
+     * the differences in this delta.
+     *
+     * @return the new children, with the old instances in place of the ones
+     *         that did not change, in the order of the new children
+     */
+    public IJavaElement[] merge(Object parent, IJavaElement[] oldChildren, IJavaElement[] newChildren) {
+        List<IJavaElement> unmatched = new ArrayList<IJavaElement>();
+        for (IJavaElement oldChild : oldChildren) {
+            unmatched.add(oldChild);
+        }
+        IJavaElement[] merged = new IJavaElement[newChildren.length];
+        List<Object> addedChildren = new ArrayList<Object>();
+        // true while appending the added children gives the right order
+        boolean inOrder = true;
+        int lastOldIndex = -1;
+        for (int i = 0; i < newChildren.length; i++) {
+            IJavaElement newChild = newChildren[i];
+            IJavaElement oldChild = removeMatch(unmatched, newChild);
+            if (oldChild == null) {
+                addedChildren.add(newChild);
+                merged[i] = newChild;
+            } else {
+                int oldIndex = indexOf(oldChildren, oldChild);
+                if (oldIndex < lastOldIndex || !addedChildren.isEmpty()) {
+                    inOrder = false;
+                }
+                lastOldIndex = oldIndex;
+                update(oldChild, newChild);
+                merged[i] = oldChild;
+            }
+        }
+        removed.addAll(unmatched);
+        if (!inOrder) {
+            refreshed.add(parent);
+        } else if (!addedChildren.isEmpty()) {
+            added.put(parent, addedChildren);
+        }
+        return merged;
+    }
+
+    /**
+     * @return true if nothing was added or removed and no subtree has to be
+     *         refreshed
+     */
+    public boolean isEmpty() {
+        return removed.isEmpty() && added.isEmpty() && refreshed.isEmpty() && updated.isEmpty();
+    }
+
+    /**
+     * Tells the viewer about the changes
+     */
+    public void applyTo(AbstractTreeViewer viewer) {
+        if (!removed.isEmpty()) {
+            viewer.remove(removed.toArray());
+        }
+        for (Map.Entry<Object, List<Object>> entry : added.entrySet()) {
+            viewer.add(entry.getKey(), entry.getValue().toArray());
+        }
+        for (Object element : refreshed) {
+            viewer.refresh(element);
+        }
+        if (!updated.isEmpty()) {
+            viewer.update(updated.toArray(), null);
+        }
+    }
+
+    private static int indexOf(IJavaElement[] elements, IJavaElement element) {
+        for (int i = 0; i < elements.length; i++) {
+            if (elements[i] == element) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static IJavaElement removeMatch(List<IJavaElement> candidates, IJavaElement element) {
+        for (int i = 0; i < candidates.size(); i++) {
+            if (isSame(candidates.get(i), element)) {
+                return candidates.remove(i);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return true if the old element can stand for the new one, ie- the
+     *         outline shows them the same way
+     */
+    private static boolean isSame(IJavaElement oldElement, IJavaElement newElement) {
+        if (oldElement.getClass() != newElement.getClass()) {
+            return false;
+        }
+        if (!(newElement instanceof IOJavaElement)) {
+            return oldElement.equals(newElement);
+        }
+        if (oldElement.getElementType() != newElement.getElementType()
+                || !oldElement.getElementName().equals(newElement.getElementName())) {
+            return false;
+        }
+        if (newElement instanceof IMember && !sameFlags((IMember) oldElement, (IMember) newElement)) {
+            return false;
+        }
+        if (newElement instanceof OField) {
+            return equal(((OField) oldElement).getTypeSignature(), ((OField) newElement).getTypeSignature());
+        }
+        if (newElement instanceof OMethod) {
+            OMethod oldMethod = (OMethod) oldElement;
+            OMethod newMethod = (OMethod) newElement;
+            return equal(oldMethod.getReturnTypeName(), newMethod.getReturnTypeName())
+                    && Arrays.equals(oldMethod.getParameterTypes(), newMethod.getParameterTypes());
+        }
+        return true;
+    }
+
+    private static boolean sameFlags(IMember oldMember, IMember newMember) {
+        try {
+            return oldMember.getFlags() == newMember.getFlags();
+        } catch (JavaModelException e) {
+            return false;
+        }
+    }
+
+    private static boolean equal(Object o1, Object o2) {
+        return o1 == null ? o2 == null : o1.equals(o2);
+    }
+
+    /**
+     * Gives the old element the node of the new one. Its label is updated,
+     * since it may show more of the node than was compared (eg- the
+     * decorations for problems in its range).
+     */
+    private void update(IJavaElement oldElement, IJavaElement newElement) {
+        ASTNode oldNode = null;
+        ASTNode newNode = null;
+        if (oldElement instanceof OType) {
+            OType oldType = (OType) oldElement;
+            OType newType = (OType) newElement;
+            oldNode = oldType.node;
+            newNode = oldType.node = newType.node;
+            List<IMember> oldChildren = oldType.getChildrenList();
+            List<IMember> newChildren = newType.getChildrenList();
+            IJavaElement[] merged = merge(oldType, oldChildren.toArray(new IJavaElement[oldChildren.size()]),
+                    newChildren.toArray(new IJavaElement[newChildren.size()]));
+            oldChildren.clear();
+            for (IJavaElement child : merged) {
+                oldChildren.add((IMember) child);
+            }
+        } else if (oldElement instanceof OMethod) {
+            oldNode = ((OMethod) oldElement).node;
+            newNode = ((OMethod) oldElement).node = ((OMethod) newElement).node;
+        } else if (oldElement instanceof OField) {
+            oldNode = ((OField) oldElement).node;
+            newNode = ((OField) oldElement).node = ((OField) newElement).node;
+        } else if (oldElement instanceof IParent) {
+            refreshed.add(oldElement);
+        }
+        if (oldNode != newNode) {
+            updated.add(oldElement);
+        }
+    }
+}
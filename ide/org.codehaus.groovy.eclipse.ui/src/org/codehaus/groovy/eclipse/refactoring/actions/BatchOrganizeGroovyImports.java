@@ -0,0 +1,198 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.groovy.eclipse.refactoring.actions;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.codehaus.groovy.eclipse.core.GroovyCore;
+import org.codehaus.jdt.groovy.model.GroovyCompilationUnit;
+import org.eclipse.core.resources.IWorkspaceRunnable;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.JavaModelException;
+import org.eclipse.jdt.core.search.TypeNameMatch;
+import org.eclipse.jdt.internal.corext.codemanipulation.OrganizeImportsOperation.IChooseImportQuery;
+import org.eclipse.text.edits.TextEdit;
+
+/**
+ * Organizes the imports of many groovy files at once.
+ * <p>
+ * Unresolved references of all units are collected first and then resolved
+ * with a single type name search per project, instead of one search per unit.
+ * Walking the units and computing the edits is done on a small pool of
+ * worker threads, and all edits are applied in one workspace operation.
+ */
+public class BatchOrganizeGroovyImports {
+
+    private final List<OrganizeGroovyImports> operations;
+
+    public BatchOrganizeGroovyImports(GroovyCompilationUnit[] units, IChooseImportQuery query) {
+        operations = new ArrayList<OrganizeGroovyImports>(units.length);
+        for (GroovyCompilationUnit unit : units) {
+            operations.add(new OrganizeGroovyImports(unit, query));
+        }
+    }
+
+    /**
+     * Allows each unit to have its own query
+     */
+    public BatchOrganizeGroovyImports(List<OrganizeGroovyImports> operations) {
+        this.operations = operations;
+    }
+
+    /**
+     * Computes the import edits of all units.
+     *
+     * @return map from unit to its import edit.  The edit is null if
+     *         there was a problem with the unit (eg- a syntax error)
+     */
+    public Map<GroovyCompilationUnit, TextEdit> calculateMissingImports(IProgressMonitor monitor) {
+        if (monitor == null) {
+            monitor = new NullProgressMonitor();
+        }
+        monitor.beginTask("Organizing groovy imports", operations.size() * 2 + 1);
+        ExecutorService executor = Executors.newFixedThreadPool(
+                Math.max(1, Math.min(operations.size(), Runtime.getRuntime().availableProcessors())));
+        try {
+            // walk all modules and collect the unresolved references
+            List<Callable<Boolean>> collectors = new ArrayList<Callable<Boolean>>(operations.size());
+            for (final OrganizeGroovyImports op : operations) {
+                collectors.add(new Callable<Boolean>() {
+                    public Boolean call() {
+                        return op.collectReferences();
+                    }
+                });
+            }
+            List<Boolean> collected = runAll(executor, collectors, monitor);
+
+            // one type name search per project for all of the missing types
+            Map<IJavaProject, Set<String>> namesByProject = new LinkedHashMap<IJavaProject, Set<String>>();
+            for (int i = 0, n = operations.size(); i < n; i += 1) {
+                if (Boolean.TRUE.equals(collected.get(i))) {
+                    OrganizeGroovyImports op = operations.get(i);
+                    IJavaProject project = op.getUnit().getJavaProject();
+                    Set<String> names = namesByProject.get(project);
+                    if (names == null) {
+                        names = new HashSet<String>();
+                        namesByProject.put(project, names);
+                    }
+                    names.addAll(op.getMissingTypeNames());
+                }
+            }
+            final Map<IJavaProject, Map<String, List<TypeNameMatch>>> typeIndexes =
+                new LinkedHashMap<IJavaProject, Map<String, List<TypeNameMatch>>>();
+            TypeSearch search = new TypeSearch();
+            for (Map.Entry<IJavaProject, Set<String>> entry : namesByProject.entrySet()) {
+                try {
+                    typeIndexes.put(entry.getKey(), search.searchForTypeNames(entry.getKey(), entry.getValue()));
+                } catch (JavaModelException e) {
+                    GroovyCore.logException("Exception thrown when searching for types in " + entry.getKey().getElementName(), e);
+                }
+            }
+            monitor.worked(1);
+
+            // compute the edits
+            List<Callable<TextEdit>> rewriters = new ArrayList<Callable<TextEdit>>(operations.size());
+            for (int i = 0, n = operations.size(); i < n; i += 1) {
+                final OrganizeGroovyImports op = operations.get(i);
+                final boolean ok = Boolean.TRUE.equals(collected.get(i));
+                rewriters.add(new Callable<TextEdit>() {
+                    public TextEdit call() {
+                        if (!ok) {
+                            return null;
+                        }
+                        Map<String, List<TypeNameMatch>> typeIndex = typeIndexes.get(op.getUnit().getJavaProject());
+                        if (typeIndex == null) {
+                            typeIndex = Collections.emptyMap();
+                        }
+                        return op.rewriteImports(typeIndex);
+                    }
+                });
+            }
+            List<TextEdit> edits = runAll(executor, rewriters, monitor);
+
+            Map<GroovyCompilationUnit, TextEdit> result = new LinkedHashMap<GroovyCompilationUnit, TextEdit>();
+            for (int i = 0, n = operations.size(); i < n; i += 1) {
+                result.put(operations.get(i).getUnit(), edits.get(i));
+            }
+            return result;
+        } finally {
+            executor.shutdownNow();
+            monitor.done();
+        }
+    }
+
+    /**
+     * Computes the import edits of all units and applies them in a single workspace operation.
+     *
+     * @return the units that could not be organized
+     */
+    public List<GroovyCompilationUnit> calculateAndApplyMissingImports(IProgressMonitor monitor) throws CoreException {
+        final Map<GroovyCompilationUnit, TextEdit> edits = calculateMissingImports(monitor);
+        final List<GroovyCompilationUnit> failed = new ArrayList<GroovyCompilationUnit>();
+        JavaCore.run(new IWorkspaceRunnable() {
+            public void run(IProgressMonitor monitor) throws CoreException {
+                for (Map.Entry<GroovyCompilationUnit, TextEdit> entry : edits.entrySet()) {
+                    if (entry.getValue() != null) {
+                        entry.getKey().applyTextEdit(entry.getValue(), null);
+                    } else {
+                        failed.add(entry.getKey());
+                    }
+                }
+            }
+        }, monitor);
+        return failed;
+    }
+
+    private <T> List<T> runAll(ExecutorService executor, List<Callable<T>> tasks, IProgressMonitor monitor) {
+        List<Future<T>> futures = new ArrayList<Future<T>>(tasks.size());
+        for (Callable<T> task : tasks) {
+            futures.add(executor.submit(task));
+        }
+        List<T> results = new ArrayList<T>(tasks.size());
+        for (Future<T> future : futures) {
+            if (monitor.isCanceled()) {
+                throw new OperationCanceledException();
+            }
+            try {
+                results.add(future.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new OperationCanceledException();
+            } catch (ExecutionException e) {
+                GroovyCore.logException("Exception thrown when organizing imports", e.getCause());
+                results.add(null);
+            }
+            monitor.worked(1);
+        }
+        return results;
+    }
+}
@@ -48,6 +48,7 @@ public class GroovyCleanupPostSaveListener extends CleanUpPostSaveListener imple
         boolean doImports = false;
         boolean doFormat = false;
         boolean doIndent = false;
+        boolean changesOnly = false;
 
         IPreferenceStore groovyPreferences = GroovyPlugin.getDefault().getPreferenceStore();
         boolean doSemicolonRemoval = groovyPreferences.getBoolean(PreferenceConstants.GROOVY_SAVE_ACTION_REMOVE_UNNECESSARY_SEMICOLONS);
@@ -58,10 +59,8 @@ public class GroovyCleanupPostSaveListener extends CleanUpPostSaveListener imple
                 doImports = true;
             } else if (cleanup instanceof CodeFormatCleanUp) {
                 if (options.isEnabled(CleanUpConstants.FORMAT_SOURCE_CODE)) {
-                    // FIXKDV: commented out option below is ignored, does
-                    // formatter have a function to only format portion of file?
-                    // options.isEnabled(CleanUpConstants.FORMAT_SOURCE_CODE_CHANGES_ONLY))
                     doFormat = true;
+                    changesOnly = options.isEnabled(CleanUpConstants.FORMAT_SOURCE_CODE_CHANGES_ONLY);
                 } else if (options.isEnabled(CleanUpConstants.FORMAT_CORRECT_INDENTATION)) {
                     doIndent = true;
                 }
@@ -74,7 +73,7 @@ public class GroovyCleanupPostSaveListener extends CleanUpPostSaveListener imple
             groovyCleanUps.add(new GroovyImportsCleanUp());
         }
         if (doFormat) {
-            groovyCleanUps.add(new GroovyCodeFormatCleanUp(FormatKind.FORMAT));
+            groovyCleanUps.add(new GroovyCodeFormatCleanUp(FormatKind.FORMAT, changesOnly));
         } else if (doIndent) {
             // indent == true && format == false
             groovyCleanUps.add(new GroovyCodeFormatCleanUp(FormatKind.INDENT_ONLY));
@@ -22,12 +22,18 @@ import org.codehaus.jdt.groovy.model.GroovyCompilationUnit;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.jdt.core.ICompilationUnit;
 import org.eclipse.jdt.internal.corext.fix.TextEditFix;
+import org.eclipse.jdt.internal.ui.fix.IMultiLineCleanUp.MultiLineCleanUpContext;
 import org.eclipse.jdt.ui.cleanup.CleanUpContext;
+import org.eclipse.jdt.ui.cleanup.CleanUpRequirements;
 import org.eclipse.jdt.ui.cleanup.ICleanUpFix;
+import org.eclipse.jface.text.BadLocationException;
 import org.eclipse.jface.text.Document;
 import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IRegion;
 import org.eclipse.jface.text.ITextSelection;
 import org.eclipse.jface.text.TextSelection;
+import org.eclipse.text.edits.MalformedTreeException;
+import org.eclipse.text.edits.MultiTextEdit;
 import org.eclipse.text.edits.TextEdit;
 
 /**
@@ -38,8 +44,21 @@ public class GroovyCodeFormatCleanUp extends AbstractGroovyCleanUp {
 
     private final FormatKind kind;
 
+    /** If true, only the regions changed since the last save are formatted */
+    private final boolean changesOnly;
+
     public GroovyCodeFormatCleanUp(FormatKind kind) {
+        this(kind, false);
+    }
+
+    public GroovyCodeFormatCleanUp(FormatKind kind, boolean changesOnly) {
         this.kind = kind;
+        this.changesOnly = changesOnly;
+    }
+
+    @Override
+    public CleanUpRequirements getRequirements() {
+        return new CleanUpRequirements(false, false, changesOnly, null);
     }
 
     @Override
@@ -57,12 +76,60 @@ public class GroovyCodeFormatCleanUp extends AbstractGroovyCleanUp {
         boolean isIndentOnly = kind == FormatKind.INDENT_ONLY;
         IFormatterPreferences preferences = new FormatterPreferences(gunit);
 
-        DefaultGroovyFormatter formatter = new DefaultGroovyFormatter(sel, doc, preferences, isIndentOnly);
-        TextEdit edit = formatter.format();
+        TextEdit edit = null;
+        if (changesOnly && context instanceof MultiLineCleanUpContext) {
+            IRegion[] regions = ((MultiLineCleanUpContext) context).getRegions();
+            if (regions == null || regions.length == 0) {
+                return null;
+            }
+            edit = formatRegions(regions, doc, preferences, isIndentOnly);
+        }
+        if (edit == null) {
+            DefaultGroovyFormatter formatter = new DefaultGroovyFormatter(sel, doc, preferences, isIndentOnly);
+            edit = formatter.format();
+        }
 
         return new TextEditFix(edit, gunit, "Format groovy source code.");
     }
 
+    /**
+     * Formats each of the changed regions on its own.  Regions are done back to
+     * front, so the edits of later regions don't move the earlier ones.
+     *
+     * @return the combined edit, or null if the regions could not be formatted separately
+     */
+    private TextEdit formatRegions(IRegion[] regions, IDocument doc, IFormatterPreferences preferences, boolean isIndentOnly) {
+        IDocument workingCopy = new Document(doc.get());
+        MultiTextEdit result = new MultiTextEdit();
+        int limit = workingCopy.getLength();
+        try {
+            for (int i = regions.length - 1; i >= 0; i -= 1) {
+                if (regions[i].getLength() == 0) {
+                    continue;
+                }
+                ITextSelection sel = new TextSelection(regions[i].getOffset(), regions[i].getLength());
+                DefaultGroovyFormatter formatter = new DefaultGroovyFormatter(sel, workingCopy, preferences, isIndentOnly);
+                TextEdit edit = formatter.format();
+                if (edit instanceof MultiTextEdit && !edit.hasChildren()) {
+                    // nothing to do
+                    continue;
+                }
+                if (edit.getExclusiveEnd() > limit) {
+                    // formatter went outside of the region
+                    return null;
+                }
+                limit = edit.getOffset();
+                result.addChild(edit.copy());
+                edit.apply(workingCopy);
+            }
+        } catch (BadLocationException e) {
+            return null;
+        } catch (MalformedTreeException e) {
+            return null;
+        }
+        return result;
+    }
+
     @Override
     public String[] getStepDescriptions() {
         return new String[] { "Format groovy source code." };
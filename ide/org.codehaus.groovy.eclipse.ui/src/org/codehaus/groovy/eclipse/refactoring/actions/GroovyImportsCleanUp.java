@@ -15,9 +15,19 @@
  */
 package org.codehaus.groovy.eclipse.refactoring.actions;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 import org.codehaus.jdt.groovy.model.GroovyCompilationUnit;
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.jdt.core.ISourceRange;
 import org.eclipse.jdt.core.search.TypeNameMatch;
 import org.eclipse.jdt.internal.corext.codemanipulation.OrganizeImportsOperation.IChooseImportQuery;
@@ -39,6 +49,32 @@ import org.eclipse.text.edits.TextEdit;
  */
 public class GroovyImportsCleanUp extends AbstractGroovyCleanUp {
 
+    /**
+     * Import edits computed up front for all of the units being cleaned up, so
+     * that missing types can be searched for once instead of once per unit
+     */
+    private Map<ICompilationUnit, TextEdit> batchEdits;
+
+    private Set<ICompilationUnit> ambiguousUnits;
+
+    @Override
+    public RefactoringStatus checkPreConditions(IJavaProject project, ICompilationUnit[] compilationUnits,
+            IProgressMonitor monitor) throws CoreException {
+        RefactoringStatus result = super.checkPreConditions(project, compilationUnits, monitor);
+        if (!result.hasFatalError() && compilationUnits.length > 1) {
+            ambiguousUnits = Collections.synchronizedSet(new HashSet<ICompilationUnit>());
+            List<OrganizeGroovyImports> ops = new ArrayList<OrganizeGroovyImports>(compilationUnits.length);
+            for (ICompilationUnit unit : compilationUnits) {
+                if (unit instanceof GroovyCompilationUnit) {
+                    ops.add(new OrganizeGroovyImports((GroovyCompilationUnit) unit, createQuery(unit)));
+                }
+            }
+            batchEdits = new HashMap<ICompilationUnit, TextEdit>(
+                    new BatchOrganizeGroovyImports(ops).calculateMissingImports(monitor));
+        }
+        return result;
+    }
+
     @Override
     public ICleanUpFix createFix(CleanUpContext context) throws CoreException {
         ICompilationUnit unit = context.getCompilationUnit();
@@ -46,20 +82,20 @@ public class GroovyImportsCleanUp extends AbstractGroovyCleanUp {
             return null;
         }
 
-        final boolean hasAmbiguity[] = new boolean[] { false };
-        IChooseImportQuery query = new IChooseImportQuery() {
-            public TypeNameMatch[] chooseImports(TypeNameMatch[][] openChoices, ISourceRange[] ranges) {
-                hasAmbiguity[0] = true;
-                return new TypeNameMatch[0];
-            }
-        };
-
-        OrganizeGroovyImports op = new OrganizeGroovyImports((GroovyCompilationUnit) unit, query);
-        final TextEdit edit = op.calculateMissingImports();
+        final TextEdit edit;
+        boolean hasAmbiguity;
+        if (batchEdits != null && batchEdits.containsKey(unit)) {
+            edit = batchEdits.remove(unit);
+            hasAmbiguity = ambiguousUnits.contains(unit);
+        } else {
+            OrganizeGroovyImports op = new OrganizeGroovyImports((GroovyCompilationUnit) unit, createQuery(unit));
+            edit = op.calculateMissingImports();
+            hasAmbiguity = ambiguousUnits != null && ambiguousUnits.contains(unit);
+        }
         if (status == null) {
             status = new RefactoringStatus();
         }
-        if (hasAmbiguity[0]) {
+        if (hasAmbiguity) {
             status.addInfo(Messages.format(ActionMessages.OrganizeImportsAction_multi_error_unresolvable, getLocationString(unit)));
         } else if (edit == null) {
             status.addInfo(Messages.format(ActionMessages.OrganizeImportsAction_multi_error_parse, getLocationString(unit)));
@@ -71,6 +107,26 @@ public class GroovyImportsCleanUp extends AbstractGroovyCleanUp {
         return new ImportsFix(edit, unit, FixMessages.ImportsFix_OrganizeImports_Description);
     }
 
+    @Override
+    public RefactoringStatus checkPostConditions(IProgressMonitor monitor) throws CoreException {
+        batchEdits = null;
+        ambiguousUnits = null;
+        return super.checkPostConditions(monitor);
+    }
+
+    private IChooseImportQuery createQuery(final ICompilationUnit unit) {
+        if (ambiguousUnits == null) {
+            ambiguousUnits = Collections.synchronizedSet(new HashSet<ICompilationUnit>());
+        }
+        final Set<ICompilationUnit> ambiguous = ambiguousUnits;
+        return new IChooseImportQuery() {
+            public TypeNameMatch[] chooseImports(TypeNameMatch[][] openChoices, ISourceRange[] ranges) {
+                ambiguous.add(unit);
+                return new TypeNameMatch[0];
+            }
+        };
+    }
+
     @Override
     public String[] getStepDescriptions() {
         return new String[] { MultiFixMessages.ImportsCleanUp_OrganizeImports_Description };
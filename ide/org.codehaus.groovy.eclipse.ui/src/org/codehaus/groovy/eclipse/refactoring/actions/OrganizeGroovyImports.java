@@ -21,6 +21,7 @@ import groovy.transform.AnnotationCollector;
 import groovy.transform.Field;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
@@ -350,6 +351,14 @@ public class OrganizeGroovyImports {
 
     private Map<String, ImportNode> importsSlatedForRemoval;
 
+    private Map<String, String> aliases;
+
+    private ImportRewrite rewriter;
+
+    private boolean safeToReorganize;
+
+    private boolean emptyModule;
+
     private IChooseImportQuery query;
 
     public OrganizeGroovyImports(GroovyCompilationUnit unit, IChooseImportQuery query) {
@@ -358,28 +367,43 @@ public class OrganizeGroovyImports {
     }
 
     public TextEdit calculateMissingImports() {
+        if (!collectReferences()) {
+            return null;
+        }
+        return rewriteImports(null);
+    }
+
+    /**
+     * First half of the organize imports operation.  Walks the module node
+     * and records the unresolved type references and the imports that are
+     * no longer referenced.  No type search is performed here.
+     *
+     * @return false if there is no usable AST (probably a syntax error)
+     */
+    boolean collectReferences() {
         ModuleNode node = unit.getModuleNode();
         if (node == null || node.encounteredUnrecoverableError()) {
             // no AST probably a syntax error...do nothing
-            return null;
+            return false;
         }
 
         if (isEmpty(node)) {
-            return new MultiTextEdit();
+            emptyModule = true;
+            return true;
         }
 
         missingTypes = new HashMap<String,UnresolvedTypeData>();
         importsSlatedForRemoval = new HashMap<String, ImportNode>();
+        aliases = new HashMap<String, String>();
         FindUnresolvedReferencesVisitor visitor = new FindUnresolvedReferencesVisitor();
-        Map<String, String> aliases = new HashMap<String, String>();
 
         try {
             // However, this leads to GRECLIPSE-1390 where imports are no longer reordered and sorted.
             // configure import rewriter to keep all existing imports.  This is different from how
             // JDT does organize imports, but this prevents annotations on imports from being removed
             SortedSet<ImportNode> allImports = new ImportNodeCompatibilityWrapper(node).getAllImportNodes();
-            boolean safeToReorganize = isSafeToReorganize(allImports);
-            ImportRewrite rewriter = CodeStyleConfiguration.createImportRewrite(unit, !safeToReorganize);
+            safeToReorganize = isSafeToReorganize(allImports);
+            rewriter = CodeStyleConfiguration.createImportRewrite(unit, !safeToReorganize);
 
             for (ImportNode imp : allImports) {
                 String fieldName = imp.getFieldName();
@@ -457,9 +481,35 @@ public class OrganizeGroovyImports {
             for (String impStr : importsSlatedForRemoval.keySet()) {
                 rewriter.removeImport(impStr);
             }
+            return true;
+        } catch (CoreException e) {
+            GroovyCore.logException("Exception thrown when organizing imports for " + unit.getElementName(), e);
+        } catch (MalformedTreeException e) {
+            GroovyCore.logException("Exception thrown when organizing imports for " + unit.getElementName(), e);
+        }
+        rewriter = null;
+        return false;
+    }
 
+    /**
+     * Second half of the organize imports operation.  Resolves the missing types
+     * collected by {@link #collectReferences()} and creates the import edit.
+     *
+     * @param typeIndex simple type name to candidate types, as computed by
+     *        {@link TypeSearch#searchForTypeNames}, or null to search the
+     *        project for just this unit's missing types
+     * @return the import edit, or null if it could not be computed
+     */
+    TextEdit rewriteImports(Map<String, List<TypeNameMatch>> typeIndex) {
+        if (emptyModule) {
+            return new MultiTextEdit();
+        }
+        if (rewriter == null) {
+            return null;
+        }
+        try {
             // resolve them
-            IType[] resolvedTypes = resolveMissingTypes();
+            IType[] resolvedTypes = resolveMissingTypes(typeIndex);
 
             for (IType resolved : resolvedTypes) {
                 rewriter.addImport(resolved.getFullyQualifiedName('.'));
@@ -482,6 +532,44 @@ public class OrganizeGroovyImports {
         return null;
     }
 
+    /**
+     * Walks the current module node of the unit, which for a working copy is
+     * the one of its last reconcile, for the types that could not be
+     * resolved. Neither the imports nor the index are looked at.
+     *
+     * @return the simple names of the unresolved types, or an empty set if
+     *         there is no usable AST
+     */
+    public Set<String> findMissingTypeNames() {
+        ModuleNode node = unit.getModuleNode();
+        if (node == null || node.encounteredUnrecoverableError()) {
+            return Collections.emptySet();
+        }
+        missingTypes = new HashMap<String, UnresolvedTypeData>();
+        importsSlatedForRemoval = new HashMap<String, ImportNode>();
+        aliases = new HashMap<String, String>();
+        FindUnresolvedReferencesVisitor visitor = new FindUnresolvedReferencesVisitor();
+        for (ClassNode clazz : (Iterable<ClassNode>) node.getClasses()) {
+            visitor.visitClass(clazz);
+        }
+        return getMissingTypeNames();
+    }
+
+    /**
+     * @return the simple names of the types that {@link #collectReferences()}
+     *         could not resolve
+     */
+    Set<String> getMissingTypeNames() {
+        if (missingTypes == null) {
+            return Collections.emptySet();
+        }
+        return missingTypes.keySet();
+    }
+
+    GroovyCompilationUnit getUnit() {
+        return unit;
+    }
+
     /**
      * GRECLIPSE-1390
      * Reorganizing imports (ie- sorting and grouping them) will remove annotations on import statements
@@ -642,10 +730,14 @@ public class OrganizeGroovyImports {
     }
 
 
-    private IType[] resolveMissingTypes() throws JavaModelException {
+    private IType[] resolveMissingTypes(Map<String, List<TypeNameMatch>> typeIndex) throws JavaModelException {
 
         // fill in all the potential matches
-        new TypeSearch().searchForTypes(unit, missingTypes);
+        if (typeIndex == null) {
+            new TypeSearch().searchForTypes(unit, missingTypes);
+        } else {
+            new TypeSearch().fillFromIndex(missingTypes, typeIndex);
+        }
         List<TypeNameMatch> missingTypesNoChoiceRequired = new ArrayList<TypeNameMatch>();
         List<TypeNameMatch[]> missingTypesChoiceRequired = new ArrayList<TypeNameMatch[]>();
         List<ISourceRange> ranges = new ArrayList<ISourceRange>();
@@ -664,7 +756,10 @@ public class OrganizeGroovyImports {
         TypeNameMatch[][] missingTypesArr = missingTypesChoiceRequired.toArray(new TypeNameMatch[0][]);
         TypeNameMatch[] chosen;
         if (missingTypesArr.length > 0) {
-            chosen = query.chooseImports(missingTypesArr, ranges.toArray(new ISourceRange[0]));
+            // the query may be shared by several units organized in parallel
+            synchronized (query) {
+                chosen = query.chooseImports(missingTypesArr, ranges.toArray(new ISourceRange[0]));
+            }
         } else {
             chosen = new TypeNameMatch[0];
         }
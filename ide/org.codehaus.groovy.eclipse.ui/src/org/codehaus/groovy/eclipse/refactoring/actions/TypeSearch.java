@@ -18,6 +18,8 @@ package org.codehaus.groovy.eclipse.refactoring.actions;
 import groovy.transform.AnnotationCollector;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -26,6 +28,7 @@ import org.codehaus.groovy.eclipse.refactoring.actions.OrganizeGroovyImports.Unr
 import org.codehaus.jdt.groovy.model.GroovyCompilationUnit;
 import org.eclipse.jdt.core.Flags;
 import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.jdt.core.JavaModelException;
 import org.eclipse.jdt.core.search.IJavaSearchConstants;
 import org.eclipse.jdt.core.search.IJavaSearchScope;
@@ -58,26 +61,65 @@ public class TypeSearch {
      */
     public void searchForTypes(GroovyCompilationUnit unit, Map<String, OrganizeGroovyImports.UnresolvedTypeData> missingTypes)
             throws JavaModelException {
-        char[][] allTypes = new char[missingTypes.size()][];
+        Map<String, List<TypeNameMatch>> typeIndex = searchForTypeNames(unit.getJavaProject(), missingTypes.keySet());
+        for (String simpleName : typeIndex.keySet()) {
+            if (!missingTypes.containsKey(simpleName)) {
+                GroovyCore.logException("GRECLIPSE-735: Match not found in missing types: " + simpleName, new Exception());
+            }
+        }
+        fillFromIndex(missingTypes, typeIndex);
+    }
+
+    /**
+     * Runs a single {@link SearchEngine#searchAllTypeNames} pass over the project for all of the given
+     * simple names, so that the result can be shared by many compilation units.
+     *
+     * @return map from simple type name to all types found with that name
+     * @throws JavaModelException
+     */
+    public Map<String, List<TypeNameMatch>> searchForTypeNames(IJavaProject project, Collection<String> simpleNames)
+            throws JavaModelException {
+        Map<String, List<TypeNameMatch>> typeIndex = new HashMap<String, List<TypeNameMatch>>();
+        if (simpleNames.isEmpty()) {
+            return typeIndex;
+        }
+        char[][] allTypes = new char[simpleNames.size()][];
         int i = 0;
-        for (String simpleName : missingTypes.keySet()) {
+        for (String simpleName : simpleNames) {
             allTypes[i++] = simpleName.toCharArray();
         }
         final List<TypeNameMatch> typesFound = new ArrayList<TypeNameMatch>();
         TypeNameMatchCollector collector = new TypeNameMatchCollector(typesFound);
-        IJavaSearchScope scope = SearchEngine.createJavaSearchScope(new IJavaElement[] { unit.getJavaProject() });
+        IJavaSearchScope scope = SearchEngine.createJavaSearchScope(new IJavaElement[] { project });
         new SearchEngine().searchAllTypeNames(null, allTypes, scope, collector, IJavaSearchConstants.WAIT_UNTIL_READY_TO_SEARCH,
                 null);
 
         for (TypeNameMatch match : typesFound) {
-            UnresolvedTypeData data = missingTypes.get(match.getSimpleTypeName());
-            if (data == null) {
-                GroovyCore.logException("GRECLIPSE-735: Match not found in missing types: " + match.getFullyQualifiedName(),
-                        new Exception());
+            List<TypeNameMatch> matches = typeIndex.get(match.getSimpleTypeName());
+            if (matches == null) {
+                matches = new ArrayList<TypeNameMatch>();
+                typeIndex.put(match.getSimpleTypeName(), matches);
+            }
+            matches.add(match);
+        }
+        return typeIndex;
+    }
+
+    /**
+     * Adds the candidates from a type index created by {@link #searchForTypeNames} to the
+     * missing types, filtering out candidates of the wrong kind.
+     */
+    public void fillFromIndex(Map<String, OrganizeGroovyImports.UnresolvedTypeData> missingTypes,
+            Map<String, List<TypeNameMatch>> typeIndex) {
+        for (UnresolvedTypeData data : missingTypes.values()) {
+            List<TypeNameMatch> matches = typeIndex.get(data.ref);
+            if (matches == null) {
                 continue;
             }
-            if (isOfKind(match, data.isAnnotation)) {
-                data.addInfo(match);
+            for (TypeNameMatch match : matches) {
+                if (isOfKind(match, data.isAnnotation)) {
+                    data.addInfo(match);
+                }
             }
         }
     }
@@ -58,6 +58,12 @@ public interface LanguageSupport {
     
     CompilationUnitDeclaration newCompilationUnitDeclaration(ICompilationUnit unit, ProblemReporter problemReporter, CompilationResult compilationResult, int sourceLength);
     
+    /**
+     * @return an empty declaration that the element infos of the unit can be converted into (by the SourceTypeConverter)
+     * instead of parsing the unit, or null if the unit has to be parsed
+     */
+    CompilationUnitDeclaration newStructureCompilationUnitDeclaration(ICompilationUnit unit, ProblemReporter problemReporter, CompilationResult compilationResult);
+    
     /**
      * Determines if the project requires special languages support.
      * 
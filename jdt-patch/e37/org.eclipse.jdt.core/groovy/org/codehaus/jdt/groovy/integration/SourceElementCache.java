@@ -0,0 +1,223 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codehaus.org, SpringSource, and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     SpringSource - Initial API and implementation
+ *******************************************************************************/
+package org.codehaus.jdt.groovy.integration;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jdt.core.compiler.CharOperation;
+import org.eclipse.jdt.internal.compiler.ISourceElementRequestor;
+import org.eclipse.jdt.internal.compiler.ISourceElementRequestor.FieldInfo;
+import org.eclipse.jdt.internal.compiler.ISourceElementRequestor.MethodInfo;
+import org.eclipse.jdt.internal.compiler.ISourceElementRequestor.TypeInfo;
+import org.eclipse.jdt.internal.compiler.ast.ASTNode;
+
+/**
+ * Remembers the source elements that the parse of an attached groovy source reported to the SourceMapper, so that they can be
+ * reported again instead of parsing the source again. The SourceMapper maps a source once for each class file that comes from
+ * it (a groovy source often makes many, eg- one for each closure) and again each time it is flushed, eg- whilst stepping through
+ * groovy library code in the debugger.
+ * <p>
+ * A source is known by its attachment, its path in the attachment and whether local declarations are reported. What is
+ * remembered is only used if the contents of the source are still the same. Only the latest sources are kept.
+ * <p>
+ * Only the names, ranges and modifiers of the reported elements are kept. The nodes of the parse (eg- {@link TypeInfo#node}, the
+ * annotations, the package declaration) are left out, so that the cache does not hold on to the groovy AST of the source.
+ */
+public class SourceElementCache {
+
+	private static final int MAX_SOURCES = 32;
+
+	private static class Entry {
+		final char[] contents;
+		final List calls; // of Object[] { Method, Object[] arguments }
+
+		Entry(char[] contents, List calls) {
+			this.contents = contents;
+			this.calls = calls;
+		}
+	}
+
+	/**
+	 * Passes the calls on to the requestor and keeps a copy of them
+	 */
+	private static class Recorder implements InvocationHandler {
+		final ISourceElementRequestor requestor;
+		final List calls = new ArrayList();
+
+		Recorder(ISourceElementRequestor requestor) {
+			this.requestor = requestor;
+		}
+
+		public Object invoke(Object proxy, Method method, Object[] arguments) throws Throwable {
+			if (method.getDeclaringClass() != Object.class) {
+				this.calls.add(new Object[] { method, copy(arguments) });
+			}
+			try {
+				return method.invoke(this.requestor, arguments);
+			} catch (InvocationTargetException e) {
+				throw e.getTargetException();
+			}
+		}
+	}
+
+	private static final Map entries = new LinkedHashMap(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		protected boolean removeEldestEntry(Map.Entry eldest) {
+			return size() > MAX_SOURCES;
+		}
+	};
+
+	private SourceElementCache() {
+		// static only
+	}
+
+	/**
+	 * @return the arguments to remember for a call: the infos without their nodes and annotations, and null in place of any
+	 *         other node (the SourceMapper does not use them)
+	 */
+	static Object[] copy(Object[] arguments) {
+		if (arguments == null) {
+			return null;
+		}
+		Object[] copies = new Object[arguments.length];
+		for (int i = 0; i < arguments.length; i++) {
+			Object argument = arguments[i];
+			if (argument instanceof TypeInfo) {
+				copies[i] = copy((TypeInfo) argument);
+			} else if (argument instanceof MethodInfo) {
+				copies[i] = copy((MethodInfo) argument);
+			} else if (argument instanceof FieldInfo) {
+				copies[i] = copy((FieldInfo) argument);
+			} else if (!(argument instanceof ASTNode)) {
+				copies[i] = argument;
+			}
+		}
+		return copies;
+	}
+
+	private static TypeInfo copy(TypeInfo info) {
+		TypeInfo copy = new TypeInfo();
+		copy.declarationStart = info.declarationStart;
+		copy.modifiers = info.modifiers;
+		copy.name = info.name;
+		copy.nameSourceStart = info.nameSourceStart;
+		copy.nameSourceEnd = info.nameSourceEnd;
+		copy.superclass = info.superclass;
+		copy.superinterfaces = info.superinterfaces;
+		copy.typeParameters = info.typeParameters;
+		copy.categories = info.categories;
+		copy.secondary = info.secondary;
+		copy.anonymousMember = info.anonymousMember;
+		copy.extraFlags = info.extraFlags;
+		return copy;
+	}
+
+	private static MethodInfo copy(MethodInfo info) {
+		MethodInfo copy = new MethodInfo();
+		copy.isConstructor = info.isConstructor;
+		copy.isAnnotation = info.isAnnotation;
+		copy.declarationStart = info.declarationStart;
+		copy.modifiers = info.modifiers;
+		copy.returnType = info.returnType;
+		copy.name = info.name;
+		copy.nameSourceStart = info.nameSourceStart;
+		copy.nameSourceEnd = info.nameSourceEnd;
+		copy.parameterTypes = info.parameterTypes;
+		copy.parameterNames = info.parameterNames;
+		copy.exceptionTypes = info.exceptionTypes;
+		copy.typeParameters = info.typeParameters;
+		copy.categories = info.categories;
+		copy.declaringPackageName = info.declaringPackageName;
+		copy.declaringTypeModifiers = info.declaringTypeModifiers;
+		copy.extraFlags = info.extraFlags;
+		copy.parameterInfos = info.parameterInfos;
+		return copy;
+	}
+
+	private static FieldInfo copy(FieldInfo info) {
+		FieldInfo copy = new FieldInfo();
+		copy.declarationStart = info.declarationStart;
+		copy.modifiers = info.modifiers;
+		copy.type = info.type;
+		copy.name = info.name;
+		copy.nameSourceStart = info.nameSourceStart;
+		copy.nameSourceEnd = info.nameSourceEnd;
+		copy.categories = info.categories;
+		return copy;
+	}
+
+	public static String getKey(Object attachmentPath, String rootPath, String packageName, String sourceFileName,
+			boolean reportLocalDeclarations) {
+		return String.valueOf(attachmentPath) + '|' + rootPath + '|' + packageName + '/' + sourceFileName + '|'
+				+ reportLocalDeclarations;
+	}
+
+	/**
+	 * Reports the remembered source elements of the source to the requestor
+	 * 
+	 * @return false if nothing is remembered for the source or it has changed, so that it has to be parsed
+	 */
+	public static boolean replay(String key, char[] contents, ISourceElementRequestor requestor) {
+		Entry entry;
+		synchronized (entries) {
+			entry = (Entry) entries.get(key);
+		}
+		if (entry == null || !CharOperation.equals(entry.contents, contents)) {
+			return false;
+		}
+		for (Iterator it = entry.calls.iterator(); it.hasNext();) {
+			Object[] call = (Object[]) it.next();
+			try {
+				((Method) call[0]).invoke(requestor, (Object[]) call[1]);
+			} catch (InvocationTargetException e) {
+				Throwable cause = e.getTargetException();
+				if (cause instanceof RuntimeException) {
+					throw (RuntimeException) cause;
+				}
+				if (cause instanceof Error) {
+					throw (Error) cause;
+				}
+				throw new IllegalStateException(cause.toString());
+			} catch (IllegalAccessException e) {
+				throw new IllegalStateException(e.toString());
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return a requestor to parse the source with, which passes the source elements on to the given requestor, and
+	 *         remembers them for when it is given to {@link #store(String, char[], ISourceElementRequestor)}
+	 */
+	public static ISourceElementRequestor record(ISourceElementRequestor requestor) {
+		return (ISourceElementRequestor) Proxy.newProxyInstance(SourceElementCache.class.getClassLoader(),
+				new Class[] { ISourceElementRequestor.class }, new Recorder(requestor));
+	}
+
+	/**
+	 * Remembers the source elements reported to the requestor for the source, once the parse is complete
+	 */
+	public static void store(String key, char[] contents, ISourceElementRequestor recorder) {
+		Recorder handler = (Recorder) Proxy.getInvocationHandler(recorder);
+		synchronized (entries) {
+			entries.put(key, new Entry((char[]) contents.clone(), handler.calls));
+		}
+	}
+}
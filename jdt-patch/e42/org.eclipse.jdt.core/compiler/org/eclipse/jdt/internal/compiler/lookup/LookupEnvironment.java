@@ -32,6 +32,7 @@ import org.eclipse.jdt.internal.compiler.impl.ITypeRequestor;
 import org.eclipse.jdt.internal.compiler.problem.AbortCompilation;
 import org.eclipse.jdt.internal.compiler.problem.ProblemReporter;
 import org.eclipse.jdt.internal.compiler.util.HashtableOfPackage;
+import org.eclipse.jdt.internal.compiler.util.HashtableOfType;
 import org.eclipse.jdt.internal.compiler.util.SimpleLookupTable;
 
 public class LookupEnvironment implements ProblemReasons, TypeConstants {
@@ -1463,6 +1464,53 @@ public void releaseClassFiles(org.eclipse.jdt.internal.compiler.ClassFile[] clas
 		this.classFilePool.release(classFiles[i]);
 }
 
+// GROOVY start: new method
+/**
+ * Forgets the compilation units and the source types seen so far, but keeps the bindings of binary types, so that a long
+ * lived environment (eg- the one of the snippet compiler) does not read the same class files again for every unit. Types and
+ * packages that were not found are forgotten too, since they may be found in a source that was added since.
+ * <p>
+ * Binary types are assumed not to refer to source types, which holds as long as the classpath of the name environment does
+ * not change.
+ */
+public void resetSourceTypes() {
+	for (int i = this.units.length; --i >= 0;)
+		this.units[i] = null;
+	this.lastUnitIndex = -1;
+	this.lastCompletedUnitIndex = -1;
+	this.unitBeingCompleted = null;
+	resetSourceTypes(this.defaultPackage);
+	this.knownPackages = resetSourceTypes(this.knownPackages);
+}
+
+private HashtableOfPackage resetSourceTypes(HashtableOfPackage packages) {
+	HashtableOfPackage kept = new HashtableOfPackage(packages.elementSize);
+	for (int i = 0, length = packages.valueTable.length; i < length; i++) {
+		PackageBinding packageBinding = packages.valueTable[i];
+		if (packageBinding != null && packageBinding != TheNotFoundPackage) {
+			resetSourceTypes(packageBinding);
+			kept.put(packages.keyTable[i], packageBinding);
+		}
+	}
+	return kept;
+}
+
+private void resetSourceTypes(PackageBinding packageBinding) {
+	if (packageBinding.knownTypes != null) {
+		HashtableOfType types = packageBinding.knownTypes;
+		HashtableOfType kept = new HashtableOfType(types.elementSize);
+		for (int i = 0, length = types.valueTable.length; i < length; i++) {
+			ReferenceBinding type = types.valueTable[i];
+			if (type != null && type != TheNotFoundType && !(type instanceof SourceTypeBinding))
+				kept.put(types.keyTable[i], type);
+		}
+		packageBinding.knownTypes = kept;
+	}
+	if (packageBinding.knownPackages != null)
+		packageBinding.knownPackages = resetSourceTypes(packageBinding.knownPackages);
+}
+// GROOVY end
+
 public void reset() {
 	this.defaultPackage = new PackageBinding(this); // assume the default package always exists
 	this.defaultImports = null;
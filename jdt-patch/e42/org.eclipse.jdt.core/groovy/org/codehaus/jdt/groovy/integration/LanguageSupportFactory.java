@@ -77,6 +77,10 @@ public class LanguageSupportFactory {
         return getLanguageSupport().newCompilationUnitDeclaration(unit, problemReporter, compilationResult, sourceLength);
     }
 	
+	public static CompilationUnitDeclaration newStructureCompilationUnitDeclaration(ICompilationUnit unit, ProblemReporter problemReporter, CompilationResult compilationResult) {
+		return getLanguageSupport().newStructureCompilationUnitDeclaration(unit, problemReporter, compilationResult);
+    }
+	
 	public static boolean isInterestingProject(IProject project) {
 	    return getLanguageSupport().isInterestingProject(project);
 	}
@@ -26,6 +26,7 @@ import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
 import org.codehaus.jdt.groovy.integration.LanguageSupportFactory;
+import org.codehaus.jdt.groovy.integration.SourceElementCache;
 import org.eclipse.core.resources.IContainer;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IFolder;
@@ -1403,16 +1404,34 @@ public class SourceMapper
 	        // GROOVY start
 	        /* old {
 			parser = new SourceElementParser(this, factory, new CompilerOptions(this.options), doFullParse, true/*optimize string literals..);
-	        } new */
-			parser = LanguageSupportFactory.getSourceElementParser(this, factory, new CompilerOptions(this.options), doFullParse, true/*optimize string literals*/, true);
-	        // GROOVY end
 			parser.javadocParser.checkDocComment = false; // disable javadoc parsing
 			IJavaElement javaElement = this.binaryType.getCompilationUnit();
 			if (javaElement == null) javaElement = this.binaryType.getParent();
 			parser.parseCompilationUnit(
 				new BasicCompilationUnit(contents, null, this.binaryType.sourceFileName(info), javaElement),
 				doFullParse,
-				null/*no progress*/);
+				null/*no progress..);
+	        } new */
+			IJavaElement javaElement = this.binaryType.getCompilationUnit();
+			if (javaElement == null) javaElement = this.binaryType.getParent();
+			// the source elements of a groovy source are remembered, and reported again for the other class files of the source
+			String sourceFileName = this.binaryType.sourceFileName(info);
+			String cacheKey = LanguageSupportFactory.isInterestingSourceFile(sourceFileName)
+					? SourceElementCache.getKey(this.sourcePath, this.rootPath, this.binaryType.getPackageFragment().getElementName(), sourceFileName, doFullParse)
+					: null;
+			if (cacheKey == null || !SourceElementCache.replay(cacheKey, contents, this)) {
+				ISourceElementRequestor requestor = cacheKey == null ? (ISourceElementRequestor) this : SourceElementCache.record(this);
+				parser = LanguageSupportFactory.getSourceElementParser(requestor, factory, new CompilerOptions(this.options), doFullParse, true/*optimize string literals*/, true);
+				parser.javadocParser.checkDocComment = false; // disable javadoc parsing
+				parser.parseCompilationUnit(
+					new BasicCompilationUnit(contents, null, sourceFileName, javaElement),
+					doFullParse,
+					null/*no progress*/);
+				if (cacheKey != null) {
+					SourceElementCache.store(cacheKey, contents, requestor);
+				}
+			}
+	        // GROOVY end
 			// GROOVY start
 	        // if this is an interesting file in an interesting project,
 			// then filter out all binary members that do not have a direct
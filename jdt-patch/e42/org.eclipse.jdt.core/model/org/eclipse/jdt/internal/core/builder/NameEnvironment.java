@@ -262,9 +262,23 @@ private void createParentFolder(IContainer parent) throws CoreException {
 
 // GRECLIPSE 1594
 public boolean avoidAdditionalGroovyAnswers = false;
+// set by the builder when it compiles in groups, so that the groovy units of later groups are answered (and faulted in)
+// instead of being avoided for good, see GroovyCompilationUnitScope
+public boolean faultInAdditionalGroovyUnits = false;
+// the groovy units of later groups that were asked for while they could not be faulted in any more, so that the builder
+// compiles the group again with them (see AbstractImageBuilder.compileGroup())
+public List missedGroovyUnits = Collections.synchronizedList(new ArrayList());
 private static char[] groovySuffixAsChars = ".groovy".toCharArray(); //$NON-NLS-1$
 // GRECLIPSE end
 
+// GROOVY start
+private void missedGroovyUnit(SourceFile unit) {
+	if (this.faultInAdditionalGroovyUnits && !this.missedGroovyUnits.contains(unit)) {
+		this.missedGroovyUnits.add(unit);
+	}
+}
+// GROOVY end
+
 private NameEnvironmentAnswer findClass(String qualifiedTypeName, char[] typeName) {
 	if (this.notifier != null)
 		this.notifier.checkCancelWithinCompiler();
@@ -290,6 +304,7 @@ private NameEnvironmentAnswer findClass(String qualifiedTypeName, char[] typeNam
 			// GRECLIPSE patch
 			if (this.avoidAdditionalGroovyAnswers && unit!=null) {
 				if (CharOperation.endsWith(unit.getFileName(),groovySuffixAsChars)) {
+					missedGroovyUnit(unit);
 					unit = null;
 				}
 			}
@@ -301,6 +316,7 @@ private NameEnvironmentAnswer findClass(String qualifiedTypeName, char[] typeNam
 		// GRECLIPSE patch
 		if (this.avoidAdditionalGroovyAnswers && unit!=null) {
 			if (CharOperation.endsWith(unit.getFileName(),groovySuffixAsChars)) {
+				missedGroovyUnit(unit);
 				unit = null;
 			}
 		}
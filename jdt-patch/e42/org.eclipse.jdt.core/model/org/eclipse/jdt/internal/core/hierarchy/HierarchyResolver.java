@@ -149,7 +149,12 @@ public void accept(ISourceType[] sourceTypes, PackageBinding packageBinding, Acc
 	CompilationUnitDeclaration unit =
 		SourceTypeConverter.buildCompilationUnit(
 			new ISourceType[] {sourceType}, // ignore secondary types, to improve laziness
+			// GROOVY start
+			/* old {
 			SourceTypeConverter.MEMBER_TYPE, // need member types
+			} new */
+			SourceTypeConverter.MEMBER_TYPE | SourceTypeConverter.GROOVY_FROM_ELEMENT_INFOS, // need member types
+			// GROOVY end
 			// no need for field initialization
 			this.lookupEnvironment.problemReporter,
 			result);
@@ -675,6 +680,11 @@ public void resolve(Openable[] openables, HashSet localTypes, IProgressMonitor m
 					int flags = !containsLocalType
 						? SourceTypeConverter.MEMBER_TYPE
 						: SourceTypeConverter.FIELD_AND_METHOD | SourceTypeConverter.MEMBER_TYPE | SourceTypeConverter.LOCAL_TYPE;
+					// GROOVY start: an open groovy unit is converted from its element infos instead of being parsed
+					if (!containsLocalType) {
+						flags |= SourceTypeConverter.GROOVY_FROM_ELEMENT_INFOS;
+					}
+					// GROOVY end
 					parsedUnit =
 						SourceTypeConverter.buildCompilationUnit(
 							typeInfos,
@@ -129,6 +129,13 @@ public void acceptResult(CompilationResult result) {
 	// Before reporting the new problems, we need to update the problem count &
 	// remove the old problems. Plus delete additional class files that no longer exist.
 
+	// GROOVY start
+	// nothing more of a group that asked for groovy units it could not fault in is accepted, see compileGroup()
+	if (this.nameEnvironment.faultInAdditionalGroovyUnits && !this.nameEnvironment.missedGroovyUnits.isEmpty()) {
+		SourceFile[] missed = (SourceFile[]) this.nameEnvironment.missedGroovyUnits.toArray(new SourceFile[0]);
+		throw new AbortCompilation(true, new MissedGroovyUnitsException(missed));
+	}
+	// GROOVY end
 	SourceFile compilationUnit = (SourceFile) result.getCompilationUnit(); // go directly back to the sourceFile
 	if (!this.workQueue.isCompiled(compilationUnit)) {
 		this.workQueue.finished(compilationUnit);
@@ -316,11 +323,14 @@ protected void compile(SourceFile[] units) {
 	this.compiledAllAtOnce = MAX_AT_ONCE == 0 || unitsLength <= MAX_AT_ONCE;
 
 	// GROOVY start
-	// currently can't easily fault in files from the other group.  Easier to
-	// do this than fix that right now.
+	// groovy units of later groups are faulted in when they are referenced, until the groovy compilation
+	// starts to drive its units through the phases after parsing (see GroovyCompilationUnitScope.faultInTypes());
+	// a group that asks for one after that is compiled again with it (see compileGroup())
 	if (this.compiler!=null && this.compiler.options!=null && this.compiler.options.buildGroovyFiles==2) {
-		// System.out.println("although more than "+MAX_AT_ONCE+" still compiling "+unitsLength+" files at once");
-		this.compiledAllAtOnce = true;
+		this.nameEnvironment.faultInAdditionalGroovyUnits = !this.compiledAllAtOnce;
+		if (!this.compiledAllAtOnce) {
+			this.nameEnvironment.avoidAdditionalGroovyAnswers = false;
+		}
 	}
 	// GROOVY end
 	if (this.compiledAllAtOnce) {
@@ -355,7 +365,10 @@ protected void compile(SourceFile[] units) {
 				for (int a = remainingIndex; a < unitsLength; a++)
 					if (remainingUnits[a] != null && this.workQueue.isCompiled(remainingUnits[a]))
 						remainingUnits[a] = null; // use the class file for this source file since its been compiled
-			compile(toCompile, remainingUnits, compilingFirstGroup);
+			// GROOVY start
+			// compile(toCompile, remainingUnits, compilingFirstGroup);
+			compileGroup(toCompile, remainingUnits, compilingFirstGroup);
+			// GROOVY end
 			compilingFirstGroup = false;
 		}
 	}
@@ -369,6 +382,67 @@ protected void compile(SourceFile[] units) {
 	}
 }
 
+// GROOVY start
+static class MissedGroovyUnitsException extends RuntimeException {
+	private static final long serialVersionUID = 1L;
+	final SourceFile[] units;
+	MissedGroovyUnitsException(SourceFile[] units) {
+		this.units = units;
+	}
+}
+
+/**
+ * Compiles a group of a build that is done in groups. When the groovy compilation of the group asked for groovy units of
+ * later groups after it could no longer take them on, nothing more of the group is accepted and the units of the group that
+ * are not compiled yet are compiled again together with those units, until they have all they refer to. A group therefore
+ * grows to the part of the build that is not compiled yet and that its groovy units refer to, so that the memory of a group
+ * is bounded by that and not by MAX_AT_ONCE.
+ * When the missed units cannot be added any more, the group is compiled once more without faulting in groovy units.
+ */
+private void compileGroup(SourceFile[] toCompile, SourceFile[] remainingUnits, boolean compilingFirstGroup) {
+	while (true) {
+		try {
+			compile(toCompile, remainingUnits, compilingFirstGroup);
+			return;
+		} catch (MissedGroovyUnitsException e) {
+			ArrayList group = new ArrayList(toCompile.length + e.units.length);
+			for (int i = 0, l = toCompile.length; i < l; i++)
+				if (!this.workQueue.isCompiled(toCompile[i]))
+					group.add(toCompile[i]);
+			boolean grown = false;
+			for (int a = 0, l = remainingUnits.length; a < l; a++) {
+				SourceFile unit = remainingUnits[a];
+				if (unit == null) continue;
+				if (this.workQueue.isCompiled(unit)) {
+					remainingUnits[a] = null;
+					continue;
+				}
+				for (int i = 0, m = e.units.length; i < m; i++) {
+					if (unit.equals(e.units[i])) {
+						group.add(unit);
+						remainingUnits[a] = null;
+						grown = true;
+						break;
+					}
+				}
+			}
+			toCompile = (SourceFile[]) group.toArray(new SourceFile[group.size()]);
+			if (JavaBuilder.DEBUG)
+				System.out.println("About to compile the group again with " + toCompile.length + " units, grown: " + grown); //$NON-NLS-1$ //$NON-NLS-2$
+			if (!grown) {
+				this.nameEnvironment.faultInAdditionalGroovyUnits = false;
+				try {
+					compile(toCompile, remainingUnits, compilingFirstGroup);
+				} finally {
+					this.nameEnvironment.faultInAdditionalGroovyUnits = true;
+				}
+				return;
+			}
+		}
+	}
+}
+// GROOVY end
+
 protected void compile(SourceFile[] units, SourceFile[] additionalUnits, boolean compilingFirstGroup) {
 	if (units.length == 0) return;
 	this.notifier.aboutToCompile(units[0]); // just to change the message
@@ -388,6 +462,13 @@ protected void compile(SourceFile[] units, SourceFile[] additionalUnits, boolean
 	for (int i = 0, l = units.length; i < l; i++)
 		initialTypeNames[i] = units[i].initialTypeName;
 	this.nameEnvironment.setNames(initialTypeNames, additionalUnits);
+	// GROOVY start
+	if (this.nameEnvironment.faultInAdditionalGroovyUnits) {
+		// the groovy compilation of the group can take on the groovy units of later groups until it gets past parsing
+		this.nameEnvironment.avoidAdditionalGroovyAnswers = false;
+		this.nameEnvironment.missedGroovyUnits.clear();
+	}
+	// GROOVY end
 	this.notifier.checkCancel();
 	try {
 		this.inCompiler = true;
@@ -25,7 +25,7 @@ public class NoopIndexer implements ISupplementalIndexer {
 	/**
 	 * @return an empty list
 	 */
-	public List extractNamedReferences(byte[] contents, ClassFileReader reader) {
+	public List extractNamedReferences(byte[] contents, ClassFileReader reader, String documentPath) {
 		return Collections.EMPTY_LIST;
 	}
 
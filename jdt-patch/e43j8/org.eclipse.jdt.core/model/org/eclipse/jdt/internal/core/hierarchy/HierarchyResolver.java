@@ -152,7 +152,12 @@ public void accept(ISourceType[] sourceTypes, PackageBinding packageBinding, Acc
 	CompilationUnitDeclaration unit =
 		SourceTypeConverter.buildCompilationUnit(
 			new ISourceType[] {sourceType}, // ignore secondary types, to improve laziness
+			// GROOVY start
+			/* old {
 			SourceTypeConverter.MEMBER_TYPE | (this.lookupEnvironment.globalOptions.sourceLevel >= ClassFileConstants.JDK1_8 ? SourceTypeConverter.METHOD : 0), // need member types
+			} new */
+			SourceTypeConverter.MEMBER_TYPE | (this.lookupEnvironment.globalOptions.sourceLevel >= ClassFileConstants.JDK1_8 ? SourceTypeConverter.METHOD : 0) | SourceTypeConverter.GROOVY_FROM_ELEMENT_INFOS, // need member types
+			// GROOVY end
 			// no need for field initialization
 			this.lookupEnvironment.problemReporter,
 			result);
@@ -705,6 +710,11 @@ public void resolve(Openable[] openables, HashSet localTypes, IProgressMonitor m
 					int flags = !containsLocalType
 						? SourceTypeConverter.MEMBER_TYPE | (isJava8 ? SourceTypeConverter.METHOD : 0)
 						: SourceTypeConverter.FIELD_AND_METHOD | SourceTypeConverter.MEMBER_TYPE | SourceTypeConverter.LOCAL_TYPE;
+					// GROOVY start: an open groovy unit is converted from its element infos instead of being parsed
+					if (!containsLocalType) {
+						flags |= SourceTypeConverter.GROOVY_FROM_ELEMENT_INFOS;
+					}
+					// GROOVY end
 					parsedUnit =
 						SourceTypeConverter.buildCompilationUnit(
 							typeInfos,
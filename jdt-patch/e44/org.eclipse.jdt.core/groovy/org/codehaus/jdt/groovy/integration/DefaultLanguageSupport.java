@@ -95,6 +95,13 @@ class DefaultLanguageSupport implements LanguageSupport {
 		return new CompilationUnitDeclaration(problemReporter, compilationResult, sourceLength);
 	}
 
+	public CompilationUnitDeclaration newStructureCompilationUnitDeclaration(
+			ICompilationUnit unit,
+			ProblemReporter problemReporter, CompilationResult compilationResult) {
+		// converted into the declaration made by newCompilationUnitDeclaration
+		return null;
+	}
+
     public boolean isInterestingProject(IProject project) {
         // assume that if this method is called, them this is a Java project
         return true;
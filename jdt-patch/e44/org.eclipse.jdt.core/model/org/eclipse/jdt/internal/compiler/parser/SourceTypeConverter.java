@@ -66,6 +66,9 @@ public class SourceTypeConverter extends TypeConverter {
 	public static final int FIELD_INITIALIZATION = 0x10;
 	public static final int FIELD_AND_METHOD = FIELD | CONSTRUCTOR | METHOD;
 	public static final int LOCAL_TYPE = 0x20;
+	// GROOVY start
+	public static final int GROOVY_FROM_ELEMENT_INFOS = 0x40; // convert a groovy unit like a java one rather than parse it, unless local types are wanted
+	// GROOVY end
 	public static final int NONE = 0;
 
 	private int flags;
@@ -73,6 +76,9 @@ public class SourceTypeConverter extends TypeConverter {
 	private Parser parser;
 	private ICompilationUnit cu;
 	private char[] source;
+	// GROOVY start
+	private boolean fromElementInfos;
+	// GROOVY end
 
 	private SourceTypeConverter(int flags, ProblemReporter problemReporter) {
 		super(problemReporter, Signature.C_DOT);
@@ -112,7 +118,14 @@ public class SourceTypeConverter extends TypeConverter {
         /* old {
 		this.unit = new CompilationUnitDeclaration(this.problemReporter, compilationResult, 0);
         } new */
-		this.unit = LanguageSupportFactory.newCompilationUnitDeclaration((ICompilationUnit) ((SourceTypeElementInfo) sourceTypes[0]).getHandle().getCompilationUnit(), this.problemReporter, compilationResult, 0);
+		ICompilationUnit sourceUnit = (ICompilationUnit) ((SourceTypeElementInfo) sourceTypes[0]).getHandle().getCompilationUnit();
+		if ((this.flags & (GROOVY_FROM_ELEMENT_INFOS | LOCAL_TYPE)) == GROOVY_FROM_ELEMENT_INFOS) {
+			this.unit = LanguageSupportFactory.newStructureCompilationUnitDeclaration(sourceUnit, this.problemReporter, compilationResult);
+		}
+		this.fromElementInfos = this.unit != null;
+		if (!this.fromElementInfos) {
+			this.unit = LanguageSupportFactory.newCompilationUnitDeclaration(sourceUnit, this.problemReporter, compilationResult, 0);
+		}
         // GROOVY end
 		// not filled at this point
 
@@ -128,7 +141,7 @@ public class SourceTypeConverter extends TypeConverter {
 
 //		final boolean isInterestingProject = LanguageSupportFactory.isInterestingProject(compilationResult.getCompilationUnit().getjavaBuilder.getProject());
 		// GROOVY should be 'true' here?
-		if (LanguageSupportFactory.isInterestingSourceFile(new String(compilationResult.getFileName()))) {
+		if (!this.fromElementInfos && LanguageSupportFactory.isInterestingSourceFile(new String(compilationResult.getFileName()))) {
 			try {
 				return LanguageSupportFactory.getParser(this, this.problemReporter.options, this.problemReporter, true, 3).dietParse(this.cu, compilationResult);
 			} catch (Throwable t) {
@@ -138,9 +151,16 @@ public class SourceTypeConverter extends TypeConverter {
 		// GROOVY end
 		
 		final CompilationUnitElementInfo compilationUnitElementInfo = (CompilationUnitElementInfo) ((JavaElement) this.cu).getElementInfo();
+		// GROOVY start: a groovy unit converted from its element infos must not go to the java parser
+		/* old {
   		if (this.has1_5Compliance && 
  				(compilationUnitElementInfo.annotationNumber >= CompilationUnitElementInfo.ANNOTATION_THRESHOLD_FOR_DIET_PARSE ||
  				(compilationUnitElementInfo.hasFunctionalTypes && (this.flags & LOCAL_TYPE) != 0))) {
+		} new */
+  		if (!this.fromElementInfos && this.has1_5Compliance && 
+ 				(compilationUnitElementInfo.annotationNumber >= CompilationUnitElementInfo.ANNOTATION_THRESHOLD_FOR_DIET_PARSE ||
+ 				(compilationUnitElementInfo.hasFunctionalTypes && (this.flags & LOCAL_TYPE) != 0))) {
+		// GROOVY end
 			// If more than 10 annotations, diet parse as this is faster, but not if
 			// the client wants local and anonymous types to be converted (https://bugs.eclipse.org/bugs/show_bug.cgi?id=254738)
 			// Also see bug https://bugs.eclipse.org/bugs/show_bug.cgi?id=405843
@@ -191,6 +211,11 @@ public class SourceTypeConverter extends TypeConverter {
 			this.unit.types = types;
 			return this.unit;
 		} catch (AnonymousMemberFound e) {
+			// GROOVY start
+			if (this.fromElementInfos) {
+				return LanguageSupportFactory.getParser(this, this.problemReporter.options, this.problemReporter, true, 3).dietParse(this.cu, compilationResult);
+			}
+			// GROOVY end
 			return new Parser(this.problemReporter, true).parse(this.cu, compilationResult);
 		}
 	}
@@ -624,6 +649,11 @@ public class SourceTypeConverter extends TypeConverter {
 	}
 
 	private Annotation[] convertAnnotations(IAnnotatable element) throws JavaModelException {
+		// GROOVY start: groovy annotations can't be given to the java parser, and are not needed for a hierarchy
+		if (this.fromElementInfos) {
+			return new Annotation[0];
+		}
+		// GROOVY end
 		IAnnotation[] annotations = element.getAnnotations();
 		int length = annotations.length;
 		Annotation[] astAnnotations = new Annotation[length];
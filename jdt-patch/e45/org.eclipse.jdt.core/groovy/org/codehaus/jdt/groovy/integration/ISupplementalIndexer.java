@@ -26,8 +26,10 @@ public interface ISupplementalIndexer {
 	 * Provides supplemental indexing for a class file
 	 * @param contents The byte contents of the classfile
 	 * @param reader a reader for the class file
+	 * @param documentPath the path of the index document for the class file (for a jar entry, the path of the jar and the
+	 *        path of the entry separated by '|')
 	 * @return a char[] list of extra things to add to the index
 	 */
-	List extractNamedReferences(byte[] contents, ClassFileReader reader);
+	List extractNamedReferences(byte[] contents, ClassFileReader reader, String documentPath);
 
 }